@@ -0,0 +1,20 @@
+#!/bin/sh
+# Build and run the benchmarks against an installed plugin version and write
+# the JMH results to results/benchmarks-<version>.json. Compare two versions by
+# running the script for both and loading the reports in a JMH visualizer, e.g.:
+#
+#   ./run-benchmarks.sh 1.0.3
+#   ./run-benchmarks.sh 1.0.4 -p fileCount=1000
+#
+# Additional arguments are passed to JMH (java -jar target/benchmarks.jar -h).
+
+cd "$(dirname "$0")" || exit 1
+version=${1:-1.0.3}
+[ $# -gt 0 ] && shift
+
+PATH="$(pwd)/src/fake:$PATH"
+export PATH
+
+mvn -B -q -Dorclapex.version="$version" clean package || exit 1
+mkdir -p results
+java -jar target/benchmarks.jar -rf json -rff "results/benchmarks-$version.json" "$@"
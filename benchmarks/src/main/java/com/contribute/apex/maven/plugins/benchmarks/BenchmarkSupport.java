@@ -0,0 +1,231 @@
+package com.contribute.apex.maven.plugins.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Synthetic APEX exports and helpers to configure the mojos outside Maven.
+ */
+public final class BenchmarkSupport {
+
+    /**
+     * The size in bytes of a synthetic page export file, about the size of a
+     * simple form page.
+     */
+    private static final int PAGE_SIZE = 2048;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Create a split export with a set_environment.sql file, the given number
+     * of page files and an end_environment.sql file.
+     *
+     * @param fileCount the total number of export files.
+     * @return the export folder.
+     */
+    public static File createExport(int fileCount) throws IOException {
+        File folder = createTempFolder("orclapex-export");
+
+        writeFile(new File(folder, "set_environment.sql"), "prompt --application/set_environment\nbegin\n  null;\nend;\n/\n");
+        for (int i = 1; i <= Math.max(1, fileCount - 2); i++) {
+            writeFile(new File(folder, String.format("page_%05d.sql", i)), getPageExport(i));
+        }
+        writeFile(new File(folder, "end_environment.sql"), "prompt --application/end_environment\nbegin\n  commit;\nend;\n/\n");
+
+        return folder;
+    }
+
+    /**
+     * Create a folder with the given number of PL/SQL package specifications
+     * for Natural Docs.
+     *
+     * @param fileCount the number of source files.
+     * @return the source folder.
+     */
+    public static File createSources(int fileCount) throws IOException {
+        File folder = createTempFolder("orclapex-sources");
+
+        for (int i = 1; i <= fileCount; i++) {
+            writeFile(new File(folder, String.format("pkg_%05d.pks", i)), "/*\n  Package: pkg_" + i + "\n*/\ncreate or replace package pkg_" + i
+                    + " as\n  /*\n    Function: f\n  */\n  function f return number;\nend;\n/\n");
+        }
+
+        return folder;
+    }
+
+    private static String getPageExport(int pageId) {
+        StringBuilder export = new StringBuilder("prompt --application/pages/page_" + String.format("%05d", pageId) + "\nbegin\n");
+
+        while (export.length() < PAGE_SIZE) {
+            export.append("wwv_flow_api.create_page_item(\n")
+                    .append(" p_id=>wwv_flow_api.id(").append(export.length()).append(pageId).append(")\n")
+                    .append(",p_name=>'P").append(pageId).append("_ITEM'\n")
+                    .append(",p_item_sequence=>").append(export.length()).append("\n);\n");
+        }
+        export.append("end;\n/\n");
+
+        return export.toString();
+    }
+
+    /**
+     * @param prefix the folder name prefix.
+     * @return a new empty folder in the temporary folder.
+     */
+    public static File createTempFolder(String prefix) throws IOException {
+        File folder = File.createTempFile(prefix, "");
+
+        if (!folder.delete() || !folder.mkdir()) {
+            throw new IOException("Unable to create " + folder.getAbsolutePath());
+        }
+
+        return folder;
+    }
+
+    private static void writeFile(File file, String contents) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Delete a file or a folder with its contents.
+     *
+     * @param file the file or folder.
+     */
+    public static void delete(File file) {
+        File[] files = file.listFiles();
+
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Set a private field of a mojo, as Maven does when it injects the
+     * parameters.
+     *
+     * @param target the mojo.
+     * @param name the field name.
+     * @param value the field value.
+     */
+    public static void setField(Object target, String name, Object value) {
+        if (!setOptionalField(target, name, value)) {
+            throw new IllegalArgumentException("Unknown field: " + name);
+        }
+    }
+
+    /**
+     * Set a private field of a mojo that earlier versions of the plugin don't
+     * have, so the benchmarks run against every version.
+     *
+     * @param target the mojo.
+     * @param name the field name.
+     * @param value the field value.
+     * @return false if the mojo doesn't have the field.
+     */
+    public static boolean setOptionalField(Object target, String name, Object value) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(target, value);
+                return true;
+            } catch (NoSuchFieldException ex) {
+                // declared by a superclass
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException("Unable to set " + name, ex);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A Maven log that discards everything, so the benchmarks measure the
+     * mojos and not the console.
+     */
+    public static class QuietLog implements Log {
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+
+        @Override
+        public void debug(CharSequence content) {
+        }
+
+        @Override
+        public void debug(CharSequence content, Throwable error) {
+        }
+
+        @Override
+        public void debug(Throwable error) {
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return false;
+        }
+
+        @Override
+        public void info(CharSequence content) {
+        }
+
+        @Override
+        public void info(CharSequence content, Throwable error) {
+        }
+
+        @Override
+        public void info(Throwable error) {
+        }
+
+        @Override
+        public boolean isWarnEnabled() {
+            return false;
+        }
+
+        @Override
+        public void warn(CharSequence content) {
+        }
+
+        @Override
+        public void warn(CharSequence content, Throwable error) {
+        }
+
+        @Override
+        public void warn(Throwable error) {
+        }
+
+        @Override
+        public boolean isErrorEnabled() {
+            return true;
+        }
+
+        @Override
+        public void error(CharSequence content) {
+            System.err.println(content);
+        }
+
+        @Override
+        public void error(CharSequence content, Throwable error) {
+            System.err.println(content);
+        }
+
+        @Override
+        public void error(Throwable error) {
+            System.err.println(error);
+        }
+    }
+}
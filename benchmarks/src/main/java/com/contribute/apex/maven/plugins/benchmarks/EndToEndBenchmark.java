@@ -0,0 +1,106 @@
+package com.contribute.apex.maven.plugins.benchmarks;
+
+import com.contribute.apex.maven.plugins.ImportAppMojo;
+import com.contribute.apex.maven.plugins.NaturalDocsMojo;
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end runs of the 'import' and 'run-natural-docs' goals against the
+ * simulated sqlplus and perl executables of src/fake, which replay the output
+ * volume and latency of real runs. run-benchmarks.sh puts them first on the
+ * PATH; the simulation is tuned with the FAKE_SQLPLUS_* and FAKE_NATURALDOCS_*
+ * environment variables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    /**
+     * The number of export and source files.
+     */
+    @Param({"10", "1000"})
+    private int fileCount;
+    private File exportFolder;
+    private File sourceFolder;
+    private File naturalDocsHome;
+    private File outputFolder;
+    private File projectFolder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        exportFolder = BenchmarkSupport.createExport(fileCount);
+        sourceFolder = BenchmarkSupport.createSources(fileCount);
+        // the simulated perl ignores the NaturalDocs script, but the mojo requires the folder
+        naturalDocsHome = BenchmarkSupport.createTempFolder("orclapex-naturaldocs");
+        new File(naturalDocsHome, "NaturalDocs").createNewFile();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws Exception {
+        outputFolder = BenchmarkSupport.createTempFolder("orclapex-docs");
+        projectFolder = BenchmarkSupport.createTempFolder("orclapex-docs-project");
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        BenchmarkSupport.delete(outputFolder);
+        BenchmarkSupport.delete(projectFolder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.delete(exportFolder);
+        BenchmarkSupport.delete(sourceFolder);
+        BenchmarkSupport.delete(naturalDocsHome);
+    }
+
+    @Benchmark
+    public void importApplication() throws Exception {
+        ImportAppMojo mojo = new ImportAppMojo();
+
+        mojo.setLog(new BenchmarkSupport.QuietLog());
+        BenchmarkSupport.setField(mojo, "sqlplusCmd", "sqlplus");
+        BenchmarkSupport.setField(mojo, "connectionString", "localhost:1521/benchmark");
+        BenchmarkSupport.setField(mojo, "username", "benchmark");
+        BenchmarkSupport.setField(mojo, "password", "benchmark");
+        BenchmarkSupport.setField(mojo, "appExportLocation", exportFolder.getAbsolutePath());
+        BenchmarkSupport.setField(mojo, "workspaceName", "BENCHMARK");
+        BenchmarkSupport.setField(mojo, "appId", "100");
+        // Maven injects the default of parameters added after 1.0.3
+        BenchmarkSupport.setOptionalField(mojo, "parallelImports", 1);
+        mojo.execute();
+    }
+
+    @Benchmark
+    public void runNaturalDocs() throws Exception {
+        NaturalDocsMojo mojo = new NaturalDocsMojo();
+
+        mojo.setLog(new BenchmarkSupport.QuietLog());
+        BenchmarkSupport.setField(mojo, "naturalDocsHome", naturalDocsHome);
+        BenchmarkSupport.setField(mojo, "inputSourceDirectories", Collections.singletonList(sourceFolder));
+        BenchmarkSupport.setField(mojo, "outputFormat", "HTML");
+        BenchmarkSupport.setField(mojo, "outputDirectory", outputFolder);
+        BenchmarkSupport.setField(mojo, "projectDirectory", projectFolder);
+        BenchmarkSupport.setOptionalField(mojo, "parallelProcesses", 1);
+        mojo.execute();
+    }
+}
@@ -0,0 +1,74 @@
+package com.contribute.apex.maven.plugins.benchmarks;
+
+import com.contribute.apex.maven.plugins.ImportAppMojo;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of the script generation and export discovery of the
+ * 'import' goal, over synthetic split exports. Only the public methods of
+ * version 1.0.3 are used, so every version can be benchmarked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportScriptBenchmark {
+
+    /**
+     * The number of export files.
+     */
+    @Param({"10", "100", "1000", "10000"})
+    private int fileCount;
+    private File exportFolder;
+    private ImportAppMojo mojo;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        exportFolder = BenchmarkSupport.createExport(fileCount);
+        mojo = new ImportAppMojo();
+        mojo.setLog(new BenchmarkSupport.QuietLog());
+        BenchmarkSupport.setField(mojo, "appExportLocation", exportFolder.getAbsolutePath());
+        BenchmarkSupport.setField(mojo, "workspaceName", "BENCHMARK");
+        BenchmarkSupport.setField(mojo, "appId", "100");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.delete(exportFolder);
+    }
+
+    @Benchmark
+    public File createScriptsToRunTmpFile() throws Exception {
+        File file = mojo.createScriptsToRunTmpFile();
+        file.delete();
+        return file;
+    }
+
+    @Benchmark
+    public File createSetAppAttributesTmpFile() throws Exception {
+        File file = mojo.createSetAppAttributesTmpFile();
+        file.delete();
+        return file;
+    }
+
+    @Benchmark
+    public File[] getAppExportFiles() throws Exception {
+        return mojo.getAppExportFiles();
+    }
+}
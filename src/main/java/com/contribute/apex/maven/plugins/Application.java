@@ -0,0 +1,235 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The import settings of a single APEX application. Used by the 'import' goal
+ * to import multiple applications in one execution, e.g.:
+ *
+ * <pre>
+ * &lt;applications&gt;
+ *   &lt;application&gt;
+ *     &lt;appExportLocation&gt;apex/f100&lt;/appExportLocation&gt;
+ *     &lt;workspaceName&gt;DEV&lt;/workspaceName&gt;
+ *     &lt;appId&gt;100&lt;/appId&gt;
+ *   &lt;/application&gt;
+ * &lt;/applications&gt;
+ * </pre>
+ */
+public class Application {
+
+    /**
+     * A short name for this application used in log messages. Defaults to the
+     * alias, ID or export folder name.
+     */
+    private String id;
+    /**
+     * The relative path to the folder containing the application export
+     * file(s).
+     */
+    private String appExportLocation;
+    /**
+     * The APEX workspace in which you want to import the application. Omit this
+     * parameter to import the application in its original workspace.
+     */
+    private String workspaceName;
+    /**
+     * The ID for the application to be imported. Omit this parameter to import
+     * the application with its original ID.
+     */
+    private String appId;
+    /**
+     * Set the application alias.
+     */
+    private String appAlias;
+    /**
+     * Set the application name.
+     */
+    private String appName;
+    /**
+     * Set the application parsing schema.
+     */
+    private String appParsingSchema;
+    /**
+     * Set the application image prefix.
+     */
+    private String appImagePrefix;
+    /**
+     * Set the proxy server attributes for the application to be imported.
+     */
+    private String appProxy;
+    /**
+     * Automatically install or upgrade the application's supporting objects.
+     */
+    private String autoInstallSupObj;
+    /**
+     * The offset value for the application import.
+     */
+    private String appOffset;
+    /**
+     * The ID of the application in the export files. The pre-flight scan
+     * fails if the export contains a different application.
+     */
+    private String exportAppId;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAppExportLocation() {
+        return appExportLocation;
+    }
+
+    public void setAppExportLocation(String appExportLocation) {
+        this.appExportLocation = appExportLocation;
+    }
+
+    public String getWorkspaceName() {
+        return workspaceName;
+    }
+
+    public void setWorkspaceName(String workspaceName) {
+        this.workspaceName = workspaceName;
+    }
+
+    public String getAppId() {
+        return appId;
+    }
+
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+
+    public String getAppAlias() {
+        return appAlias;
+    }
+
+    public void setAppAlias(String appAlias) {
+        this.appAlias = appAlias;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public void setAppName(String appName) {
+        this.appName = appName;
+    }
+
+    public String getAppParsingSchema() {
+        return appParsingSchema;
+    }
+
+    public void setAppParsingSchema(String appParsingSchema) {
+        this.appParsingSchema = appParsingSchema;
+    }
+
+    public String getAppImagePrefix() {
+        return appImagePrefix;
+    }
+
+    public void setAppImagePrefix(String appImagePrefix) {
+        this.appImagePrefix = appImagePrefix;
+    }
+
+    public String getAppProxy() {
+        return appProxy;
+    }
+
+    public void setAppProxy(String appProxy) {
+        this.appProxy = appProxy;
+    }
+
+    public String getAutoInstallSupObj() {
+        return autoInstallSupObj;
+    }
+
+    public void setAutoInstallSupObj(String autoInstallSupObj) {
+        this.autoInstallSupObj = autoInstallSupObj;
+    }
+
+    public String getAppOffset() {
+        return appOffset;
+    }
+
+    public void setAppOffset(String appOffset) {
+        this.appOffset = appOffset;
+    }
+
+    public String getExportAppId() {
+        return exportAppId;
+    }
+
+    public void setExportAppId(String exportAppId) {
+        this.exportAppId = exportAppId;
+    }
+
+    /**
+     * @return a copy of these settings.
+     */
+    public Application copy() {
+        Application application = new Application();
+
+        application.setId(id);
+        application.setAppExportLocation(appExportLocation);
+        application.setWorkspaceName(workspaceName);
+        application.setAppId(appId);
+        application.setAppAlias(appAlias);
+        application.setAppName(appName);
+        application.setAppParsingSchema(appParsingSchema);
+        application.setAppImagePrefix(appImagePrefix);
+        application.setAppProxy(appProxy);
+        application.setAutoInstallSupObj(autoInstallSupObj);
+        application.setAppOffset(appOffset);
+        application.setExportAppId(exportAppId);
+
+        return application;
+    }
+
+    /**
+     * The import attributes that influence the result of the import, in a
+     * fixed order.
+     *
+     * @return the attribute values by parameter name; unset attributes are
+     * null.
+     */
+    public Map<String, String> getImportAttributes() {
+        Map<String, String> attributes = new LinkedHashMap<String, String>();
+
+        attributes.put("workspaceName", workspaceName);
+        attributes.put("appId", appId);
+        attributes.put("appAlias", appAlias);
+        attributes.put("appName", appName);
+        attributes.put("appParsingSchema", appParsingSchema);
+        attributes.put("appImagePrefix", appImagePrefix);
+        attributes.put("appProxy", appProxy);
+        attributes.put("autoInstallSupObj", autoInstallSupObj);
+        attributes.put("appOffset", appOffset);
+
+        return attributes;
+    }
+
+    /**
+     * A short, human readable name for this application used in log messages.
+     *
+     * @return the ID, application alias, application ID or export folder name.
+     */
+    public String getLabel() {
+        if (id != null) {
+            return id;
+        } else if (appAlias != null) {
+            return appAlias;
+        } else if (appId != null) {
+            return appId;
+        } else if (appExportLocation != null) {
+            return new File(appExportLocation).getName();
+        }
+        return "application";
+    }
+}
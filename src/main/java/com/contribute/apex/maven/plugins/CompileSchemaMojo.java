@@ -0,0 +1,671 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Recompile the invalid objects of one or more database schemas and report
+ * the objects that remain invalid, with their compilation errors.
+ */
+@Mojo(name = "compile-schema")
+public class CompileSchemaMojo extends AbstractMojo {
+
+    /**
+     * The database connection string used in the SQL*Plus login argument (e.g.
+     * localhost:1521/orcl.company.com).
+     */
+    @Parameter(property = "compile-schema.connectionString")
+    private String connectionString;
+    /**
+     * The database username used to login.
+     */
+    @Parameter(property = "compile-schema.username")
+    private String username;
+    /**
+     * The database user's password.
+     */
+    @Parameter(property = "compile-schema.password")
+    private String password;
+    /**
+     * The engine used to recompile: 'sqlplus' runs a script in a SQL*Plus
+     * process, 'jdbc' connects over JDBC in the Maven JVM, without an Oracle
+     * client installation. The JDBC driver has to be added as a plugin
+     * dependency.
+     */
+    @Parameter(property = "compile-schema.engine",
+    defaultValue = "sqlplus")
+    private String engine;
+    /**
+     * The JDBC URL used by the jdbc engine. Defaults to a thin driver URL
+     * derived from the connectionString.
+     */
+    @Parameter(property = "compile-schema.jdbcUrl")
+    private String jdbcUrl;
+    /**
+     * The JDBC driver class used by the jdbc engine.
+     */
+    @Parameter(property = "compile-schema.jdbcDriver",
+    defaultValue = "oracle.jdbc.OracleDriver")
+    private String jdbcDriver;
+    /**
+     * The command to start the SQL*Plus executable.
+     */
+    @Parameter(property = "compile-schema.sqlplusCmd",
+    defaultValue = "sqlplus")
+    private String sqlplusCmd;
+    /**
+     * Allows you to set the ORACLE_HOME system environment variable.
+     */
+    @Parameter(property = "compile-schema.oracleHome")
+    private String oracleHome;
+    /**
+     * The TNS_ADMIN environment variable allows you to specify the location of
+     * the tnsnames.ora file.
+     */
+    @Parameter(property = "compile-schema.tnsAdmin")
+    private String tnsAdmin;
+    /**
+     * Environment variable to specify the path used to search for libraries on
+     * UNIX and Linux systems.
+     */
+    @Parameter(property = "compile-schema.libraryPath")
+    private String libraryPath;
+    /**
+     * The maximum number of seconds the SQL*Plus recompilation may take.
+     * SQL*Plus is terminated when the timeout expires. Use 0 for no limit.
+     */
+    @Parameter(property = "compile-schema.timeout",
+    defaultValue = "0")
+    private int timeout;
+    /**
+     * The schemas to recompile. Defaults to the schema of the database user.
+     */
+    @Parameter(property = "compile-schema.schemas")
+    private List<String> schemas;
+    /**
+     * How the invalid objects are recompiled: 'compile_schema' calls
+     * DBMS_UTILITY.COMPILE_SCHEMA, which recompiles serially. 'sessions'
+     * compiles the invalid objects over concurrent JDBC connections with
+     * ALTER ... COMPILE statements, specifications before bodies, until no
+     * more objects become valid; it requires the jdbc engine. 'utl_recomp'
+     * calls UTL_RECOMP.RECOMP_PARALLEL, which requires the execute privilege
+     * on UTL_RECOMP (granted to SYS only by default).
+     * Defaults to 'sessions' with the jdbc engine. With the sqlplus engine it
+     * defaults to 'compile_schema': 'sessions' isn't available there and
+     * 'utl_recomp' fails without the privilege most users don't have.
+     */
+    @Parameter(property = "compile-schema.method")
+    private String method;
+    /**
+     * The number of objects compiled concurrently.
+     */
+    @Parameter(property = "compile-schema.degree",
+    defaultValue = "4")
+    private int degree;
+    /**
+     * The folder in which the invalid objects are reported as
+     * invalid-objects.json and invalid-objects.csv.
+     */
+    @Parameter(property = "compile-schema.reportDirectory",
+    defaultValue = "${project.build.directory}/orclapex-compile-schema")
+    private File reportDirectory;
+    /**
+     * Fail the build when invalid objects remain after the recompilation.
+     */
+    @Parameter(property = "compile-schema.failOnInvalid",
+    defaultValue = "false")
+    private boolean failOnInvalid;
+    private static final String INVALID_COUNT_MARKER = "ORCLAPEX-INVALID-COUNT|";
+    private static final String INVALID_OBJECT_MARKER = "ORCLAPEX-INVALID|";
+    private static final Pattern PROXY_USERNAME = Pattern.compile(".*\\[(.+)\\].*");
+    /**
+     * The order in which the 'sessions' method compiles the object types;
+     * objects of the same group are compiled concurrently.
+     */
+    private static final List<List<String>> COMPILE_ORDER = Arrays.asList(
+            Arrays.asList("TYPE"),
+            Arrays.asList("PACKAGE"),
+            Arrays.asList("FUNCTION", "PROCEDURE"),
+            Arrays.asList("VIEW", "MATERIALIZED VIEW", "SYNONYM", "DIMENSION"),
+            Arrays.asList("TYPE BODY", "PACKAGE BODY"),
+            Arrays.asList("TRIGGER"));
+    private int invalidBefore = -1;
+
+    /**
+     * The method called by Maven when the 'compile-schema' goal gets executed.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        Target target = new Target();
+        List<String> schemaNames;
+        List<InvalidObject> invalidObjects;
+        long startTime = System.currentTimeMillis();
+        long duration;
+
+        if (method == null) {
+            method = isJdbcEngine() ? "sessions" : "compile_schema";
+        }
+        if ((connectionString == null && (jdbcUrl == null || !isJdbcEngine())) || username == null || password == null) {
+            throw new MojoExecutionException("The connectionString (or jdbcUrl with the jdbc engine), username and password parameters are required");
+        } else if (!Arrays.asList("utl_recomp", "compile_schema", "sessions").contains(method.toLowerCase())) {
+            throw new MojoExecutionException("Unknown compile method " + method + ". Use utl_recomp, compile_schema or sessions.");
+        } else if (method.equalsIgnoreCase("sessions") && !isJdbcEngine()) {
+            throw new MojoExecutionException("The sessions compile method requires the jdbc engine");
+        }
+
+        target.setConnectionString(connectionString);
+        target.setUsername(username);
+        target.setPassword(password);
+        target.setJdbcUrl(jdbcUrl);
+        schemaNames = getSchemaNames(target);
+        getLog().info("Recompiling the invalid objects of " + schemaNames + " with " + method.toLowerCase()
+                + (method.equalsIgnoreCase("compile_schema") ? "" : " (degree " + degree + ")"));
+        if (isJdbcEngine()) {
+            invalidObjects = compileWithJdbc(target, schemaNames);
+        } else {
+            invalidObjects = compileWithSqlPlus(target, schemaNames);
+        }
+        duration = System.currentTimeMillis() - startTime;
+
+        getLog().info("Recompilation finished in " + duration + " ms: " + (invalidBefore < 0 ? "" : invalidBefore + " invalid object(s) before, ")
+                + invalidObjects.size() + " invalid object(s) remaining");
+        for (InvalidObject invalidObject : invalidObjects) {
+            getLog().warn("Invalid: " + invalidObject.getKey());
+            for (InvalidObject.CompileError error : invalidObject.getErrors()) {
+                getLog().warn("  " + error.getLine() + "/" + error.getPosition() + " " + error.getText());
+            }
+        }
+
+        writeReport(schemaNames, invalidObjects, duration);
+        if (failOnInvalid && !invalidObjects.isEmpty()) {
+            throw new MojoFailureException(invalidObjects.size() + " invalid object(s) remaining in " + schemaNames + ". See "
+                    + reportDirectory.getAbsolutePath() + " for the compilation errors.");
+        }
+    }
+
+    /**
+     * @param target the database to compile in.
+     * @return the configured schemas in upper case, or the schema of the
+     * database user (the proxy client for proxy users).
+     */
+    private List<String> getSchemaNames(Target target) {
+        List<String> schemaNames = new ArrayList<String>();
+
+        if (schemas == null || schemas.isEmpty()) {
+            Matcher proxy = PROXY_USERNAME.matcher(target.getUsername());
+            schemaNames.add((proxy.matches() ? proxy.group(1) : target.getUsername()).trim().toUpperCase());
+        } else {
+            for (String schema : schemas) {
+                if (!schema.trim().isEmpty()) {
+                    schemaNames.add(schema.trim().toUpperCase());
+                }
+            }
+        }
+
+        return schemaNames;
+    }
+
+    /**
+     * @return true if the schemas are recompiled over JDBC.
+     */
+    private boolean isJdbcEngine() {
+        return "jdbc".equalsIgnoreCase(engine);
+    }
+
+    /**
+     * Open a JDBC connection with the configured driver.
+     *
+     * @param target the database to connect to.
+     * @return the connection, with auto-commit disabled.
+     * @throws MojoExecutionException if the connection fails.
+     */
+    private Connection connect(Target target) throws MojoExecutionException {
+        return JdbcScriptRunner.connect(jdbcDriver, target.getConnectUrl(), target.getUsername(), target.getPassword());
+    }
+
+    /**
+     * Recompile the schemas over JDBC.
+     *
+     * @param target the database to compile in.
+     * @param schemaNames the schemas to recompile.
+     * @return the objects that are still invalid.
+     */
+    private List<InvalidObject> compileWithJdbc(Target target, List<String> schemaNames) throws MojoExecutionException {
+        Connection connection = connect(target);
+
+        try {
+            try {
+                invalidBefore = queryInvalidObjects(connection, schemaNames, false).size();
+                if (method.equalsIgnoreCase("sessions")) {
+                    compileInSessions(connection, target, schemaNames);
+                } else {
+                    for (String schemaName : schemaNames) {
+                        CallableStatement statement = connection.prepareCall(getCompileBlock(schemaName));
+                        try {
+                            statement.execute();
+                        } finally {
+                            statement.close();
+                        }
+                    }
+                }
+                return queryInvalidObjects(connection, schemaNames, true);
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException ex) {
+            throw new MojoExecutionException("The recompilation failed: " + ex.getMessage().trim(), ex);
+        }
+    }
+
+    /**
+     * Compile the invalid objects with ALTER ... COMPILE statements over
+     * concurrent connections. Every pass compiles the object types in
+     * COMPILE_ORDER; passes are repeated while they make objects valid.
+     *
+     * @param connection the connection used to query the invalid objects.
+     * @param target the database to compile in.
+     * @param schemaNames the schemas to recompile.
+     */
+    private void compileInSessions(Connection connection, Target target, List<String> schemaNames) throws SQLException, MojoExecutionException {
+        List<Connection> connections = new ArrayList<Connection>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, degree));
+        List<InvalidObject> invalidObjects = queryInvalidObjects(connection, schemaNames, false);
+        int previousCount = Integer.MAX_VALUE;
+        int pass = 0;
+
+        try {
+            connections.add(connection);
+            while (!invalidObjects.isEmpty() && invalidObjects.size() < previousCount) {
+                previousCount = invalidObjects.size();
+                pass++;
+                getLog().info("Compile pass " + pass + ": " + invalidObjects.size() + " invalid object(s)");
+                while (connections.size() < Math.min(Math.max(1, degree), invalidObjects.size())) {
+                    connections.add(connect(target));
+                }
+                for (List<String> types : COMPILE_ORDER) {
+                    Queue<InvalidObject> queue = new ConcurrentLinkedQueue<InvalidObject>();
+                    for (InvalidObject invalidObject : invalidObjects) {
+                        if (types.contains(invalidObject.getType()) && invalidObject.getCompileStatement() != null) {
+                            queue.add(invalidObject);
+                        }
+                    }
+                    compileConcurrently(executor, connections, queue);
+                }
+                invalidObjects = queryInvalidObjects(connection, schemaNames, false);
+            }
+        } finally {
+            executor.shutdownNow();
+            for (Connection sessionConnection : connections.subList(1, connections.size())) {
+                sessionConnection.close();
+            }
+        }
+    }
+
+    /**
+     * Compile the objects in a queue, one worker per connection.
+     *
+     * @param executor the executor running the workers.
+     * @param connections the connections.
+     * @param queue the objects to compile.
+     */
+    private void compileConcurrently(ExecutorService executor, List<Connection> connections, final Queue<InvalidObject> queue) throws SQLException,
+            MojoExecutionException {
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+        for (final Connection workerConnection : connections.subList(0, Math.max(1, Math.min(connections.size(), queue.size())))) {
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws SQLException {
+                    InvalidObject invalidObject;
+                    while ((invalidObject = queue.poll()) != null) {
+                        compileObject(workerConnection, invalidObject);
+                    }
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            throw new MojoExecutionException("Interrupted while compiling the invalid objects", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof SQLException) {
+                throw (SQLException) ex.getCause();
+            }
+            throw new MojoExecutionException("The recompilation failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Compile a single object. Compilation errors are not raised; they're
+     * reported once all objects are compiled.
+     *
+     * @param connection the connection.
+     * @param invalidObject the object to compile.
+     */
+    private void compileObject(Connection connection, InvalidObject invalidObject) throws SQLException {
+        Statement statement = connection.createStatement();
+        long startTime = System.currentTimeMillis();
+
+        try {
+            statement.execute(invalidObject.getCompileStatement());
+            getLog().debug("Compiled " + invalidObject.getKey() + " in " + (System.currentTimeMillis() - startTime) + " ms");
+        } catch (SQLException ex) {
+            // ORA-24344: success with compilation error
+            if (ex.getErrorCode() != 24344) {
+                getLog().warn("Unable to compile " + invalidObject.getKey() + ": " + ex.getMessage().trim());
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Query the invalid objects of the schemas.
+     *
+     * @param connection the connection.
+     * @param schemaNames the schemas.
+     * @param withErrors include the compilation errors.
+     * @return the invalid objects.
+     */
+    private static List<InvalidObject> queryInvalidObjects(Connection connection, List<String> schemaNames, boolean withErrors) throws SQLException {
+        Map<String, InvalidObject> invalidObjects = new LinkedHashMap<String, InvalidObject>();
+        PreparedStatement statement = connection.prepareStatement(withErrors ? getInvalidObjectsQuery(schemaNames, null)
+                : "select owner, object_type, object_name from all_objects where status = 'INVALID' and owner in (" + getSchemaList(schemaNames) + ")"
+                + " order by owner, object_type, object_name");
+
+        try {
+            statement.setFetchSize(500);
+            ResultSet resultSet = statement.executeQuery();
+            try {
+                while (resultSet.next()) {
+                    InvalidObject invalidObject = new InvalidObject(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3));
+                    if (invalidObjects.containsKey(invalidObject.getKey())) {
+                        invalidObject = invalidObjects.get(invalidObject.getKey());
+                    } else {
+                        invalidObjects.put(invalidObject.getKey(), invalidObject);
+                    }
+                    if (withErrors && resultSet.getString(7) != null) {
+                        invalidObject.getErrors().add(new InvalidObject.CompileError(resultSet.getInt(4), resultSet.getInt(5), resultSet.getString(6),
+                                resultSet.getString(7).trim()));
+                    }
+                }
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+
+        return new ArrayList<InvalidObject>(invalidObjects.values());
+    }
+
+    /**
+     * Recompile the schemas with SQL*Plus. The invalid objects are printed
+     * with a marker and parsed from the output.
+     *
+     * @param target the database to compile in.
+     * @param schemaNames the schemas to recompile.
+     * @return the objects that are still invalid.
+     */
+    private List<InvalidObject> compileWithSqlPlus(Target target, List<String> schemaNames) throws MojoExecutionException {
+        final Map<String, InvalidObject> invalidObjects = new LinkedHashMap<String, InvalidObject>();
+        List<String> commandLineArguments = new ArrayList<String>();
+        ProcessBuilder processBuilder;
+        Process process = null;
+        ProcessOutputPump outputPump;
+        File scriptFile;
+        int exitValue;
+
+        try {
+            scriptFile = createScriptTmpFile(schemaNames);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("An unexpected error occurred while generating the .sql script", ex);
+        }
+
+        commandLineArguments.add(sqlplusCmd);
+        // the -L option specifies not to reprompt for username or password if the initial connection didn't succeed.
+        commandLineArguments.add("-L");
+        commandLineArguments.add(target.getSqlPlusLoginArgument());
+        commandLineArguments.add("@" + scriptFile.getName());
+        processBuilder = new ProcessBuilder(commandLineArguments);
+        new OracleEnvironment(oracleHome, tnsAdmin, libraryPath).apply(processBuilder.environment(), getLog());
+        processBuilder.directory(scriptFile.getAbsoluteFile().getParentFile());
+        processBuilder.redirectErrorStream(true);
+
+        getLog().debug("Executing SQL*Plus: " + sqlplusCmd + " -L " + target.getUsername() + "/***@\"" + target.getConnectionString() + "\" @"
+                + scriptFile.getName());
+        try {
+            process = processBuilder.start();
+            outputPump = new ProcessOutputPump(process, getLog(), "", false) {
+                @Override
+                protected void handleLine(String line) {
+                    if (line.startsWith(INVALID_COUNT_MARKER)) {
+                        invalidBefore = Integer.parseInt(line.substring(INVALID_COUNT_MARKER.length()).trim());
+                    } else if (line.startsWith(INVALID_OBJECT_MARKER)) {
+                        addInvalidObject(invalidObjects, line.substring(INVALID_OBJECT_MARKER.length()));
+                    } else {
+                        super.handleLine(line);
+                    }
+                }
+            };
+            outputPump.start();
+            exitValue = outputPump.waitFor(timeout * 1000L, 0);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("An unexpected error occurred while executing SQL*Plus", ex);
+        } catch (InterruptedException ex) {
+            process.destroy();
+            throw new MojoExecutionException("An unexpected error occurred while executing SQL*Plus", ex);
+        }
+
+        if (outputPump.getAbortReason() != null) {
+            throw new MojoExecutionException("SQL*Plus process terminated: " + outputPump.getAbortReason());
+        } else if (exitValue != 0) {
+            throw new MojoExecutionException("The recompilation failed: " + (outputPump.getFirstError() != null ? outputPump.getFirstError()
+                    : "SQL*Plus exit value " + exitValue));
+        }
+
+        return new ArrayList<InvalidObject>(invalidObjects.values());
+    }
+
+    /**
+     * Parse an invalid object line printed by the SQL*Plus script.
+     *
+     * @param invalidObjects the invalid objects by key.
+     * @param line the line without marker: owner, type, name, line, position,
+     * attribute and text, separated by |.
+     */
+    private static void addInvalidObject(Map<String, InvalidObject> invalidObjects, String line) {
+        String[] fields = line.split("\\|", 7);
+        InvalidObject invalidObject;
+
+        if (fields.length < 7) {
+            return;
+        }
+        invalidObject = new InvalidObject(fields[0], fields[1], fields[2]);
+        if (invalidObjects.containsKey(invalidObject.getKey())) {
+            invalidObject = invalidObjects.get(invalidObject.getKey());
+        } else {
+            invalidObjects.put(invalidObject.getKey(), invalidObject);
+        }
+        if (!fields[6].trim().isEmpty()) {
+            invalidObject.getErrors().add(new InvalidObject.CompileError(Integer.parseInt(fields[3].trim()), Integer.parseInt(fields[4].trim()),
+                    fields[5], fields[6].trim()));
+        }
+    }
+
+    /**
+     * Create a temporary .sql file that counts the invalid objects, recompiles
+     * the schemas and prints the remaining invalid objects.
+     *
+     * @param schemaNames the schemas to recompile.
+     * @return the temporary .sql file object.
+     */
+    private File createScriptTmpFile(List<String> schemaNames) throws IOException {
+        StringBuilder script = new StringBuilder();
+        File scriptTmpFile;
+        BufferedWriter writer;
+
+        script.append("whenever sqlerror exit 1\n");
+        script.append("set pagesize 0 linesize 32767 trimout on feedback off heading off verify off\n");
+        script.append("select '").append(INVALID_COUNT_MARKER).append("' || count(*) from all_objects where status = 'INVALID' and owner in (")
+                .append(getSchemaList(schemaNames)).append(");\n");
+        for (String schemaName : schemaNames) {
+            script.append(getCompileBlock(schemaName)).append("\n/\n");
+        }
+        script.append(getInvalidObjectsQuery(schemaNames, INVALID_OBJECT_MARKER)).append(";\n");
+        script.append("exit");
+
+        scriptTmpFile = File.createTempFile("compileSchema", ".sql");
+        scriptTmpFile.deleteOnExit();
+
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(scriptTmpFile), "UTF-8"));
+        writer.write(script.toString());
+        writer.close();
+
+        getLog().debug("Generated temp file: " + scriptTmpFile.getName() + ". Printing out content:\n" + script);
+
+        return scriptTmpFile;
+    }
+
+    /**
+     * @param schemaName the schema to recompile.
+     * @return the anonymous block that recompiles the schema with the
+     * configured method.
+     */
+    private String getCompileBlock(String schemaName) {
+        if (method.equalsIgnoreCase("compile_schema")) {
+            return "begin\n  dbms_utility.compile_schema(schema => " + toSqlLiteral(schemaName) + ", compile_all => false);\nend;";
+        }
+        return "begin\n  utl_recomp.recomp_parallel(threads => " + Math.max(1, degree) + ", schema => " + toSqlLiteral(schemaName) + ");\nend;";
+    }
+
+    /**
+     * @param schemaNames the schemas.
+     * @param marker the marker that prefixes every row as a single |
+     * separated column, or null to select separate columns.
+     * @return the query of the invalid objects joined with their compilation
+     * errors.
+     */
+    private static String getInvalidObjectsQuery(List<String> schemaNames, String marker) {
+        String columns = marker == null ? "o.owner, o.object_type, o.object_name, e.line, e.position, e.attribute, e.text"
+                : "'" + marker + "' || o.owner || '|' || o.object_type || '|' || o.object_name || '|' || e.line || '|' || e.position"
+                + " || '|' || e.attribute || '|' || replace(replace(e.text, chr(10), ' '), chr(13), ' ')";
+
+        return "select " + columns + " from all_objects o left join all_errors e on e.owner = o.owner and e.name = o.object_name"
+                + " and e.type = o.object_type where o.status = 'INVALID' and o.owner in (" + getSchemaList(schemaNames) + ")"
+                + " order by o.owner, o.object_type, o.object_name, e.sequence";
+    }
+
+    private static String getSchemaList(List<String> schemaNames) {
+        StringBuilder list = new StringBuilder();
+
+        for (String schemaName : schemaNames) {
+            list.append(list.length() == 0 ? "" : ", ").append(toSqlLiteral(schemaName));
+        }
+
+        return list.toString();
+    }
+
+    private static String toSqlLiteral(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    /**
+     * Write the invalid objects as invalid-objects.json and
+     * invalid-objects.csv to the report directory.
+     *
+     * @param schemaNames the recompiled schemas.
+     * @param invalidObjects the remaining invalid objects.
+     * @param duration the duration of the recompilation in milliseconds.
+     */
+    private void writeReport(List<String> schemaNames, List<InvalidObject> invalidObjects, long duration) throws MojoExecutionException {
+        File jsonFile = new File(reportDirectory, "invalid-objects.json");
+        File csvFile = new File(reportDirectory, "invalid-objects.csv");
+        Writer writer;
+
+        reportDirectory.mkdirs();
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(jsonFile), "UTF-8"));
+            try {
+                writer.write("{\n  \"schemas\": [");
+                for (int i = 0; i < schemaNames.size(); i++) {
+                    writer.write((i == 0 ? "" : ", ") + ImportTimings.toJsonString(schemaNames.get(i)));
+                }
+                writer.write("],\n  \"method\": " + ImportTimings.toJsonString(method.toLowerCase()) + ",\n");
+                writer.write("  \"degree\": " + degree + ",\n");
+                writer.write("  \"durationMs\": " + duration + ",\n");
+                writer.write("  \"invalidBefore\": " + (invalidBefore < 0 ? "null" : String.valueOf(invalidBefore)) + ",\n");
+                writer.write("  \"invalidObjects\": [");
+                for (int i = 0; i < invalidObjects.size(); i++) {
+                    InvalidObject invalidObject = invalidObjects.get(i);
+                    writer.write((i == 0 ? "\n" : ",\n") + "    {\"owner\": " + ImportTimings.toJsonString(invalidObject.getOwner())
+                            + ", \"type\": " + ImportTimings.toJsonString(invalidObject.getType())
+                            + ", \"name\": " + ImportTimings.toJsonString(invalidObject.getName()) + ", \"errors\": [");
+                    for (int j = 0; j < invalidObject.getErrors().size(); j++) {
+                        InvalidObject.CompileError error = invalidObject.getErrors().get(j);
+                        writer.write((j == 0 ? "\n" : ",\n") + "      {\"line\": " + error.getLine() + ", \"position\": " + error.getPosition()
+                                + ", \"attribute\": " + ImportTimings.toJsonString(String.valueOf(error.getAttribute()))
+                                + ", \"text\": " + ImportTimings.toJsonString(error.getText()) + "}");
+                    }
+                    writer.write(invalidObject.getErrors().isEmpty() ? "]}" : "\n    ]}");
+                }
+                writer.write(invalidObjects.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+            } finally {
+                writer.close();
+            }
+
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csvFile), "UTF-8"));
+            try {
+                writer.write("owner,type,name,line,position,attribute,text\n");
+                for (InvalidObject invalidObject : invalidObjects) {
+                    String objectColumns = ImportTimings.toCsvString(invalidObject.getOwner()) + "," + ImportTimings.toCsvString(invalidObject.getType())
+                            + "," + ImportTimings.toCsvString(invalidObject.getName());
+                    if (invalidObject.getErrors().isEmpty()) {
+                        writer.write(objectColumns + ",,,,\n");
+                    }
+                    for (InvalidObject.CompileError error : invalidObject.getErrors()) {
+                        writer.write(objectColumns + "," + error.getLine() + "," + error.getPosition() + "," + ImportTimings.toCsvString(String.valueOf(error.getAttribute()))
+                                + "," + ImportTimings.toCsvString(error.getText()) + "\n");
+                    }
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to write the invalid objects report to " + reportDirectory.getAbsolutePath(), ex);
+        }
+        getLog().info("Invalid objects report written to " + reportDirectory.getAbsolutePath());
+    }
+}
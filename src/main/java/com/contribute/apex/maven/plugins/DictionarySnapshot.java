@@ -0,0 +1,389 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the table definitions of a schema as a data dictionary
+ * snapshot: one row per column with the table_name, column_name, data_type,
+ * data_length, data_precision, data_scale, nullable (Y or N), column_id and
+ * pk_position (the position in the primary key, empty if the column isn't
+ * part of it) fields. Files with the .json extension contain an array of
+ * objects with these fields; other files are CSV files with a header row.
+ */
+public class DictionarySnapshot {
+
+    private static final List<String> FIELDS = Arrays.asList("table_name", "column_name", "data_type", "data_length", "data_precision", "data_scale",
+            "nullable", "column_id", "pk_position");
+    private static final String QUERY = "select c.table_name, c.column_name, c.data_type, c.data_length, c.data_precision, c.data_scale,"
+            + " c.nullable, c.column_id, k.position"
+            + " from all_tab_columns c"
+            + " join all_tables t on t.owner = c.owner and t.table_name = c.table_name"
+            + " left join (select cc.table_name, cc.column_name, cc.position from all_constraints pk"
+            + " join all_cons_columns cc on cc.owner = pk.owner and cc.constraint_name = pk.constraint_name"
+            + " where pk.owner = ? and pk.constraint_type = 'P') k on k.table_name = c.table_name and k.column_name = c.column_name"
+            + " where c.owner = ?"
+            + " order by c.table_name, c.column_id";
+
+    private DictionarySnapshot() {
+    }
+
+    /**
+     * Fetch the table definitions of a schema from the data dictionary in a
+     * single query.
+     *
+     * @param connection the database connection.
+     * @param owner the schema.
+     * @param fetchSize the number of rows fetched per round trip.
+     * @return the table definitions, ordered by name.
+     * @throws SQLException if the query fails.
+     */
+    public static List<TableDefinition> fetch(Connection connection, String owner, int fetchSize) throws SQLException {
+        Map<String, TableDefinition> tables = new LinkedHashMap<String, TableDefinition>();
+        PreparedStatement statement = connection.prepareStatement(QUERY);
+
+        try {
+            statement.setString(1, owner);
+            statement.setString(2, owner);
+            statement.setFetchSize(fetchSize);
+            ResultSet resultSet = statement.executeQuery();
+            try {
+                while (resultSet.next()) {
+                    Map<String, String> row = new HashMap<String, String>();
+                    for (int i = 0; i < FIELDS.size(); i++) {
+                        row.put(FIELDS.get(i), resultSet.getString(i + 1));
+                    }
+                    addColumn(tables, row);
+                }
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+
+        return new ArrayList<TableDefinition>(tables.values());
+    }
+
+    /**
+     * Read a snapshot file.
+     *
+     * @param file a .json or CSV file.
+     * @return the table definitions, in file order.
+     * @throws IOException if the file can't be read or parsed.
+     */
+    public static List<TableDefinition> read(File file) throws IOException {
+        Map<String, TableDefinition> tables = new LinkedHashMap<String, TableDefinition>();
+        Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+
+        try {
+            List<Map<String, String>> rows = isJson(file) ? readJson(reader) : readCsv(reader);
+            for (Map<String, String> row : rows) {
+                addColumn(tables, row);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Invalid data dictionary snapshot " + file.getAbsolutePath() + ": " + ex.getMessage(), ex);
+        } finally {
+            reader.close();
+        }
+
+        return new ArrayList<TableDefinition>(tables.values());
+    }
+
+    /**
+     * Write a snapshot file.
+     *
+     * @param file a .json or CSV file.
+     * @param tables the table definitions.
+     * @throws IOException if the file can't be written.
+     */
+    public static void write(File file, List<TableDefinition> tables) throws IOException {
+        Writer writer;
+
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            String separator = "\n";
+            writer.write(isJson(file) ? "[" : join(FIELDS) + "\n");
+            for (TableDefinition table : tables) {
+                for (TableDefinition.Column column : table.getColumns()) {
+                    List<String> values = Arrays.asList(table.getName(), column.getName(), column.getDataType(), column.getDataLength(),
+                            column.getDataPrecision(), column.getDataScale(), column.isNullable() ? "Y" : "N", String.valueOf(column.getColumnId()),
+                            column.getPrimaryKeyPosition() > 0 ? String.valueOf(column.getPrimaryKeyPosition()) : "");
+                    if (isJson(file)) {
+                        writer.write(separator + "  {");
+                        for (int i = 0; i < FIELDS.size(); i++) {
+                            writer.write((i == 0 ? "" : ", ") + ImportTimings.toJsonString(FIELDS.get(i)) + ": " + ImportTimings.toJsonString(values.get(i)));
+                        }
+                        writer.write("}");
+                        separator = ",\n";
+                    } else {
+                        writer.write(join(values) + "\n");
+                    }
+                }
+            }
+            if (isJson(file)) {
+                writer.write("\n]\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static boolean isJson(File file) {
+        return file.getName().toLowerCase().endsWith(".json");
+    }
+
+    private static void addColumn(Map<String, TableDefinition> tables, Map<String, String> row) {
+        String tableName = getValue(row, "table_name");
+        String primaryKeyPosition = getValue(row, "pk_position");
+        TableDefinition table = tables.get(tableName);
+
+        if (tableName.isEmpty() || getValue(row, "column_name").isEmpty()) {
+            throw new IllegalArgumentException("every row requires a table_name and column_name");
+        }
+        if (table == null) {
+            table = new TableDefinition(tableName);
+            tables.put(tableName, table);
+        }
+        try {
+            table.getColumns().add(new TableDefinition.Column(getValue(row, "column_name"), getValue(row, "data_type"), getValue(row, "data_length"),
+                    getValue(row, "data_precision"), getValue(row, "data_scale"), !getValue(row, "nullable").equalsIgnoreCase("N"),
+                    getValue(row, "column_id").isEmpty() ? table.getColumns().size() + 1 : Integer.parseInt(getValue(row, "column_id")),
+                    primaryKeyPosition.isEmpty() ? 0 : Integer.parseInt(primaryKeyPosition)));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("invalid column_id or pk_position of " + tableName + "." + getValue(row, "column_name"), ex);
+        }
+    }
+
+    private static String getValue(Map<String, String> row, String field) {
+        String value = row.get(field);
+
+        return value == null || value.equals("null") ? "" : value.trim();
+    }
+
+    /**
+     * Read CSV rows with a header row. Fields may be quoted with double
+     * quotes; a doubled quote in a quoted field is an escaped quote.
+     */
+    private static List<Map<String, String>> readCsv(Reader reader) throws IOException {
+        List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+        List<String> header = null;
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int c;
+
+        while ((c = reader.read()) != -1 || !fields.isEmpty() || field.length() > 0) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("unterminated quoted field");
+                } else if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                field.setLength(0);
+                if (header == null) {
+                    header = new ArrayList<String>();
+                    for (String name : fields) {
+                        header.add(name.trim().toLowerCase());
+                    }
+                } else if (!(fields.size() == 1 && fields.get(0).trim().isEmpty())) {
+                    Map<String, String> row = new HashMap<String, String>();
+                    for (int i = 0; i < Math.min(header.size(), fields.size()); i++) {
+                        row.put(header.get(i), fields.get(i));
+                    }
+                    rows.add(row);
+                }
+                fields.clear();
+                if (c == -1) {
+                    break;
+                }
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Read a JSON array of flat objects. Nested values are not supported.
+     */
+    private static List<Map<String, String>> readJson(Reader reader) throws IOException {
+        List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+        JsonTokens tokens = new JsonTokens(reader);
+
+        tokens.expect('[');
+        if (tokens.peek() == ']') {
+            tokens.expect(']');
+            return rows;
+        }
+        do {
+            Map<String, String> row = new HashMap<String, String>();
+            tokens.expect('{');
+            if (tokens.peek() != '}') {
+                do {
+                    String name = tokens.readString();
+                    tokens.expect(':');
+                    row.put(name.toLowerCase(), tokens.readValue());
+                } while (tokens.next(','));
+            }
+            tokens.expect('}');
+            rows.add(row);
+        } while (tokens.next(','));
+        tokens.expect(']');
+
+        return rows;
+    }
+
+    private static String join(List<String> values) {
+        StringBuilder line = new StringBuilder();
+
+        for (String value : values) {
+            if (line.length() > 0) {
+                line.append(',');
+            }
+            line.append(value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value);
+        }
+
+        return line.toString();
+    }
+
+    /**
+     * The tokens of a JSON document of flat objects.
+     */
+    private static class JsonTokens {
+
+        private final Reader reader;
+        private int next;
+
+        JsonTokens(Reader reader) throws IOException {
+            this.reader = reader;
+            this.next = reader.read();
+        }
+
+        private void skipWhitespace() throws IOException {
+            while (next != -1 && Character.isWhitespace(next)) {
+                next = reader.read();
+            }
+        }
+
+        int peek() throws IOException {
+            skipWhitespace();
+            return next;
+        }
+
+        void expect(char c) throws IOException {
+            if (peek() != c) {
+                throw new IllegalArgumentException("expected '" + c + "' but found " + (next == -1 ? "the end of the file" : "'" + (char) next + "'"));
+            }
+            next = reader.read();
+        }
+
+        boolean next(char c) throws IOException {
+            if (peek() == c) {
+                next = reader.read();
+                return true;
+            }
+            return false;
+        }
+
+        String readString() throws IOException {
+            StringBuilder string = new StringBuilder();
+
+            expect('"');
+            while (next != '"') {
+                if (next == -1) {
+                    throw new IllegalArgumentException("unterminated string");
+                } else if (next == '\\') {
+                    next = reader.read();
+                    switch (next) {
+                        case 'n':
+                            string.append('\n');
+                            break;
+                        case 'r':
+                            string.append('\r');
+                            break;
+                        case 't':
+                            string.append('\t');
+                            break;
+                        case 'b':
+                            string.append('\b');
+                            break;
+                        case 'f':
+                            string.append('\f');
+                            break;
+                        case 'u':
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++) {
+                                hex[i] = (char) reader.read();
+                            }
+                            string.append((char) Integer.parseInt(new String(hex), 16));
+                            break;
+                        default:
+                            string.append((char) next);
+                    }
+                } else {
+                    string.append((char) next);
+                }
+                next = reader.read();
+            }
+            next = reader.read();
+
+            return string.toString();
+        }
+
+        /**
+         * Read a string, number, boolean or null value as text.
+         */
+        String readValue() throws IOException {
+            StringBuilder value = new StringBuilder();
+
+            if (peek() == '"') {
+                return readString();
+            }
+            while (next != -1 && next != ',' && next != '}' && !Character.isWhitespace(next)) {
+                value.append((char) next);
+                next = reader.read();
+            }
+            if (value.length() == 0) {
+                throw new IllegalArgumentException("expected a value");
+            }
+
+            return value.toString();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The topics found in a single PL/SQL source file. Instances are kept in the
+ * parse cache of the 'generate-plsql-docs' goal.
+ */
+public class DocFile implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final String path;
+    private final long length;
+    private final long lastModified;
+    private final List<DocTopic> topics = new ArrayList<DocTopic>();
+    private String title;
+
+    /**
+     * @param path the path of the source file relative to its input source
+     * directory, with forward slashes.
+     * @param length the size of the source file when it was parsed.
+     * @param lastModified the modification time of the source file when it was
+     * parsed.
+     */
+    public DocFile(String path, long length, long lastModified) {
+        this.path = path;
+        this.length = length;
+        this.lastModified = lastModified;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public List<DocTopic> getTopics() {
+        return topics;
+    }
+
+    /**
+     * @return the page title of the file.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * @return the name of the generated HTML page, relative to the output
+     * directory.
+     */
+    public String getPageName() {
+        return "files/" + path.replaceAll("[^A-Za-z0-9._-]", "_") + ".html";
+    }
+}
@@ -0,0 +1,193 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the topics found by the PlsqlDocScanner as HTML: a page per source
+ * file, an index.html menu of all files and a general index of all topics.
+ * Within a topic body, a line ending with a colon is a heading, lines of the
+ * form "name - description" are definitions and blank lines separate
+ * paragraphs.
+ */
+public class DocHtmlWriter {
+
+    /**
+     * The version of the page format. Increase it when the generated HTML
+     * changes, so pages cached by an earlier version are written again.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final Pattern HEADING = Pattern.compile("\\s*([A-Za-z][\\w ]*):\\s*");
+    private static final Pattern DEFINITION = Pattern.compile("\\s*(\\S+)\\s+-\\s+(.*)");
+    private static final String STYLE = "<style>body{font-family:sans-serif;margin:2em}pre{background:#f4f4f4;padding:.5em}"
+            + ".topic{border-top:1px solid #ccc;margin-top:1.5em}.undocumented{color:#888}dt{font-family:monospace;font-weight:bold}</style>\n";
+    private final File outputDirectory;
+    private final String title;
+
+    /**
+     * @param outputDirectory the directory in which the HTML files are
+     * written.
+     * @param title the title of the documentation.
+     */
+    public DocHtmlWriter(File outputDirectory, String title) {
+        this.outputDirectory = outputDirectory;
+        this.title = title;
+    }
+
+    /**
+     * Write the page of a source file.
+     *
+     * @param docFile the topics of the file.
+     * @throws IOException if the page can't be written.
+     */
+    public void writePage(DocFile docFile) throws IOException {
+        File page = new File(outputDirectory, docFile.getPageName());
+        StringBuilder html = new StringBuilder();
+
+        html.append(getHeader(docFile.getTitle()));
+        html.append("<p><a href=\"../index.html\">").append(escape(title)).append("</a> &rsaquo; ").append(escape(docFile.getPath())).append("</p>\n");
+        html.append("<h1>").append(escape(docFile.getTitle())).append("</h1>\n");
+        for (DocTopic topic : docFile.getTopics()) {
+            html.append("<div class=\"topic").append(topic.isDocumented() ? "" : " undocumented").append("\" id=\"").append(getAnchor(topic)).append("\">\n");
+            html.append("<h2>").append(escape(topic.getKeyword())).append(": ").append(escape(topic.getTitle())).append("</h2>\n");
+            if (topic.getPrototype() != null) {
+                html.append("<pre>").append(escape(topic.getPrototype())).append("</pre>\n");
+            }
+            appendBody(html, topic.getBody());
+            html.append("</div>\n");
+        }
+        html.append("</body>\n</html>\n");
+
+        page.getParentFile().mkdirs();
+        write(page, html.toString());
+    }
+
+    /**
+     * Write the index.html menu of all files and the general index of all
+     * topics.
+     *
+     * @param docFiles the topics of all files.
+     * @throws IOException if a page can't be written.
+     */
+    public void writeIndexes(List<DocFile> docFiles) throws IOException {
+        List<DocFile> sortedFiles = new ArrayList<DocFile>(docFiles);
+        List<DocTopic> topics = new ArrayList<DocTopic>();
+        Map<DocTopic, DocFile> topicFiles = new IdentityHashMap<DocTopic, DocFile>();
+        StringBuilder menu = new StringBuilder(getHeader(title));
+        StringBuilder index = new StringBuilder(getHeader(title + " - Index"));
+
+        Collections.sort(sortedFiles, new Comparator<DocFile>() {
+            @Override
+            public int compare(DocFile file1, DocFile file2) {
+                return file1.getPath().compareToIgnoreCase(file2.getPath());
+            }
+        });
+        menu.append("<h1>").append(escape(title)).append("</h1>\n<p><a href=\"general-index.html\">Index</a></p>\n<ul>\n");
+        for (DocFile docFile : sortedFiles) {
+            menu.append("<li><a href=\"").append(docFile.getPageName()).append("\">").append(escape(docFile.getTitle())).append("</a> <small>")
+                    .append(escape(docFile.getPath())).append("</small></li>\n");
+            for (DocTopic topic : docFile.getTopics()) {
+                topics.add(topic);
+                topicFiles.put(topic, docFile);
+            }
+        }
+        menu.append("</ul>\n</body>\n</html>\n");
+
+        Collections.sort(topics, new Comparator<DocTopic>() {
+            @Override
+            public int compare(DocTopic topic1, DocTopic topic2) {
+                return topic1.getTitle().compareToIgnoreCase(topic2.getTitle());
+            }
+        });
+        index.append("<p><a href=\"index.html\">").append(escape(title)).append("</a></p>\n<h1>Index</h1>\n<ul>\n");
+        for (DocTopic topic : topics) {
+            DocFile docFile = topicFiles.get(topic);
+            index.append("<li><a href=\"").append(docFile.getPageName()).append('#').append(getAnchor(topic)).append("\">").append(escape(topic.getTitle()))
+                    .append("</a> <small>").append(escape(topic.getKeyword())).append(", ").append(escape(docFile.getTitle())).append("</small></li>\n");
+        }
+        index.append("</ul>\n</body>\n</html>\n");
+
+        outputDirectory.mkdirs();
+        write(new File(outputDirectory, "index.html"), menu.toString());
+        write(new File(outputDirectory, "general-index.html"), index.toString());
+    }
+
+    private void appendBody(StringBuilder html, List<String> body) {
+        boolean inParagraph = false;
+        boolean inDefinitions = false;
+
+        for (String line : body) {
+            Matcher heading = HEADING.matcher(line);
+            Matcher definition = DEFINITION.matcher(line);
+
+            if (line.trim().isEmpty() || heading.matches() || definition.matches()) {
+                if (inParagraph) {
+                    html.append("</p>\n");
+                    inParagraph = false;
+                }
+            }
+            if (inDefinitions && !definition.matches() && (line.trim().isEmpty() || heading.matches())) {
+                html.append("</dl>\n");
+                inDefinitions = false;
+            }
+
+            if (line.trim().isEmpty()) {
+                continue;
+            } else if (heading.matches()) {
+                html.append("<h3>").append(escape(heading.group(1))).append("</h3>\n");
+            } else if (definition.matches()) {
+                if (!inDefinitions) {
+                    html.append("<dl>\n");
+                    inDefinitions = true;
+                }
+                html.append("<dt>").append(escape(definition.group(1))).append("</dt><dd>").append(escape(definition.group(2))).append("</dd>\n");
+            } else if (inDefinitions) {
+                // a continuation line of the previous definition
+                html.append("<dd>").append(escape(line.trim())).append("</dd>\n");
+            } else {
+                html.append(inParagraph ? "\n" : "<p>").append(escape(line.trim()));
+                inParagraph = true;
+            }
+        }
+        if (inParagraph) {
+            html.append("</p>\n");
+        }
+        if (inDefinitions) {
+            html.append("</dl>\n");
+        }
+    }
+
+    private static String getHeader(String pageTitle) {
+        return "<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>" + escape(pageTitle) + "</title>\n" + STYLE + "</head>\n<body>\n";
+    }
+
+    private static String getAnchor(DocTopic topic) {
+        return (topic.getKeyword() + "-" + topic.getTitle()).toLowerCase().replaceAll("[^a-z0-9_$#.-]", "_") + "-" + topic.getLine();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Minifies the HTML, CSS and JavaScript files of generated documentation and
+ * writes a precompressed .gz file next to every text file, so a web server can
+ * serve the compressed variants directly. The digest of every processed file
+ * is recorded in the output directory; files that didn't change since the
+ * last run are left alone.
+ *
+ * The minification is conservative: comments and redundant whitespace are
+ * removed, but the contents of pre, textarea and script elements are kept as
+ * is and JavaScript keeps its line breaks and literals.
+ */
+public class DocPostProcessor {
+
+    private static final String STATE_FILE_NAME = ".orclapex-postprocess";
+    private static final List<String> COMPRESSIBLE_EXTENSIONS = Arrays.asList("html", "htm", "css", "js", "json", "svg", "txt", "xml");
+    private static final Pattern HTML_PROTECTED = Pattern.compile("(?is)<(pre|textarea|script)\\b.*?</\\1\\s*>|<style\\b[^>]*>(.*?)</style\\s*>");
+    private static final Pattern HTML_COMMENT = Pattern.compile("(?s)<!--(?!\\[if).*?-->");
+    private static final Pattern CSS_COMMENT = Pattern.compile("(?s)/\\*.*?\\*/");
+    private static final Pattern CSS_DECLARATIONS = Pattern.compile("\\{[^{}]*\\}");
+    private static final List<String> REGEX_KEYWORDS = Arrays.asList("return", "typeof", "instanceof", "in", "of", "new", "delete", "void", "throw",
+            "case", "do", "else", "yield", "await");
+    private final File outputDirectory;
+    private final boolean minify;
+    private final boolean precompress;
+    private final int threads;
+    private final Log log;
+
+    /**
+     * @param outputDirectory the directory containing the documentation.
+     * @param minify minify the HTML, CSS and JavaScript files.
+     * @param precompress write a .gz file next to every text file.
+     * @param threads the number of files processed concurrently.
+     * @param log the Maven log.
+     */
+    public DocPostProcessor(File outputDirectory, boolean minify, boolean precompress, int threads, Log log) {
+        this.outputDirectory = outputDirectory;
+        this.minify = minify;
+        this.precompress = precompress;
+        this.threads = Math.max(1, threads);
+        this.log = log;
+    }
+
+    /**
+     * Process all changed files in the output directory.
+     *
+     * @throws IOException if a file can't be read or written.
+     */
+    public void process() throws IOException {
+        File stateFile = new File(outputDirectory, STATE_FILE_NAME);
+        final Properties state = new Properties();
+        final Map<String, String> digests = new ConcurrentHashMap<String, String>();
+        final AtomicInteger processedFiles = new AtomicInteger();
+        List<File> files = new ArrayList<File>();
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        ExecutorService executor;
+        long startTime = System.currentTimeMillis();
+
+        if (stateFile.isFile()) {
+            InputStream input = new FileInputStream(stateFile);
+            try {
+                state.load(input);
+            } finally {
+                input.close();
+            }
+        }
+        collectFiles(outputDirectory, files);
+        executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, files.size())));
+        try {
+            for (final File file : files) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        String path = getRelativePath(file);
+                        String digest = processFile(file, state.getProperty(path));
+                        if (digest != null) {
+                            digests.put(path, digest);
+                            processedFiles.incrementAndGet();
+                        } else {
+                            digests.put(path, state.getProperty(path));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            throw new IOException("Interrupted while post-processing the documentation", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException("Unable to post-process the documentation", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        writeState(stateFile, digests);
+        log.info("Post-processed " + processedFiles.get() + " of " + files.size() + " documentation file(s) in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * Minify and compress a single file, unless it's unchanged since the last
+     * run.
+     *
+     * @param file the file.
+     * @param recordedDigest the digest of the file after the last run, or null.
+     * @return the digest of the processed file, or null if the file was
+     * unchanged.
+     * @throws IOException if the file can't be read or written.
+     */
+    private String processFile(File file, String recordedDigest) throws IOException {
+        byte[] contents = readFile(file);
+        String extension = getExtension(file);
+        File compressedFile = new File(file.getPath() + ".gz");
+        String digest = ImportState.toHex(ImportState.getSha256().digest(contents));
+
+        if (digest.equals(recordedDigest) && (!precompress || compressedFile.isFile())) {
+            return null;
+        }
+
+        if (minify && (extension.equals("html") || extension.equals("htm") || extension.equals("css") || extension.equals("js"))) {
+            String text = new String(contents, "UTF-8");
+            String minified = extension.equals("css") ? minifyCss(text) : extension.equals("js") ? minifyJs(text) : minifyHtml(text);
+            if (!minified.equals(text)) {
+                contents = minified.getBytes("UTF-8");
+                writeFile(file, contents, false);
+                digest = ImportState.toHex(ImportState.getSha256().digest(contents));
+            }
+        }
+        if (precompress) {
+            writeFile(compressedFile, contents, true);
+        }
+
+        return digest;
+    }
+
+    /**
+     * Remove comments and collapse whitespace in an HTML page. The contents of
+     * pre, textarea and script elements are left untouched; style elements
+     * are minified as CSS.
+     *
+     * @param html the page.
+     * @return the minified page.
+     */
+    public static String minifyHtml(String html) {
+        StringBuilder minified = new StringBuilder();
+        Matcher matcher = HTML_PROTECTED.matcher(html);
+        int position = 0;
+
+        while (matcher.find()) {
+            minified.append(collapseHtml(html.substring(position, matcher.start())));
+            if (matcher.group(2) != null) {
+                minified.append(matcher.group().replace(matcher.group(2), minifyCss(matcher.group(2))));
+            } else {
+                minified.append(matcher.group());
+            }
+            position = matcher.end();
+        }
+        minified.append(collapseHtml(html.substring(position)));
+
+        return minified.toString();
+    }
+
+    private static String collapseHtml(String html) {
+        return HTML_COMMENT.matcher(html).replaceAll("").replaceAll("\\s*\\n\\s*", "\n").replaceAll("[ \\t]+", " ");
+    }
+
+    /**
+     * Remove comments and redundant whitespace from a style sheet. Whitespace
+     * after a colon is only removed in declaration blocks, as it is
+     * significant in selectors such as "div :first-child".
+     *
+     * @param css the style sheet.
+     * @return the minified style sheet.
+     */
+    public static String minifyCss(String css) {
+        String collapsed = CSS_COMMENT.matcher(css).replaceAll("").replaceAll("\\s+", " ").replaceAll("\\s*([{};,>])\\s*", "$1");
+        StringBuffer minified = new StringBuffer();
+        Matcher matcher = CSS_DECLARATIONS.matcher(collapsed);
+
+        while (matcher.find()) {
+            matcher.appendReplacement(minified, Matcher.quoteReplacement(matcher.group().replaceAll(":\\s+", ":")));
+        }
+        matcher.appendTail(minified);
+
+        return minified.toString().replace(";}", "}").trim();
+    }
+
+    /**
+     * Remove comments, indentation and blank lines from a script. Line
+     * breaks are kept, so automatic semicolon insertion is not affected.
+     * String, template and regular expression literals are copied as is.
+     *
+     * @param js the script.
+     * @return the minified script.
+     */
+    public static String minifyJs(String js) {
+        StringBuilder minified = new StringBuilder();
+        // the brace depth at which each open template substitution ends
+        Deque<Integer> substitutions = new ArrayDeque<Integer>();
+        int braceDepth = 0;
+        boolean inTemplate = false;
+        boolean lineStart = true;
+        int i = 0;
+
+        while (i < js.length()) {
+            char c = js.charAt(i);
+            char next = i + 1 < js.length() ? js.charAt(i + 1) : 0;
+            int end = i + 1;
+
+            if (inTemplate) {
+                if (c == '\\') {
+                    end = Math.min(i + 2, js.length());
+                } else if (c == '`') {
+                    inTemplate = false;
+                } else if (c == '$' && next == '{') {
+                    substitutions.push(braceDepth);
+                    braceDepth++;
+                    inTemplate = false;
+                    end = i + 2;
+                }
+                minified.append(js, i, end);
+                i = end;
+                continue;
+            }
+
+            if (c == '/' && next == '/') {
+                end = js.indexOf('\n', i);
+                end = end < 0 ? js.length() : end;
+            } else if (c == '/' && next == '*') {
+                end = js.indexOf("*/", i + 2);
+                end = end < 0 ? js.length() : end + 2;
+                if (js.substring(i, end).indexOf('\n') >= 0) {
+                    lineStart = endLine(minified);
+                } else if (!lineStart && end < js.length() && !Character.isWhitespace(js.charAt(end))) {
+                    // keep the tokens around the comment apart
+                    minified.append(' ');
+                }
+            } else if (c == '\n') {
+                lineStart = endLine(minified);
+            } else if (Character.isWhitespace(c)) {
+                if (!lineStart && c != '\r' && minified.charAt(minified.length() - 1) != ' ') {
+                    minified.append(' ');
+                }
+            } else {
+                if (c == '\'' || c == '"') {
+                    end = skipQuoted(js, i);
+                } else if (c == '/' && isRegexAllowed(minified)) {
+                    end = skipRegex(js, i);
+                } else if (c == '`') {
+                    inTemplate = true;
+                } else if (c == '{') {
+                    braceDepth++;
+                } else if (c == '}') {
+                    braceDepth--;
+                    if (!substitutions.isEmpty() && substitutions.peek() == braceDepth) {
+                        substitutions.pop();
+                        inTemplate = true;
+                    }
+                }
+                minified.append(js, i, end);
+                lineStart = false;
+            }
+            i = end;
+        }
+        endLine(minified);
+
+        return minified.toString();
+    }
+
+    /**
+     * End a line of code: remove its trailing whitespace and add a line break,
+     * unless the line is blank.
+     *
+     * @return true, the next character starts a line.
+     */
+    private static boolean endLine(StringBuilder minified) {
+        int length = minified.length();
+
+        while (length > 0 && (minified.charAt(length - 1) == ' ' || minified.charAt(length - 1) == '\t')) {
+            length--;
+        }
+        minified.setLength(length);
+        if (length > 0 && minified.charAt(length - 1) != '\n') {
+            minified.append('\n');
+        }
+        return true;
+    }
+
+    /**
+     * @return the end of the string literal starting at start; an
+     * unterminated literal ends at the line break.
+     */
+    private static int skipQuoted(String js, int start) {
+        char quote = js.charAt(start);
+        int i = start + 1;
+
+        while (i < js.length() && js.charAt(i) != quote && js.charAt(i) != '\n') {
+            i += js.charAt(i) == '\\' ? 2 : 1;
+        }
+
+        return Math.min(i + 1, js.length());
+    }
+
+    /**
+     * @return the end of the regular expression literal starting at start,
+     * without its flags. A slash in a character class doesn't end it.
+     */
+    private static int skipRegex(String js, int start) {
+        boolean inClass = false;
+        int i = start + 1;
+
+        while (i < js.length() && js.charAt(i) != '\n') {
+            char c = js.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                return i + 1;
+            }
+            i++;
+        }
+
+        return Math.min(i, js.length());
+    }
+
+    /**
+     * Decide whether a slash starts a regular expression or is a division,
+     * from the code before it: a value (a name, number, literal or closing
+     * bracket) is divided, otherwise a regular expression follows.
+     */
+    private static boolean isRegexAllowed(StringBuilder minified) {
+        int i = minified.length() - 1;
+        int wordEnd;
+
+        while (i >= 0 && Character.isWhitespace(minified.charAt(i))) {
+            i--;
+        }
+        if (i < 0) {
+            return true;
+        } else if (Character.isJavaIdentifierPart(minified.charAt(i))) {
+            wordEnd = i + 1;
+            while (i >= 0 && Character.isJavaIdentifierPart(minified.charAt(i))) {
+                i--;
+            }
+            return REGEX_KEYWORDS.contains(minified.substring(i + 1, wordEnd));
+        }
+
+        return ")]'\"`".indexOf(minified.charAt(i)) < 0;
+    }
+
+    private static void writeState(File stateFile, Map<String, String> digests) throws IOException {
+        Properties state = new Properties();
+        OutputStream output = new FileOutputStream(stateFile);
+
+        state.putAll(digests);
+        try {
+            state.store(output, "Digests of the post-processed documentation files");
+        } finally {
+            output.close();
+        }
+    }
+
+    private void collectFiles(File directory, List<File> files) {
+        File[] directoryFiles = directory.listFiles();
+
+        if (directoryFiles == null) {
+            return;
+        }
+        for (File file : directoryFiles) {
+            if (file.isDirectory()) {
+                collectFiles(file, files);
+            } else if (file.getName().endsWith(".gz")) {
+                // remove compressed variants of deleted files
+                if (!new File(file.getPath().substring(0, file.getPath().length() - 3)).isFile()) {
+                    file.delete();
+                }
+            } else if (COMPRESSIBLE_EXTENSIONS.contains(getExtension(file))) {
+                files.add(file);
+            }
+        }
+    }
+
+    private String getRelativePath(File file) {
+        return file.getAbsolutePath().substring(outputDirectory.getAbsolutePath().length() + 1).replace(File.separatorChar, '/');
+    }
+
+    private static String getExtension(File file) {
+        String name = file.getName();
+
+        return name.contains(".") ? name.substring(name.lastIndexOf('.') + 1).toLowerCase() : "";
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        InputStream input = new FileInputStream(file);
+        ByteArrayOutputStream contents = new ByteArrayOutputStream((int) file.length());
+        byte[] buffer = new byte[8192];
+        int length;
+
+        try {
+            while ((length = input.read(buffer)) != -1) {
+                contents.write(buffer, 0, length);
+            }
+        } finally {
+            input.close();
+        }
+
+        return contents.toByteArray();
+    }
+
+    private static void writeFile(File file, byte[] contents, boolean compress) throws IOException {
+        OutputStream output = new FileOutputStream(file);
+
+        if (compress) {
+            output = new GZIPOutputStream(output);
+        }
+        try {
+            output.write(contents);
+        } finally {
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A documented (or undocumented) item in a PL/SQL source file: a package,
+ * function, procedure, view, trigger, type or a free-form topic, as found by
+ * the PlsqlDocScanner.
+ */
+public class DocTopic implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final String keyword;
+    private final String title;
+    private final int line;
+    private final List<String> body = new ArrayList<String>();
+    private String prototype;
+
+    /**
+     * @param keyword the topic type, e.g. Function or Package Body.
+     * @param title the topic title, usually the name of the item.
+     * @param line the line number at which the topic starts.
+     */
+    public DocTopic(String keyword, String title, int line) {
+        this.keyword = keyword;
+        this.title = title;
+        this.line = line;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the comment lines of the topic, without comment markers. Empty
+     * for undocumented items.
+     */
+    public List<String> getBody() {
+        return body;
+    }
+
+    /**
+     * @return the declaration of the item in the code, or null.
+     */
+    public String getPrototype() {
+        return prototype;
+    }
+
+    public void setPrototype(String prototype) {
+        this.prototype = prototype;
+    }
+
+    /**
+     * @return true if the topic has a comment.
+     */
+    public boolean isDocumented() {
+        for (String bodyLine : body) {
+            if (!bodyLine.trim().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,398 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Export one or more APEX applications with the APEX_EXPORT package (APEX
+ * 5.1.4 or later) over JDBC. Every application is written to the f[appId]
+ * folder of the output directory, which can be used as the appExportLocation
+ * of the 'import' goal.
+ */
+@Mojo(name = "export")
+public class ExportAppMojo extends AbstractMojo {
+
+    /**
+     * The database connection string (e.g. localhost:1521/orcl.company.com).
+     */
+    @Parameter(property = "export.connectionString")
+    private String connectionString;
+    /**
+     * The database username used to login: the parsing schema of the
+     * applications or a user with the APEX_ADMINISTRATOR_ROLE.
+     */
+    @Parameter(property = "export.username",
+    required = true)
+    private String username;
+    /**
+     * The database user's password.
+     */
+    @Parameter(property = "export.password",
+    required = true)
+    private String password;
+    /**
+     * The JDBC URL. Defaults to a thin driver URL derived from the
+     * connectionString.
+     */
+    @Parameter(property = "export.jdbcUrl")
+    private String jdbcUrl;
+    /**
+     * The JDBC driver class. The driver has to be added as a plugin
+     * dependency.
+     */
+    @Parameter(property = "export.jdbcDriver",
+    defaultValue = "oracle.jdbc.OracleDriver")
+    private String jdbcDriver;
+    /**
+     * The workspace of the applications. Required when the database user has
+     * access to more than one workspace.
+     */
+    @Parameter(property = "export.workspaceName")
+    private String workspaceName;
+    /**
+     * The IDs of the applications to export.
+     */
+    @Parameter(property = "export.appIds",
+    required = true)
+    private List<String> appIds;
+    /**
+     * Split the export in a file per component. The f[appId] folder then
+     * contains an install.sql script that runs the component files.
+     */
+    @Parameter(property = "export.split",
+    defaultValue = "false")
+    private boolean split;
+    /**
+     * The folder in which the f[appId] folders are written.
+     */
+    @Parameter(property = "export.outputDirectory",
+    defaultValue = "${project.basedir}/apex")
+    private File outputDirectory;
+    /**
+     * The number of applications exported concurrently, each over its own
+     * database session.
+     */
+    @Parameter(property = "export.parallelExports",
+    defaultValue = "4")
+    private int parallelExports;
+    /**
+     * Remove the lines that change with every export, such as the export
+     * date and time, so unchanged components produce identical files.
+     */
+    @Parameter(property = "export.normalize",
+    defaultValue = "true")
+    private boolean normalize;
+    /**
+     * Remove the trailing whitespace of every line. Trailing whitespace can be
+     * part of a string literal spanning multiple lines, such as a template or
+     * PL/SQL source, so this changes what gets imported.
+     */
+    @Parameter(property = "export.trimTrailingWhitespace",
+    defaultValue = "false")
+    private boolean trimTrailingWhitespace;
+    /**
+     * Additional regular expressions of lines to remove when normalize is
+     * enabled.
+     */
+    @Parameter
+    private List<String> volatileLinePatterns;
+    private static final String EXPORT_BLOCK = "declare\n"
+            + "  l_files apex_t_export_files;\n"
+            + "begin\n"
+            + "  if ? is not null then\n"
+            + "    apex_util.set_workspace(p_workspace => ?);\n"
+            + "  end if;\n"
+            + "  l_files := apex_export.get_application(p_application_id => ?, p_split => ? = 'Y');\n"
+            + "  open ? for select name, contents from table(l_files);\n"
+            + "end;";
+    /**
+     * The JDBC type code of a ref cursor in the Oracle driver.
+     */
+    private static final int CURSOR_TYPE = -10;
+    private static final List<String> DEFAULT_VOLATILE_LINE_PATTERNS = Arrays.asList(
+            "--\\s+Date and Time:.*",
+            "--\\s+Exported By:.*",
+            "--\\s+Instance ID:.*");
+    private final List<Pattern> volatileLines = new ArrayList<Pattern>();
+
+    /**
+     * The method called by Maven when the 'export' goal gets executed.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final String url = jdbcUrl != null ? jdbcUrl : connectionString != null ? JdbcScriptRunner.getThinUrl(connectionString) : null;
+        final Queue<String> queue = new ConcurrentLinkedQueue<String>();
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        ExecutorService executor;
+        MojoExecutionException failure = null;
+        long startTime = System.currentTimeMillis();
+
+        if (url == null) {
+            throw new MojoExecutionException("The connectionString or jdbcUrl parameter is required");
+        }
+        for (String pattern : DEFAULT_VOLATILE_LINE_PATTERNS) {
+            volatileLines.add(Pattern.compile(pattern));
+        }
+        if (volatileLinePatterns != null) {
+            for (String pattern : volatileLinePatterns) {
+                volatileLines.add(Pattern.compile(pattern));
+            }
+        }
+        for (String appId : appIds) {
+            if (!appId.trim().matches("\\d+")) {
+                throw new MojoExecutionException("Invalid application ID: " + appId);
+            }
+            queue.add(appId.trim());
+        }
+
+        executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelExports, queue.size())));
+        try {
+            for (int i = 0; i < Math.max(1, Math.min(parallelExports, queue.size())); i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws MojoExecutionException, SQLException, IOException {
+                        Connection connection = null;
+                        String appId;
+                        try {
+                            while ((appId = queue.poll()) != null) {
+                                if (connection == null) {
+                                    connection = JdbcScriptRunner.connect(jdbcDriver, url, username, password);
+                                }
+                                exportApplication(connection, appId);
+                            }
+                        } finally {
+                            if (connection != null) {
+                                connection.close();
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    getLog().error(cause.getMessage() == null ? cause.toString() : cause.getMessage().trim());
+                    if (failure == null) {
+                        failure = cause instanceof MojoExecutionException ? (MojoExecutionException) cause
+                                : new MojoExecutionException("The export failed: " + cause.getMessage(), cause);
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            throw new MojoExecutionException("Interrupted while exporting the applications", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        getLog().info("Exported " + appIds.size() + " application(s) in " + (System.currentTimeMillis() - startTime) + " ms: "
+                + outputDirectory.getAbsolutePath());
+    }
+
+    /**
+     * Export an application, streaming every export file to disk. Files that
+     * are identical to the existing file are not replaced; files of a previous
+     * split export that are no longer part of the export are removed.
+     *
+     * @param connection the connection.
+     * @param appId the application ID.
+     */
+    private void exportApplication(Connection connection, String appId) throws SQLException, IOException, MojoExecutionException {
+        File appDirectory = new File(outputDirectory, "f" + appId);
+        Set<File> exportFiles = new HashSet<File>();
+        CallableStatement statement = connection.prepareCall(EXPORT_BLOCK);
+        ResultSet resultSet;
+        int changedFiles = 0;
+        long startTime = System.currentTimeMillis();
+
+        try {
+            statement.setString(1, workspaceName);
+            statement.setString(2, workspaceName);
+            statement.setString(3, appId);
+            statement.setString(4, split ? "Y" : "N");
+            statement.registerOutParameter(5, CURSOR_TYPE);
+            try {
+                statement.execute();
+            } catch (SQLException ex) {
+                throw new MojoExecutionException("Unable to export application " + appId + ": " + ex.getMessage().trim(), ex);
+            }
+            resultSet = (ResultSet) statement.getObject(5);
+            try {
+                resultSet.setFetchSize(100);
+                while (resultSet.next()) {
+                    File exportFile = getExportFile(appDirectory, appId, resultSet.getString(1));
+                    Reader contents = resultSet.getCharacterStream(2);
+                    exportFiles.add(exportFile);
+                    if (writeExportFile(contents, exportFile)) {
+                        changedFiles++;
+                    }
+                }
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+        if (exportFiles.isEmpty()) {
+            throw new MojoExecutionException("The export of application " + appId + " is empty");
+        }
+
+        removeStaleFiles(appDirectory, exportFiles);
+        getLog().info("Exported application " + appId + ": " + exportFiles.size() + " file(s), " + changedFiles + " changed, in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * @param appDirectory the f[appId] folder.
+     * @param appId the application ID.
+     * @param name the name of the export file, e.g. f100/application/pages/page_00001.sql.
+     * @return the file in the f[appId] folder.
+     */
+    private static File getExportFile(File appDirectory, String appId, String name) throws MojoExecutionException {
+        String path = name.replace('\\', '/');
+
+        if (path.startsWith("f" + appId + "/")) {
+            path = path.substring(appId.length() + 2);
+        }
+        if (path.startsWith("/") || path.contains("../")) {
+            throw new MojoExecutionException("Invalid export file name: " + name);
+        }
+
+        return new File(appDirectory, path);
+    }
+
+    /**
+     * Write an export file line by line, removing volatile lines and, if
+     * enabled, trailing whitespace, through a temporary file that only
+     * replaces the file if the contents changed.
+     *
+     * @param contents the export file contents.
+     * @param file the export file.
+     * @return true if the file was created or changed.
+     */
+    private boolean writeExportFile(Reader contents, File file) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        BufferedReader reader = new BufferedReader(contents);
+        Writer writer;
+        String line;
+
+        file.getParentFile().mkdirs();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), "UTF-8"));
+        try {
+            while ((line = reader.readLine()) != null) {
+                if (normalize && isVolatile(line)) {
+                    continue;
+                }
+                if (trimTrailingWhitespace) {
+                    line = line.replaceFirst("\\s+$", "");
+                }
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+            reader.close();
+        }
+
+        if (file.isFile() && hasSameContents(file, tmpFile)) {
+            tmpFile.delete();
+            return false;
+        }
+        file.delete();
+        if (!tmpFile.renameTo(file)) {
+            throw new IOException("Unable to write " + file.getAbsolutePath());
+        }
+        return true;
+    }
+
+    private boolean isVolatile(String line) {
+        for (Pattern volatileLine : volatileLines) {
+            if (volatileLine.matcher(line).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasSameContents(File file1, File file2) throws IOException {
+        InputStream input1;
+        InputStream input2;
+
+        if (file1.length() != file2.length()) {
+            return false;
+        }
+        input1 = new BufferedInputStream(new FileInputStream(file1));
+        try {
+            input2 = new BufferedInputStream(new FileInputStream(file2));
+            try {
+                int b;
+                while ((b = input1.read()) != -1) {
+                    if (b != input2.read()) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                input2.close();
+            }
+        } finally {
+            input1.close();
+        }
+    }
+
+    /**
+     * Remove the .sql files in the f[appId] folder that are not part of the
+     * export, e.g. the file of a deleted page.
+     */
+    private void removeStaleFiles(File directory, Set<File> exportFiles) {
+        File[] files = directory.listFiles();
+
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                removeStaleFiles(file, exportFiles);
+            } else if (file.getName().toLowerCase().endsWith(".sql") && !exportFiles.contains(file)) {
+                getLog().debug("Removing " + file.getAbsolutePath() + ": no longer part of the export");
+                file.delete();
+            }
+        }
+    }
+}
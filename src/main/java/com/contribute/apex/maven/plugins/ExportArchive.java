@@ -0,0 +1,361 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * An application export packaged in a zip, jar or gzip file, or in a Maven
+ * artifact in the local repository. The export scripts are read straight from
+ * the archive; nothing is extracted to disk.
+ *
+ * For zip and jar files the .sql entries of the folder closest to the archive
+ * root are imported, in the order of ExportPreflight.order(File[]). The @@
+ * calls in these scripts, e.g. those of the install.sql of a split export, are
+ * resolved against the archive entries and read in place. A gzip file
+ * contains a single script; tar archives are not supported.
+ * A Maven artifact is specified as groupId:artifactId:version[:type[:classifier]]
+ * with type zip by default, and has to be present in the local repository,
+ * e.g. by declaring it as a dependency or running dependency:get.
+ */
+public class ExportArchive {
+
+    private static final Pattern COORDINATE = Pattern.compile("[^:/\\\\]+(:[^:/\\\\]+){2,4}");
+    private static final int MAX_NESTING = 20;
+    private final File file;
+    private final ZipFile zipFile;
+    private final List<String> entryNames = new ArrayList<String>();
+
+    private ExportArchive(File file, ZipFile zipFile) {
+        this.file = file;
+        this.zipFile = zipFile;
+    }
+
+    /**
+     * @param location the appExportLocation of an application.
+     * @return true if the location is an archive file or a Maven artifact
+     * coordinate rather than a folder.
+     */
+    public static boolean isArchive(String location) {
+        String lowerLocation = location.toLowerCase();
+
+        return lowerLocation.endsWith(".zip") || lowerLocation.endsWith(".jar") || lowerLocation.endsWith(".gz")
+                || isTar(lowerLocation) || COORDINATE.matcher(location).matches();
+    }
+
+    private static boolean isTar(String name) {
+        String lowerName = name.toLowerCase();
+
+        return lowerName.endsWith(".tar") || lowerName.endsWith(".tar.gz") || lowerName.endsWith(".tgz");
+    }
+
+    /**
+     * Find the archive file of an appExportLocation.
+     *
+     * @param location the path to an archive or a Maven artifact coordinate.
+     * @param localRepository the path to the local Maven repository.
+     * @return the archive file.
+     * @throws MojoExecutionException if the archive doesn't exist.
+     * @throws MojoFailureException if the archive can't be read or is a tar
+     * archive.
+     */
+    public static File resolve(String location, String localRepository) throws MojoExecutionException, MojoFailureException {
+        File archiveFile;
+
+        if (COORDINATE.matcher(location).matches()) {
+            archiveFile = getArtifactFile(location, localRepository);
+            if (!archiveFile.isFile()) {
+                throw new MojoExecutionException("Artifact " + location + " not found in the local repository: " + archiveFile.getAbsolutePath()
+                        + ". Declare it as a dependency or run dependency:get first.");
+            }
+        } else {
+            archiveFile = new File(location);
+            if (!archiveFile.isFile()) {
+                throw new MojoExecutionException("Unable to find the appExportLocation archive: " + archiveFile.getAbsolutePath());
+            }
+        }
+        if (!archiveFile.canRead()) {
+            throw new MojoFailureException("No read permission on the appExportLocation archive: " + archiveFile.getAbsolutePath());
+        } else if (isTar(archiveFile.getName())) {
+            // a gzipped tar file would otherwise be streamed as a single script, tar headers included
+            throw new MojoFailureException("Tar archives are not supported as appExportLocation: " + archiveFile.getAbsolutePath()
+                    + ". Use a zip file or a gzip file of a single script.");
+        }
+
+        return archiveFile;
+    }
+
+    /**
+     * Open an archive and list its export scripts. Close the archive when it
+     * is no longer needed.
+     *
+     * @param location the path to an archive or a Maven artifact coordinate.
+     * @param localRepository the path to the local Maven repository.
+     * @return the opened archive.
+     * @throws MojoExecutionException if the archive doesn't exist or is
+     * corrupt.
+     * @throws MojoFailureException if the archive can't be read, is a tar
+     * archive or contains no .sql scripts.
+     */
+    public static ExportArchive open(String location, String localRepository) throws MojoExecutionException, MojoFailureException {
+        File archiveFile = resolve(location, localRepository);
+        ExportArchive archive;
+
+        if (archiveFile.getName().toLowerCase().endsWith(".gz")) {
+            archive = new ExportArchive(archiveFile, null);
+            archive.entryNames.add(archiveFile.getName().substring(0, archiveFile.getName().length() - 3));
+            return archive;
+        }
+
+        try {
+            archive = new ExportArchive(archiveFile, new ZipFile(archiveFile));
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to open the appExportLocation archive: " + archiveFile.getAbsolutePath(), ex);
+        }
+        archive.listEntries();
+        if (archive.entryNames.isEmpty()) {
+            archive.close();
+            throw new MojoFailureException("No .sql scripts found in the appExportLocation archive: " + archiveFile.getAbsolutePath());
+        }
+
+        return archive;
+    }
+
+    /**
+     * Put together the path of an artifact in the local repository.
+     *
+     * @param coordinate groupId:artifactId:version[:type[:classifier]].
+     * @param localRepository the path to the local Maven repository.
+     * @return the artifact file.
+     */
+    public static File getArtifactFile(String coordinate, String localRepository) {
+        String[] parts = coordinate.split(":");
+        String type = parts.length > 3 ? parts[3] : "zip";
+        String classifier = parts.length > 4 ? "-" + parts[4] : "";
+
+        return new File(localRepository, parts[0].replace('.', '/') + "/" + parts[1] + "/" + parts[2]
+                + "/" + parts[1] + "-" + parts[2] + classifier + "." + type);
+    }
+
+    /**
+     * Collect the .sql entries in the folder closest to the archive root, in
+     * import order.
+     */
+    private void listEntries() {
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        Map<File, String> namesByFile = new HashMap<File, String>();
+        String folder = null;
+        File[] entryFiles;
+
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String name = entry.getName();
+            String entryFolder = name.substring(0, name.lastIndexOf('/') + 1);
+
+            if (entry.isDirectory() || !name.toLowerCase().endsWith(".sql")) {
+                continue;
+            }
+            if (folder == null || getDepth(entryFolder) < getDepth(folder)) {
+                folder = entryFolder;
+                entryNames.clear();
+            }
+            if (entryFolder.equals(folder)) {
+                entryNames.add(name);
+            }
+        }
+
+        entryFiles = new File[entryNames.size()];
+        for (int i = 0; i < entryFiles.length; i++) {
+            entryFiles[i] = new File(entryNames.get(i));
+            namesByFile.put(entryFiles[i], entryNames.get(i));
+        }
+        entryNames.clear();
+        for (File entryFile : ExportPreflight.order(entryFiles)) {
+            entryNames.add(namesByFile.get(entryFile));
+        }
+    }
+
+    private static int getDepth(String folder) {
+        return folder.length() - folder.replace("/", "").length();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the names of the export scripts in the archive, in import
+     * order.
+     */
+    public List<String> getEntryNames() {
+        return entryNames;
+    }
+
+    /**
+     * @param entryName the name of an archive entry.
+     * @return the file name of the entry, without folders.
+     */
+    public static String getFileName(String entryName) {
+        return entryName.substring(entryName.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Open the contents of an export script for reading.
+     *
+     * @param entryName the name of an entry returned by getEntryNames().
+     * @return the uncompressed contents.
+     * @throws IOException if the archive can't be read.
+     */
+    public InputStream openEntry(String entryName) throws IOException {
+        if (zipFile == null) {
+            return new GZIPInputStream(new FileInputStream(file));
+        }
+        return zipFile.getInputStream(zipFile.getEntry(entryName));
+    }
+
+    /**
+     * Open an export script for reading, with the scripts it calls with @@
+     * read in place of the calls, like SQL*Plus runs them. The called scripts
+     * are resolved against the folder of the calling entry.
+     *
+     * @param entryName the name of an entry returned by getEntryNames().
+     * @return the script contents, UTF-8 decoded.
+     * @throws IOException if the archive can't be read.
+     */
+    public Reader openScript(String entryName) throws IOException {
+        return new ScriptReader(entryName);
+    }
+
+    /**
+     * Resolve the path of a @@ call against the folder of the calling entry.
+     *
+     * @param callingEntryName the name of the entry containing the call.
+     * @param path the path following @@.
+     * @return the entry name, with .sql appended if the path has no extension.
+     */
+    static String resolveCall(String callingEntryName, String path) {
+        Deque<String> parts = new ArrayDeque<String>();
+        StringBuilder entryName = new StringBuilder();
+
+        for (String part : (callingEntryName.substring(0, callingEntryName.lastIndexOf('/') + 1) + path.replace('\\', '/')).split("/")) {
+            if (part.equals("..") && !parts.isEmpty()) {
+                parts.removeLast();
+            } else if (!part.isEmpty() && !part.equals(".")) {
+                parts.addLast(part);
+            }
+        }
+        if (!parts.isEmpty() && !parts.getLast().contains(".")) {
+            parts.addLast(parts.removeLast() + ".sql");
+        }
+        for (String part : parts) {
+            entryName.append(entryName.length() == 0 ? "" : "/").append(part);
+        }
+        return entryName.toString();
+    }
+
+    /**
+     * Release the archive.
+     */
+    public void close() {
+        if (zipFile == null) {
+            return;
+        }
+        try {
+            zipFile.close();
+        } catch (IOException ex) {
+            // nothing left to clean up
+        }
+    }
+
+    /**
+     * Reads an export script line by line and replaces every @@ call with the
+     * contents of the called entry.
+     */
+    private class ScriptReader extends Reader {
+
+        private final Deque<BufferedReader> readers = new ArrayDeque<BufferedReader>();
+        private final Deque<String> entryNames = new ArrayDeque<String>();
+        private String line = "";
+        private int position;
+
+        ScriptReader(String entryName) throws IOException {
+            push(entryName);
+        }
+
+        private void push(String entryName) throws IOException {
+            InputStream input;
+
+            if (readers.size() >= MAX_NESTING) {
+                throw new IOException("More than " + MAX_NESTING + " nested @@ calls in " + file.getName() + "!" + entryName);
+            }
+            if (zipFile != null && zipFile.getEntry(entryName) == null) {
+                throw new IOException("Script " + entryName + " called from " + file.getName() + "!" + entryNames.peek() + " not found in the archive");
+            }
+            input = openEntry(entryName);
+            readers.push(new BufferedReader(new InputStreamReader(input, "UTF-8")));
+            entryNames.push(entryName);
+        }
+
+        /**
+         * @return false at the end of the outermost script.
+         */
+        private boolean nextLine() throws IOException {
+            while (!readers.isEmpty()) {
+                String nextLine = readers.peek().readLine();
+                if (nextLine == null) {
+                    readers.pop().close();
+                    entryNames.pop();
+                } else if (zipFile != null && nextLine.trim().startsWith("@@")) {
+                    push(resolveCall(entryNames.peek(), nextLine.trim().substring(2).trim()));
+                } else {
+                    line = nextLine + "\n";
+                    position = 0;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int count;
+
+            if (length == 0) {
+                return 0;
+            }
+            while (position >= line.length()) {
+                if (!nextLine()) {
+                    return -1;
+                }
+            }
+            count = Math.min(length, line.length() - position);
+            line.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            while (!readers.isEmpty()) {
+                readers.pop().close();
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+
+/**
+ * The metadata of an export file found by the pre-flight scan in the header
+ * and tail of the file. Values that aren't present in the file are null.
+ */
+public class ExportMetadata {
+
+    private final File file;
+    private String appId;
+    private String workspaceId;
+    private String release;
+    private String owner;
+    private boolean importBegin;
+    private boolean importEnd;
+    private String lastLine;
+
+    /**
+     * @param file the scanned export file.
+     */
+    public ExportMetadata(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the ID of the exported application.
+     */
+    public String getAppId() {
+        return appId;
+    }
+
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+
+    /**
+     * @return the ID of the workspace the application was exported from.
+     */
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public void setWorkspaceId(String workspaceId) {
+        this.workspaceId = workspaceId;
+    }
+
+    /**
+     * @return the APEX release the application was exported from.
+     */
+    public String getRelease() {
+        return release;
+    }
+
+    public void setRelease(String release) {
+        this.release = release;
+    }
+
+    /**
+     * @return the parsing schema of the exported application.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * @return true if the header starts an application import.
+     */
+    public boolean isImportBegin() {
+        return importBegin;
+    }
+
+    public void setImportBegin(boolean importBegin) {
+        this.importBegin = importBegin;
+    }
+
+    /**
+     * @return true if the tail ends an application import.
+     */
+    public boolean isImportEnd() {
+        return importEnd;
+    }
+
+    public void setImportEnd(boolean importEnd) {
+        this.importEnd = importEnd;
+    }
+
+    /**
+     * @return the last non-blank line of the file, or null if the file is
+     * empty.
+     */
+    public String getLastLine() {
+        return lastLine;
+    }
+
+    public void setLastLine(String lastLine) {
+        this.lastLine = lastLine;
+    }
+
+    /**
+     * @return a one line description of the metadata found.
+     */
+    public String getDescription() {
+        StringBuilder description = new StringBuilder();
+
+        if (appId != null) {
+            description.append(", application ").append(appId);
+        }
+        if (workspaceId != null) {
+            description.append(", workspace ID ").append(workspaceId);
+        }
+        if (owner != null) {
+            description.append(", owner ").append(owner);
+        }
+        if (release != null) {
+            description.append(", APEX ").append(release);
+        }
+
+        return file.getName() + ": " + (description.length() == 0 ? "no export header" : description.substring(2));
+    }
+}
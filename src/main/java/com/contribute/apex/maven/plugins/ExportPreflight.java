@@ -0,0 +1,391 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scans the header and tail of export files before anything is sent to the
+ * database. Only the first and last few kilobytes of every file are mapped in
+ * memory, so large exports are scanned in milliseconds. The files are scanned
+ * in parallel.
+ */
+public class ExportPreflight {
+
+    private static final int HEAD_SIZE = 16 * 1024;
+    private static final int TAIL_SIZE = 4 * 1024;
+    private static final Pattern[] APP_ID = {
+        Pattern.compile("p_default_application_id\\s*=>\\s*(\\d+)"),
+        Pattern.compile("get_application_id\\s*,\\s*(\\d+)"),
+        Pattern.compile("(?m)^prompt\\s+APPLICATION\\s+(\\d+)")};
+    private static final Pattern[] WORKSPACE_ID = {
+        Pattern.compile("p_default_workspace_id\\s*=>\\s*(\\d+)"),
+        Pattern.compile("get_workspace_id\\s*,\\s*(\\d+)")};
+    private static final Pattern[] RELEASE = {
+        Pattern.compile("p_release\\s*=>\\s*'([\\d.]+)'"),
+        Pattern.compile("(?m)^--\\s*Version:\\s*([\\d.]+)")};
+    private static final Pattern[] OWNER = {
+        Pattern.compile("p_default_owner\\s*=>\\s*'([^']+)'"),
+        Pattern.compile("get_schema\\s*,\\s*'([^']+)'")};
+    private static final Pattern IMPORT_BEGIN = Pattern.compile("import_begin|g_import_in_progress\\s*:=\\s*true");
+    private static final Pattern IMPORT_END = Pattern.compile("import_end|\\.\\.\\.done");
+    private static final Pattern STATEMENT_END = Pattern.compile("(?is)/|.*;|(prompt|pro|set|exit|quit|commit|whenever|spool|rem|start)\\b.*|@.*|--.*");
+    private static final List<String> SPLIT_ORDER = Arrays.asList("set_environment.sql", "delete_application.sql", "create_application.sql");
+    private static final String END_ENVIRONMENT = "end_environment.sql";
+    private final int threads;
+
+    /**
+     * @param threads the maximum number of files scanned concurrently.
+     */
+    public ExportPreflight(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Scan the export files.
+     *
+     * @param exportFiles the export files.
+     * @return the metadata per export file, in the order of the files.
+     * @throws IOException if a file can't be read.
+     */
+    public List<ExportMetadata> scan(File[] exportFiles) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, exportFiles.length)));
+        List<Future<ExportMetadata>> futures = new ArrayList<Future<ExportMetadata>>();
+        List<ExportMetadata> metadata = new ArrayList<ExportMetadata>();
+
+        try {
+            for (final File exportFile : exportFiles) {
+                futures.add(executor.submit(new Callable<ExportMetadata>() {
+                    @Override
+                    public ExportMetadata call() throws IOException {
+                        return scanFile(exportFile);
+                    }
+                }));
+            }
+            for (Future<ExportMetadata> future : futures) {
+                metadata.add(future.get());
+            }
+        } catch (InterruptedException ex) {
+            throw new IOException("Interrupted while scanning the export files", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException("Unable to scan the export files", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return metadata;
+    }
+
+    /**
+     * Extract the metadata from the header and tail of an export file.
+     *
+     * @param exportFile the export file.
+     * @return the metadata.
+     * @throws IOException if the file can't be read.
+     */
+    public static ExportMetadata scanFile(File exportFile) throws IOException {
+        ExportMetadata metadata = new ExportMetadata(exportFile);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(exportFile, "r");
+        String head;
+        String tail;
+
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            head = decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEAD_SIZE)));
+            tail = decode(channel.map(FileChannel.MapMode.READ_ONLY, Math.max(0, size - TAIL_SIZE), Math.min(size, TAIL_SIZE)));
+        } finally {
+            randomAccessFile.close();
+        }
+
+        metadata.setAppId(find(APP_ID, head));
+        metadata.setWorkspaceId(find(WORKSPACE_ID, head));
+        metadata.setRelease(find(RELEASE, head));
+        metadata.setOwner(find(OWNER, head));
+        metadata.setImportBegin(IMPORT_BEGIN.matcher(head).find());
+        metadata.setImportEnd(IMPORT_END.matcher(tail).find());
+        for (String line : tail.split("\r?\n")) {
+            if (!line.trim().isEmpty()) {
+                metadata.setLastLine(line.trim());
+            }
+        }
+
+        return metadata;
+    }
+
+    /**
+     * Check the scanned export files for truncated files and check them
+     * against the application settings and the target.
+     *
+     * @param metadata the metadata of all export files of an application.
+     * @param application the application to import.
+     * @param target the database to import the application in.
+     * @return the problems found; empty if the export can be imported.
+     */
+    public static List<String> validate(List<ExportMetadata> metadata, Application application, Target target) {
+        List<String> problems = new ArrayList<String>();
+        Set<String> appIds = new LinkedHashSet<String>();
+        Set<String> workspaceIds = new LinkedHashSet<String>();
+        ExportMetadata endEnvironment = null;
+        boolean split = false;
+        boolean importBegin = false;
+
+        for (ExportMetadata fileMetadata : metadata) {
+            String fileName = fileMetadata.getFile().getName();
+            if (fileMetadata.getAppId() != null) {
+                appIds.add(fileMetadata.getAppId());
+            }
+            if (fileMetadata.getWorkspaceId() != null) {
+                workspaceIds.add(fileMetadata.getWorkspaceId());
+            }
+            importBegin |= fileMetadata.isImportBegin();
+            if (fileName.equalsIgnoreCase(SPLIT_ORDER.get(0))) {
+                split = true;
+            } else if (fileName.equalsIgnoreCase(END_ENVIRONMENT)) {
+                endEnvironment = fileMetadata;
+            }
+
+            if (fileMetadata.getLastLine() == null) {
+                problems.add(fileName + " is empty");
+            } else if (!STATEMENT_END.matcher(fileMetadata.getLastLine()).matches()) {
+                problems.add(fileName + " is truncated: it ends in the middle of a statement (" + fileMetadata.getLastLine() + ")");
+            } else if (fileMetadata.isImportBegin() && !fileMetadata.isImportEnd() && !fileName.equalsIgnoreCase(SPLIT_ORDER.get(0))) {
+                problems.add(fileName + " is truncated: the application import is never ended");
+            }
+            if (application.getExportAppId() != null && fileMetadata.getAppId() != null
+                    && !application.getExportAppId().equals(fileMetadata.getAppId())) {
+                problems.add(fileName + " contains application " + fileMetadata.getAppId() + " instead of application " + application.getExportAppId());
+            }
+            if (target.getApexVersion() != null && fileMetadata.getRelease() != null
+                    && compareVersions(fileMetadata.getRelease(), target.getApexVersion()) > 0) {
+                problems.add(fileName + " was exported from APEX " + fileMetadata.getRelease() + " and can't be imported in APEX " + target.getApexVersion());
+            }
+        }
+
+        if (split && endEnvironment == null) {
+            problems.add("The split export is incomplete: " + END_ENVIRONMENT + " not found");
+        } else if (split && !endEnvironment.isImportEnd()) {
+            problems.add(END_ENVIRONMENT + " is truncated: the application import is never ended");
+        }
+        if (application.getAppId() != null && appIds.size() > 1) {
+            problems.add("The export contains multiple applications " + appIds + ", which can't all be imported with application ID " + application.getAppId());
+        }
+        // without a workspaceName the application is imported in the workspace it was exported from
+        if (application.getWorkspaceName() == null && workspaceIds.size() > 1) {
+            problems.add("The export files were exported from multiple workspaces " + workspaceIds + "; set the workspaceName to import them in one workspace");
+        } else if (application.getWorkspaceName() == null && workspaceIds.isEmpty() && importBegin) {
+            problems.add("The export doesn't contain a workspace ID; set the workspaceName to import it");
+        }
+
+        return problems;
+    }
+
+    /**
+     * Collect the files to scan: the export files and, for the install.sql
+     * script of a split export, the files it runs, in the order it runs them.
+     *
+     * @param exportFiles the export files.
+     * @return the files to scan.
+     * @throws IOException if an install.sql script can't be read.
+     */
+    public static File[] getFilesToScan(File[] exportFiles) throws IOException {
+        Set<File> files = new LinkedHashSet<File>();
+
+        for (File exportFile : exportFiles) {
+            files.add(exportFile);
+            if (exportFile.getName().equalsIgnoreCase("install.sql")) {
+                for (String path : readInstallScript(exportFile)) {
+                    File calledFile = new File(exportFile.getParentFile(), path);
+                    // a missing file is reported by the import itself
+                    if (calledFile.isFile()) {
+                        files.add(calledFile);
+                    }
+                }
+            }
+        }
+
+        return files.toArray(new File[files.size()]);
+    }
+
+    /**
+     * Read the paths of the scripts an install.sql script runs with @, @@ or
+     * start.
+     *
+     * @param installScript the install.sql script.
+     * @return the paths relative to the folder of the script, with / as
+     * separator, in the order they're run.
+     * @throws IOException if the script can't be read.
+     */
+    private static List<String> readInstallScript(File installScript) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(installScript), "UTF-8"));
+        List<String> paths = new ArrayList<String>();
+        String line;
+
+        try {
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("@") || line.toLowerCase().startsWith("start ")) {
+                    paths.add(line.replaceFirst("^(@@?|(?i:start)\\s)", "").trim().replace('\\', '/').replaceFirst("^\\./", ""));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return paths;
+    }
+
+    /**
+     * Put the files of a split export in install order: set_environment.sql,
+     * delete_application.sql and create_application.sql first, then the
+     * components by name and end_environment.sql last. Other exports are
+     * returned as is.
+     *
+     * @param exportFiles the export files.
+     * @return the ordered export files.
+     */
+    public static File[] order(File[] exportFiles) {
+        File[] orderedFiles = exportFiles.clone();
+        boolean split = false;
+
+        for (File exportFile : exportFiles) {
+            split = split || exportFile.getName().equalsIgnoreCase(SPLIT_ORDER.get(0));
+        }
+        if (!split) {
+            return orderedFiles;
+        }
+
+        Arrays.sort(orderedFiles, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                int rank1 = getRank(file1.getName().toLowerCase());
+                int rank2 = getRank(file2.getName().toLowerCase());
+                return rank1 != rank2 ? rank1 - rank2 : file1.getName().compareTo(file2.getName());
+            }
+        });
+
+        return orderedFiles;
+    }
+
+    /**
+     * Put the files of a split export in the order in which its install.sql
+     * script runs them. Files that install.sql doesn't run, or all files if
+     * there is no install.sql, follow in the order of order(File[]).
+     *
+     * @param folder the export folder.
+     * @param paths the paths of the files relative to the folder, with / as
+     * separator.
+     * @return the ordered files.
+     * @throws IOException if install.sql can't be read.
+     */
+    public static File[] orderByInstallScript(File folder, Collection<String> paths) throws IOException {
+        final Map<String, Integer> positions = new HashMap<String, Integer>();
+        final Map<File, String> relativePaths = new HashMap<File, String>();
+        File installScript = new File(folder, "install.sql");
+        File[] orderedFiles;
+
+        if (installScript.isFile()) {
+            for (String path : readInstallScript(installScript)) {
+                if (!positions.containsKey(path.toLowerCase())) {
+                    positions.put(path.toLowerCase(), positions.size());
+                }
+            }
+        }
+
+        orderedFiles = new File[paths.size()];
+        int i = 0;
+        for (String path : paths) {
+            orderedFiles[i] = new File(folder, path);
+            relativePaths.put(orderedFiles[i++], path.toLowerCase());
+        }
+        orderedFiles = order(orderedFiles);
+        // a stable sort keeps the order(File[]) order of the files install.sql doesn't run
+        Arrays.sort(orderedFiles, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                Integer position1 = positions.get(relativePaths.get(file1));
+                Integer position2 = positions.get(relativePaths.get(file2));
+                return (position1 == null ? Integer.MAX_VALUE : position1) - (position2 == null ? Integer.MAX_VALUE : position2);
+            }
+        });
+
+        return orderedFiles;
+    }
+
+    private static int getRank(String fileName) {
+        if (SPLIT_ORDER.contains(fileName)) {
+            return SPLIT_ORDER.indexOf(fileName);
+        } else if (fileName.equals(END_ENVIRONMENT)) {
+            return SPLIT_ORDER.size() + 1;
+        }
+        return SPLIT_ORDER.size();
+    }
+
+    /**
+     * Compare two dotted version numbers on the parts present in both.
+     *
+     * @param version1 e.g. 5.0.0.00.31.
+     * @param version2 e.g. 5.0.
+     * @return a negative number, zero or a positive number if the first
+     * version is lower, equal or higher.
+     */
+    public static int compareVersions(String version1, String version2) {
+        String[] parts1 = version1.split("\\.");
+        String[] parts2 = version2.split("\\.");
+
+        for (int i = 0; i < Math.min(parts1.length, parts2.length); i++) {
+            try {
+                int difference = Integer.parseInt(parts1[i]) - Integer.parseInt(parts2[i]);
+                if (difference != 0) {
+                    return difference;
+                }
+            } catch (NumberFormatException ex) {
+                return 0;
+            }
+        }
+
+        return 0;
+    }
+
+    private static String find(Pattern[] patterns, String text) {
+        for (Pattern pattern : patterns) {
+            Matcher matcher = pattern.matcher(text);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return null;
+    }
+
+    private static String decode(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[buffer.remaining()];
+
+        buffer.get(bytes);
+        // a tail may start in the middle of a character, which is replaced
+        return new String(bytes, "UTF-8");
+    }
+}
@@ -0,0 +1,142 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A SHA-256 fingerprint of settings and directory trees, used to skip work
+ * when nothing changed since the last successful run. Files are fingerprinted
+ * by relative path, size and modification time, so no file contents are read.
+ */
+public class Fingerprint {
+
+    private final MessageDigest messageDigest = ImportState.getSha256();
+
+    /**
+     * Add a setting to the fingerprint.
+     *
+     * @param name the setting name.
+     * @param value the setting value, may be null.
+     */
+    public void add(String name, Object value) {
+        update(name + "=" + value + "\n");
+    }
+
+    /**
+     * Add a directory and all its subdirectories to the fingerprint.
+     *
+     * @param directory the directory.
+     * @param excludedDirectories the subdirectories to leave out, or null.
+     */
+    public void addDirectory(File directory, List<File> excludedDirectories) {
+        update("directory=" + directory.getAbsolutePath() + "\n");
+        addFiles(directory, "", excludedDirectories, true, null);
+    }
+
+    /**
+     * Add the files directly in a directory to the fingerprint, without its
+     * subdirectories.
+     *
+     * @param directory the directory.
+     * @param excludedFileName the name of a file to leave out, e.g. the
+     * fingerprint file itself.
+     */
+    public void addFiles(File directory, String excludedFileName) {
+        update("files=" + directory.getAbsolutePath() + "\n");
+        addFiles(directory, "", null, false, excludedFileName);
+    }
+
+    private void addFiles(File directory, String relativePath, List<File> excludedDirectories, boolean recursive, String excludedFileName) {
+        File[] files = directory.listFiles();
+
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (recursive && !isExcluded(file, excludedDirectories)) {
+                    addFiles(file, relativePath + file.getName() + "/", excludedDirectories, true, null);
+                }
+            } else if (!file.getName().equals(excludedFileName)) {
+                update(relativePath + file.getName() + "|" + file.length() + "|" + file.lastModified() + "\n");
+            }
+        }
+    }
+
+    private static boolean isExcluded(File directory, List<File> excludedDirectories) {
+        if (excludedDirectories == null) {
+            return false;
+        }
+        for (File excludedDirectory : excludedDirectories) {
+            if (excludedDirectory.getAbsoluteFile().equals(directory.getAbsoluteFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void update(String text) {
+        try {
+            messageDigest.update(text.getBytes("UTF-8"));
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @return the hexadecimal fingerprint. The fingerprint can't be extended
+     * afterwards.
+     */
+    public String getValue() {
+        return ImportState.toHex(messageDigest.digest());
+    }
+
+    /**
+     * Read the fingerprint recorded by a previous run.
+     *
+     * @param file the fingerprint file.
+     * @return the recorded fingerprint, or null if none was recorded.
+     * @throws IOException if the file can't be read.
+     */
+    public static String read(File file) throws IOException {
+        BufferedReader reader;
+
+        if (!file.isFile()) {
+            return null;
+        }
+        reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            return reader.readLine();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Record a fingerprint for the next run.
+     *
+     * @param file the fingerprint file.
+     * @param value the fingerprint.
+     * @throws IOException if the file can't be written.
+     */
+    public static void write(File file, String value) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+        try {
+            writer.write(value);
+            writer.write("\n");
+        } finally {
+            writer.close();
+        }
+    }
+}
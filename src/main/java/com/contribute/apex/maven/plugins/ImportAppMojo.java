@@ -4,21 +4,41 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 /**
- * Import an APEX application in a target workspace.
+ * Import one or more APEX applications in a target workspace.
  */
 @Mojo(name = "import",
 defaultPhase = LifecyclePhase.COMPILE)
@@ -26,22 +46,20 @@ public class ImportAppMojo extends AbstractMojo {
 
     /**
      * The database connection string used in the SQL*Plus login argument (e.g.
-     * localhost:1521/orcl.company.com).
+     * localhost:1521/orcl.company.com). Required unless the targets parameter
+     * is specified.
      */
-    @Parameter(property = "import.connectionString",
-    required = true)
+    @Parameter(property = "import.connectionString")
     private String connectionString;
     /**
      * The database username used to login with SQL*Plus.
      */
-    @Parameter(property = "import.username",
-    required = true)
+    @Parameter(property = "import.username")
     private String username;
     /**
      * The database user's password.
      */
-    @Parameter(property = "import.password",
-    required = true)
+    @Parameter(property = "import.password")
     private String password;
     /**
      * The command to start the SQL*Plus executable. The default value is
@@ -69,117 +87,1668 @@ public class ImportAppMojo extends AbstractMojo {
     private String libraryPath;
     /**
      * The relative path to the folder containing the application export
-     * file(s).
+     * file(s). Required unless the applications parameter is specified. A zip,
+     * jar or gzip file, or a Maven artifact coordinate
+     * (groupId:artifactId:version[:type[:classifier]]) resolved from the local
+     * repository, is imported by streaming its .sql entries to SQL*Plus or the
+     * jdbc engine without extracting them. The @@ calls of a split export
+     * are resolved inside the archive. Tar archives are not supported.
      */
-    @Parameter(property = "import.appExportLocation",
-    required = true)
+    @Parameter(property = "import.appExportLocation")
     private String appExportLocation;
+    /**
+     * The local Maven repository in which artifact coordinates specified as
+     * appExportLocation are looked up.
+     */
+    @Parameter(defaultValue = "${settings.localRepository}",
+    readonly = true)
+    private String localRepositoryPath;
     /**
      * The APEX workspace in which you want to import the application. Omit this
      * parameter to import the application in its original workspace.
      */
-    @Parameter(property = "import.workspaceName")
-    private String workspaceName;
+    @Parameter(property = "import.workspaceName")
+    private String workspaceName;
+    /**
+     * The ID for the application to be imported. Omit this parameter to import
+     * the application with its original ID.
+     */
+    @Parameter(property = "import.appId")
+    private String appId;
+    /**
+     * Set the application alias.
+     */
+    @Parameter(property = "import.appAlias")
+    private String appAlias;
+    /**
+     * Set the application name.
+     */
+    @Parameter(property = "import.appName")
+    private String appName;
+    /**
+     * Set the application parsing schema.
+     */
+    @Parameter(property = "import.appParsingSchema")
+    private String appParsingSchema;
+    /**
+     * Set the application image prefix.
+     */
+    @Parameter(property = "import.appImagePrefix")
+    private String appImagePrefix;
+    /**
+     * Set the proxy server attributes for the application to be imported.
+     */
+    @Parameter(property = "import.appProxy")
+    private String appProxy;
+    /**
+     * Automatically install or upgrade the application's supporting objects.
+     */
+    @Parameter(property = "import.autoInstallSupObj")
+    private String autoInstallSupObj;
+    /**
+     * The offset value for the application import.
+     */
+    @Parameter(property = "import.appOffset")
+    private String appOffset;
+    /**
+     * The ID of the application in the export files. The pre-flight scan
+     * fails if the export contains a different application.
+     */
+    @Parameter(property = "import.exportAppId")
+    private String exportAppId;
+    /**
+     * A list of applications to import in a single execution. Each application
+     * accepts the id, appExportLocation, workspaceName, appId, appAlias, appName,
+     * appParsingSchema, appImagePrefix, appProxy, autoInstallSupObj, appOffset
+     * and exportAppId parameters. The single application parameters above are
+     * ignored when this list is specified. Every application needs a unique
+     * label: its id, or else its alias, ID or export folder name.
+     */
+    @Parameter
+    private List<Application> applications;
+    /**
+     * The maximum number of SQL*Plus sessions used to import the applications
+     * concurrently.
+     */
+    @Parameter(property = "import.parallelImports",
+    defaultValue = "4")
+    private int parallelImports;
+    /**
+     * Stop all running and pending imports as soon as one application fails to
+     * import. Set to false to import all applications before reporting the
+     * failures.
+     */
+    @Parameter(property = "import.failFast",
+    defaultValue = "true")
+    private boolean failFast;
+    /**
+     * A list of databases in which the applications are imported
+     * concurrently, using at most parallelImports sessions. Each target accepts
+     * the id, connectionString, username, password, workspaceName, jdbcUrl and
+     * apexVersion parameters; the workspaceName overrides the one of the
+     * applications and omitted usernames, passwords and APEX versions are
+     * taken from the goal parameters. The
+     * export files are discovered and the scripts generated only once per
+     * application.
+     */
+    @Parameter
+    private List<Target> targets;
+    /**
+     * Report failed imports without failing the build and without aborting
+     * the remaining imports. By default the imports are all-or-nothing: the
+     * build fails if any import fails.
+     */
+    @Parameter(property = "import.bestEffort",
+    defaultValue = "false")
+    private boolean bestEffort;
+    /**
+     * Skip the import of an application when its export files and import
+     * attributes are identical to the last successful import in the same
+     * target (connection string, workspace and application ID). Without an
+     * appId the application ID of the export is used.
+     */
+    @Parameter(property = "import.incremental",
+    defaultValue = "false")
+    private boolean incremental;
+    /**
+     * Import the applications even if the incremental mode detects no changes.
+     */
+    @Parameter(property = "import.force",
+    defaultValue = "false")
+    private boolean force;
+    /**
+     * The file in which the incremental mode records the digest of every
+     * successful import.
+     */
+    @Parameter(property = "import.importStateFile",
+    defaultValue = "${project.build.directory}/orclapex-import.state")
+    private File importStateFile;
+    /**
+     * Only install the pages and shared components of a split export that
+     * changed since the last successful import in the same target, keyed like
+     * the incremental mode. The changed files are wrapped in the export's
+     * set_environment.sql and end_environment.sql scripts. A full import is
+     * done when no snapshot of the last import exists, when files were
+     * removed, when application-level files changed or when no appOffset is
+     * configured.
+     */
+    @Parameter(property = "import.deltaImport",
+    defaultValue = "false")
+    private boolean deltaImport;
+    /**
+     * Start SQL*Plus with /nolog before the scripts are generated and stream
+     * the connect command, the application attributes block and the export
+     * file directives to its standard input. No temporary files are written
+     * and the connection setup overlaps with the export file discovery.
+     */
+    @Parameter(property = "import.pipelined",
+    defaultValue = "false")
+    private boolean pipelined;
+    /**
+     * Terminate SQL*Plus as soon as an ORA-, PLS- or SP2- error is written to
+     * its output instead of waiting for the script to finish.
+     */
+    @Parameter(property = "import.abortOnError",
+    defaultValue = "false")
+    private boolean abortOnError;
+    /**
+     * The maximum number of seconds an application import may take. SQL*Plus
+     * is terminated when the timeout expires. Use 0 for no limit.
+     */
+    @Parameter(property = "import.timeout",
+    defaultValue = "0")
+    private int timeout;
+    /**
+     * The maximum number of seconds SQL*Plus may run without writing any
+     * output. SQL*Plus is terminated when the timeout expires. Use 0 for no
+     * limit.
+     */
+    @Parameter(property = "import.inactivityTimeout",
+    defaultValue = "0")
+    private int inactivityTimeout;
+    /**
+     * Measure the duration of every import phase, of every export file and of
+     * every page and shared component, and write a JSON and CSV report per
+     * application to the timingReportDirectory. The run script prints a
+     * timing marker before and after every export file; components are timed
+     * from the prompt APEX runs at the start of each of them.
+     */
+    @Parameter(property = "import.timingReport",
+    defaultValue = "false")
+    private boolean timingReport;
+    /**
+     * The folder in which the timing reports are written.
+     */
+    @Parameter(property = "import.timingReportDirectory",
+    defaultValue = "${project.build.directory}/orclapex-timings")
+    private File timingReportDirectory;
+    /**
+     * The number of slowest export files and components listed in the log by
+     * the timing report.
+     */
+    @Parameter(property = "import.timingReportTopN",
+    defaultValue = "10")
+    private int timingReportTopN;
+    /**
+     * The engine used to run the export files: 'sqlplus' starts a SQL*Plus
+     * process, 'jdbc' parses the scripts and runs them over JDBC in the Maven
+     * JVM, without an Oracle client installation. The JDBC driver has to be
+     * added as a plugin dependency.
+     */
+    @Parameter(property = "import.engine",
+    defaultValue = "sqlplus")
+    private String engine;
+    /**
+     * The JDBC URL used by the jdbc engine. Defaults to a thin driver URL
+     * derived from the connectionString.
+     */
+    @Parameter(property = "import.jdbcUrl")
+    private String jdbcUrl;
+    /**
+     * The JDBC driver class used by the jdbc engine.
+     */
+    @Parameter(property = "import.jdbcDriver",
+    defaultValue = "oracle.jdbc.OracleDriver")
+    private String jdbcDriver;
+    /**
+     * The maximum number of statements the jdbc engine sends to the database
+     * in one batch.
+     */
+    @Parameter(property = "import.jdbcBatchSize",
+    defaultValue = "50")
+    private int jdbcBatchSize;
+    /**
+     * Keep the authenticated SQL*Plus sessions alive after the import and
+     * reuse them in later import executions of the same Maven build with the
+     * same sqlplusCmd, connectionString and username. A session is closed when
+     * an import fails, when it's idle for longer than sessionIdleTimeout and
+     * when Maven exits.
+     */
+    @Parameter(property = "import.reuseSessions",
+    defaultValue = "false")
+    private boolean reuseSessions;
+    /**
+     * The number of seconds after which an idle, reusable SQL*Plus session is
+     * closed.
+     */
+    @Parameter(property = "import.sessionIdleTimeout",
+    defaultValue = "300")
+    private int sessionIdleTimeout;
+    /**
+     * Scan the header and tail of every export file before connecting to the
+     * database. The import fails when a file is truncated, when the export
+     * contains a different application than exportAppId or when it was
+     * exported from a newer APEX release than apexVersion. The files of a
+     * split export are put in install order.
+     */
+    @Parameter(property = "import.preflight",
+    defaultValue = "false")
+    private boolean preflight;
+    /**
+     * The APEX release installed in the target database, e.g. 5.0. Used by
+     * the pre-flight scan; targets can specify their own apexVersion.
+     */
+    @Parameter(property = "import.apexVersion")
+    private String apexVersion;
+    /**
+     * The number of concurrent JDBC sessions used to install the supporting
+     * objects of applications with autoInstallSupObj set to true. The install
+     * scripts are extracted from the export and run after the import, with
+     * the parsing schema of the application (appParsingSchema or the owner in
+     * the export) as current schema. Scripts of SQL statements, such as DDL
+     * and seed data, run concurrently, each one after the earlier scripts that
+     * use an object it uses; a script with PL/SQL blocks, exec commands or
+     * nested scripts runs alone after all earlier scripts. Objects used
+     * through dynamic SQL or created outside the supporting objects aren't
+     * taken into account, so scripts relying on them may still run in a
+     * different order than in the export. Use 0 to let APEX install them one
+     * by one during the import. Applications whose install scripts have
+     * conditions are always installed by APEX, and so are the supporting
+     * objects of delta imports: APEX doesn't install them when only the
+     * changed components are imported. The JDBC driver has to be added as a
+     * plugin dependency, whatever the engine.
+     */
+    @Parameter(property = "import.supportingObjectsSessions",
+    defaultValue = "0")
+    private int supportingObjectsSessions;
+    /**
+     * The folder in which the JSON and CSV report of the supporting objects
+     * install scripts is written per application.
+     */
+    @Parameter(property = "import.supportingObjectsReportDirectory",
+    defaultValue = "${project.build.directory}/orclapex-supporting-objects")
+    private File supportingObjectsReportDirectory;
+    /**
+     * Write the full SQL*Plus output and the output of the scripts run over
+     * JDBC to gzip compressed files in the outputLogDirectory, and only log
+     * errors, warnings and a periodic progress summary.
+     */
+    @Parameter(property = "import.outputLog",
+    defaultValue = "false")
+    private boolean outputLog;
+    /**
+     * The folder in which the output files are written.
+     */
+    @Parameter(property = "import.outputLogDirectory",
+    defaultValue = "${project.build.directory}/orclapex-output")
+    private File outputLogDirectory;
+    /**
+     * The uncompressed size in MB after which the next output file is
+     * started.
+     */
+    @Parameter(property = "import.outputLogMaxSize",
+    defaultValue = "100")
+    private int outputLogMaxSize;
+    /**
+     * The maximum number of output files kept in the outputLogDirectory,
+     * including those of earlier builds: the oldest files are removed when a
+     * new file is started. Use 0 to keep all files.
+     */
+    @Parameter(property = "import.outputLogMaxFiles",
+    defaultValue = "10")
+    private int outputLogMaxFiles;
+    /**
+     * The number of seconds between two progress summaries when outputLog is
+     * enabled. Use 0 to disable the progress summaries.
+     */
+    @Parameter(property = "import.progressInterval",
+    defaultValue = "10")
+    private int progressInterval;
+    private final String sqlFileExtension = ".sql";
+    private final String setAppAttributesScriptName = "setAppAttributes";
+    private final String setEnvironmentFileName = "set_environment.sql";
+    private final String endEnvironmentFileName = "end_environment.sql";
+    private final List<String> applicationLevelFileNames = Arrays.asList(setEnvironmentFileName, endEnvironmentFileName,
+            "create_application.sql", "delete_application.sql", "install.sql");
+    private ImportState importState;
+    private final Map<String, File[]> exportFilesCache = new HashMap<String, File[]>();
+    private final Map<String, File> scriptsToRunCache = new HashMap<String, File>();
+    private final Set<Process> runningProcesses = Collections.synchronizedSet(new HashSet<Process>());
+    private final Set<SqlPlusSession> acquiredSessions = Collections.synchronizedSet(new HashSet<SqlPlusSession>());
+    private OutputLogSink outputLogSink;
+
+    /**
+     * The method called by Maven when the 'import' goal gets executed.
+     */
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        try {
+            importApplications();
+        } catch (MojoExecutionException ex) {
+            closeAcquiredSessions();
+            throw ex;
+        } catch (MojoFailureException ex) {
+            closeAcquiredSessions();
+            throw ex;
+        } finally {
+            closeOutputLog();
+        }
+    }
+
+    /**
+     * Close the idle SQL*Plus sessions acquired by this execution. The
+     * sessions of other executions are left alone.
+     */
+    void closeAcquiredSessions() {
+        List<SqlPlusSession> sessions;
+
+        synchronized (acquiredSessions) {
+            sessions = new ArrayList<SqlPlusSession>(acquiredSessions);
+            acquiredSessions.clear();
+        }
+        for (SqlPlusSession session : sessions) {
+            SqlPlusSessionBroker.closeIfIdle(session);
+        }
+    }
+
+    /**
+     * Import the configured applications in the configured targets and print a
+     * summary.
+     */
+    private void importApplications() throws MojoExecutionException, MojoFailureException {
+        List<Application> applicationsToImport = getApplications();
+        List<Target> importTargets = getTargets();
+        Map<String, ImportResult> results = new LinkedHashMap<String, ImportResult>();
+        ExecutorService executor;
+        CompletionService<ImportResult> completionService;
+        Map<Future<ImportResult>, String> futures = new HashMap<Future<ImportResult>, String>();
+        int importCount = applicationsToImport.size() * importTargets.size();
+        boolean aborted = false;
+
+        if (incremental || deltaImport) {
+            try {
+                importState = new ImportState(importStateFile);
+            } catch (IOException ex) {
+                throw new MojoExecutionException("Unable to read the import state file: " + importStateFile.getAbsolutePath(), ex);
+            }
+        }
+
+        if (preflight) {
+            runPreflight(applicationsToImport, importTargets);
+        }
+
+        if (importCount == 1) {
+            ImportResult result = importApplication(applicationsToImport.get(0), importTargets.get(0), "");
+            if (result.getException() instanceof MojoFailureException) {
+                throw (MojoFailureException) result.getException();
+            } else if (result.getException() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) result.getException();
+            } else if (!result.isSuccess()) {
+                throw new MojoExecutionException("SQL*Plus process returned an error code (" + result.getExitValue() + ")");
+            }
+            return;
+        }
+
+        getLog().info("Importing " + applicationsToImport.size() + " application(s) in " + importTargets.size() + " target(s) using "
+                + Math.min(parallelImports, importCount) + " concurrent session(s)");
+        executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelImports, importCount)));
+        completionService = new ExecutorCompletionService<ImportResult>(executor);
+        try {
+            for (final Application application : applicationsToImport) {
+                for (final Target target : importTargets) {
+                    final Application targetApplication = getTargetApplication(application, target, importTargets.size() > 1);
+                    results.put(targetApplication.getLabel(), null);
+                    futures.put(completionService.submit(new Callable<ImportResult>() {
+                        @Override
+                        public ImportResult call() {
+                            return importApplication(targetApplication, target, "[" + targetApplication.getLabel() + "] ");
+                        }
+                    }), targetApplication.getLabel());
+                }
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                Future<ImportResult> future = completionService.take();
+                ImportResult result = future.get();
+                results.put(futures.get(future), result);
+                if (!result.isSuccess() && failFast && !bestEffort) {
+                    getLog().error("Import of " + result.getLabel() + " failed, aborting the remaining imports");
+                    aborted = true;
+                    break;
+                }
+            }
+        } catch (InterruptedException ex) {
+            throw new MojoExecutionException("Interrupted while waiting for the application imports", ex);
+        } catch (ExecutionException ex) {
+            throw new MojoExecutionException("An unexpected error occurred while importing the applications", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+            if (aborted) {
+                synchronized (runningProcesses) {
+                    for (Process process : runningProcesses) {
+                        process.destroy();
+                    }
+                }
+            }
+        }
+
+        logSummary(results);
+    }
+
+    /**
+     * Scan the export files of all applications and check them against every
+     * target before any import starts. The export files are cached in install
+     * order for the imports.
+     *
+     * @param applicationsToImport the applications to import.
+     * @param importTargets the targets to import the applications in.
+     * @throws MojoFailureException if a problem is found in one of the
+     * exports.
+     */
+    private void runPreflight(List<Application> applicationsToImport, List<Target> importTargets) throws MojoExecutionException, MojoFailureException {
+        ExportPreflight exportPreflight = new ExportPreflight(Runtime.getRuntime().availableProcessors());
+        Map<String, List<ExportMetadata>> scannedLocations = new HashMap<String, List<ExportMetadata>>();
+        List<String> problems = new ArrayList<String>();
+        long startTime = System.currentTimeMillis();
+        int fileCount = 0;
+
+        for (Application application : applicationsToImport) {
+            String location = application.getAppExportLocation();
+            List<ExportMetadata> metadata = scannedLocations.get(location);
+
+            if (ExportArchive.isArchive(location)) {
+                getLog().debug("Pre-flight scan skipped for export archive " + location);
+                continue;
+            } else if (metadata == null) {
+                File[] exportFiles = ExportPreflight.order(getAppExportFiles(location));
+                File[] filesToScan;
+                try {
+                    filesToScan = ExportPreflight.getFilesToScan(exportFiles);
+                    metadata = exportPreflight.scan(filesToScan);
+                } catch (IOException ex) {
+                    throw new MojoExecutionException("Unable to scan the export files in " + location, ex);
+                }
+                synchronized (exportFilesCache) {
+                    exportFilesCache.put(location, exportFiles);
+                }
+                scannedLocations.put(location, metadata);
+                fileCount += filesToScan.length;
+                for (ExportMetadata fileMetadata : metadata) {
+                    getLog().debug("Pre-flight scan of " + location + ": " + fileMetadata.getDescription());
+                }
+            }
+
+            for (Target target : importTargets) {
+                Application targetApplication = getTargetApplication(application, target, importTargets.size() > 1);
+                for (String problem : ExportPreflight.validate(metadata, targetApplication, target)) {
+                    problems.add(targetApplication.getLabel() + ": " + problem);
+                }
+            }
+        }
+
+        getLog().info("Pre-flight scan of " + fileCount + " export file(s) completed in " + (System.currentTimeMillis() - startTime) + " ms");
+        if (!problems.isEmpty()) {
+            for (String problem : problems) {
+                getLog().error(problem);
+            }
+            throw new MojoFailureException("The pre-flight scan found " + problems.size() + " problem(s) in the export files");
+        }
+    }
+
+    /**
+     * Print an overview of the import results and fail the build if one or more
+     * imports were unsuccessful, unless bestEffort is enabled.
+     *
+     * @param results the import result per application label. A null value
+     * means the import was skipped.
+     */
+    private void logSummary(Map<String, ImportResult> results) throws MojoExecutionException {
+        List<String> failedApplications = new ArrayList<String>();
+
+        getLog().info("------------------------------------------------------------------------");
+        getLog().info("Import summary:");
+        for (Map.Entry<String, ImportResult> entry : results.entrySet()) {
+            ImportResult result = entry.getValue();
+            if (result == null) {
+                getLog().info("  " + entry.getKey() + " SKIPPED");
+                failedApplications.add(entry.getKey());
+            } else {
+                getLog().info("  " + result.getLabel() + " " + result.getStatus() + " [" + (result.getDuration() / 1000.0) + " s]");
+                if (!result.isSuccess()) {
+                    failedApplications.add(result.getLabel());
+                }
+            }
+        }
+        getLog().info("------------------------------------------------------------------------");
+
+        if (failedApplications.isEmpty()) {
+            return;
+        } else if (bestEffort) {
+            getLog().warn(failedApplications.size() + " of " + results.size() + " import(s) failed: " + failedApplications);
+            return;
+        }
+        throw new MojoExecutionException(failedApplications.size() + " of " + results.size() + " application(s) not imported: " + failedApplications);
+    }
+
+    /**
+     * Collect the targets in which the applications are imported. The
+     * connection parameters of the goal are used when the targets parameter is
+     * not specified.
+     *
+     * @return the list of targets.
+     * @throws MojoExecutionException if a connection parameter is missing, or
+     * if two targets have the same label.
+     */
+    public List<Target> getTargets() throws MojoExecutionException {
+        List<Target> importTargets = new ArrayList<Target>();
+        Set<String> labels = new HashSet<String>();
+        Target target;
+
+        if (targets == null || targets.isEmpty()) {
+            target = new Target();
+            target.setConnectionString(connectionString);
+            target.setJdbcUrl(jdbcUrl);
+            importTargets.add(target);
+        } else {
+            importTargets.addAll(targets);
+        }
+
+        for (Target importTarget : importTargets) {
+            if (importTarget.getUsername() == null) {
+                importTarget.setUsername(username);
+            }
+            if (importTarget.getPassword() == null) {
+                importTarget.setPassword(password);
+            }
+            if (importTarget.getApexVersion() == null) {
+                importTarget.setApexVersion(apexVersion);
+            }
+            if (importTarget.getConnectionString() == null || importTarget.getUsername() == null || importTarget.getPassword() == null) {
+                throw new MojoExecutionException("The connectionString, username and password parameters are required"
+                        + (targets == null || targets.isEmpty() ? "" : " for target " + importTarget.getLabel()));
+            } else if (!labels.add(importTarget.getLabel())) {
+                throw new MojoExecutionException("More than one target is labeled " + importTarget.getLabel() + ". Give each target a unique id.");
+            }
+        }
+
+        return importTargets;
+    }
+
+    /**
+     * Get the settings of an application for a specific target.
+     *
+     * @param application the configured application.
+     * @param target the target.
+     * @param multipleTargets true if the application is imported in more than
+     * one target, in which case the target is added to the label.
+     * @return the application settings for the target.
+     */
+    private Application getTargetApplication(Application application, Target target, boolean multipleTargets) {
+        Application targetApplication;
+
+        if (target.getWorkspaceName() == null && !multipleTargets) {
+            return application;
+        }
+
+        targetApplication = application.copy();
+        if (target.getWorkspaceName() != null) {
+            targetApplication.setWorkspaceName(target.getWorkspaceName());
+        }
+        if (multipleTargets) {
+            targetApplication.setId(application.getLabel() + "@" + target.getLabel());
+        }
+
+        return targetApplication;
+    }
+
+    /**
+     * Collect the applications to import. The single application parameters
+     * are used when the applications parameter is not specified.
+     *
+     * @return the list of applications to import.
+     * @throws MojoExecutionException if no application export location was
+     * specified, or if two applications have the same label.
+     */
+    public List<Application> getApplications() throws MojoExecutionException {
+        Application application;
+        Set<String> labels = new HashSet<String>();
+
+        if (applications != null && !applications.isEmpty()) {
+            for (Application configuredApplication : applications) {
+                if (configuredApplication.getAppExportLocation() == null) {
+                    throw new MojoExecutionException("The appExportLocation parameter is missing for application " + configuredApplication.getLabel());
+                } else if (!labels.add(configuredApplication.getLabel())) {
+                    // the label keys the import results and names the report files
+                    throw new MojoExecutionException("More than one application is labeled " + configuredApplication.getLabel()
+                            + ". Give each application a unique id.");
+                }
+            }
+            return applications;
+        } else if (appExportLocation == null) {
+            throw new MojoExecutionException("Specify either the appExportLocation or the applications parameter");
+        }
+
+        application = new Application();
+        application.setAppExportLocation(appExportLocation);
+        application.setWorkspaceName(workspaceName);
+        application.setAppId(appId);
+        application.setAppAlias(appAlias);
+        application.setAppName(appName);
+        application.setAppParsingSchema(appParsingSchema);
+        application.setAppImagePrefix(appImagePrefix);
+        application.setAppProxy(appProxy);
+        application.setAutoInstallSupObj(autoInstallSupObj);
+        application.setAppOffset(appOffset);
+        application.setExportAppId(exportAppId);
+
+        return Collections.singletonList(application);
+    }
+
+    /**
+     * Import a single application and install its supporting objects in
+     * parallel if supportingObjectsSessions is set.
+     *
+     * @param application the application to import.
+     * @param target the database to import the application in.
+     * @param logPrefix the prefix for every logged SQL*Plus output line.
+     * @return the import result. Exceptions are captured in the result.
+     */
+    public ImportResult importApplication(Application application, Target target, String logPrefix) {
+        List<SupportingObjectScript> supportingObjectScripts = null;
+        Application importedApplication = application;
+        String parsingSchema = null;
+        ImportResult result;
+
+        if (supportingObjectsSessions > 0 && "true".equalsIgnoreCase(application.getAutoInstallSupObj()) && deltaImport) {
+            // a delta import only runs the changed components, a full import falls back to APEX installing them
+            getLog().info(logPrefix + "Supporting objects of " + application.getLabel() + " installed by APEX: deltaImport is set");
+        } else if (supportingObjectsSessions > 0 && "true".equalsIgnoreCase(application.getAutoInstallSupObj())) {
+            parsingSchema = getParsingSchema(application, logPrefix);
+            if (parsingSchema != null) {
+                supportingObjectScripts = getSupportingObjectScripts(application, logPrefix);
+            }
+        }
+        if (supportingObjectScripts != null) {
+            importedApplication = application.copy();
+            importedApplication.setAutoInstallSupObj("false");
+        }
+
+        result = importApplicationExport(importedApplication, target, logPrefix);
+        if (supportingObjectScripts == null || !result.isSuccess() || result.isSkipped()) {
+            return result;
+        }
+        result = installSupportingObjects(application, target, parsingSchema, supportingObjectScripts, result, logPrefix);
+        if (!result.isSuccess()) {
+            forgetSuccessfulImport(application, target, logPrefix);
+        }
+        return result;
+    }
+
+    /**
+     * Remove an import from the import state after its supporting objects
+     * failed to install, so the next incremental or delta import doesn't
+     * skip it.
+     *
+     * @param application the imported application.
+     * @param target the database the application was imported in.
+     * @param logPrefix the prefix for every logged line.
+     */
+    private void forgetSuccessfulImport(Application application, Target target, String logPrefix) {
+        String stateKey;
+
+        if (importState == null) {
+            return;
+        }
+        try {
+            stateKey = ImportState.getTarget(target.getConnectionString(), application.getWorkspaceName(),
+                    getStateAppId(application, getCachedAppExportFiles(application.getAppExportLocation())));
+            importState.remove(stateKey);
+            getLog().debug(logPrefix + "Import of " + application.getLabel() + " removed from the import state: the supporting objects failed");
+        } catch (Exception ex) {
+            getLog().warn(logPrefix + "Unable to remove " + application.getLabel() + " from the import state, the next incremental import may skip it: "
+                    + ex.getMessage());
+        }
+    }
+
+    /**
+     * Determine the schema APEX runs the supporting objects scripts in: the
+     * appParsingSchema, or else the owner recorded in the export.
+     *
+     * @return the parsing schema, or null if APEX has to install the
+     * supporting objects.
+     */
+    private String getParsingSchema(Application application, String logPrefix) {
+        File exportFolder = new File(application.getAppExportLocation());
+        List<File> exportFiles = new ArrayList<File>();
+        File[] rootFiles = exportFolder.listFiles();
+
+        if (application.getAppParsingSchema() != null) {
+            return application.getAppParsingSchema().trim().toUpperCase();
+        } else if (ExportArchive.isArchive(application.getAppExportLocation())) {
+            // reported by getSupportingObjectScripts
+            return null;
+        }
+        exportFiles.add(new File(new File(exportFolder, "application"), "create_application.sql"));
+        if (rootFiles != null) {
+            exportFiles.addAll(Arrays.asList(rootFiles));
+        }
+        try {
+            for (File exportFile : exportFiles) {
+                if (exportFile.isFile() && exportFile.getName().toLowerCase().endsWith(sqlFileExtension)) {
+                    String owner = ExportPreflight.scanFile(exportFile).getOwner();
+                    if (owner != null) {
+                        return owner.toUpperCase();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            getLog().debug(logPrefix + "Unable to read the parsing schema: " + ex.getMessage());
+        }
+        getLog().info(logPrefix + "Supporting objects of " + application.getLabel() + " installed by APEX: the parsing schema is not specified"
+                + " by appParsingSchema or found in the export");
+
+        return null;
+    }
+
+    /**
+     * Extract the install scripts of the supporting objects of an
+     * application and resolve their dependencies.
+     *
+     * @return the install scripts, or null if APEX has to install them.
+     */
+    private List<SupportingObjectScript> getSupportingObjectScripts(Application application, String logPrefix) {
+        List<SupportingObjectScript> scripts;
+
+        if (ExportArchive.isArchive(application.getAppExportLocation())) {
+            getLog().info(logPrefix + "Supporting objects of " + application.getLabel() + " installed by APEX: export archives are not supported");
+            return null;
+        }
+        try {
+            scripts = SupportingObjectsInstaller.extract(new File(application.getAppExportLocation()));
+            SupportingObjectScript.resolveDependencies(scripts);
+        } catch (IllegalArgumentException ex) {
+            getLog().info(logPrefix + "Supporting objects of " + application.getLabel() + " installed by APEX: " + ex.getMessage());
+            return null;
+        } catch (IOException ex) {
+            getLog().warn(logPrefix + "Supporting objects of " + application.getLabel() + " installed by APEX: unable to read the install scripts: "
+                    + ex.getMessage());
+            return null;
+        }
+        for (SupportingObjectScript script : scripts) {
+            getLog().debug(logPrefix + "Supporting objects script " + script.getName() + " creates " + script.getCreatedObjects()
+                    + " and depends on " + getScriptNames(script.getDependencies()));
+        }
+
+        return scripts;
+    }
+
+    /**
+     * Run the install scripts of the supporting objects after a successful
+     * import and write the report.
+     *
+     * @param application the imported application.
+     * @param target the database the application was imported in.
+     * @param parsingSchema the schema the scripts run in.
+     * @param scripts the install scripts with resolved dependencies.
+     * @param importResult the result of the import.
+     * @param logPrefix the prefix for every logged line.
+     * @return the result of the import and installation.
+     */
+    private ImportResult installSupportingObjects(Application application, Target target, String parsingSchema, List<SupportingObjectScript> scripts,
+            ImportResult importResult, String logPrefix) {
+        SupportingObjectsInstaller installer = new SupportingObjectsInstaller(jdbcDriver, getJdbcUrl(target), target.getUsername(), target.getPassword(),
+                parsingSchema, supportingObjectsSessions, jdbcBatchSize, getOutputLog(), logPrefix);
+        List<SupportingObjectsInstaller.Result> results;
+        List<String> failedScripts = new ArrayList<String>();
+        String fileName = application.getLabel().replaceAll("[^A-Za-z0-9._-]", "_");
+        long startTime = System.currentTimeMillis();
+
+        getLog().info(logPrefix + "Installing " + scripts.size() + " supporting objects script(s) of " + application.getLabel() + " in schema "
+                + parsingSchema + " using up to " + supportingObjectsSessions + " concurrent session(s)");
+        try {
+            results = installer.install(scripts);
+        } catch (MojoExecutionException ex) {
+            return new ImportResult(application.getLabel(), -1, importResult.getDuration() + System.currentTimeMillis() - startTime, ex);
+        }
+        for (SupportingObjectsInstaller.Result result : results) {
+            String line = logPrefix + "  " + result.getScript().getName() + " " + result.getStatus() + " [" + (result.getDuration() / 1000.0) + " s]"
+                    + (result.getMessage() != null ? ": " + result.getMessage() : "");
+            if (result.getStatus() == SupportingObjectsInstaller.Status.SUCCESS) {
+                getLog().info(line);
+            } else {
+                getLog().error(line);
+                failedScripts.add(result.getScript().getName());
+            }
+        }
+        try {
+            SupportingObjectsInstaller.writeReport(new File(supportingObjectsReportDirectory, fileName + ".json"),
+                    new File(supportingObjectsReportDirectory, fileName + ".csv"), application.getLabel(), results);
+        } catch (IOException ex) {
+            getLog().warn(logPrefix + "Unable to write the supporting objects report: " + ex.getMessage());
+        }
+
+        if (!failedScripts.isEmpty()) {
+            return new ImportResult(application.getLabel(), 1, importResult.getDuration() + System.currentTimeMillis() - startTime,
+                    new MojoExecutionException(failedScripts.size() + " of " + scripts.size() + " supporting objects script(s) not installed: " + failedScripts));
+        }
+        return new ImportResult(application.getLabel(), 0, importResult.getDuration() + System.currentTimeMillis() - startTime, null);
+    }
+
+    private static List<String> getScriptNames(List<SupportingObjectScript> scripts) {
+        List<String> names = new ArrayList<String>();
+
+        for (SupportingObjectScript script : scripts) {
+            names.add(script.getName());
+        }
+
+        return names;
+    }
+
+    /**
+     * Import a single application in its own SQL*Plus process.
+     *
+     * @param application the application to import.
+     * @param target the database to import the application in.
+     * @param logPrefix the prefix for every logged SQL*Plus output line.
+     * @return the import result. Exceptions are captured in the result.
+     */
+    private ImportResult importApplicationExport(final Application application, Target target, String logPrefix) {
+        ProcessBuilder processBuilder;
+        Process process = null;
+        List<String> commandLineArguments = new ArrayList<String>();
+        File scriptsToRunTmpFile = null;
+        String workingDirectory;
+        ProcessOutputPump outputPump;
+        int exitValue;
+        File[] exportFiles = null;
+        String stateKey = null;
+        String digest = null;
+        Map<String, String> fileDigests = null;
+        PipelinedScriptWriter scriptWriter = null;
+        boolean archived = ExportArchive.isArchive(application.getAppExportLocation());
+        boolean pipelinedImport = pipelined || archived;
+        File archiveFile = null;
+        ImportTimings timings = timingReport ? new ImportTimings(application.getLabel()) : null;
+        long startTime = System.currentTimeMillis();
+        long phaseStartTime;
+
+        try {
+            if (archived) {
+                // archives are streamed to the standard input of SQL*Plus or run over JDBC, their scripts can't be called with @
+                archiveFile = ExportArchive.resolve(application.getAppExportLocation(), localRepositoryPath);
+                if (!pipelined && !isJdbcEngine()) {
+                    getLog().debug(logPrefix + "Streaming the export archive in pipelined mode: " + archiveFile.getAbsolutePath());
+                }
+            } else if (!pipelined || incremental || deltaImport || reuseSessions || isJdbcEngine() || preflight) {
+                // in pipelined mode the export files are discovered while SQL*Plus connects, unless they're needed upfront
+                phaseStartTime = System.currentTimeMillis();
+                exportFiles = getCachedAppExportFiles(application.getAppExportLocation());
+                addPhase(timings, "export discovery", phaseStartTime);
+            }
+            if (importState != null) {
+                stateKey = ImportState.getTarget(target.getConnectionString(), application.getWorkspaceName(), getStateAppId(application, exportFiles));
+            }
+            if ((incremental || deltaImport) && !archived) {
+                fileDigests = ImportState.computeFileDigests(new File(application.getAppExportLocation()));
+            }
+            if (incremental) {
+                digest = archived ? ImportState.computeDigest(new File[]{archiveFile}, application.getImportAttributes())
+                        : ImportState.computeDigest(fileDigests, application.getImportAttributes());
+                if (force) {
+                    getLog().info(logPrefix + "Importing " + application.getLabel() + ": import forced");
+                } else if (digest.equals(importState.getDigest(stateKey))) {
+                    getLog().info(logPrefix + "Skipping import of " + application.getLabel() + ": export files and import attributes unchanged since the last successful import in " + stateKey);
+                    return new ImportResult(application.getLabel(), 0, System.currentTimeMillis() - startTime, null, true);
+                } else if (importState.getDigest(stateKey) == null) {
+                    getLog().info(logPrefix + "Importing " + application.getLabel() + ": no previous import recorded for " + stateKey);
+                } else {
+                    getLog().info(logPrefix + "Importing " + application.getLabel() + ": export files or import attributes changed since the last successful import in " + stateKey);
+                }
+            }
+            if (deltaImport && archived) {
+                getLog().info(logPrefix + "Full import of " + application.getLabel() + ": delta imports are not supported for export archives");
+            } else if (deltaImport) {
+                File[] deltaExportFiles = force ? null : getDeltaExportFiles(application, fileDigests, importState.getFileDigests(stateKey), logPrefix);
+                if (deltaExportFiles != null) {
+                    exportFiles = deltaExportFiles;
+                }
+                if (exportFiles.length == 0) {
+                    return new ImportResult(application.getLabel(), 0, System.currentTimeMillis() - startTime, null, true);
+                }
+            }
+            if (isJdbcEngine()) {
+                return importApplicationWithJdbc(application, exportFiles, timings, logPrefix, target, stateKey, digest, fileDigests, startTime, null);
+            } else if (reuseSessions && !archived) {
+                return importApplicationInSession(application, exportFiles, timings, logPrefix, target, stateKey, digest, fileDigests, startTime);
+            } else if (!pipelinedImport) {
+                phaseStartTime = System.currentTimeMillis();
+                scriptsToRunTmpFile = getCachedScriptsToRunTmpFile(application, exportFiles);
+                addPhase(timings, "script generation", phaseStartTime);
+            }
+        } catch (IOException ex) {
+            return new ImportResult(application.getLabel(), -1, System.currentTimeMillis() - startTime,
+                    new MojoExecutionException("An unexpected error occurred while generating the .sql scripts", ex));
+        } catch (MojoExecutionException ex) {
+            return new ImportResult(application.getLabel(), -1, System.currentTimeMillis() - startTime, ex);
+        } catch (MojoFailureException ex) {
+            return new ImportResult(application.getLabel(), -1, System.currentTimeMillis() - startTime, ex);
+        }
+
+        commandLineArguments.add(sqlplusCmd);
+        // the -L option specifies not to reprompt for username or password if the initial connection didn't succeed.
+        commandLineArguments.add("-L");
+        if (pipelinedImport) {
+            commandLineArguments.add("/nolog");
+        } else {
+            commandLineArguments.add(getSqlPlusLoginArgument(target));
+            commandLineArguments.add(getFriendlyPath(scriptsToRunTmpFile.getName()));
+        }
+
+        processBuilder = new ProcessBuilder(commandLineArguments);
+        setEnvironmentVariables(processBuilder.environment());
+        if (!pipelinedImport) {
+            // get the absolute path from the temporary file to set the working directory
+            workingDirectory = scriptsToRunTmpFile.getAbsolutePath();
+            processBuilder.directory(new File(workingDirectory.substring(0, workingDirectory.lastIndexOf(File.separator))));
+            getLog().debug(logPrefix + "Working directory set: " + processBuilder.directory());
+        }
+        processBuilder.redirectErrorStream(true);
+
+        if (pipelinedImport) {
+            getLog().debug(logPrefix + "Executing SQL*Plus: " + sqlplusCmd + " -L /nolog");
+        } else {
+            getLog().debug(logPrefix + "Executing SQL*Plus: " + sqlplusCmd + " -L " + getSqlPlusLoginArgument(target) + " " + getFriendlyPath(scriptsToRunTmpFile.getName()));
+        }
+        try {
+            phaseStartTime = System.currentTimeMillis();
+            process = processBuilder.start();
+            runningProcesses.add(process);
+            addPhase(timings, "process spawn", phaseStartTime);
+            if (timings != null) {
+                timings.processStarted();
+            }
+
+            if (pipelinedImport) {
+                scriptWriter = new PipelinedScriptWriter(process.getOutputStream(), application, target, exportFiles, timings, logPrefix);
+                scriptWriter.start();
+            }
+
+            phaseStartTime = System.currentTimeMillis();
+            outputPump = new ProcessOutputPump(process, getOutputLog(), logPrefix, abortOnError);
+            outputPump.setTimings(timings);
+            outputPump.start();
+            exitValue = outputPump.waitFor(timeout * 1000L, inactivityTimeout * 1000L);
+            addPhase(timings, "SQL*Plus run", phaseStartTime);
+            writeTimingReport(timings, logPrefix);
+
+            if (outputPump.getAbortReason() != null) {
+                return new ImportResult(application.getLabel(), exitValue, System.currentTimeMillis() - startTime,
+                        new MojoExecutionException("SQL*Plus process terminated: " + outputPump.getAbortReason()));
+            }
+
+            if (scriptWriter != null) {
+                scriptWriter.join();
+                if (scriptWriter.getException() != null) {
+                    return new ImportResult(application.getLabel(), -1, System.currentTimeMillis() - startTime, scriptWriter.getException());
+                }
+            }
+
+            getLog().debug(logPrefix + "SQL*Plus process exit value: " + exitValue);
+            if (outputPump.getErrorCount() > 0 || outputPump.getWarningCount() > 0) {
+                getLog().info(logPrefix + "SQL*Plus reported " + outputPump.getErrorCount() + " error(s) and " + outputPump.getWarningCount() + " compilation warning(s)");
+            }
+            if (exitValue == 0) {
+                recordSuccessfulImport(stateKey, digest, fileDigests);
+            }
+            return new ImportResult(application.getLabel(), exitValue, System.currentTimeMillis() - startTime, null);
+        } catch (IOException ex) {
+            return new ImportResult(application.getLabel(), -1, System.currentTimeMillis() - startTime,
+                    new MojoExecutionException("An unexpected error occurred while executing SQL*Plus", ex));
+        } catch (InterruptedException ex) {
+            if (process != null) {
+                process.destroy();
+            }
+            return new ImportResult(application.getLabel(), -1, System.currentTimeMillis() - startTime,
+                    new MojoExecutionException("An unexpected error occurred while executing SQL*Plus", ex));
+        } finally {
+            if (process != null) {
+                runningProcesses.remove(process);
+            }
+        }
+    }
+
+    /**
+     * Collect the export files of an application folder once per execution,
+     * so importing the same export in multiple targets scans it only once.
+     *
+     * @param appExportLocation the relative path to the folder containing the
+     * application export file(s).
+     * @return a list of file objects.
+     */
+    private File[] getCachedAppExportFiles(String appExportLocation) throws MojoExecutionException, MojoFailureException {
+        File[] exportFiles;
+
+        synchronized (exportFilesCache) {
+            exportFiles = exportFilesCache.get(appExportLocation);
+            if (exportFiles == null) {
+                exportFiles = getAppExportFiles(appExportLocation);
+                exportFilesCache.put(appExportLocation, exportFiles);
+            }
+        }
+
+        return exportFiles;
+    }
+
+    /**
+     * Create the scriptsToRun file once per distinct combination of
+     * application attributes and export files.
+     *
+     * @param application the application to import.
+     * @param exportFiles the export files to run, in order.
+     * @return the temporary .sql file object.
+     */
+    private File getCachedScriptsToRunTmpFile(Application application, File[] exportFiles) throws IOException {
+        StringBuilder key = new StringBuilder(getSetAppAttributesScript(application));
+        File scriptsToRunTmpFile;
+
+        for (File exportFile : exportFiles) {
+            key.append('\n').append(exportFile.getAbsolutePath());
+        }
+        synchronized (scriptsToRunCache) {
+            scriptsToRunTmpFile = scriptsToRunCache.get(key.toString());
+            if (scriptsToRunTmpFile == null) {
+                scriptsToRunTmpFile = createScriptsToRunTmpFile(application, exportFiles);
+                scriptsToRunCache.put(key.toString(), scriptsToRunTmpFile);
+            }
+        }
+
+        return scriptsToRunTmpFile;
+    }
+
+    /**
+     * Import a single application in a SQL*Plus session kept alive by the
+     * SqlPlusSessionBroker. The APEX install state of the session is cleared
+     * before the application attributes are set.
+     *
+     * @param application the application to import.
+     * @param exportFiles the export files to run, in order.
+     * @param timings the import timings, or null if disabled.
+     * @param logPrefix the prefix for every logged SQL*Plus output line.
+     * @param target the database to import the application in.
+     * @param stateKey the import state key, or null.
+     * @param digest the digest to record after a successful import, or null.
+     * @param fileDigests the snapshot to record after a successful import, or
+     * null.
+     * @param startTime the start time of the import.
+     * @return the import result. Exceptions are captured in the result.
+     */
+    ImportResult importApplicationInSession(Application application, File[] exportFiles, ImportTimings timings, String logPrefix,
+            Target target, String stateKey, String digest, Map<String, String> fileDigests, long startTime) throws IOException {
+        List<String> commandLineArguments = new ArrayList<String>();
+        ProcessBuilder processBuilder;
+        SqlPlusSession session;
+        List<String> lines = new ArrayList<String>();
+        int exitValue;
+        long phaseStartTime;
+
+        commandLineArguments.add(sqlplusCmd);
+        commandLineArguments.add("-L");
+        commandLineArguments.add("/nolog");
+        processBuilder = new ProcessBuilder(commandLineArguments);
+        setEnvironmentVariables(processBuilder.environment());
+
+        phaseStartTime = System.currentTimeMillis();
+        session = SqlPlusSessionBroker.acquire(SqlPlusSessionBroker.getKey(sqlplusCmd, target.getConnectionString(), target.getUsername(),
+                target.getPassword(), processBuilder.environment()), processBuilder, getSqlPlusLoginArgument(target), sessionIdleTimeout * 1000L);
+        acquiredSessions.add(session);
+        addPhase(timings, "session acquisition", phaseStartTime);
+        getLog().debug(logPrefix + "Using SQL*Plus session " + session.getKey() + " (run " + (session.getRunCount() + 1) + ")");
+
+        lines.add("begin\n  apex_application_install.clear_all;\nend;\n/");
+        lines.add("set serveroutput on");
+        addScriptLines(lines, timings, setAppAttributesScriptName, getSetAppAttributesScript(application));
+        lines.add("set serveroutput off");
+        for (File exportFile : exportFiles) {
+            addScriptLines(lines, timings, exportFile.getName(), getFriendlyPath(exportFile.getAbsolutePath()));
+        }
+
+        phaseStartTime = System.currentTimeMillis();
+        // registered so a failFast abort can terminate the session
+        runningProcesses.add(session.getProcess());
+        try {
+            exitValue = session.run(lines, getOutputLog(), logPrefix, abortOnError, timings, timeout * 1000L, inactivityTimeout * 1000L);
+        } catch (IOException ex) {
+            SqlPlusSessionBroker.discard(session);
+            throw ex;
+        } catch (InterruptedException ex) {
+            SqlPlusSessionBroker.discard(session);
+            return new ImportResult(application.getLabel(), -1, System.currentTimeMillis() - startTime,
+                    new MojoExecutionException("An unexpected error occurred while executing SQL*Plus", ex));
+        } finally {
+            runningProcesses.remove(session.getProcess());
+        }
+        addPhase(timings, "SQL*Plus run", phaseStartTime);
+        writeTimingReport(timings, logPrefix);
+
+        if (session.getAbortReason() != null) {
+            SqlPlusSessionBroker.discard(session);
+            return new ImportResult(application.getLabel(), exitValue, System.currentTimeMillis() - startTime,
+                    new MojoExecutionException("SQL*Plus process terminated: " + session.getAbortReason()));
+        } else if (exitValue != 0) {
+            SqlPlusSessionBroker.discard(session);
+        } else {
+            SqlPlusSessionBroker.release(session);
+            recordSuccessfulImport(stateKey, digest, fileDigests);
+        }
+
+        return new ImportResult(application.getLabel(), exitValue, System.currentTimeMillis() - startTime, null);
+    }
+
+    /**
+     * Import a single application over JDBC.
+     *
+     * @param application the application to import.
+     * @param exportFiles the export files to run, in order, or null to read
+     * the scripts from the export archive.
+     * @param timings the import timings, or null if disabled.
+     * @param logPrefix the prefix for every logged line.
+     * @param target the database to import the application in.
+     * @param stateKey the import state key, or null.
+     * @param digest the digest to record after a successful import, or null.
+     * @param fileDigests the snapshot to record after a successful import, or
+     * null.
+     * @param startTime the start time of the import.
+     * @param openConnection a connection that is kept open after the import,
+     * or null to connect and disconnect for this import only.
+     * @return the import result. Exceptions are captured in the result.
+     */
+    ImportResult importApplicationWithJdbc(Application application, File[] exportFiles, ImportTimings timings, String logPrefix,
+            Target target, String stateKey, String digest, Map<String, String> fileDigests, long startTime, Connection openConnection)
+            throws IOException, MojoExecutionException {
+        Connection connection = openConnection;
+        JdbcScriptRunner runner;
+        String scriptName = setAppAttributesScriptName;
+        long phaseStartTime;
+
+        if (connection == null) {
+            phaseStartTime = System.currentTimeMillis();
+            connection = connect(target);
+            addPhase(timings, "JDBC connect", phaseStartTime);
+        }
+
+        runner = new JdbcScriptRunner(connection, getOutputLog(), logPrefix, jdbcBatchSize);
+        runner.setTimings(timings);
+        try {
+            try {
+                phaseStartTime = System.currentTimeMillis();
+                runner.run(new StringReader("whenever sqlerror exit 1\nset serveroutput on\n"
+                        + getSetAppAttributesScript(application) + "\nset serveroutput off\n"), null);
+                if (timings != null) {
+                    timings.addScript(setAppAttributesScriptName, System.currentTimeMillis() - phaseStartTime);
+                }
+                if (exportFiles == null) {
+                    scriptName = application.getAppExportLocation();
+                    runArchive(runner, application, timings);
+                } else {
+                    for (File exportFile : exportFiles) {
+                        if (runner.isExited()) {
+                            break;
+                        }
+                        scriptName = exportFile.getPath();
+                        phaseStartTime = System.currentTimeMillis();
+                        runner.runFile(exportFile);
+                        if (timings != null) {
+                            timings.endComponent();
+                            timings.addScript(exportFile.getName(), System.currentTimeMillis() - phaseStartTime);
+                        }
+                    }
+                }
+                runner.close();
+            } finally {
+                if (openConnection == null) {
+                    connection.close();
+                }
+            }
+        } catch (SQLException ex) {
+            if (openConnection != null) {
+                rollback(openConnection, logPrefix);
+            }
+            writeTimingReport(timings, logPrefix);
+            return new ImportResult(application.getLabel(), 1, System.currentTimeMillis() - startTime,
+                    new MojoExecutionException("The import failed: " + ex.getMessage().trim(), ex));
+        } catch (IOException ex) {
+            if (openConnection != null) {
+                rollback(openConnection, logPrefix);
+            }
+            writeTimingReport(timings, logPrefix);
+            return new ImportResult(application.getLabel(), 1, System.currentTimeMillis() - startTime,
+                    new MojoExecutionException("The import failed: unable to run " + scriptName + ": " + ex.getMessage(), ex));
+        }
+        writeTimingReport(timings, logPrefix);
+
+        if (runner.getErrorCount() > 0 || runner.getWarningCount() > 0) {
+            getLog().info(logPrefix + "The JDBC engine reported " + runner.getErrorCount() + " error(s) and " + runner.getWarningCount()
+                    + " compilation warning(s)");
+        }
+        if (runner.getErrorCount() > 0) {
+            // SQL*Plus exits with 0 after errors that don't abort the script; don't record such an import as deployed
+            return new ImportResult(application.getLabel(), 1, System.currentTimeMillis() - startTime,
+                    new MojoExecutionException(runner.getErrorCount() + " statement(s) failed during the import"));
+        }
+        recordSuccessfulImport(stateKey, digest, fileDigests);
+        return new ImportResult(application.getLabel(), 0, System.currentTimeMillis() - startTime, null);
+    }
+
+    /**
+     * Run the export scripts of an archive over JDBC, reading every entry
+     * straight from the archive.
+     *
+     * @param runner the script runner.
+     * @param application the application to import.
+     * @param timings the import timings, or null if disabled.
+     */
+    private void runArchive(JdbcScriptRunner runner, Application application, ImportTimings timings) throws IOException, SQLException, MojoExecutionException {
+        ExportArchive archive;
+        long phaseStartTime = System.currentTimeMillis();
+
+        try {
+            archive = ExportArchive.open(application.getAppExportLocation(), localRepositoryPath);
+        } catch (MojoFailureException ex) {
+            throw new MojoExecutionException(ex.getMessage(), ex);
+        }
+        addPhase(timings, "export discovery", phaseStartTime);
+        try {
+            for (String entryName : archive.getEntryNames()) {
+                if (runner.isExited()) {
+                    break;
+                }
+                phaseStartTime = System.currentTimeMillis();
+                // the entry name identifies the statement locations in error messages, nested scripts are read in place
+                try {
+                    runner.run(archive.openScript(entryName), new File(entryName));
+                } catch (IOException ex) {
+                    throw new IOException("entry " + entryName + ": " + ex.getMessage(), ex);
+                }
+                if (timings != null) {
+                    timings.endComponent();
+                    timings.addScript(ExportArchive.getFileName(entryName), System.currentTimeMillis() - phaseStartTime);
+                }
+            }
+        } finally {
+            archive.close();
+        }
+    }
+
     /**
-     * The ID for the application to be imported. Omit this parameter to import
-     * the application with its original ID.
+     * Undo the uncommitted work of a failed import in a connection that stays
+     * open.
      */
-    @Parameter(property = "import.appId")
-    private String appId;
+    private void rollback(Connection connection, String logPrefix) {
+        try {
+            connection.rollback();
+        } catch (SQLException ex) {
+            getLog().debug(logPrefix + "Unable to roll back the failed import: " + ex.getMessage());
+        }
+    }
+
     /**
-     * Set the application alias.
+     * @return true if the export files are run over JDBC.
      */
-    @Parameter(property = "import.appAlias")
-    private String appAlias;
+    boolean isJdbcEngine() {
+        return "jdbc".equalsIgnoreCase(engine);
+    }
+
     /**
-     * Set the application name.
+     * @return the log for the output of SQL*Plus and of the scripts run over
+     * JDBC: the output log sink if outputLog is enabled, otherwise the Maven
+     * log.
      */
-    @Parameter(property = "import.appName")
-    private String appName;
+    synchronized Log getOutputLog() {
+        if (!outputLog) {
+            return getLog();
+        } else if (outputLogSink == null) {
+            outputLogSink = new OutputLogSink(outputLogDirectory, "import", outputLogMaxSize * 1024L * 1024L, outputLogMaxFiles,
+                    progressInterval * 1000L, ImportTimings.COMPONENT_PROMPT_PATTERN, "component(s)", getLog());
+        }
+        return outputLogSink;
+    }
+
     /**
-     * Set the application parsing schema.
+     * Flush the output log sink, if any, so the output of the finished
+     * imports can be read while Maven is still running.
      */
-    @Parameter(property = "import.appParsingSchema")
-    private String appParsingSchema;
+    synchronized void flushOutputLog() {
+        if (outputLogSink != null) {
+            outputLogSink.flush();
+        }
+    }
+
     /**
-     * Set the application image prefix.
+     * Close the output log sink, if any, and log its summary.
      */
-    @Parameter(property = "import.appImagePrefix")
-    private String appImagePrefix;
+    synchronized void closeOutputLog() {
+        if (outputLogSink != null) {
+            outputLogSink.close();
+            outputLogSink = null;
+        }
+    }
+
     /**
-     * Set the proxy server attributes for the application to be imported.
+     * Open a JDBC connection to a target with the configured driver.
+     *
+     * @param target the database to connect to.
+     * @return the connection, with auto-commit disabled.
+     * @throws MojoExecutionException if the connection fails.
      */
-    @Parameter(property = "import.appProxy")
-    private String appProxy;
+    Connection connect(Target target) throws MojoExecutionException {
+        return JdbcScriptRunner.connect(jdbcDriver, getJdbcUrl(target), target.getUsername(), target.getPassword());
+    }
+
     /**
-     * Automatically install or upgrade the application's supporting objects.
+     * @param fileName the name of an export file.
+     * @return true if the file applies to the whole application, so a change
+     * requires a full import.
      */
-    @Parameter(property = "import.autoInstallSupObj")
-    private String autoInstallSupObj;
+    boolean isApplicationLevelFile(String fileName) {
+        return applicationLevelFileNames.contains(fileName.toLowerCase());
+    }
+
     /**
-     * The offset value for the application import.
+     * @param target the database to connect to.
+     * @return the configured JDBC URL of the target or the thin driver URL
+     * derived from its connection string.
      */
-    @Parameter(property = "import.appOffset")
-    private String appOffset;
-    private final String sqlFileExtension = ".sql";
+    public String getJdbcUrl(Target target) {
+        return target.getConnectUrl();
+    }
 
     /**
-     * The method called by Maven when the 'import' goal gets executed.
+     * Add a script to the lines sent to SQL*Plus, surrounded by timing markers
+     * if the timing report is enabled.
+     *
+     * @param lines the lines sent to SQL*Plus.
+     * @param timings the import timings, or null if disabled.
+     * @param name the script name used in the timing markers.
+     * @param script the script or script directive.
      */
-    public void execute() throws MojoExecutionException, MojoFailureException {
-        ProcessBuilder processBuilder;
-        Process process;
-        List<String> commandLineArguments = new ArrayList<String>();
-        File scriptsToRunTmpFile;
-        String workingDirectory;
-        String sqlPlusOutput;
+    private void addScriptLines(List<String> lines, ImportTimings timings, String name, String script) {
+        if (timings != null) {
+            lines.add(ImportTimings.getBeginMarker(name));
+        }
+        lines.add(script);
+        if (timings != null) {
+            lines.add(ImportTimings.getEndMarker(name));
+        }
+    }
 
-        try {
-            scriptsToRunTmpFile = createScriptsToRunTmpFile();
-            workingDirectory = scriptsToRunTmpFile.getAbsolutePath();
-        } catch (IOException ex) {
-            throw new MojoExecutionException("An unexpected error occurred while generating the .sql scripts", ex);
+    /**
+     * Record the digest and snapshot of a successful import in the import
+     * state.
+     *
+     * @param stateKey the import state key.
+     * @param digest the digest of the import, or null if not computed.
+     * @param fileDigests the digest per export file, or null if not computed.
+     * @throws IOException if the state file can't be written.
+     */
+    private void recordSuccessfulImport(String stateKey, String digest, Map<String, String> fileDigests) throws IOException {
+        if (digest != null) {
+            importState.putDigest(stateKey, digest);
+        }
+        if (fileDigests != null) {
+            importState.putFileDigests(stateKey, fileDigests);
+        }
+    }
+
+    /**
+     * Determine the application ID of an import in the import state: the
+     * appId, or else the ID the application keeps from its export. Without
+     * an appId, two exports imported in the same workspace would otherwise
+     * share their state.
+     *
+     * @param application the application.
+     * @param exportFiles the export files, or null if not discovered.
+     * @return the application ID, or the export location if no ID is
+     * configured or found in the export header.
+     * @throws IOException if an export file can't be read.
+     */
+    private String getStateAppId(Application application, File[] exportFiles) throws IOException {
+        if (application.getAppId() != null) {
+            return application.getAppId();
+        } else if (application.getExportAppId() != null) {
+            return application.getExportAppId();
+        }
+        if (exportFiles != null) {
+            for (File exportFile : ExportPreflight.getFilesToScan(exportFiles)) {
+                String appId = ExportPreflight.scanFile(exportFile).getAppId();
+                if (appId != null) {
+                    return appId;
+                }
+            }
         }
 
-        commandLineArguments.add(sqlplusCmd);
-        // the -L option specifies not to reprompt for username or password if the initial connection didn't succeed.
-        commandLineArguments.add("-L");
-        commandLineArguments.add(getSqlPlusLoginArgument());
-        commandLineArguments.add(getFriendlyPath(scriptsToRunTmpFile.getName()));
+        return new File(application.getAppExportLocation()).getAbsolutePath();
+    }
 
-        processBuilder = new ProcessBuilder(commandLineArguments);
-        setEnvironmentVariables(processBuilder.environment());
-        // get the absolute path from the temporary file to set the working directory
-        processBuilder.directory(new File(workingDirectory.substring(0, workingDirectory.lastIndexOf(File.separator))));
-        getLog().debug("Working directory set: " + processBuilder.directory());
-        processBuilder.redirectErrorStream(true);
+    /**
+     * Streams the import script to the standard input of a SQL*Plus process
+     * started with /nolog. The export files are discovered after the connect
+     * command has been sent, unless they were passed in upfront.
+     */
+    private class PipelinedScriptWriter extends Thread {
 
-        getLog().debug("Executing SQL*Plus: " + sqlplusCmd + " -L " + getSqlPlusLoginArgument() + " " + getFriendlyPath(scriptsToRunTmpFile.getName()));
-        try {
-            process = processBuilder.start();
+        private final OutputStream stdin;
+        private final Application application;
+        private final Target target;
+        private final String logPrefix;
+        private final ImportTimings timings;
+        private File[] exportFiles;
+        private ExportArchive archive;
+        private Exception exception;
+
+        PipelinedScriptWriter(OutputStream stdin, Application application, Target target, File[] exportFiles, ImportTimings timings, String logPrefix) {
+            super("orclapex-script-writer-" + application.getLabel());
+            this.stdin = stdin;
+            this.application = application;
+            this.target = target;
+            this.exportFiles = exportFiles;
+            this.timings = timings;
+            this.logPrefix = logPrefix;
+        }
+
+        @Override
+        public void run() {
+            Writer writer;
 
-            BufferedReader stdInput = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            while ((sqlPlusOutput = stdInput.readLine()) != null) {
-                getLog().info(sqlPlusOutput);
+            try {
+                // SQL*Plus runs with NLS_LANG set to UTF8
+                writer = new BufferedWriter(new OutputStreamWriter(stdin, "UTF-8"));
+            } catch (UnsupportedEncodingException ex) {
+                exception = ex;
+                return;
             }
-            stdInput.close();
 
-            BufferedReader stdError = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            while ((sqlPlusOutput = stdError.readLine()) != null) {
-                getLog().info(sqlPlusOutput);
+            try {
+                writeLine(writer, "whenever sqlerror exit 1");
+                writeLine(writer, "connect " + getSqlPlusLoginArgument(target));
+                writer.flush();
+
+                writeLine(writer, "set serveroutput on");
+                if (timings != null) {
+                    writeLine(writer, ImportTimings.getBeginMarker(setAppAttributesScriptName));
+                }
+                writeLine(writer, getSetAppAttributesScript(application));
+                if (timings != null) {
+                    writeLine(writer, ImportTimings.getEndMarker(setAppAttributesScriptName));
+                }
+                writeLine(writer, "set serveroutput off");
+                writer.flush();
+
+                if (exportFiles == null) {
+                    long phaseStartTime = System.currentTimeMillis();
+                    try {
+                        if (ExportArchive.isArchive(application.getAppExportLocation())) {
+                            archive = ExportArchive.open(application.getAppExportLocation(), localRepositoryPath);
+                        } else {
+                            exportFiles = getAppExportFiles(application.getAppExportLocation());
+                        }
+                    } catch (MojoExecutionException ex) {
+                        exception = ex;
+                    } catch (MojoFailureException ex) {
+                        exception = ex;
+                    }
+                    addPhase(timings, "export discovery", phaseStartTime);
+                }
+                if (exception != null) {
+                    // make sure SQL*Plus doesn't wait for further input
+                    writeLine(writer, "exit 1");
+                } else if (archive != null) {
+                    for (String entryName : archive.getEntryNames()) {
+                        writeEntry(writer, entryName);
+                    }
+                    writeLine(writer, "exit");
+                } else {
+                    for (File exportFile : exportFiles) {
+                        if (timings != null) {
+                            writeLine(writer, ImportTimings.getBeginMarker(exportFile.getName()));
+                        }
+                        writeLine(writer, getFriendlyPath(exportFile.getAbsolutePath()));
+                        if (timings != null) {
+                            writeLine(writer, ImportTimings.getEndMarker(exportFile.getName()));
+                        }
+                    }
+                    writeLine(writer, "exit");
+                }
+                writer.close();
+            } catch (IOException ex) {
+                // SQL*Plus exited early (e.g. a failed connect); its exit value reports the error
+                getLog().debug(logPrefix + "Unable to stream the script to SQL*Plus: " + ex.getMessage());
+            } finally {
+                if (archive != null) {
+                    archive.close();
+                }
             }
-            stdError.close();
-            process.waitFor();
+        }
 
-            getLog().debug("SQL*Plus process exit value: " + process.exitValue());
-            if (process.exitValue() != 0) {
-                throw new MojoExecutionException("SQL*Plus process returned an error code (" + process.exitValue() + ")");
+        /**
+         * Copy the contents of an archive entry to SQL*Plus, line by line.
+         */
+        private void writeEntry(Writer writer, String entryName) throws IOException {
+            String fileName = ExportArchive.getFileName(entryName);
+            BufferedReader reader = new BufferedReader(archive.openScript(entryName));
+            String line;
+
+            getLog().debug(logPrefix + "SQL*Plus input: contents of " + archive.getFile().getName() + "!" + entryName);
+            if (timings != null) {
+                writeLine(writer, ImportTimings.getBeginMarker(fileName));
             }
-        } catch (IOException ex) {
-            throw new MojoExecutionException("An unexpected error occurred while executing SQL*Plus", ex);
-        } catch (InterruptedException ex) {
-            throw new MojoExecutionException("An unexpected error occurred while executing SQL*Plus", ex);
+            try {
+                while ((line = reader.readLine()) != null) {
+                    writer.write(line);
+                    writer.write("\n");
+                }
+            } finally {
+                reader.close();
+            }
+            if (timings != null) {
+                writeLine(writer, ImportTimings.getEndMarker(fileName));
+            }
+        }
+
+        private void writeLine(Writer writer, String line) throws IOException {
+            if (line.startsWith("connect ")) {
+                getLog().debug(logPrefix + "SQL*Plus input: connect " + target.getUsername() + "/***@\"" + target.getConnectionString() + "\"");
+            } else {
+                getLog().debug(logPrefix + "SQL*Plus input: " + line);
+            }
+            writer.write(line);
+            writer.write("\n");
+        }
+
+        Exception getException() {
+            return exception;
+        }
+    }
+
+    /**
+     * Determine the export files to run for a delta import: the changed pages
+     * and shared components, in the order of install.sql, wrapped in the
+     * set_environment.sql and end_environment.sql scripts of the export folder
+     * or its application subfolder.
+     *
+     * @param application the application to import.
+     * @param fileDigests the digest per export file, by relative path.
+     * @param deployedFileDigests the digest per export file of the last
+     * successful import, by relative path.
+     * @param logPrefix the prefix for every logged line.
+     * @return the export files to run, an empty array if nothing changed, or
+     * null if the application has to be imported in full. The reason for a
+     * full import is logged.
+     * @throws IOException if install.sql can't be read.
+     */
+    public File[] getDeltaExportFiles(Application application, Map<String, String> fileDigests, Map<String, String> deployedFileDigests,
+            String logPrefix) throws IOException {
+        File folder = new File(application.getAppExportLocation());
+        List<String> changedPaths = new ArrayList<String>();
+        List<File> scripts = new ArrayList<File>();
+        File environmentFolder = null;
+        String reason = null;
+
+        for (Map.Entry<String, String> fileDigest : fileDigests.entrySet()) {
+            if (!fileDigest.getValue().equals(deployedFileDigests.get(fileDigest.getKey()))) {
+                changedPaths.add(fileDigest.getKey());
+            }
+        }
+        for (File candidate : new File[]{folder, new File(folder, "application")}) {
+            if (environmentFolder == null && new File(candidate, setEnvironmentFileName).isFile() && new File(candidate, endEnvironmentFileName).isFile()) {
+                environmentFolder = candidate;
+            }
+        }
+
+        if (deployedFileDigests.isEmpty()) {
+            reason = "no snapshot of a previous import recorded";
+        } else if (!fileDigests.keySet().containsAll(deployedFileDigests.keySet())) {
+            for (String deployedPath : deployedFileDigests.keySet()) {
+                if (reason == null && !fileDigests.containsKey(deployedPath)) {
+                    reason = "export file removed since the last import (" + deployedPath + ")";
+                }
+            }
+        } else if (changedPaths.isEmpty()) {
+            getLog().info(logPrefix + "Skipping import of " + application.getLabel() + ": no export files changed since the last successful import");
+            return new File[0];
+        }
+        for (String changedPath : changedPaths) {
+            if (reason == null && isApplicationLevelFile(new File(changedPath).getName())) {
+                reason = "application-level file changed (" + changedPath + ")";
+            }
+        }
+        if (reason == null && environmentFolder == null) {
+            reason = "the export is not split (" + setEnvironmentFileName + " or " + endEnvironmentFileName + " not found)";
+        } else if (reason == null && application.getAppOffset() == null) {
+            reason = "a delta import requires the appOffset parameter to keep component IDs stable";
+        }
+        if (reason != null) {
+            getLog().info(logPrefix + "Full import of " + application.getLabel() + ": " + reason);
+            return null;
+        }
+
+        getLog().info(logPrefix + "Delta import of " + application.getLabel() + ": " + changedPaths.size() + " of " + fileDigests.size() + " export files changed");
+        for (String changedPath : changedPaths) {
+            getLog().debug(logPrefix + "Changed export file: " + changedPath);
         }
+        scripts.add(new File(environmentFolder, setEnvironmentFileName));
+        scripts.addAll(Arrays.asList(ExportPreflight.orderByInstallScript(folder, changedPaths)));
+        scripts.add(new File(environmentFolder, endEnvironmentFileName));
+
+        return scripts.toArray(new File[scripts.size()]);
     }
 
     /**
@@ -210,6 +1779,16 @@ public class ImportAppMojo extends AbstractMojo {
         return username + "/" + password + "@" + "\"" + connectionString + "\"";
     }
 
+    /**
+     * Put together the SQL*Plus login argument of a target.
+     *
+     * @param target the database to connect to.
+     * @return the SQL*Plus login argument.
+     */
+    public String getSqlPlusLoginArgument(Target target) {
+        return target.getSqlPlusLoginArgument();
+    }
+
     /**
      * Set Oracle specific environment variables to successfully execute
      * SQL*Plus. http://docs.oracle.com/cd/B28359_01/server.111/b31189/ch2.htm
@@ -217,24 +1796,7 @@ public class ImportAppMojo extends AbstractMojo {
      * @param environment a copy of the current process environment variables.
      */
     public void setEnvironmentVariables(Map environment) {
-        if (oracleHome != null) {
-            environment.put("ORACLE_HOME", oracleHome);
-        }
-        if (tnsAdmin != null) {
-            environment.put("TNS_ADMIN", tnsAdmin);
-        }
-        if (libraryPath != null) {
-            environment.put("LD_LIBRARY_PATH", libraryPath);
-            environment.put("DYLD_LIBRARY_PATH", libraryPath);
-            environment.put("LIBPATH", libraryPath);
-            environment.put("SHLIB_PATH", libraryPath);
-        }
-        environment.put("NLS_LANG", "AMERICAN_AMERICA.UTF8");
-
-        getLog().debug("Printing all environment variables:");
-        for (Object key : environment.keySet()) {
-            getLog().debug("  " + key.toString() + "=" + environment.get(key));
-        }
+        new OracleEnvironment(oracleHome, tnsAdmin, libraryPath).apply(environment, getLog());
     }
 
     /**
@@ -244,26 +1806,48 @@ public class ImportAppMojo extends AbstractMojo {
      * @return the temporary .sql file object.
      */
     public File createScriptsToRunTmpFile() throws IOException, MojoExecutionException, MojoFailureException {
+        return createScriptsToRunTmpFile(getApplications().get(0));
+    }
+
+    /**
+     * Create a temporary .sql file containing all the scripts required to
+     * successfully import the given APEX application.
+     *
+     * @param application the application to import.
+     * @return the temporary .sql file object.
+     */
+    public File createScriptsToRunTmpFile(Application application) throws IOException, MojoExecutionException, MojoFailureException {
+        return createScriptsToRunTmpFile(application, getAppExportFiles(application.getAppExportLocation()));
+    }
+
+    /**
+     * Create a temporary .sql file that sets the attributes of the given APEX
+     * application and runs the given export files.
+     *
+     * @param application the application to import.
+     * @param exportFiles the export files to run, in order.
+     * @return the temporary .sql file object.
+     */
+    public File createScriptsToRunTmpFile(Application application, File[] exportFiles) throws IOException {
         File scriptsToRunTmpFile;
-        File setAppAttributesTmpFile = createSetAppAttributesTmpFile();
-        File[] exportFiles = getAppExportFiles();
+        File setAppAttributesTmpFile = createSetAppAttributesTmpFile(application);
         BufferedWriter writer;
-        String script;
+        StringBuilder script = new StringBuilder();
 
-        script = "whenever sqlerror exit 1\n";
-        script = script + "set serveroutput on\n";
-        script = script + getFriendlyPath(setAppAttributesTmpFile.getAbsolutePath()) + "\n";
-        script = script + "set serveroutput off\n";
+        script.append("whenever sqlerror exit 1\n");
+        script.append("set serveroutput on\n");
+        appendScriptDirective(script, setAppAttributesScriptName, setAppAttributesTmpFile);
+        script.append("set serveroutput off\n");
         for (File exportFile : exportFiles) {
-            script = script + getFriendlyPath(exportFile.getAbsolutePath()) + "\n";
+            appendScriptDirective(script, exportFile.getName(), exportFile);
         }
-        script = script + "exit";
+        script.append("exit");
 
         scriptsToRunTmpFile = File.createTempFile("scriptsToRun", sqlFileExtension);
         scriptsToRunTmpFile.deleteOnExit();
 
-        writer = new BufferedWriter(new FileWriter(scriptsToRunTmpFile));
-        writer.write(script);
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(scriptsToRunTmpFile), "UTF-8"));
+        writer.write(script.toString());
         writer.close();
 
         getLog().debug("Generated temp file: " + scriptsToRunTmpFile.getName() + ". Printing out content:\n" + script);
@@ -271,6 +1855,63 @@ public class ImportAppMojo extends AbstractMojo {
         return scriptsToRunTmpFile;
     }
 
+    /**
+     * Append the directive to run a script, surrounded by timing markers if the
+     * timing report is enabled.
+     *
+     * @param script the script being built.
+     * @param name the script name used in the timing markers.
+     * @param file the script to run.
+     */
+    private void appendScriptDirective(StringBuilder script, String name, File file) {
+        if (timingReport) {
+            script.append(ImportTimings.getBeginMarker(name)).append("\n");
+        }
+        script.append(getFriendlyPath(file.getAbsolutePath())).append("\n");
+        if (timingReport) {
+            script.append(ImportTimings.getEndMarker(name)).append("\n");
+        }
+    }
+
+    /**
+     * Record the duration of an import phase if the timing report is enabled.
+     *
+     * @param timings the import timings, or null if disabled.
+     * @param name the phase name.
+     * @param phaseStartTime the start time of the phase.
+     */
+    private void addPhase(ImportTimings timings, String name, long phaseStartTime) {
+        if (timings != null) {
+            timings.addPhase(name, System.currentTimeMillis() - phaseStartTime);
+        }
+    }
+
+    /**
+     * Write the JSON and CSV timing report of an application and log the
+     * slowest export files.
+     *
+     * @param timings the import timings, or null if disabled.
+     * @param logPrefix the prefix for every logged line.
+     */
+    private void writeTimingReport(ImportTimings timings, String logPrefix) {
+        String fileName;
+
+        if (timings == null) {
+            return;
+        }
+
+        timings.logSummary(getLog(), logPrefix, timingReportTopN);
+        fileName = timings.getLabel().replaceAll("[^A-Za-z0-9._-]", "_");
+        timingReportDirectory.mkdirs();
+        try {
+            timings.writeJson(new File(timingReportDirectory, fileName + ".json"));
+            timings.writeCsv(new File(timingReportDirectory, fileName + ".csv"));
+            getLog().debug(logPrefix + "Timing report written to " + timingReportDirectory.getAbsolutePath());
+        } catch (IOException ex) {
+            getLog().warn(logPrefix + "Unable to write the timing report: " + ex.getMessage());
+        }
+    }
+
     /**
      * Create a temporary .sql file containing an anonymous PL/SQL block that
      * sets application attributes by using the APEX_APPLICATION_INSTALL
@@ -281,9 +1922,53 @@ public class ImportAppMojo extends AbstractMojo {
      * @throws IOException signals that an I/O exception of some sort has
      * occurred.
      */
-    public File createSetAppAttributesTmpFile() throws IOException {
+    public File createSetAppAttributesTmpFile() throws IOException, MojoExecutionException {
+        return createSetAppAttributesTmpFile(getApplications().get(0));
+    }
+
+    /**
+     * Create a temporary .sql file containing an anonymous PL/SQL block that
+     * sets the attributes of the given application.
+     *
+     * @param application the application to import.
+     * @return the temporary .sql file object.
+     * @throws IOException signals that an I/O exception of some sort has
+     * occurred.
+     */
+    public File createSetAppAttributesTmpFile(Application application) throws IOException {
         File setAppAttributesTmpFile;
         BufferedWriter writer;
+        String script = getSetAppAttributesScript(application);
+
+        setAppAttributesTmpFile = File.createTempFile("setAppAttributes", sqlFileExtension);
+        setAppAttributesTmpFile.deleteOnExit();
+
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(setAppAttributesTmpFile), "UTF-8"));
+        writer.write(script);
+        writer.close();
+
+        getLog().debug("Generated temp file: " + setAppAttributesTmpFile.getName() + ". Printing out content:\n" + script);
+
+        return setAppAttributesTmpFile;
+    }
+
+    /**
+     * Put together the anonymous PL/SQL block that sets the attributes of the
+     * given application by using the APEX_APPLICATION_INSTALL package.
+     *
+     * @param application the application to import.
+     * @return the PL/SQL block, terminated by a slash.
+     */
+    public String getSetAppAttributesScript(Application application) {
+        String workspaceName = application.getWorkspaceName();
+        String appId = application.getAppId();
+        String appAlias = application.getAppAlias();
+        String appName = application.getAppName();
+        String appParsingSchema = application.getAppParsingSchema();
+        String appImagePrefix = application.getAppImagePrefix();
+        String appProxy = application.getAppProxy();
+        String autoInstallSupObj = application.getAutoInstallSupObj();
+        String appOffset = application.getAppOffset();
         String script;
 
         script = "declare\n"
@@ -343,25 +2028,19 @@ public class ImportAppMojo extends AbstractMojo {
             script = script + ""
                     + "  apex_application_install.generate_offset;\n";
         }
+        script = script + "exception\n";
+        if (workspaceName != null) {
+            script = script + ""
+                    + "  when no_data_found then\n"
+                    + "    raise_application_error(-20000, 'Workspace ''" + workspaceName.toUpperCase() + "'' not found');\n";
+        }
         script = script + ""
-                + "exception\n"
-                + "  when no_data_found then\n"
-                + "    raise_application_error(-20000, 'Workspace ''" + workspaceName.toUpperCase() + "'' not found');\n"
                 + "  when others then\n"
                 + "    raise_application_error(-20000, 'An unexpected error occurred in the setAppAttributes script: ' || sqlerrm);\n"
                 + "end;\n"
                 + "/";
 
-        setAppAttributesTmpFile = File.createTempFile("setAppAttributes", sqlFileExtension);
-        setAppAttributesTmpFile.deleteOnExit();
-
-        writer = new BufferedWriter(new FileWriter(setAppAttributesTmpFile));
-        writer.write(script);
-        writer.close();
-
-        getLog().debug("Generated temp file: " + setAppAttributesTmpFile.getName() + ". Printing out content:\n" + script);
-
-        return setAppAttributesTmpFile;
+        return script;
     }
 
     /**
@@ -376,6 +2055,23 @@ public class ImportAppMojo extends AbstractMojo {
      * found.
      */
     public File[] getAppExportFiles() throws MojoExecutionException, MojoFailureException {
+        return getAppExportFiles(getApplications().get(0).getAppExportLocation());
+    }
+
+    /**
+     * Collect the APEX export files in the given folder. Only .sql files are
+     * included.
+     *
+     * @param appExportLocation the relative path to the folder containing the
+     * application export file(s).
+     * @return a list of file objects.
+     * @throws MojoExecutionException in case the specified appExportLocation
+     * folder is invalid.
+     * @throws MojoFailureException if read permissions on the appExportLocation
+     * folder or export files are not granted or in case no .sql files were
+     * found.
+     */
+    public File[] getAppExportFiles(String appExportLocation) throws MojoExecutionException, MojoFailureException {
         File exportFolder = new File(appExportLocation);
         File[] exportFiles;
 
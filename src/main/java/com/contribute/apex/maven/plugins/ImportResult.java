@@ -0,0 +1,78 @@
+package com.contribute.apex.maven.plugins;
+
+/**
+ * The outcome of a single application import.
+ */
+public class ImportResult {
+
+    private final String label;
+    private final int exitValue;
+    private final long duration;
+    private final Exception exception;
+    private final boolean skipped;
+
+    /**
+     * @param label the label of the imported application.
+     * @param exitValue the SQL*Plus process exit value, or -1 if the process
+     * could not be started.
+     * @param duration the import duration in milliseconds.
+     * @param exception the exception that caused the import to fail, or null.
+     */
+    public ImportResult(String label, int exitValue, long duration, Exception exception) {
+        this(label, exitValue, duration, exception, false);
+    }
+
+    /**
+     * @param label the label of the imported application.
+     * @param exitValue the SQL*Plus process exit value, or -1 if the process
+     * could not be started.
+     * @param duration the import duration in milliseconds.
+     * @param exception the exception that caused the import to fail, or null.
+     * @param skipped true if the import was skipped because nothing changed.
+     */
+    public ImportResult(String label, int exitValue, long duration, Exception exception, boolean skipped) {
+        this.label = label;
+        this.exitValue = exitValue;
+        this.duration = duration;
+        this.exception = exception;
+        this.skipped = skipped;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getExitValue() {
+        return exitValue;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public Exception getException() {
+        return exception;
+    }
+
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    public boolean isSuccess() {
+        return exception == null && exitValue == 0;
+    }
+
+    /**
+     * @return a one line description of the import outcome.
+     */
+    public String getStatus() {
+        if (skipped) {
+            return "SKIPPED (unchanged)";
+        } else if (isSuccess()) {
+            return "SUCCESS";
+        } else if (exception != null) {
+            return "FAILURE (" + exception.getMessage() + ")";
+        }
+        return "FAILURE (exit value " + exitValue + ")";
+    }
+}
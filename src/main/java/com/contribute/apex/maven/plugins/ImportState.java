@@ -0,0 +1,308 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Keeps track of the content digest of the last successful import per target
+ * (connection string, workspace and the ID the application is imported with),
+ * together with a digest per export file of the deployed snapshot. The
+ * digests are stored in a properties file so they survive between builds.
+ */
+public class ImportState {
+
+    private final File stateFile;
+    private final Properties digests = new Properties();
+
+    /**
+     * Load the import state from the given file. A missing file results in an
+     * empty state.
+     *
+     * @param stateFile the properties file holding the digests.
+     * @throws IOException if the state file exists but can't be read.
+     */
+    public ImportState(File stateFile) throws IOException {
+        this.stateFile = stateFile;
+
+        if (stateFile.isFile()) {
+            InputStream in = new FileInputStream(stateFile);
+            try {
+                digests.load(in);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * @param target the import target key.
+     * @return the digest of the last successful import, or null if none was
+     * recorded.
+     */
+    public synchronized String getDigest(String target) {
+        return digests.getProperty(target);
+    }
+
+    /**
+     * Record the digest of a successful import and write the state file.
+     *
+     * @param target the import target key.
+     * @param digest the digest of the imported export files and attributes.
+     * @throws IOException if the state file can't be written.
+     */
+    public synchronized void putDigest(String target, String digest) throws IOException {
+        digests.setProperty(target, digest);
+        store();
+    }
+
+    /**
+     * @param target the import target key.
+     * @return the digest per export file of the last successful import, by
+     * path relative to the export folder.
+     * The map is empty if no snapshot was recorded.
+     */
+    public synchronized Map<String, String> getFileDigests(String target) {
+        Map<String, String> fileDigests = new HashMap<String, String>();
+        String prefix = target + "|file|";
+
+        for (String key : digests.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                fileDigests.put(key.substring(prefix.length()), digests.getProperty(key));
+            }
+        }
+
+        return fileDigests;
+    }
+
+    /**
+     * Replace the recorded snapshot of a target and write the state file.
+     *
+     * @param target the import target key.
+     * @param fileDigests the digest per export file, by relative path.
+     * @throws IOException if the state file can't be written.
+     */
+    public synchronized void putFileDigests(String target, Map<String, String> fileDigests) throws IOException {
+        String prefix = target + "|file|";
+
+        for (String key : digests.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                digests.remove(key);
+            }
+        }
+        for (Map.Entry<String, String> fileDigest : fileDigests.entrySet()) {
+            digests.setProperty(prefix + fileDigest.getKey(), fileDigest.getValue());
+        }
+        store();
+    }
+
+    /**
+     * Forget the digest and snapshot of a target, so the next run imports it
+     * again, and write the state file.
+     *
+     * @param target the import target key.
+     * @throws IOException if the state file can't be written.
+     */
+    public synchronized void remove(String target) throws IOException {
+        String prefix = target + "|file|";
+
+        digests.remove(target);
+        for (String key : digests.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                digests.remove(key);
+            }
+        }
+        store();
+    }
+
+    /**
+     * Write the digests to the state file.
+     *
+     * @throws IOException if the state file can't be written.
+     */
+    private void store() throws IOException {
+        OutputStream out;
+
+        if (stateFile.getParentFile() != null) {
+            stateFile.getParentFile().mkdirs();
+        }
+        out = new FileOutputStream(stateFile);
+        try {
+            digests.store(out, "orclapex-maven-plugin import state");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Put together the key identifying an import target.
+     *
+     * @param connectionString the database connection string.
+     * @param workspaceName the target workspace, or null for the original one.
+     * @param appId the ID the application is imported with.
+     * @return the import target key.
+     */
+    public static String getTarget(String connectionString, String workspaceName, String appId) {
+        return connectionString + "|" + (workspaceName == null ? "" : workspaceName.toUpperCase()) + "|" + appId;
+    }
+
+    /**
+     * Compute a SHA-256 digest over the names and contents of the export files
+     * and the effective import attributes. The files are processed in name
+     * order so the digest doesn't depend on the file system listing order.
+     *
+     * @param exportFiles the export files to be imported.
+     * @param attributes the import attributes.
+     * @return the hex encoded digest.
+     * @throws IOException if an export file can't be read.
+     */
+    public static String computeDigest(File[] exportFiles, Map<String, String> attributes) throws IOException {
+        MessageDigest messageDigest = getSha256();
+        File[] sortedFiles = exportFiles.clone();
+
+        Arrays.sort(sortedFiles, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return file1.getName().compareTo(file2.getName());
+            }
+        });
+
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            messageDigest.update((attribute.getKey() + "=" + attribute.getValue() + "\n").getBytes("UTF-8"));
+        }
+        for (File exportFile : sortedFiles) {
+            messageDigest.update((exportFile.getName() + "\n").getBytes("UTF-8"));
+            update(messageDigest, exportFile);
+        }
+
+        return toHex(messageDigest.digest());
+    }
+
+    /**
+     * Compute a SHA-256 digest over the relative paths and digests of the
+     * export files and the effective import attributes.
+     *
+     * @param fileDigests the digest per export file, by relative path.
+     * @param attributes the import attributes.
+     * @return the hex encoded digest.
+     */
+    public static String computeDigest(Map<String, String> fileDigests, Map<String, String> attributes) throws IOException {
+        MessageDigest messageDigest = getSha256();
+
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            messageDigest.update((attribute.getKey() + "=" + attribute.getValue() + "\n").getBytes("UTF-8"));
+        }
+        for (Map.Entry<String, String> fileDigest : new TreeMap<String, String>(fileDigests).entrySet()) {
+            messageDigest.update((fileDigest.getKey() + "=" + fileDigest.getValue() + "\n").getBytes("UTF-8"));
+        }
+
+        return toHex(messageDigest.digest());
+    }
+
+    /**
+     * Compute the digest of every .sql file in an export folder and its
+     * subfolders. The files of a split export live in the application
+     * subfolder and are run by install.sql with @@, so they have to be
+     * included to detect changed pages and components.
+     *
+     * @param folder the export folder.
+     * @return the digest per export file, by path relative to the folder with
+     * / as separator.
+     * @throws IOException if an export file can't be read.
+     */
+    public static Map<String, String> computeFileDigests(File folder) throws IOException {
+        Map<String, String> fileDigests = new TreeMap<String, String>();
+
+        addFileDigests(folder, "", fileDigests);
+
+        return fileDigests;
+    }
+
+    private static void addFileDigests(File folder, String path, Map<String, String> fileDigests) throws IOException {
+        File[] files = folder.listFiles();
+
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                addFileDigests(file, path + file.getName() + "/", fileDigests);
+            } else if (file.getName().toLowerCase().endsWith(".sql")) {
+                fileDigests.put(path + file.getName(), computeFileDigest(file));
+            }
+        }
+    }
+
+    /**
+     * Compute a SHA-256 digest over the contents of a single file.
+     *
+     * @param file the file to digest.
+     * @return the hex encoded digest.
+     * @throws IOException if the file can't be read.
+     */
+    public static String computeFileDigest(File file) throws IOException {
+        MessageDigest messageDigest = getSha256();
+
+        update(messageDigest, file);
+
+        return toHex(messageDigest.digest());
+    }
+
+    /**
+     * Feed the contents of a file to a message digest.
+     *
+     * @param messageDigest the message digest to update.
+     * @param file the file to read.
+     * @throws IOException if the file can't be read.
+     */
+    private static void update(MessageDigest messageDigest, File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        byte[] buffer = new byte[65536];
+        int bytesRead;
+
+        try {
+            while ((bytesRead = in.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, bytesRead);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return a new SHA-256 message digest.
+     */
+    public static MessageDigest getSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", ex);
+        }
+    }
+
+    /**
+     * @param bytes the bytes to encode.
+     * @return the lower case hex representation of the bytes.
+     */
+    public static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+            hex.append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return hex.toString();
+    }
+}
@@ -0,0 +1,325 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Collects the duration of the import phases, of every script run by SQL*Plus
+ * and of every component of the export. The script durations are measured
+ * from timing markers: prompt commands written around every script directive,
+ * whose output is picked up by the ProcessOutputPump as it arrives. The
+ * component durations are measured from the prompt APEX runs at the start of
+ * every component (--application/...), so split and single-file exports are
+ * timed per page and shared component as well. A component ends at the next
+ * component prompt or timing marker.
+ */
+public class ImportTimings {
+
+    /**
+     * The text SQL*Plus prints for every timing marker.
+     */
+    public static final String MARKER = "ORCLAPEX-TIMING";
+    /**
+     * The output line printed by the prompt command at the start of every
+     * component of an APEX 5 export.
+     */
+    public static final Pattern COMPONENT_PROMPT_PATTERN = Pattern.compile(".*--application/.*");
+    private final String label;
+    private final Map<String, Long> phases = new LinkedHashMap<String, Long>();
+    private final Map<String, Long> scripts = new LinkedHashMap<String, Long>();
+    private final Map<String, Long> scriptStartTimes = new HashMap<String, Long>();
+    private final Map<String, Long> components = new LinkedHashMap<String, Long>();
+    private String component;
+    private long componentStartTime;
+    private long processStartTime;
+    private long firstMarkerTime;
+
+    /**
+     * @param label the label of the imported application.
+     */
+    public ImportTimings(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @param name the script name.
+     * @return the SQL*Plus command that marks the start of a script.
+     */
+    public static String getBeginMarker(String name) {
+        return "prompt " + MARKER + " begin " + name;
+    }
+
+    /**
+     * @param name the script name.
+     * @return the SQL*Plus command that marks the end of a script.
+     */
+    public static String getEndMarker(String name) {
+        return "prompt " + MARKER + " end " + name;
+    }
+
+    /**
+     * Record the duration of an import phase.
+     *
+     * @param name the phase name.
+     * @param duration the duration in milliseconds.
+     */
+    public synchronized void addPhase(String name, long duration) {
+        Long previous = phases.get(name);
+        phases.put(name, previous == null ? duration : previous + duration);
+    }
+
+    /**
+     * Record the duration of a script measured without timing markers.
+     *
+     * @param name the script name.
+     * @param duration the duration in milliseconds.
+     */
+    public synchronized void addScript(String name, long duration) {
+        scripts.put(name, duration);
+    }
+
+    /**
+     * Record the moment the SQL*Plus process was started.
+     */
+    public synchronized void processStarted() {
+        processStartTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Process a line of SQL*Plus output.
+     *
+     * @param line the output line.
+     * @return true if the line was a timing marker. Component prompts are
+     * recorded but not consumed.
+     */
+    public synchronized boolean handleLine(String line) {
+        long now = System.currentTimeMillis();
+        String[] parts;
+
+        if (COMPONENT_PROMPT_PATTERN.matcher(line).matches()) {
+            endComponent(now);
+            component = line.substring(line.indexOf("--application/") + 2).trim();
+            componentStartTime = now;
+            return false;
+        } else if (!line.startsWith(MARKER + " ")) {
+            return false;
+        }
+        parts = line.substring(MARKER.length() + 1).split(" ", 2);
+        if (parts.length < 2) {
+            return false;
+        }
+        endComponent(now);
+        if (firstMarkerTime == 0) {
+            firstMarkerTime = now;
+            if (processStartTime > 0) {
+                phases.put("SQL*Plus startup and login", now - processStartTime);
+            }
+        }
+        if (parts[0].equals("begin")) {
+            scriptStartTimes.put(parts[1], now);
+        } else if (parts[0].equals("end") && scriptStartTimes.containsKey(parts[1])) {
+            scripts.put(parts[1], now - scriptStartTimes.remove(parts[1]));
+        }
+
+        return true;
+    }
+
+    /**
+     * End the running component, e.g. at the end of a script run without
+     * timing markers.
+     */
+    public synchronized void endComponent() {
+        endComponent(System.currentTimeMillis());
+    }
+
+    private void endComponent(long now) {
+        Long previous;
+
+        if (component == null) {
+            return;
+        }
+        // a component can be installed more than once, e.g. by several scripts
+        previous = components.get(component);
+        components.put(component, (previous == null ? 0 : previous) + now - componentStartTime);
+        component = null;
+    }
+
+    /**
+     * @return the duration in milliseconds per component, in run order.
+     */
+    public synchronized Map<String, Long> getComponents() {
+        return new LinkedHashMap<String, Long>(components);
+    }
+
+    /**
+     * @return the duration in milliseconds per script, in run order.
+     */
+    public synchronized Map<String, Long> getScripts() {
+        return new LinkedHashMap<String, Long>(scripts);
+    }
+
+    /**
+     * @return the duration in milliseconds per import phase.
+     */
+    public synchronized Map<String, Long> getPhases() {
+        return new LinkedHashMap<String, Long>(phases);
+    }
+
+    /**
+     * Log the import phases, the slowest scripts and the slowest components.
+     *
+     * @param log the Maven log.
+     * @param logPrefix the prefix for every logged line.
+     * @param topN the number of slowest scripts and components to log.
+     */
+    public synchronized void logSummary(Log log, String logPrefix, int topN) {
+        log.info(logPrefix + "Import timings of " + label + ":");
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            log.info(logPrefix + "  " + phase.getKey() + ": " + phase.getValue() + " ms");
+        }
+        logSlowest(log, logPrefix + "Slowest scripts:", logPrefix, scripts, topN);
+        logSlowest(log, logPrefix + "Slowest components:", logPrefix, components, topN);
+    }
+
+    private static void logSlowest(Log log, String title, String logPrefix, Map<String, Long> durations, int topN) {
+        List<Map.Entry<String, Long>> slowest = new ArrayList<Map.Entry<String, Long>>(durations.entrySet());
+
+        if (slowest.isEmpty()) {
+            return;
+        }
+        Collections.sort(slowest, new Comparator<Map.Entry<String, Long>>() {
+            @Override
+            public int compare(Map.Entry<String, Long> entry1, Map.Entry<String, Long> entry2) {
+                return entry2.getValue().compareTo(entry1.getValue());
+            }
+        });
+
+        log.info(title);
+        for (int i = 0; i < Math.min(topN, slowest.size()); i++) {
+            log.info(logPrefix + "  " + slowest.get(i).getKey() + ": " + slowest.get(i).getValue() + " ms");
+        }
+    }
+
+    /**
+     * Write the timings as a JSON document.
+     *
+     * @param file the report file.
+     * @throws IOException if the file can't be written.
+     */
+    public synchronized void writeJson(File file) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+
+        try {
+            writer.write("{\n  \"application\": " + toJsonString(label) + ",\n");
+            writer.write("  \"timestamp\": " + System.currentTimeMillis() + ",\n");
+            writer.write("  \"phases\": {");
+            writeJsonEntries(writer, phases);
+            writer.write("},\n  \"scripts\": {");
+            writeJsonEntries(writer, scripts);
+            writer.write("},\n  \"components\": {");
+            writeJsonEntries(writer, components);
+            writer.write("}\n}\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Write the timings as CSV with a type (phase, script or component), name
+     * and duration column.
+     *
+     * @param file the report file.
+     * @throws IOException if the file can't be written.
+     */
+    public synchronized void writeCsv(File file) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+
+        try {
+            writer.write("type,name,duration_ms\n");
+            for (Map.Entry<String, Long> phase : phases.entrySet()) {
+                writer.write("phase," + toCsvString(phase.getKey()) + "," + phase.getValue() + "\n");
+            }
+            for (Map.Entry<String, Long> script : scripts.entrySet()) {
+                writer.write("script," + toCsvString(script.getKey()) + "," + script.getValue() + "\n");
+            }
+            for (Map.Entry<String, Long> entry : components.entrySet()) {
+                writer.write("component," + toCsvString(entry.getKey()) + "," + entry.getValue() + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writeJsonEntries(Writer writer, Map<String, Long> entries) throws IOException {
+        String separator = "\n";
+
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
+            writer.write(separator + "    " + toJsonString(entry.getKey()) + ": " + entry.getValue());
+            separator = ",\n";
+        }
+        if (!entries.isEmpty()) {
+            writer.write("\n  ");
+        }
+    }
+
+    /**
+     * @param value the string to encode.
+     * @return the value as a quoted JSON string.
+     */
+    public static String toJsonString(String value) {
+        StringBuilder json = new StringBuilder("\"");
+
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+
+        return json.append('"').toString();
+    }
+
+    /**
+     * @param value the string to encode.
+     * @return the value as a quoted CSV field.
+     */
+    public static String toCsvString(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
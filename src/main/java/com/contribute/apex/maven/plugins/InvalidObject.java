@@ -0,0 +1,110 @@
+package com.contribute.apex.maven.plugins;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A database object that is still invalid after the 'compile-schema' goal
+ * recompiled its schema, with the compilation errors from ALL_ERRORS.
+ */
+public class InvalidObject {
+
+    private final String owner;
+    private final String type;
+    private final String name;
+    private final List<CompileError> errors = new ArrayList<CompileError>();
+
+    /**
+     * @param owner the schema of the object.
+     * @param type the object type, e.g. PACKAGE BODY.
+     * @param name the object name.
+     */
+    public InvalidObject(String owner, String type, String name) {
+        this.owner = owner;
+        this.type = type;
+        this.name = name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<CompileError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the owner, type and name, e.g. HR.PACKAGE BODY.EMP_API.
+     */
+    public String getKey() {
+        return owner + "." + type + "." + name;
+    }
+
+    /**
+     * @return the statement that compiles the object, or null if objects of
+     * its type can't be compiled individually.
+     */
+    public String getCompileStatement() {
+        String objectName = "\"" + owner + "\".\"" + name + "\"";
+
+        if (type.equals("PACKAGE BODY")) {
+            return "alter package " + objectName + " compile body";
+        } else if (type.equals("TYPE BODY")) {
+            return "alter type " + objectName + " compile body";
+        } else if (type.equals("PACKAGE") || type.equals("TYPE")) {
+            return "alter " + type.toLowerCase() + " " + objectName + " compile specification";
+        } else if (type.equals("PROCEDURE") || type.equals("FUNCTION") || type.equals("TRIGGER") || type.equals("VIEW")
+                || type.equals("MATERIALIZED VIEW") || type.equals("SYNONYM") || type.equals("DIMENSION")) {
+            return "alter " + type.toLowerCase() + " " + objectName + " compile";
+        }
+        return null;
+    }
+
+    /**
+     * A single compilation error or warning.
+     */
+    public static class CompileError {
+
+        private final int line;
+        private final int position;
+        private final String attribute;
+        private final String text;
+
+        /**
+         * @param line the line in the object source.
+         * @param position the position in the line.
+         * @param attribute ERROR or WARNING.
+         * @param text the error message.
+         */
+        public CompileError(int line, int position, String attribute, String text) {
+            this.line = line;
+            this.position = position;
+            this.attribute = attribute;
+            this.text = text;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+}
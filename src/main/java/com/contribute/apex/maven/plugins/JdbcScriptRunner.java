@@ -0,0 +1,396 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.sql.BatchUpdateException;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Runs SQL*Plus scripts over JDBC in the Maven JVM. Statements are read one at
+ * a time by the SqlScriptParser and sent to the database in batches. The
+ * SQL*Plus commands that matter for APEX exports are emulated: prompt, set
+ * serveroutput, whenever sqlerror, @ and @@ (nested scripts), execute and
+ * exit. Other commands are ignored. Stored program units are executed on
+ * their own, so compilation errors are reported like SQL*Plus does.
+ */
+public class JdbcScriptRunner {
+
+    private final Connection connection;
+    private final Log log;
+    private final String logPrefix;
+    private final int batchSize;
+    private final List<SqlStatement> batch = new ArrayList<SqlStatement>();
+    private Statement statement;
+    private ImportTimings timings;
+    private boolean serverOutput;
+    private boolean exitOnError = false;
+    private boolean exited;
+    private int errorCount;
+    private int warningCount;
+
+    /**
+     * @param connection the database connection.
+     * @param log the Maven log.
+     * @param logPrefix the prefix for every logged line.
+     * @param batchSize the maximum number of statements sent in one batch.
+     */
+    public JdbcScriptRunner(Connection connection, Log log, String logPrefix, int batchSize) {
+        this.connection = connection;
+        this.log = log;
+        this.logPrefix = logPrefix;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Open a JDBC connection with the given driver class. The driver class has
+     * to be on the plugin class path, e.g. as a plugin dependency.
+     *
+     * @param driverClassName the JDBC driver class.
+     * @param url the JDBC URL.
+     * @param username the database username.
+     * @param password the database password.
+     * @return the connection, with auto-commit disabled.
+     * @throws MojoExecutionException if the driver can't be loaded or the
+     * connection fails.
+     */
+    public static Connection connect(String driverClassName, String url, String username, String password) throws MojoExecutionException {
+        Driver driver;
+        Properties properties = new Properties();
+        Connection connection;
+
+        try {
+            driver = (Driver) Class.forName(driverClassName, true, JdbcScriptRunner.class.getClassLoader()).getDeclaredConstructor().newInstance();
+        } catch (Exception ex) {
+            throw new MojoExecutionException("Unable to load the JDBC driver " + driverClassName + ". Add the driver as a plugin dependency.", ex);
+        }
+
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        try {
+            connection = driver.connect(url, properties);
+            if (connection == null) {
+                throw new MojoExecutionException("The JDBC driver " + driverClassName + " doesn't accept the URL " + url);
+            }
+            connection.setAutoCommit(false);
+            return connection;
+        } catch (SQLException ex) {
+            throw new MojoExecutionException("Unable to connect to " + url + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Derive a thin driver JDBC URL from a SQL*Plus connection string.
+     *
+     * @param connectionString an EZConnect string (host:port/service) or a TNS
+     * descriptor.
+     * @return the JDBC URL.
+     */
+    public static String getThinUrl(String connectionString) {
+        if (connectionString.trim().startsWith("(")) {
+            return "jdbc:oracle:thin:@" + connectionString.trim();
+        }
+        return "jdbc:oracle:thin:@//" + connectionString.trim();
+    }
+
+    /**
+     * @param timings the timings that record the component prompts, or null.
+     */
+    public void setTimings(ImportTimings timings) {
+        this.timings = timings;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return the number of stored program units created with compilation
+     * errors.
+     */
+    public int getWarningCount() {
+        return warningCount;
+    }
+
+    /**
+     * @return true if the script executed an exit command.
+     */
+    public boolean isExited() {
+        return exited;
+    }
+
+    /**
+     * Run a script file, including the scripts it calls.
+     *
+     * @param file the script file.
+     * @throws IOException if a script can't be read.
+     * @throws SQLException if a statement fails while "whenever sqlerror exit"
+     * is active.
+     */
+    public void runFile(File file) throws IOException, SQLException {
+        run(new InputStreamReader(new FileInputStream(file), "UTF-8"), file);
+    }
+
+    /**
+     * Run a script, including the scripts it calls.
+     *
+     * @param script the script contents. The reader is closed afterwards.
+     * @param file the script file used to resolve @@ directives, or null.
+     * @throws IOException if a script can't be read.
+     * @throws SQLException if a statement fails while "whenever sqlerror exit"
+     * is active.
+     */
+    public void run(Reader script, File file) throws IOException, SQLException {
+        SqlScriptParser parser = new SqlScriptParser(script, file);
+        SqlStatement sqlStatement;
+
+        try {
+            while (!exited && (sqlStatement = parser.next()) != null) {
+                if (sqlStatement.getType() == SqlStatement.Type.COMMAND) {
+                    flush();
+                    runCommand(sqlStatement);
+                } else if (sqlStatement.getType() == SqlStatement.Type.PLSQL && sqlStatement.getKeyword().equals("create")) {
+                    // compilation errors are only reported as warnings of the executing statement
+                    flush();
+                    batch.add(sqlStatement);
+                    flush();
+                } else {
+                    batch.add(sqlStatement);
+                    if (batch.size() >= batchSize || sqlStatement.getKeyword().equals("select") || sqlStatement.getKeyword().equals("with")) {
+                        flush();
+                    }
+                }
+            }
+            flush();
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Execute the pending batch of statements.
+     *
+     * @throws SQLException if a statement fails while "whenever sqlerror exit"
+     * is active.
+     */
+    public void flush() throws SQLException {
+        List<SqlStatement> executed;
+        List<SqlStatement> remaining = new ArrayList<SqlStatement>();
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        executed = new ArrayList<SqlStatement>(batch);
+        batch.clear();
+        if (statement == null) {
+            statement = connection.createStatement();
+            statement.setEscapeProcessing(false);
+        }
+        try {
+            if (executed.size() == 1) {
+                statement.execute(executed.get(0).getText());
+                handleWarnings(executed.get(0));
+            } else {
+                for (SqlStatement sqlStatement : executed) {
+                    statement.addBatch(sqlStatement.getText());
+                }
+                statement.executeBatch();
+            }
+        } catch (BatchUpdateException ex) {
+            int[] updateCounts = ex.getUpdateCounts();
+            boolean reported = false;
+            statement.clearBatch();
+            if (updateCounts != null && updateCounts.length < executed.size()) {
+                // the driver stopped at the failing statement, like SQL*Plus the script goes on after it
+                remaining.addAll(executed.subList(updateCounts.length + 1, executed.size()));
+                handleError(executed.get(updateCounts.length), ex);
+                reported = true;
+            } else if (updateCounts != null) {
+                for (int i = 0; i < updateCounts.length; i++) {
+                    if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                        handleError(executed.get(i), ex);
+                        reported = true;
+                    }
+                }
+            }
+            if (!reported) {
+                // the driver doesn't tell which statement failed
+                executeEach(executed, ex);
+            }
+        } catch (SQLException ex) {
+            handleError(executed.get(0), ex);
+        }
+        printServerOutput();
+        if (!remaining.isEmpty()) {
+            batch.addAll(remaining);
+            flush();
+        }
+    }
+
+    /**
+     * Commit and release the statement.
+     *
+     * @throws SQLException if the commit fails.
+     */
+    public void close() throws SQLException {
+        flush();
+        connection.commit();
+        if (statement != null) {
+            statement.close();
+        }
+    }
+
+    /**
+     * Execute the statements of a failed batch one at a time, so the failing
+     * statements are reported. At least one error is counted, also when every
+     * statement succeeds on its own.
+     */
+    private void executeEach(List<SqlStatement> statements, BatchUpdateException batchException) throws SQLException {
+        int errorsBefore = errorCount;
+
+        for (SqlStatement sqlStatement : statements) {
+            try {
+                statement.execute(sqlStatement.getText());
+                handleWarnings(sqlStatement);
+            } catch (SQLException ex) {
+                handleError(sqlStatement, ex);
+            }
+        }
+        if (errorCount == errorsBefore) {
+            handleError(statements.get(0), batchException);
+        }
+    }
+
+    private static String getMessage(SQLException ex) {
+        if (ex.getMessage() == null || ex.getMessage().trim().isEmpty()) {
+            return ex.getClass().getName() + " (error code " + ex.getErrorCode() + ")";
+        }
+        return ex.getMessage().trim();
+    }
+
+    private void handleError(SqlStatement failed, SQLException ex) throws SQLException {
+        errorCount++;
+        log.error(logPrefix + failed.getLocation() + ": " + getMessage(ex));
+        if (exitOnError) {
+            connection.rollback();
+            exited = true;
+            throw ex;
+        }
+    }
+
+    private void handleWarnings(SqlStatement executed) throws SQLException {
+        SQLWarning warning = statement.getWarnings();
+
+        if (warning == null) {
+            return;
+        }
+        statement.clearWarnings();
+        if (executed.getType() == SqlStatement.Type.PLSQL && executed.getKeyword().equals("create")) {
+            warningCount++;
+            log.warn(logPrefix + executed.getLocation() + ": Warning: created with compilation errors");
+        }
+        for (; warning != null; warning = warning.getNextWarning()) {
+            log.debug(logPrefix + executed.getLocation() + ": " + getMessage(warning));
+        }
+    }
+
+    private void runCommand(SqlStatement command) throws IOException, SQLException {
+        String keyword = command.getKeyword();
+        String arguments = command.getArguments();
+        String lowerArguments = arguments.toLowerCase();
+
+        if (keyword.startsWith("@")) {
+            runNestedScript(command);
+        } else if (keyword.equals("start")) {
+            runNestedScript(new SqlStatement(SqlStatement.Type.COMMAND, "@" + arguments, command.getFile(), command.getLine()));
+        } else if (keyword.equals("prompt") || keyword.equals("pro")) {
+            if (timings != null) {
+                timings.handleLine(arguments);
+            }
+            log.info(logPrefix + arguments);
+        } else if (keyword.equals("set") && lowerArguments.matches("serverout(put)?\\s+on.*")) {
+            setServerOutput(true);
+        } else if (keyword.equals("set") && lowerArguments.matches("serverout(put)?\\s+off.*")) {
+            setServerOutput(false);
+        } else if (keyword.equals("whenever") && lowerArguments.startsWith("sqlerror")) {
+            exitOnError = lowerArguments.matches("sqlerror\\s+exit.*");
+        } else if (keyword.equals("exec") || keyword.equals("execute")) {
+            batch.add(new SqlStatement(SqlStatement.Type.PLSQL, "begin " + arguments.replaceAll(";\\s*$", "") + "; end;", command.getFile(), command.getLine()));
+            flush();
+        } else if (keyword.equals("exit") || keyword.equals("quit")) {
+            exited = true;
+        } else {
+            log.debug(logPrefix + "Ignored SQL*Plus command at " + command.getLocation() + ": " + command.getText());
+        }
+    }
+
+    private void runNestedScript(SqlStatement command) throws IOException, SQLException {
+        String path = command.getText().trim();
+        File script;
+
+        if (path.startsWith("@@")) {
+            path = path.substring(2).trim();
+            script = new File(path);
+            if (!script.isAbsolute() && command.getFile() != null) {
+                script = new File(command.getFile().getParentFile(), path);
+            }
+        } else {
+            script = new File(path.substring(1).trim());
+        }
+        if (!script.isFile() && !script.getName().contains(".")) {
+            script = new File(script.getPath() + ".sql");
+        }
+
+        log.debug(logPrefix + "Running nested script " + script.getPath());
+        runFile(script);
+    }
+
+    private void setServerOutput(boolean enabled) throws SQLException {
+        CallableStatement call = connection.prepareCall(enabled ? "begin dbms_output.enable(null); end;" : "begin dbms_output.disable; end;");
+
+        try {
+            call.execute();
+        } finally {
+            call.close();
+        }
+        serverOutput = enabled;
+    }
+
+    private void printServerOutput() throws SQLException {
+        CallableStatement call;
+
+        if (!serverOutput) {
+            return;
+        }
+
+        call = connection.prepareCall("begin dbms_output.get_line(?, ?); end;");
+        try {
+            call.registerOutParameter(1, Types.VARCHAR);
+            call.registerOutParameter(2, Types.INTEGER);
+            while (true) {
+                call.execute();
+                if (call.getInt(2) != 0) {
+                    break;
+                }
+                String line = call.getString(1);
+                log.info(logPrefix + (line == null ? "" : line));
+            }
+        } finally {
+            call.close();
+        }
+    }
+}
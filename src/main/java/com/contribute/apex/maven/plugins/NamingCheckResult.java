@@ -0,0 +1,48 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The naming violations found in a single source file, with the size,
+ * modification time and digest of the file when it was checked. Instances are
+ * kept in the result cache of the 'check-naming-conventions' goal.
+ */
+public class NamingCheckResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final long length;
+    private final long lastModified;
+    private final String digest;
+    private final List<NamingViolation> violations;
+
+    /**
+     * @param length the size of the source file.
+     * @param lastModified the modification time of the source file.
+     * @param digest the SHA-256 digest of the source file.
+     * @param violations the naming violations.
+     */
+    public NamingCheckResult(long length, long lastModified, String digest, List<NamingViolation> violations) {
+        this.length = length;
+        this.lastModified = lastModified;
+        this.digest = digest;
+        this.violations = new ArrayList<NamingViolation>(violations);
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public List<NamingViolation> getViolations() {
+        return violations;
+    }
+}
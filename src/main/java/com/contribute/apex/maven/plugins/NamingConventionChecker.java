@@ -0,0 +1,461 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the identifiers declared in PL/SQL and DDL source code against
+ * naming conventions. Every convention is a regular expression, matched case
+ * insensitively against the whole identifier, for one kind of identifier:
+ *
+ * <ul>
+ * <li>parameter, localVariable, globalVariable, constant, cursor, exception
+ * and type (PL/SQL types and subtypes) for declarations in PL/SQL code;</li>
+ * <li>package, procedure, function, trigger, objectType, table, view,
+ * materializedView, sequence, synonym and index for created objects.
+ * Packaged procedures and functions are checked as well.</li>
+ * </ul>
+ *
+ * The source is read as a stream of tokens; the checker only tracks the
+ * nesting of declaration sections, so the code doesn't have to compile.
+ */
+public class NamingConventionChecker {
+
+    /**
+     * The conventions used for kinds that are not configured.
+     */
+    public static final Map<String, String> DEFAULT_CONVENTIONS;
+
+    static {
+        Map<String, String> defaults = new LinkedHashMap<String, String>();
+        defaults.put("parameter", "p_.+");
+        defaults.put("localVariable", "l_.+");
+        defaults.put("globalVariable", "g_.+");
+        defaults.put("constant", "(g|l)?c_.+");
+        defaults.put("cursor", "(c|cur)_.+");
+        defaults.put("exception", "e_.+");
+        defaults.put("type", "(t|r|tt)_.+");
+        DEFAULT_CONVENTIONS = Collections.unmodifiableMap(defaults);
+    }
+    /**
+     * All kinds of identifiers that can be checked.
+     */
+    public static final List<String> KINDS = Arrays.asList("parameter", "localVariable", "globalVariable", "constant", "cursor", "exception", "type",
+            "package", "procedure", "function", "trigger", "objectType", "table", "view", "materializedView", "sequence", "synonym", "index");
+    private static final List<String> CREATE_MODIFIERS = Arrays.asList("or", "replace", "editionable", "noneditionable", "editioning", "force",
+            "noforce", "public", "private", "global", "temporary", "unique", "bitmap", "sharded", "duplicated", "immutable", "blockchain");
+    private static final List<String> METHOD_MODIFIERS = Arrays.asList("member", "static", "constructor", "map", "order", "overriding", "not",
+            "final", "instantiable");
+    private final Map<String, Pattern> conventions = new LinkedHashMap<String, Pattern>();
+
+    /**
+     * @param conventions the regular expression per kind of identifier. Kinds
+     * that are not configured use the DEFAULT_CONVENTIONS; an empty
+     * expression disables the check of a kind.
+     * @throws IllegalArgumentException if a kind is unknown.
+     */
+    public NamingConventionChecker(Map<String, String> conventions) {
+        Map<String, String> merged = new LinkedHashMap<String, String>(DEFAULT_CONVENTIONS);
+
+        if (conventions != null) {
+            merged.putAll(conventions);
+        }
+        for (Map.Entry<String, String> convention : merged.entrySet()) {
+            if (!KINDS.contains(convention.getKey())) {
+                throw new IllegalArgumentException("Unknown naming convention kind " + convention.getKey() + ". Use one of " + KINDS);
+            }
+            if (convention.getValue() != null && !convention.getValue().trim().isEmpty()) {
+                this.conventions.put(convention.getKey(), Pattern.compile(convention.getValue().trim(), Pattern.CASE_INSENSITIVE));
+            }
+        }
+    }
+
+    /**
+     * @return the active conventions, as kind=expression pairs. Identifies
+     * the configuration in the result cache.
+     */
+    public String getSignature() {
+        StringBuilder signature = new StringBuilder();
+
+        for (Map.Entry<String, Pattern> convention : conventions.entrySet()) {
+            signature.append(convention.getKey()).append('=').append(convention.getValue().pattern()).append('\n');
+        }
+
+        return signature.toString();
+    }
+
+    /**
+     * Check the identifiers declared in source code.
+     *
+     * @param source the source code.
+     * @return the naming violations, in source order.
+     * @throws IOException if the source can't be read.
+     */
+    public List<NamingViolation> check(Reader source) throws IOException {
+        return new Check(new PlsqlTokenizer(source)).run();
+    }
+
+    /**
+     * The kinds of nested blocks.
+     */
+    private enum ScopeType {
+
+        PACKAGE, SUBPROGRAM, BLOCK, CASE
+    }
+
+    /**
+     * A nested block; declarations are checked while its declaration section
+     * is open.
+     */
+    private static class Scope {
+
+        private final ScopeType type;
+        private boolean declarations;
+
+        Scope(ScopeType type, boolean declarations) {
+            this.type = type;
+            this.declarations = declarations;
+        }
+    }
+
+    /**
+     * The state of the check of a single source.
+     */
+    private class Check {
+
+        private final PlsqlTokenizer tokenizer;
+        private final Deque<Scope> scopes = new ArrayDeque<Scope>();
+        private final List<NamingViolation> violations = new ArrayList<NamingViolation>();
+        private boolean statementStart = true;
+
+        Check(PlsqlTokenizer tokenizer) {
+            this.tokenizer = tokenizer;
+        }
+
+        List<NamingViolation> run() throws IOException {
+            PlsqlTokenizer.Token token;
+
+            while ((token = tokenizer.next()) != null) {
+                if (token.is("/") && token.isFirstOnLine()) {
+                    // the end of a SQL*Plus command
+                    scopes.clear();
+                    statementStart = true;
+                } else if (token.is(";")) {
+                    statementStart = true;
+                } else if (token.is("create") && scopes.isEmpty()) {
+                    handleCreate();
+                } else if (token.is("declare")) {
+                    scopes.push(new Scope(ScopeType.BLOCK, true));
+                    statementStart = true;
+                } else if (token.is("begin")) {
+                    if (!scopes.isEmpty() && scopes.peek().declarations) {
+                        scopes.peek().declarations = false;
+                    } else {
+                        scopes.push(new Scope(ScopeType.BLOCK, false));
+                    }
+                    statementStart = true;
+                } else if (token.is("case")) {
+                    scopes.push(new Scope(ScopeType.CASE, false));
+                    statementStart = false;
+                } else if (token.is("end")) {
+                    handleEnd();
+                } else if (statementStart && !scopes.isEmpty() && scopes.peek().declarations && token.isIdentifier()) {
+                    handleDeclaration(token);
+                } else {
+                    statementStart = false;
+                }
+            }
+
+            return violations;
+        }
+
+        /**
+         * Handle a create statement: check the object name and enter the
+         * declaration section of packages and subprograms.
+         */
+        private void handleCreate() throws IOException {
+            PlsqlTokenizer.Token token = tokenizer.next();
+            PlsqlTokenizer.Token name;
+            String kind;
+
+            while (token != null && token.getType() == PlsqlTokenizer.TokenType.WORD && CREATE_MODIFIERS.contains(token.getText().toLowerCase())) {
+                token = tokenizer.next();
+            }
+            if (token == null || token.getType() != PlsqlTokenizer.TokenType.WORD) {
+                tokenizer.pushBack(token);
+                return;
+            }
+            kind = token.getText().toLowerCase();
+            if (kind.equals("package") || kind.equals("type") || kind.equals("materialized")) {
+                token = tokenizer.next();
+                if (token != null && (token.is("body") || token.is("view"))) {
+                    kind = kind + " " + token.getText().toLowerCase();
+                } else {
+                    tokenizer.pushBack(token);
+                }
+            }
+            name = nextName();
+            if (name == null) {
+                return;
+            }
+
+            if (kind.equals("package") || kind.equals("package body") || kind.equals("type body")) {
+                if (kind.equals("package")) {
+                    check("package", name);
+                }
+                enterPackage();
+            } else if (kind.equals("procedure") || kind.equals("function")) {
+                handleSubprogram(kind, name);
+            } else if (kind.equals("trigger")) {
+                // the trigger body is handled as an anonymous block
+                check("trigger", name);
+            } else {
+                if (kind.equals("type")) {
+                    check("objectType", name);
+                } else if (kind.equals("materialized view")) {
+                    check("materializedView", name);
+                } else if (KINDS.contains(kind)) {
+                    check(kind, name);
+                }
+                skipStatement();
+            }
+        }
+
+        /**
+         * Handle a declaration in a declaration section.
+         *
+         * @param first the first token of the declaration.
+         */
+        private void handleDeclaration(PlsqlTokenizer.Token first) throws IOException {
+            PlsqlTokenizer.Token token;
+            String word = first.getType() == PlsqlTokenizer.TokenType.WORD ? first.getText().toLowerCase() : "";
+
+            statementStart = false;
+            if (word.equals("procedure") || word.equals("function")) {
+                token = nextName();
+                if (token != null) {
+                    handleSubprogram(word, token);
+                }
+            } else if (word.equals("cursor")) {
+                token = nextName();
+                if (token != null) {
+                    check("cursor", token);
+                    token = tokenizer.next();
+                    if (token != null && token.is("(")) {
+                        checkParameters();
+                    } else {
+                        tokenizer.pushBack(token);
+                    }
+                }
+                skipStatement();
+            } else if (word.equals("type") || word.equals("subtype")) {
+                token = nextName();
+                if (token != null) {
+                    check("type", token);
+                }
+                skipStatement();
+            } else if (word.equals("pragma")) {
+                skipStatement();
+            } else if (METHOD_MODIFIERS.contains(word)) {
+                // the method declaration follows the modifiers
+                statementStart = true;
+            } else {
+                token = tokenizer.next();
+                if (token == null) {
+                    return;
+                } else if (token.is("constant")) {
+                    check("constant", first);
+                } else if (token.is("exception")) {
+                    check("exception", first);
+                } else {
+                    check(scopes.peek().type == ScopeType.PACKAGE ? "globalVariable" : "localVariable", first);
+                }
+                tokenizer.pushBack(token);
+                skipStatement();
+            }
+        }
+
+        /**
+         * Check the name and parameters of a procedure or function and enter
+         * its declaration section, unless it's only a declaration.
+         *
+         * @param kind procedure or function.
+         * @param name the name token.
+         */
+        private void handleSubprogram(String kind, PlsqlTokenizer.Token name) throws IOException {
+            PlsqlTokenizer.Token token;
+            int depth = 0;
+
+            check(kind, name);
+            token = tokenizer.next();
+            if (token != null && token.is("(")) {
+                checkParameters();
+                token = tokenizer.next();
+            }
+            while (token != null) {
+                if (token.is("(")) {
+                    depth++;
+                } else if (token.is(")")) {
+                    depth--;
+                } else if (token.is("/") && token.isFirstOnLine()) {
+                    tokenizer.pushBack(token);
+                    return;
+                } else if (depth == 0 && token.is(";")) {
+                    // a forward declaration or a package specification
+                    statementStart = true;
+                    return;
+                } else if (depth == 0 && (token.is("is") || token.is("as"))) {
+                    token = tokenizer.next();
+                    if (token != null && (token.is("language") || token.is("external"))) {
+                        skipStatement();
+                    } else {
+                        tokenizer.pushBack(token);
+                        scopes.push(new Scope(ScopeType.SUBPROGRAM, true));
+                        statementStart = true;
+                    }
+                    return;
+                }
+                token = tokenizer.next();
+            }
+        }
+
+        /**
+         * Check the parameter names of a parameter list, starting after the
+         * opening parenthesis.
+         */
+        private void checkParameters() throws IOException {
+            PlsqlTokenizer.Token token;
+            boolean expectName = true;
+            int depth = 1;
+
+            while (depth > 0 && (token = tokenizer.next()) != null) {
+                if (token.is("(")) {
+                    depth++;
+                } else if (token.is(")")) {
+                    depth--;
+                } else if (token.is("/") && token.isFirstOnLine()) {
+                    tokenizer.pushBack(token);
+                    return;
+                } else if (depth == 1 && token.is(",")) {
+                    expectName = true;
+                    continue;
+                } else if (depth == 1 && expectName && token.isIdentifier() && !token.is("self")) {
+                    check("parameter", token);
+                }
+                expectName = false;
+            }
+        }
+
+        /**
+         * Enter the declaration section of a package specification, package
+         * body or type body.
+         */
+        private void enterPackage() throws IOException {
+            PlsqlTokenizer.Token token;
+            int depth = 0;
+
+            while ((token = tokenizer.next()) != null) {
+                if (token.is("(")) {
+                    depth++;
+                } else if (token.is(")")) {
+                    depth--;
+                } else if (token.is("/") && token.isFirstOnLine()) {
+                    tokenizer.pushBack(token);
+                    return;
+                } else if (depth == 0 && (token.is("is") || token.is("as"))) {
+                    scopes.push(new Scope(ScopeType.PACKAGE, true));
+                    statementStart = true;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Handle the end keyword: the end of a block, unless it ends an if or
+         * loop statement.
+         */
+        private void handleEnd() throws IOException {
+            PlsqlTokenizer.Token token = tokenizer.next();
+
+            if (token != null && (token.is("if") || token.is("loop"))) {
+                return;
+            } else if (token == null || !token.is("case")) {
+                tokenizer.pushBack(token);
+            }
+            if (!scopes.isEmpty()) {
+                scopes.pop();
+            }
+            statementStart = false;
+        }
+
+        /**
+         * Skip the rest of the current statement.
+         */
+        private void skipStatement() throws IOException {
+            PlsqlTokenizer.Token token;
+            int depth = 0;
+
+            while ((token = tokenizer.next()) != null) {
+                if (token.is("(")) {
+                    depth++;
+                } else if (token.is(")")) {
+                    depth--;
+                } else if (token.is("/") && token.isFirstOnLine()) {
+                    tokenizer.pushBack(token);
+                    break;
+                } else if (depth <= 0 && token.is(";")) {
+                    break;
+                }
+            }
+            statementStart = true;
+        }
+
+        /**
+         * Read an object name, skipping the schema and an "if not exists"
+         * clause.
+         *
+         * @return the name token, or null if no name follows.
+         */
+        private PlsqlTokenizer.Token nextName() throws IOException {
+            PlsqlTokenizer.Token token = tokenizer.next();
+            PlsqlTokenizer.Token next;
+
+            if (token != null && token.is("if")) {
+                tokenizer.next();
+                tokenizer.next();
+                token = tokenizer.next();
+            }
+            if (token == null || !token.isIdentifier()) {
+                tokenizer.pushBack(token);
+                return null;
+            }
+            next = tokenizer.next();
+            if (next != null && next.is(".")) {
+                next = tokenizer.next();
+                if (next != null && next.isIdentifier()) {
+                    return next;
+                }
+            }
+            tokenizer.pushBack(next);
+
+            return token;
+        }
+
+        private void check(String kind, PlsqlTokenizer.Token name) {
+            Pattern convention = conventions.get(kind);
+
+            if (convention != null && !convention.matcher(name.getText()).matches()) {
+                violations.add(new NamingViolation(name.getLine(), kind, name.getText(), convention.pattern()));
+            }
+        }
+    }
+}
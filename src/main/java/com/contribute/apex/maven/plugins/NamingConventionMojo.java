@@ -0,0 +1,443 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Check the identifiers declared in PL/SQL and DDL source files against naming
+ * conventions, without a database connection. The source files are checked
+ * in parallel; files that didn't change since the last run are not checked
+ * again.
+ */
+@Mojo(name = "check-naming-conventions",
+defaultPhase = LifecyclePhase.VERIFY)
+public class NamingConventionMojo extends AbstractMojo {
+
+    /**
+     * The files in these directories and all their subdirectories are
+     * checked. It is possible to specify multiple directories.
+     */
+    @Parameter(property = "check-naming-conventions.inputSourceDirectories",
+    required = true)
+    private List<File> inputSourceDirectories;
+    /**
+     * Excludes a subdirectory from being scanned. You can specify it multiple
+     * times to exclude multiple subdirectories.
+     */
+    @Parameter(property = "check-naming-conventions.excludedSubdirectories")
+    private List<File> excludedSubdirectories;
+    /**
+     * The extensions of the source files to check. Defaults to sql, pks, pkb,
+     * pls, plb, pck, trg, vw, fnc, prc, tps and tpb.
+     */
+    @Parameter
+    private List<String> fileExtensions;
+    /**
+     * The naming conventions: a regular expression per kind of identifier,
+     * matched case insensitively against the whole name, e.g.:
+     *
+     * <pre>
+     * &lt;conventions&gt;
+     *   &lt;parameter&gt;(in|out|io)_.+&lt;/parameter&gt;
+     *   &lt;view&gt;.+_v&lt;/view&gt;
+     *   &lt;cursor&gt;&lt;/cursor&gt;
+     * &lt;/conventions&gt;
+     * </pre>
+     *
+     * The kinds are parameter (p_.+), localVariable (l_.+), globalVariable
+     * (g_.+), constant ((g|l)?c_.+), cursor ((c|cur)_.+), exception (e_.+),
+     * type ((t|r|tt)_.+), package, procedure, function, trigger, objectType,
+     * table, view, materializedView, sequence, synonym and index. Kinds
+     * without a default aren't checked unless configured; an empty element
+     * disables the check of a kind.
+     */
+    @Parameter
+    private Map<String, String> conventions;
+    /**
+     * The file in which the results are cached per source file. A file is
+     * only checked again when its contents or the conventions changed.
+     */
+    @Parameter(property = "check-naming-conventions.cacheFile",
+    defaultValue = "${project.build.directory}/orclapex-naming-conventions.cache")
+    private File cacheFile;
+    /**
+     * The number of threads that check the source files. Use 0 for the number
+     * of available processors.
+     */
+    @Parameter(property = "check-naming-conventions.parallelism",
+    defaultValue = "0")
+    private int parallelism;
+    /**
+     * The folder in which the violations are reported as
+     * naming-violations.json and naming-violations.csv.
+     */
+    @Parameter(property = "check-naming-conventions.reportDirectory",
+    defaultValue = "${project.build.directory}/orclapex-naming-conventions")
+    private File reportDirectory;
+    /**
+     * Fail the build when a naming violation is found.
+     */
+    @Parameter(property = "check-naming-conventions.failOnViolation",
+    defaultValue = "false")
+    private boolean failOnViolation;
+    /**
+     * The project base directory. The source files are reported and cached by
+     * their path relative to it.
+     */
+    @Parameter(defaultValue = "${project.basedir}",
+    readonly = true)
+    private File basedir;
+    private final List<String> defaultFileExtensions = Arrays.asList("sql", "pks", "pkb", "pls", "plb", "pck", "trg", "vw", "fnc", "prc", "tps", "tpb");
+    private final int filesPerTask = 16;
+
+    /**
+     * The method called by Maven when the 'check-naming-conventions' goal gets
+     * executed.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        List<File> sourceFiles = new ArrayList<File>();
+        List<String> paths = new ArrayList<String>();
+        NamingConventionChecker checker;
+        Map<String, NamingCheckResult> cache;
+        Map<String, NamingCheckResult> results = new ConcurrentHashMap<String, NamingCheckResult>();
+        Map<String, List<NamingViolation>> violations = new TreeMap<String, List<NamingViolation>>();
+        ForkJoinPool pool;
+        long startTime = System.currentTimeMillis();
+        int checkedFiles;
+        int violationCount = 0;
+
+        validateParameters();
+        try {
+            checker = new NamingConventionChecker(conventions);
+        } catch (IllegalArgumentException ex) {
+            throw new MojoExecutionException(ex.getMessage(), ex);
+        }
+        for (File inputSourceDirectory : inputSourceDirectories) {
+            collectSourceFiles(inputSourceDirectory, getPathPrefix(inputSourceDirectory), sourceFiles, paths);
+        }
+        cache = readCache(checker.getSignature());
+
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+        try {
+            checkedFiles = pool.invoke(new CheckTask(sourceFiles, paths, 0, sourceFiles.size(), checker, cache, results));
+        } catch (RuntimeException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw new MojoExecutionException("Unable to check the naming conventions: " + ex.getCause().getMessage(), ex.getCause());
+            }
+            throw ex;
+        } finally {
+            pool.shutdown();
+        }
+        writeCache(checker.getSignature(), results);
+
+        for (Map.Entry<String, NamingCheckResult> result : results.entrySet()) {
+            if (!result.getValue().getViolations().isEmpty()) {
+                violations.put(result.getKey(), result.getValue().getViolations());
+                violationCount += result.getValue().getViolations().size();
+            }
+        }
+        for (Map.Entry<String, List<NamingViolation>> fileViolations : violations.entrySet()) {
+            for (NamingViolation violation : fileViolations.getValue()) {
+                getLog().warn(fileViolations.getKey() + ":" + violation.getLine() + ": " + violation.getKind() + " " + violation.getName()
+                        + " doesn't match " + violation.getConvention());
+            }
+        }
+        writeReport(violations, sourceFiles.size());
+
+        getLog().info("Checked the naming conventions of " + sourceFiles.size() + " source file(s), " + checkedFiles + " scanned, in "
+                + (System.currentTimeMillis() - startTime) + " ms: " + violationCount + " violation(s)");
+        if (failOnViolation && violationCount > 0) {
+            throw new MojoFailureException(violationCount + " naming convention violation(s) found. See " + reportDirectory.getAbsolutePath()
+                    + " for details.");
+        }
+    }
+
+    /**
+     * Checks a range of source files, splitting the range over the fork-join
+     * pool. Files with the same size and modification time or the same digest
+     * as in the cache are not checked again.
+     */
+    private class CheckTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+        private final List<File> sourceFiles;
+        private final List<String> paths;
+        private final int from;
+        private final int to;
+        private final NamingConventionChecker checker;
+        private final Map<String, NamingCheckResult> cache;
+        private final Map<String, NamingCheckResult> results;
+
+        CheckTask(List<File> sourceFiles, List<String> paths, int from, int to, NamingConventionChecker checker, Map<String, NamingCheckResult> cache,
+                Map<String, NamingCheckResult> results) {
+            this.sourceFiles = sourceFiles;
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+            this.checker = checker;
+            this.cache = cache;
+            this.results = results;
+        }
+
+        @Override
+        protected Integer compute() {
+            int checkedFiles = 0;
+
+            if (to - from > filesPerTask) {
+                int middle = (from + to) >>> 1;
+                CheckTask left = new CheckTask(sourceFiles, paths, from, middle, checker, cache, results);
+                left.fork();
+                return new CheckTask(sourceFiles, paths, middle, to, checker, cache, results).compute() + left.join();
+            }
+
+            for (int i = from; i < to; i++) {
+                File sourceFile = sourceFiles.get(i);
+                NamingCheckResult result = cache.get(paths.get(i));
+                try {
+                    if (result == null || result.getLength() != sourceFile.length() || result.getLastModified() != sourceFile.lastModified()) {
+                        String digest = ImportState.computeFileDigest(sourceFile);
+                        if (result != null && digest.equals(result.getDigest())) {
+                            result = new NamingCheckResult(sourceFile.length(), sourceFile.lastModified(), digest, result.getViolations());
+                        } else {
+                            result = checkFile(sourceFile);
+                            checkedFiles++;
+                        }
+                    }
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                results.put(paths.get(i), result);
+            }
+
+            return checkedFiles;
+        }
+
+        /**
+         * Check a file, computing its digest while it's read.
+         */
+        private NamingCheckResult checkFile(File sourceFile) throws IOException {
+            MessageDigest digest = ImportState.getSha256();
+            long length = sourceFile.length();
+            long lastModified = sourceFile.lastModified();
+            InputStream input = new DigestInputStream(new FileInputStream(sourceFile), digest);
+            List<NamingViolation> violations;
+
+            try {
+                violations = checker.check(new BufferedReader(new InputStreamReader(input, "UTF-8")));
+                // consume the rest of the file for the digest
+                while (input.read() != -1) {
+                    continue;
+                }
+            } finally {
+                input.close();
+            }
+
+            return new NamingCheckResult(length, lastModified, ImportState.toHex(digest.digest()), violations);
+        }
+    }
+
+    /**
+     * Collect the source files in a directory and its subdirectories.
+     *
+     * @param directory the directory.
+     * @param pathPrefix the path of the directory used in the report.
+     * @param sourceFiles the list the source files are added to.
+     * @param paths the list the report paths of the source files are added to.
+     */
+    /**
+     * @param directory an input source directory.
+     * @return the path of the directory relative to the project base
+     * directory, or its absolute path if it's outside the project, followed by
+     * a slash. Directories with the same name don't share report and cache
+     * entries.
+     */
+    private String getPathPrefix(File directory) {
+        Path path = directory.toPath().toAbsolutePath().normalize();
+        Path basePath = basedir == null ? null : basedir.toPath().toAbsolutePath().normalize();
+
+        if (basePath != null && path.startsWith(basePath)) {
+            path = basePath.relativize(path);
+        }
+        return path.toString().isEmpty() ? "" : path.toString().replace('\\', '/') + "/";
+    }
+
+    private void collectSourceFiles(File directory, String pathPrefix, List<File> sourceFiles, List<String> paths) {
+        File[] files = directory.listFiles();
+        List<String> extensions = fileExtensions == null || fileExtensions.isEmpty() ? defaultFileExtensions : fileExtensions;
+
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                if (!isExcluded(file)) {
+                    collectSourceFiles(file, pathPrefix + name + "/", sourceFiles, paths);
+                }
+            } else if (name.contains(".") && extensions.contains(name.substring(name.lastIndexOf('.') + 1).toLowerCase())) {
+                sourceFiles.add(file);
+                paths.add(pathPrefix + name);
+            }
+        }
+    }
+
+    private boolean isExcluded(File directory) {
+        if (excludedSubdirectories == null) {
+            return false;
+        }
+        for (File excludedSubdirectory : excludedSubdirectories) {
+            if (excludedSubdirectory.getAbsoluteFile().equals(directory.getAbsoluteFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read the result cache of the last run. The cache is discarded when it
+     * can't be read or when it was written with other conventions.
+     *
+     * @param signature the active conventions.
+     * @return the cached results per source file path.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, NamingCheckResult> readCache(String signature) {
+        ObjectInputStream input;
+
+        if (!cacheFile.isFile()) {
+            return new HashMap<String, NamingCheckResult>();
+        }
+        try {
+            input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (input.readUTF().equals(signature)) {
+                    return (Map<String, NamingCheckResult>) input.readObject();
+                }
+                getLog().debug("Result cache written with other conventions, checking all source files");
+            } finally {
+                input.close();
+            }
+        } catch (Exception ex) {
+            getLog().debug("Unable to read the result cache, checking all source files: " + ex.getMessage());
+        }
+
+        return new HashMap<String, NamingCheckResult>();
+    }
+
+    /**
+     * Write the result cache for the next run.
+     *
+     * @param signature the active conventions.
+     * @param results the results per source file path.
+     */
+    private void writeCache(String signature, Map<String, NamingCheckResult> results) {
+        ObjectOutputStream output;
+
+        cacheFile.getAbsoluteFile().getParentFile().mkdirs();
+        try {
+            output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+            try {
+                output.writeUTF(signature);
+                output.writeObject(new HashMap<String, NamingCheckResult>(results));
+            } finally {
+                output.close();
+            }
+        } catch (IOException ex) {
+            getLog().warn("Unable to write the result cache: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Write the violations as naming-violations.json and
+     * naming-violations.csv to the report directory.
+     *
+     * @param violations the violations per source file path.
+     * @param fileCount the number of checked source files.
+     */
+    private void writeReport(Map<String, List<NamingViolation>> violations, int fileCount) throws MojoExecutionException {
+        Writer writer;
+        String separator = "\n";
+
+        reportDirectory.mkdirs();
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(reportDirectory, "naming-violations.json")), "UTF-8"));
+            try {
+                writer.write("{\n  \"files\": " + fileCount + ",\n  \"violations\": [");
+                for (Map.Entry<String, List<NamingViolation>> fileViolations : violations.entrySet()) {
+                    for (NamingViolation violation : fileViolations.getValue()) {
+                        writer.write(separator + "    {\"file\": " + ImportTimings.toJsonString(fileViolations.getKey()) + ", \"line\": " + violation.getLine()
+                                + ", \"kind\": " + ImportTimings.toJsonString(violation.getKind()) + ", \"name\": " + ImportTimings.toJsonString(violation.getName())
+                                + ", \"convention\": " + ImportTimings.toJsonString(violation.getConvention()) + "}");
+                        separator = ",\n";
+                    }
+                }
+                writer.write(violations.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+            } finally {
+                writer.close();
+            }
+
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(reportDirectory, "naming-violations.csv")), "UTF-8"));
+            try {
+                writer.write("file,line,kind,name,convention\n");
+                for (Map.Entry<String, List<NamingViolation>> fileViolations : violations.entrySet()) {
+                    for (NamingViolation violation : fileViolations.getValue()) {
+                        writer.write(ImportTimings.toCsvString(fileViolations.getKey()) + "," + violation.getLine() + "," + violation.getKind() + "," + ImportTimings.toCsvString(violation.getName())
+                                + "," + ImportTimings.toCsvString(violation.getConvention()) + "\n");
+                    }
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to write the naming violations report to " + reportDirectory.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Validate the entered configuration parameters.
+     */
+    private void validateParameters() throws MojoExecutionException {
+        for (int i = 0; i < inputSourceDirectories.size(); i++) {
+            if (!inputSourceDirectories.get(i).isDirectory()) {
+                throw new MojoExecutionException("The specified inputSourceDirectory is not a folder: " + inputSourceDirectories.get(i).getAbsolutePath());
+            }
+        }
+        for (int i = 0; excludedSubdirectories != null && i < excludedSubdirectories.size(); i++) {
+            if (!excludedSubdirectories.get(i).isDirectory()) {
+                throw new MojoExecutionException("The specified excludedSubdirectory is not a folder: " + excludedSubdirectories.get(i).getAbsolutePath());
+            }
+        }
+    }
+}
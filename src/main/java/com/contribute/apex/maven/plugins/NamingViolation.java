@@ -0,0 +1,46 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.Serializable;
+
+/**
+ * An identifier that doesn't follow the naming convention of its kind.
+ * Instances are kept in the result cache of the 'check-naming-conventions'
+ * goal.
+ */
+public class NamingViolation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final int line;
+    private final String kind;
+    private final String name;
+    private final String convention;
+
+    /**
+     * @param line the line of the identifier in the source file.
+     * @param kind the kind of identifier, e.g. parameter or table.
+     * @param name the identifier.
+     * @param convention the regular expression the identifier should match.
+     */
+    public NamingViolation(int line, String kind, String name, String convention) {
+        this.line = line;
+        this.kind = kind;
+        this.name = name;
+        this.convention = convention;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getConvention() {
+        return convention;
+    }
+}
@@ -1,11 +1,27 @@
 package com.contribute.apex.maven.plugins;
 
-import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -95,6 +111,128 @@ public class NaturalDocsMojo extends AbstractMojo {
      */
     @Parameter(property = "run-natural-docs.quiet")
     private boolean quiet;
+    /**
+     * The maximum number of seconds Natural Docs may run. The process is
+     * terminated when the timeout expires. Use 0 for no limit.
+     */
+    @Parameter(property = "run-natural-docs.timeout",
+    defaultValue = "0")
+    private int timeout;
+    /**
+     * The maximum number of seconds Natural Docs may run without writing any
+     * output. The process is terminated when the timeout expires. Use 0 for no
+     * limit.
+     */
+    @Parameter(property = "run-natural-docs.inactivityTimeout",
+    defaultValue = "0")
+    private int inactivityTimeout;
+    /**
+     * Skip the Natural Docs run when the input source directories, the project
+     * configuration files and the parameters are unchanged since the last
+     * successful run. Files are compared by path, size and modification time.
+     * The fingerprint of the last run is recorded in the projectDirectory.
+     */
+    @Parameter(property = "run-natural-docs.incremental",
+    defaultValue = "false")
+    private boolean incremental;
+    /**
+     * Run Natural Docs even if the incremental mode detects no changes. The
+     * rebuild and rebuildOutput parameters force a run as well.
+     */
+    @Parameter(property = "run-natural-docs.force",
+    defaultValue = "false")
+    private boolean force;
+
+    /**
+     * Run one Natural Docs process per shard concurrently instead of a single
+     * process for all input source directories. Every shard generates its
+     * documentation in a subdirectory of the outputDirectory, with its own
+     * project data in a subdirectory of the projectDirectory; the Topics.txt
+     * and Languages.txt files of the projectDirectory are shared. The shards
+     * are not merged: Natural Docs 1.x can't combine the data of separate
+     * projects, so every shard keeps its own menu and index, and an
+     * index.html page in the outputDirectory only links to them.
+     */
+    @Parameter(property = "run-natural-docs.sharded",
+    defaultValue = "false")
+    private boolean sharded;
+    /**
+     * The groups of input source directories documented by a single process in
+     * the sharded mode. Each shard accepts the id and inputSourceDirectories
+     * parameters. Defaults to one shard per input source directory.
+     */
+    @Parameter
+    private List<Shard> shards;
+    /**
+     * The maximum number of Natural Docs processes run concurrently in the
+     * sharded mode.
+     */
+    @Parameter(property = "run-natural-docs.parallelProcesses",
+    defaultValue = "4")
+    private int parallelProcesses;
+    /**
+     * Minify the generated HTML, CSS and JavaScript files. Comments and
+     * redundant whitespace are removed; only files that changed since the last
+     * run are processed.
+     */
+    @Parameter(property = "run-natural-docs.minifyOutput",
+    defaultValue = "false")
+    private boolean minifyOutput;
+    /**
+     * Write a gzip compressed .gz file next to every generated text file, for
+     * web servers that serve precompressed files. Only files that changed
+     * since the last run are compressed.
+     */
+    @Parameter(property = "run-natural-docs.precompressOutput",
+    defaultValue = "false")
+    private boolean precompressOutput;
+    /**
+     * The number of files minified and compressed concurrently. Use 0 for the
+     * number of available processors.
+     */
+    @Parameter(property = "run-natural-docs.postProcessingThreads",
+    defaultValue = "0")
+    private int postProcessingThreads;
+    /**
+     * Write the full Natural Docs output to gzip compressed files in the
+     * outputLogDirectory, and only log errors, warnings and a periodic
+     * progress summary.
+     */
+    @Parameter(property = "run-natural-docs.outputLog",
+    defaultValue = "false")
+    private boolean outputLog;
+    /**
+     * The folder in which the output files are written.
+     */
+    @Parameter(property = "run-natural-docs.outputLogDirectory",
+    defaultValue = "${project.build.directory}/orclapex-output")
+    private File outputLogDirectory;
+    /**
+     * The uncompressed size in MB after which the next output file is
+     * started.
+     */
+    @Parameter(property = "run-natural-docs.outputLogMaxSize",
+    defaultValue = "100")
+    private int outputLogMaxSize;
+    /**
+     * The maximum number of output files kept in the outputLogDirectory,
+     * including those of earlier builds: the oldest files are removed when a
+     * new file is started. Use 0 to keep all files.
+     */
+    @Parameter(property = "run-natural-docs.outputLogMaxFiles",
+    defaultValue = "10")
+    private int outputLogMaxFiles;
+    /**
+     * The number of seconds between two progress summaries when outputLog is
+     * enabled. Use 0 to disable the progress summaries.
+     */
+    @Parameter(property = "run-natural-docs.progressInterval",
+    defaultValue = "10")
+    private int progressInterval;
+    private OutputLogSink outputLogSink;
+    private final String fingerprintFileName = "orclapex-natural-docs.fingerprint";
+    private final String shardProjectDirectoryName = "shards";
+    private final List<String> sharedConfigurationFileNames = Arrays.asList("Topics.txt", "Languages.txt");
     // unsupported optional parameters:
     //   --images / --style / --tab-length / --highlight
 
@@ -104,16 +242,117 @@ public class NaturalDocsMojo extends AbstractMojo {
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        validateParameters();
+
+        if (outputLog) {
+            outputLogSink = new OutputLogSink(outputLogDirectory, "natural-docs", outputLogMaxSize * 1024L * 1024L, outputLogMaxFiles,
+                    progressInterval * 1000L, null, null, getLog());
+        }
+        try {
+            if (sharded) {
+                runShards();
+            } else {
+                runNaturalDocs(inputSourceDirectories, outputDirectory, projectDirectory, "");
+            }
+        } finally {
+            if (outputLogSink != null) {
+                outputLogSink.close();
+            }
+        }
+        postProcessOutput();
+    }
+
+    /**
+     * Run Natural Docs for a set of input source directories, unless the
+     * incremental mode finds them unchanged.
+     *
+     * @param inputDirectories the input source directories.
+     * @param outputDir the output directory.
+     * @param projectDir the project directory.
+     * @param logPrefix the prefix for every logged line.
+     */
+    private void runNaturalDocs(List<File> inputDirectories, File outputDir, File projectDir, String logPrefix) throws MojoExecutionException {
         ProcessBuilder processBuilder;
-        Process process;
-        List<String> commandLineArguments = new ArrayList<String>();
-        String output;
+        Process process = null;
+        ProcessOutputPump outputPump;
+        int exitValue;
+        List<String> commandLineArguments = getCommandLineArguments(inputDirectories, outputDir, projectDir);
+        String commandToExecute = "";
+        String fingerprint = null;
+        File fingerprintFile = new File(projectDir, fingerprintFileName);
+
+        if (incremental) {
+            fingerprint = getFingerprint(inputDirectories, outputDir, projectDir);
+            try {
+                if (force || rebuild || rebuildOutput) {
+                    getLog().info(logPrefix + "Running Natural Docs: run forced" + (force ? "" : " by " + (rebuild ? "rebuild" : "rebuildOutput")));
+                } else if (fingerprint.equals(Fingerprint.read(fingerprintFile)) && hasOutput(outputDir)) {
+                    getLog().info(logPrefix + "Skipping Natural Docs: input files and configuration unchanged since the last successful run");
+                    return;
+                }
+            } catch (IOException ex) {
+                getLog().warn(logPrefix + "Unable to read the fingerprint file: " + ex.getMessage());
+            }
+            // a failed run must not leave the fingerprint of an earlier run behind
+            fingerprintFile.delete();
+        }
 
+        for (int i = 0; i < commandLineArguments.size(); i++) {
+            commandToExecute += commandLineArguments.get(i).toString() + " ";
+        }
+        getLog().debug(logPrefix + "Executing Natural Docs: " + commandToExecute);
+
+        processBuilder = new ProcessBuilder(commandLineArguments);
+        processBuilder.directory(naturalDocsHome);
+        processBuilder.redirectErrorStream(true);
+
+        try {
+            process = processBuilder.start();
+
+            outputPump = new ProcessOutputPump(process, outputLogSink != null ? outputLogSink : getLog(), logPrefix, false);
+            // Perl writes its output in the platform charset
+            outputPump.setCharset(Charset.defaultCharset().name());
+            outputPump.start();
+            exitValue = outputPump.waitFor(timeout * 1000L, inactivityTimeout * 1000L);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("An unexpected error occurred while executing Natural Docs", ex);
+        } catch (InterruptedException ex) {
+            if (process != null) {
+                process.destroy();
+            }
+            throw new MojoExecutionException("An unexpected error occurred while executing Natural Docs", ex);
+        }
+
+        if (outputPump.getAbortReason() != null) {
+            throw new MojoExecutionException("Natural Docs process terminated: " + outputPump.getAbortReason());
+        }
+        getLog().debug(logPrefix + "Natural Docs process exit value: " + exitValue);
+        if (exitValue != 0) {
+            throw new MojoExecutionException("Natural Docs process returned an error code (" + exitValue + ")");
+        }
+
+        if (fingerprint != null) {
+            try {
+                // Natural Docs updates Menu.txt in the project directory, so fingerprint again
+                Fingerprint.write(fingerprintFile, getFingerprint(inputDirectories, outputDir, projectDir));
+            } catch (IOException ex) {
+                getLog().warn(logPrefix + "Unable to write the fingerprint file: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Put together the Natural Docs command line.
+     *
+     * @param inputDirectories the input source directories.
+     * @param outputDir the output directory.
+     * @param projectDir the project directory.
+     * @return the command line arguments.
+     */
+    private List<String> getCommandLineArguments(List<File> inputDirectories, File outputDir, File projectDir) {
+        List<String> commandLineArguments = new ArrayList<String>();
         String perlExecutable = "perl";
         String NaturalDocsExecutable = "NaturalDocs";
-        String commandToExecute = "";
-
-        validateParameters();
 
         if (System.getProperty("os.name").toLowerCase().startsWith("win")) {
             perlExecutable += ".exe";
@@ -123,15 +362,15 @@ public class NaturalDocsMojo extends AbstractMojo {
         commandLineArguments.add(NaturalDocsExecutable);
 
         // required parameters
-        for (int i = 0; i < inputSourceDirectories.size(); i++) {
+        for (int i = 0; i < inputDirectories.size(); i++) {
             commandLineArguments.add("-i");
-            commandLineArguments.add(inputSourceDirectories.get(i).getPath());
+            commandLineArguments.add(inputDirectories.get(i).getPath());
         }
         commandLineArguments.add("-o");
         commandLineArguments.add(outputFormat);
-        commandLineArguments.add(outputDirectory.getPath());
+        commandLineArguments.add(outputDir.getPath());
         commandLineArguments.add("-p");
-        commandLineArguments.add(projectDirectory.getPath());
+        commandLineArguments.add(projectDir.getPath());
 
         // optional parameters
         if (excludedSubdirectories != null) {
@@ -159,31 +398,223 @@ public class NaturalDocsMojo extends AbstractMojo {
             commandLineArguments.add("-q");
         }
 
-        for (int i = 0; i < commandLineArguments.size(); i++) {
-            commandToExecute += commandLineArguments.get(i).toString() + " ";
+        return commandLineArguments;
+    }
+
+    /**
+     * Run a Natural Docs process per shard, at most parallelProcesses at a
+     * time, and write the index page linking the shards.
+     */
+    private void runShards() throws MojoExecutionException {
+        List<Shard> shardsToRun = getShards();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelProcesses, shardsToRun.size())));
+        Map<Shard, Future<Void>> futures = new LinkedHashMap<Shard, Future<Void>>();
+        List<String> failedShards = new ArrayList<String>();
+
+        getLog().info("Running " + shardsToRun.size() + " Natural Docs shard(s) using " + Math.min(parallelProcesses, shardsToRun.size()) + " concurrent process(es)");
+        try {
+            for (final Shard shard : shardsToRun) {
+                futures.put(shard, executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws MojoExecutionException {
+                        runShard(shard);
+                        return null;
+                    }
+                }));
+            }
+            for (Map.Entry<Shard, Future<Void>> future : futures.entrySet()) {
+                try {
+                    future.getValue().get();
+                } catch (ExecutionException ex) {
+                    getLog().error("[" + future.getKey().getId() + "] " + ex.getCause().getMessage());
+                    failedShards.add(future.getKey().getId());
+                }
+            }
+        } catch (InterruptedException ex) {
+            throw new MojoExecutionException("Interrupted while waiting for the Natural Docs shards", ex);
+        } finally {
+            executor.shutdownNow();
         }
-        getLog().debug("Executing Natural Docs: " + commandToExecute);
 
-        processBuilder = new ProcessBuilder(commandLineArguments);
-        processBuilder.directory(naturalDocsHome);
-        processBuilder.redirectErrorStream(true);
+        try {
+            writeShardIndex(shardsToRun);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to write the index page of the shards", ex);
+        }
+        if (!failedShards.isEmpty()) {
+            throw new MojoExecutionException(failedShards.size() + " of " + shardsToRun.size() + " Natural Docs shard(s) failed: " + failedShards);
+        }
+    }
 
+    /**
+     * Run Natural Docs for a single shard in its own output and project
+     * subdirectories.
+     *
+     * @param shard the shard.
+     */
+    private void runShard(Shard shard) throws MojoExecutionException {
+        File shardOutputDirectory = new File(outputDirectory, shard.getId());
+        File shardProjectDirectory = new File(new File(projectDirectory, shardProjectDirectoryName), shard.getId());
+
+        shardOutputDirectory.mkdirs();
+        shardProjectDirectory.mkdirs();
         try {
-            process = processBuilder.start();
+            for (String fileName : sharedConfigurationFileNames) {
+                File configurationFile = new File(projectDirectory, fileName);
+                File shardConfigurationFile = new File(shardProjectDirectory, fileName);
+                if (configurationFile.isFile() && configurationFile.lastModified() != shardConfigurationFile.lastModified()) {
+                    copyFile(configurationFile, shardConfigurationFile);
+                }
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to copy the project configuration to " + shardProjectDirectory.getAbsolutePath(), ex);
+        }
+
+        runNaturalDocs(shard.getInputSourceDirectories(), shardOutputDirectory, shardProjectDirectory, "[" + shard.getId() + "] ");
+    }
 
-            BufferedReader stdInput = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            while ((output = stdInput.readLine()) != null) {
-                getLog().info(output);
+    /**
+     * Collect the shards to run. Without a shards configuration every input
+     * source directory is a shard, named after the directory.
+     *
+     * @return the shards.
+     * @throws MojoExecutionException if a shard is invalid.
+     */
+    private List<Shard> getShards() throws MojoExecutionException {
+        List<Shard> shardsToRun = new ArrayList<Shard>();
+        Set<String> ids = new HashSet<String>();
+
+        if (shards != null && !shards.isEmpty()) {
+            shardsToRun.addAll(shards);
+        } else {
+            for (File inputSourceDirectory : inputSourceDirectories) {
+                Shard shard = new Shard();
+                String id = inputSourceDirectory.getAbsoluteFile().getName();
+                for (int i = 2; ids.contains(id); i++) {
+                    id = inputSourceDirectory.getAbsoluteFile().getName() + "-" + i;
+                }
+                ids.add(id);
+                shard.setId(id);
+                shard.setInputSourceDirectories(Collections.singletonList(inputSourceDirectory));
+                shardsToRun.add(shard);
             }
-            stdInput.close();
+            return shardsToRun;
+        }
 
-            BufferedReader stdError = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            while ((output = stdError.readLine()) != null) {
-                getLog().info(output);
+        for (Shard shard : shardsToRun) {
+            if (shard.getId() == null || shard.getInputSourceDirectories() == null || shard.getInputSourceDirectories().isEmpty()) {
+                throw new MojoExecutionException("Every shard requires an id and at least one inputSourceDirectory");
+            } else if (!ids.add(shard.getId())) {
+                throw new MojoExecutionException("Duplicate shard id: " + shard.getId());
             }
-            stdError.close();
+            for (File inputSourceDirectory : shard.getInputSourceDirectories()) {
+                if (!inputSourceDirectory.isDirectory()) {
+                    throw new MojoExecutionException("The specified inputSourceDirectory of shard " + shard.getId() + " is not a folder: " + inputSourceDirectory.getAbsolutePath());
+                }
+            }
+        }
+
+        return shardsToRun;
+    }
+
+    /**
+     * Write the index.html page in the output directory with a list of links
+     * to the documentation and the general index of every shard. The menus
+     * and indexes of the shards are not merged.
+     *
+     * @param shardsToRun the shards.
+     * @throws IOException if the page can't be written.
+     */
+    private void writeShardIndex(List<Shard> shardsToRun) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(new File(outputDirectory, "index.html")), "UTF-8");
+
+        try {
+            writer.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>Documentation</title>\n</head>\n<body>\n");
+            writer.write("<h1>Documentation</h1>\n<ul>\n");
+            for (Shard shard : shardsToRun) {
+                String id = escapeHtml(shard.getId());
+                writer.write("<li><a href=\"" + id + "/index.html\">" + id + "</a> (<a href=\"" + id + "/index/General.html\">index</a>)</li>\n");
+            }
+            writer.write("</ul>\n</body>\n</html>\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static void copyFile(File source, File destination) throws IOException {
+        InputStream input = new FileInputStream(source);
+        OutputStream output;
+        byte[] buffer = new byte[8192];
+        int length;
+
+        try {
+            output = new FileOutputStream(destination);
+            try {
+                while ((length = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, length);
+                }
+            } finally {
+                output.close();
+            }
+        } finally {
+            input.close();
+        }
+        destination.setLastModified(source.lastModified());
+    }
+
+    /**
+     * Fingerprint everything that influences the generated documentation: the
+     * input source directories without the excluded subdirectories, the
+     * configuration files in the project directory and the parameters.
+     *
+     * @param inputDirectories the input source directories.
+     * @param outputDir the output directory.
+     * @param projectDir the project directory.
+     * @return the fingerprint.
+     */
+    private String getFingerprint(List<File> inputDirectories, File outputDir, File projectDir) {
+        Fingerprint fingerprint = new Fingerprint();
+
+        fingerprint.add("outputFormat", outputFormat.toLowerCase());
+        fingerprint.add("outputDirectory", outputDir.getAbsolutePath());
+        fingerprint.add("documentedOnly", documentedOnly);
+        fingerprint.add("onlyFileTitles", onlyFileTitles);
+        fingerprint.add("noAutoGroup", noAutoGroup);
+        for (File inputSourceDirectory : inputDirectories) {
+            fingerprint.addDirectory(inputSourceDirectory, excludedSubdirectories);
+        }
+        // Menu.txt, Topics.txt and Languages.txt; the Data subdirectory changes on every run
+        fingerprint.addFiles(projectDir, fingerprintFileName);
+
+        return fingerprint.getValue();
+    }
+
+    /**
+     * @param outputDir the output directory.
+     * @return true if the output directory contains generated files.
+     */
+    private boolean hasOutput(File outputDir) {
+        String[] outputFiles = outputDir.list();
+
+        return outputFiles != null && outputFiles.length > 0;
+    }
+
+    /**
+     * Minify and precompress the generated documentation, if enabled.
+     */
+    private void postProcessOutput() throws MojoExecutionException {
+        if (!minifyOutput && !precompressOutput) {
+            return;
+        }
+        try {
+            new DocPostProcessor(outputDirectory, minifyOutput, precompressOutput,
+                    postProcessingThreads > 0 ? postProcessingThreads : Runtime.getRuntime().availableProcessors(), getLog()).process();
         } catch (IOException ex) {
-            throw new MojoExecutionException("An unexpected error occurred while executing Natural Docs", ex);
+            throw new MojoExecutionException("Unable to post-process the documentation: " + ex.getMessage(), ex);
         }
     }
 
@@ -208,7 +639,7 @@ public class NaturalDocsMojo extends AbstractMojo {
         if (!projectDirectory.isDirectory()) {
             throw new MojoExecutionException("The specified projectDirectory is not a folder: " + projectDirectory.getAbsolutePath());
         }
-        for (int i = 0; i < excludedSubdirectories.size(); i++) {
+        for (int i = 0; excludedSubdirectories != null && i < excludedSubdirectories.size(); i++) {
             if (!excludedSubdirectories.get(i).isDirectory()) {
                 throw new MojoExecutionException("The specified excludedSubdirectory is not a folder: " + excludedSubdirectories.get(i).getAbsolutePath());
             }
@@ -0,0 +1,56 @@
+package com.contribute.apex.maven.plugins;
+
+import java.util.Map;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * The Oracle client environment of the SQL*Plus processes started by the
+ * goals of this plugin.
+ * http://docs.oracle.com/cd/B28359_01/server.111/b31189/ch2.htm
+ */
+public class OracleEnvironment {
+
+    private final String oracleHome;
+    private final String tnsAdmin;
+    private final String libraryPath;
+
+    /**
+     * @param oracleHome the ORACLE_HOME of the Oracle client, or null.
+     * @param tnsAdmin the directory containing tnsnames.ora, or null.
+     * @param libraryPath the directory containing the Oracle client libraries,
+     * or null.
+     */
+    public OracleEnvironment(String oracleHome, String tnsAdmin, String libraryPath) {
+        this.oracleHome = oracleHome;
+        this.tnsAdmin = tnsAdmin;
+        this.libraryPath = libraryPath;
+    }
+
+    /**
+     * Set Oracle specific environment variables to successfully execute
+     * SQL*Plus.
+     *
+     * @param environment a copy of the current process environment variables.
+     * @param log the Maven log, used to print the environment at debug level.
+     */
+    public void apply(Map environment, Log log) {
+        if (oracleHome != null) {
+            environment.put("ORACLE_HOME", oracleHome);
+        }
+        if (tnsAdmin != null) {
+            environment.put("TNS_ADMIN", tnsAdmin);
+        }
+        if (libraryPath != null) {
+            environment.put("LD_LIBRARY_PATH", libraryPath);
+            environment.put("DYLD_LIBRARY_PATH", libraryPath);
+            environment.put("LIBPATH", libraryPath);
+            environment.put("SHLIB_PATH", libraryPath);
+        }
+        environment.put("NLS_LANG", "AMERICAN_AMERICA.UTF8");
+
+        log.debug("Printing all environment variables:");
+        for (Object key : environment.keySet()) {
+            log.debug("  " + key.toString() + "=" + environment.get(key));
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A Maven log for the output of child processes that writes every line to
+ * gzip compressed rolling files and only forwards errors, warnings, debug
+ * messages and a periodic progress summary to the Maven log. The output is
+ * streamed through a fixed size buffer and the oldest files, including those
+ * of earlier builds, are removed when the maximum number of files is reached,
+ * so memory and disk use don't grow with the output volume.
+ */
+public class OutputLogSink implements Log {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private final File directory;
+    private final String baseName;
+    private final Pattern fileNamePattern;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final long progressInterval;
+    private final Pattern fileCompletedPattern;
+    private final String fileUnit;
+    private final Log log;
+    private File file;
+    private Writer writer;
+    private long fileSize;
+    private int fileNumber;
+    private long lineCount;
+    private long completedFileCount;
+    private long errorCount;
+    private final long startTime;
+    private long lastProgressTime;
+    private long lastProgressLineCount;
+    private boolean failed;
+
+    /**
+     * @param directory the folder of the output files.
+     * @param name the output file name prefix, e.g. import.
+     * @param maxFileSize the uncompressed size in bytes after which the next
+     * file is started.
+     * @param maxFiles the maximum number of files with the name prefix kept in
+     * the folder, or 0 for no limit.
+     * @param progressInterval the time in milliseconds between two progress
+     * summaries, or 0 for no progress summaries.
+     * @param fileCompletedPattern the output lines that mark a processed file,
+     * or null if files are not counted.
+     * @param fileUnit the name of the counted files in the progress summary,
+     * e.g. file(s).
+     * @param log the Maven log to forward errors, warnings and progress to.
+     */
+    public OutputLogSink(File directory, String name, long maxFileSize, int maxFiles, long progressInterval, Pattern fileCompletedPattern, String fileUnit,
+            Log log) {
+        this.directory = directory;
+        this.baseName = name + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        this.fileNamePattern = Pattern.compile(Pattern.quote(name) + "-(\\d{8}-\\d{6})\\.(\\d+)\\.log\\.gz");
+        this.maxFileSize = Math.max(1, maxFileSize);
+        this.maxFiles = maxFiles;
+        this.progressInterval = progressInterval;
+        this.fileCompletedPattern = fileCompletedPattern;
+        this.fileUnit = fileUnit;
+        this.log = log;
+        this.startTime = System.currentTimeMillis();
+        this.lastProgressTime = startTime;
+    }
+
+    /**
+     * @return the file the output is currently written to, or null if no
+     * output was written yet.
+     */
+    public synchronized File getFile() {
+        return file;
+    }
+
+    public synchronized long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Write a line to the current output file, starting a new file when the
+     * current one is full. A failing write is reported once; the output is
+     * then only forwarded to the Maven log.
+     *
+     * @param level the log level of the line.
+     * @param line the line.
+     */
+    private void write(String level, CharSequence line) {
+        if (failed) {
+            return;
+        }
+        try {
+            if (writer == null || fileSize >= maxFileSize) {
+                roll();
+            }
+            writer.write(level);
+            writer.write(' ');
+            writer.write(line.toString());
+            writer.write('\n');
+            fileSize += level.length() + line.length() + 2;
+        } catch (IOException ex) {
+            failed = true;
+            log.warn("Unable to write the process output to " + getFile() + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Close the current output file and start the next one. Another build
+     * started in the same second has the same base name, so the file is
+     * created exclusively and the number is bumped until a free name is found.
+     */
+    private void roll() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+        directory.mkdirs();
+        do {
+            file = new File(directory, baseName + "." + (++fileNumber) + ".log.gz");
+        } while (!file.createNewFile());
+        writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file), 65536, true), "UTF-8"), BUFFER_SIZE);
+        fileSize = 0;
+        if (maxFiles > 0) {
+            removeOldestFiles();
+        }
+    }
+
+    /**
+     * Remove the oldest output files with the name prefix, of this and earlier
+     * builds, until no more than maxFiles are left. Files are ordered by the
+     * timestamp and number in their name.
+     */
+    private void removeOldestFiles() {
+        File[] directoryFiles = directory.listFiles();
+        List<File> outputFiles = new ArrayList<File>();
+
+        if (directoryFiles == null) {
+            return;
+        }
+        for (File directoryFile : directoryFiles) {
+            if (fileNamePattern.matcher(directoryFile.getName()).matches()) {
+                outputFiles.add(directoryFile);
+            }
+        }
+        Collections.sort(outputFiles, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                Matcher matcher1 = fileNamePattern.matcher(file1.getName());
+                Matcher matcher2 = fileNamePattern.matcher(file2.getName());
+                int result;
+
+                matcher1.matches();
+                matcher2.matches();
+                result = matcher1.group(1).compareTo(matcher2.group(1));
+                return result != 0 ? result : Long.valueOf(matcher1.group(2)).compareTo(Long.valueOf(matcher2.group(2)));
+            }
+        });
+        for (int i = 0; i < outputFiles.size() - maxFiles; i++) {
+            if (!outputFiles.get(i).delete()) {
+                log.debug("Unable to remove the output file " + outputFiles.get(i));
+            }
+        }
+    }
+
+    /**
+     * Count a line and log a progress summary when the progress interval has
+     * elapsed.
+     *
+     * @param line the line.
+     */
+    private void count(CharSequence line) {
+        long now;
+
+        lineCount++;
+        if (fileCompletedPattern != null && fileCompletedPattern.matcher(line).matches()) {
+            completedFileCount++;
+        }
+        now = System.currentTimeMillis();
+        if (progressInterval > 0 && now - lastProgressTime >= progressInterval) {
+            log.info("Progress: " + getProgress(lineCount - lastProgressLineCount, now - lastProgressTime));
+            lastProgressTime = now;
+            lastProgressLineCount = lineCount;
+        }
+    }
+
+    private String getProgress(long lines, long duration) {
+        return lineCount + " line(s) of output (" + (duration > 0 ? lines * 1000 / duration : lines) + " lines/s)"
+                + (fileCompletedPattern != null ? ", " + completedFileCount + " " + fileUnit + " completed" : "")
+                + (errorCount > 0 ? ", " + errorCount + " error(s)" : "");
+    }
+
+    /**
+     * Flush the buffered output to the current file, so it can be read before
+     * the file is closed.
+     */
+    public synchronized void flush() {
+        if (writer != null && !failed) {
+            try {
+                writer.flush();
+            } catch (IOException ex) {
+                failed = true;
+                log.warn("Unable to write the process output to " + getFile() + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Close the current output file and log a summary of the output.
+     */
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                log.warn("Unable to write the process output to " + getFile() + ": " + ex.getMessage());
+            }
+            writer = null;
+        }
+        if (lineCount > 0) {
+            log.info("Wrote " + getProgress(lineCount, System.currentTimeMillis() - startTime) + " to " + directory.getAbsolutePath()
+                    + File.separator + baseName + ".*.log.gz");
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return true;
+    }
+
+    @Override
+    public synchronized void debug(CharSequence content) {
+        write("[DEBUG]", content);
+        log.debug(content);
+    }
+
+    @Override
+    public synchronized void debug(CharSequence content, Throwable error) {
+        write("[DEBUG]", content + ": " + error);
+        log.debug(content, error);
+    }
+
+    @Override
+    public synchronized void debug(Throwable error) {
+        write("[DEBUG]", error.toString());
+        log.debug(error);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return true;
+    }
+
+    @Override
+    public synchronized void info(CharSequence content) {
+        write("[INFO]", content);
+        count(content);
+    }
+
+    @Override
+    public synchronized void info(CharSequence content, Throwable error) {
+        info(content + ": " + error);
+    }
+
+    @Override
+    public synchronized void info(Throwable error) {
+        info(error.toString());
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return true;
+    }
+
+    @Override
+    public synchronized void warn(CharSequence content) {
+        write("[WARNING]", content);
+        log.warn(content);
+        count(content);
+    }
+
+    @Override
+    public synchronized void warn(CharSequence content, Throwable error) {
+        write("[WARNING]", content + ": " + error);
+        log.warn(content, error);
+        count(content);
+    }
+
+    @Override
+    public synchronized void warn(Throwable error) {
+        write("[WARNING]", error.toString());
+        log.warn(error);
+        count(error.toString());
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return true;
+    }
+
+    @Override
+    public synchronized void error(CharSequence content) {
+        write("[ERROR]", content);
+        log.error(content);
+        errorCount++;
+        count(content);
+    }
+
+    @Override
+    public synchronized void error(CharSequence content, Throwable error) {
+        write("[ERROR]", content + ": " + error);
+        log.error(content, error);
+        errorCount++;
+        count(content);
+    }
+
+    @Override
+    public synchronized void error(Throwable error) {
+        write("[ERROR]", error.toString());
+        log.error(error);
+        errorCount++;
+        count(error.toString());
+    }
+}
@@ -0,0 +1,355 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Generate HTML documentation from Natural Docs style comments in PL/SQL
+ * source files, without Perl or a Natural Docs installation. Accepts the same
+ * input parameters as the 'run-natural-docs' goal.
+ */
+@Mojo(name = "generate-plsql-docs",
+defaultPhase = LifecyclePhase.COMPILE)
+public class PlsqlDocMojo extends AbstractMojo {
+
+    /**
+     * The documentation is built from the files in these directories and all
+     * their subdirectories. It is possible to specify multiple directories.
+     */
+    @Parameter(property = "generate-plsql-docs.inputSourceDirectories",
+    required = true)
+    private List<File> inputSourceDirectories;
+    /**
+     * The folder in which the HTML documentation is generated.
+     */
+    @Parameter(property = "generate-plsql-docs.outputDirectory",
+    required = true)
+    private File outputDirectory;
+    /**
+     * Excludes a subdirectory from being scanned. You can specify it multiple
+     * times to exclude multiple subdirectories.
+     */
+    @Parameter(property = "generate-plsql-docs.excludedSubdirectories")
+    private List<File> excludedSubdirectories;
+    /**
+     * Only include what you explicitly document in the output, and don't list
+     * undocumented packages, functions, procedures, views, triggers and types.
+     */
+    @Parameter(property = "generate-plsql-docs.documentedOnly")
+    private boolean documentedOnly;
+    /**
+     * Only use the file name for the menu and page titles.
+     */
+    @Parameter(property = "generate-plsql-docs.onlyFileTitles")
+    private boolean onlyFileTitles;
+    /**
+     * The extensions of the source files to scan. Defaults to sql, pks, pkb,
+     * pls, plb, pck, trg, vw, fnc, prc, tps and tpb.
+     */
+    @Parameter
+    private List<String> fileExtensions;
+    /**
+     * The title of the documentation.
+     */
+    @Parameter(property = "generate-plsql-docs.title",
+    defaultValue = "${project.name}")
+    private String title;
+    /**
+     * The file in which the parsed topics are cached. Only source files that
+     * changed since the last run are parsed and rendered again.
+     */
+    @Parameter(property = "generate-plsql-docs.cacheFile",
+    defaultValue = "${project.build.directory}/orclapex-plsql-docs.cache")
+    private File cacheFile;
+    /**
+     * The number of threads that parse the source files. Use 0 for the number
+     * of available processors.
+     */
+    @Parameter(property = "generate-plsql-docs.parallelism",
+    defaultValue = "0")
+    private int parallelism;
+    /**
+     * Minify the generated HTML, CSS and JavaScript files. Comments and
+     * redundant whitespace are removed; only files that changed since the last
+     * run are processed.
+     */
+    @Parameter(property = "generate-plsql-docs.minifyOutput",
+    defaultValue = "false")
+    private boolean minifyOutput;
+    /**
+     * Write a gzip compressed .gz file next to every generated text file, for
+     * web servers that serve precompressed files. Only files that changed
+     * since the last run are compressed.
+     */
+    @Parameter(property = "generate-plsql-docs.precompressOutput",
+    defaultValue = "false")
+    private boolean precompressOutput;
+    /**
+     * The number of files minified and compressed concurrently. Use 0 for the
+     * number of available processors.
+     */
+    @Parameter(property = "generate-plsql-docs.postProcessingThreads",
+    defaultValue = "0")
+    private int postProcessingThreads;
+    private final List<String> defaultFileExtensions = Arrays.asList("sql", "pks", "pkb", "pls", "plb", "pck", "trg", "vw", "fnc", "prc", "tps", "tpb");
+    private final int filesPerTask = 16;
+
+    /**
+     * The method called by Maven when the 'generate-plsql-docs' goal gets
+     * executed.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        List<File> sourceFiles = new ArrayList<File>();
+        List<String> paths = new ArrayList<String>();
+        Map<String, DocFile> cache;
+        Map<String, DocFile> docFiles = new ConcurrentHashMap<String, DocFile>();
+        DocHtmlWriter htmlWriter = new DocHtmlWriter(outputDirectory, title == null ? "Documentation" : title);
+        ForkJoinPool pool;
+        long startTime = System.currentTimeMillis();
+        int parsedFiles;
+
+        validateParameters();
+        for (File inputSourceDirectory : inputSourceDirectories) {
+            collectSourceFiles(inputSourceDirectory, inputSourceDirectory.getAbsoluteFile().getName() + "/", sourceFiles, paths);
+        }
+        cache = readCache();
+
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+        try {
+            parsedFiles = pool.invoke(new ScanTask(sourceFiles, paths, 0, sourceFiles.size(), cache, docFiles, htmlWriter));
+        } catch (RuntimeException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw new MojoExecutionException("Unable to generate the documentation: " + ex.getCause().getMessage(), ex.getCause());
+            }
+            throw ex;
+        } finally {
+            pool.shutdown();
+        }
+
+        for (String path : cache.keySet()) {
+            if (!docFiles.containsKey(path)) {
+                getLog().debug("Removing the page of deleted source file " + path);
+                new File(outputDirectory, cache.get(path).getPageName()).delete();
+            }
+        }
+        try {
+            htmlWriter.writeIndexes(new ArrayList<DocFile>(docFiles.values()));
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to write the documentation index", ex);
+        }
+        writeCache(docFiles);
+        postProcessOutput();
+
+        getLog().info("Documented " + sourceFiles.size() + " source file(s), " + parsedFiles + " parsed, in "
+                + (System.currentTimeMillis() - startTime) + " ms: " + outputDirectory.getAbsolutePath());
+    }
+
+    /**
+     * Parses and renders a range of source files, splitting the range over
+     * the fork-join pool. Unchanged files are taken from the cache.
+     */
+    private class ScanTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+        private final List<File> sourceFiles;
+        private final List<String> paths;
+        private final int from;
+        private final int to;
+        private final Map<String, DocFile> cache;
+        private final Map<String, DocFile> docFiles;
+        private final DocHtmlWriter htmlWriter;
+
+        ScanTask(List<File> sourceFiles, List<String> paths, int from, int to, Map<String, DocFile> cache, Map<String, DocFile> docFiles,
+                DocHtmlWriter htmlWriter) {
+            this.sourceFiles = sourceFiles;
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+            this.cache = cache;
+            this.docFiles = docFiles;
+            this.htmlWriter = htmlWriter;
+        }
+
+        @Override
+        protected Integer compute() {
+            PlsqlDocScanner scanner;
+            int parsedFiles = 0;
+
+            if (to - from > filesPerTask) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(sourceFiles, paths, from, middle, cache, docFiles, htmlWriter);
+                left.fork();
+                return new ScanTask(sourceFiles, paths, middle, to, cache, docFiles, htmlWriter).compute() + left.join();
+            }
+
+            scanner = new PlsqlDocScanner(documentedOnly, onlyFileTitles);
+            for (int i = from; i < to; i++) {
+                File sourceFile = sourceFiles.get(i);
+                DocFile docFile = cache.get(paths.get(i));
+                try {
+                    if (docFile == null || docFile.getLength() != sourceFile.length() || docFile.getLastModified() != sourceFile.lastModified()
+                            || !new File(outputDirectory, docFile.getPageName()).isFile()) {
+                        docFile = scanner.scan(sourceFile, paths.get(i));
+                        htmlWriter.writePage(docFile);
+                        parsedFiles++;
+                    }
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                docFiles.put(paths.get(i), docFile);
+            }
+
+            return parsedFiles;
+        }
+    }
+
+    /**
+     * Collect the source files in a directory and its subdirectories.
+     *
+     * @param directory the directory.
+     * @param pathPrefix the path of the directory used in the output.
+     * @param sourceFiles the list the source files are added to.
+     * @param paths the list the output paths of the source files are added to.
+     */
+    private void collectSourceFiles(File directory, String pathPrefix, List<File> sourceFiles, List<String> paths) {
+        File[] files = directory.listFiles();
+        List<String> extensions = fileExtensions == null || fileExtensions.isEmpty() ? defaultFileExtensions : fileExtensions;
+
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                if (!isExcluded(file)) {
+                    collectSourceFiles(file, pathPrefix + name + "/", sourceFiles, paths);
+                }
+            } else if (name.contains(".") && extensions.contains(name.substring(name.lastIndexOf('.') + 1).toLowerCase())) {
+                sourceFiles.add(file);
+                paths.add(pathPrefix + name);
+            }
+        }
+    }
+
+    private boolean isExcluded(File directory) {
+        if (excludedSubdirectories == null) {
+            return false;
+        }
+        for (File excludedSubdirectory : excludedSubdirectories) {
+            if (excludedSubdirectory.getAbsoluteFile().equals(directory.getAbsoluteFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Read the parse cache of the last run. The cache is discarded when it
+     * can't be read or when it was written with other settings, another title
+     * or another page format, as the pages of cached files aren't rewritten.
+     *
+     * @return the cached topics per source file path.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, DocFile> readCache() {
+        ObjectInputStream input;
+
+        if (!cacheFile.isFile()) {
+            return new HashMap<String, DocFile>();
+        }
+        try {
+            input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (input.readInt() == DocHtmlWriter.FORMAT_VERSION && input.readBoolean() == documentedOnly && input.readBoolean() == onlyFileTitles
+                        && input.readUTF().equals(String.valueOf(title))) {
+                    return (Map<String, DocFile>) input.readObject();
+                }
+                getLog().debug("Parse cache written with other settings, parsing all source files");
+            } finally {
+                input.close();
+            }
+        } catch (Exception ex) {
+            getLog().debug("Unable to read the parse cache, parsing all source files: " + ex.getMessage());
+        }
+
+        return new HashMap<String, DocFile>();
+    }
+
+    /**
+     * Write the parse cache for the next run.
+     *
+     * @param docFiles the topics per source file path.
+     */
+    private void writeCache(Map<String, DocFile> docFiles) {
+        ObjectOutputStream output;
+
+        cacheFile.getAbsoluteFile().getParentFile().mkdirs();
+        try {
+            output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+            try {
+                output.writeInt(DocHtmlWriter.FORMAT_VERSION);
+                output.writeBoolean(documentedOnly);
+                output.writeBoolean(onlyFileTitles);
+                output.writeUTF(String.valueOf(title));
+                output.writeObject(new HashMap<String, DocFile>(docFiles));
+            } finally {
+                output.close();
+            }
+        } catch (IOException ex) {
+            getLog().warn("Unable to write the parse cache: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Minify and precompress the generated documentation, if enabled.
+     */
+    private void postProcessOutput() throws MojoExecutionException {
+        if (!minifyOutput && !precompressOutput) {
+            return;
+        }
+        try {
+            new DocPostProcessor(outputDirectory, minifyOutput, precompressOutput,
+                    postProcessingThreads > 0 ? postProcessingThreads : Runtime.getRuntime().availableProcessors(), getLog()).process();
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to post-process the documentation: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Validate the entered configuration parameters.
+     */
+    private void validateParameters() throws MojoExecutionException {
+        for (int i = 0; i < inputSourceDirectories.size(); i++) {
+            if (!inputSourceDirectories.get(i).isDirectory()) {
+                throw new MojoExecutionException("The specified inputSourceDirectory is not a folder: " + inputSourceDirectories.get(i).getAbsolutePath());
+            }
+        }
+        for (int i = 0; excludedSubdirectories != null && i < excludedSubdirectories.size(); i++) {
+            if (!excludedSubdirectories.get(i).isDirectory()) {
+                throw new MojoExecutionException("The specified excludedSubdirectory is not a folder: " + excludedSubdirectories.get(i).getAbsolutePath());
+            }
+        }
+    }
+}
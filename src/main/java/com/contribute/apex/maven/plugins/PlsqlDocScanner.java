@@ -0,0 +1,245 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads Natural Docs style comments from PL/SQL source files, one line at a
+ * time. A comment documents an item when it contains a topic line such as
+ * "Function: get_name"; the following lines up to the next topic line form
+ * the topic body. Both block comments and consecutive -- comments are
+ * recognized.
+ *
+ * Unless documentedOnly is set, packages, functions, procedures, views,
+ * triggers and types declared in the code without a comment are added as
+ * undocumented topics.
+ */
+public class PlsqlDocScanner {
+
+    private static final Pattern TOPIC = Pattern.compile("(?i)\\s*(file|section|group|topic|package|package body|function|procedure"
+            + "|view|trigger|type|table|constant|variable|cursor|exception)s?:\\s+(\\S.*?)\\s*");
+    private static final Pattern DECLARATION = Pattern.compile("(?i)\\s*(create\\s+(or\\s+replace\\s+)?((editionable|noneditionable)\\s+)?"
+            + "(force\\s+)?)?(package\\s+body|package|procedure|function|trigger|view|type\\s+body|type)\\s+(\"?[\\w$#.]+\"?).*");
+    private static final int MAX_PROTOTYPE_LINES = 20;
+    private final boolean documentedOnly;
+    private final boolean onlyFileTitles;
+
+    /**
+     * @param documentedOnly only include commented items.
+     * @param onlyFileTitles use the file name as the page title.
+     */
+    public PlsqlDocScanner(boolean documentedOnly, boolean onlyFileTitles) {
+        this.documentedOnly = documentedOnly;
+        this.onlyFileTitles = onlyFileTitles;
+    }
+
+    /**
+     * Scan a source file.
+     *
+     * @param file the source file.
+     * @param path the path of the file used in the output.
+     * @return the topics of the file.
+     * @throws IOException if the file can't be read.
+     */
+    public DocFile scan(File file, String path) throws IOException {
+        DocFile docFile = new DocFile(path, file.length(), file.lastModified());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        List<String> comment = null;
+        Set<String> documentedNames = new HashSet<String>();
+        DocTopic pendingTopic = null;
+        DocTopic prototypeTopic = null;
+        StringBuilder prototype = null;
+        int prototypeLines = 0;
+        boolean inBlockComment = false;
+        int commentLine = 0;
+        int lineNumber = 0;
+        String line;
+
+        try {
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                lineNumber++;
+
+                if (inBlockComment) {
+                    int end = line.indexOf("*/");
+                    comment.add(stripDecoration(end == -1 ? line : line.substring(0, end)));
+                    if (end != -1) {
+                        inBlockComment = false;
+                        pendingTopic = addTopics(docFile, parseComment(comment, commentLine), documentedNames);
+                        comment = null;
+                    }
+                    continue;
+                } else if (trimmed.startsWith("--")) {
+                    if (comment == null) {
+                        comment = new ArrayList<String>();
+                        commentLine = lineNumber;
+                    }
+                    comment.add(trimmed.replaceFirst("^-+", ""));
+                    continue;
+                } else if (comment != null) {
+                    // the end of a run of -- comments
+                    pendingTopic = addTopics(docFile, parseComment(comment, commentLine), documentedNames);
+                    comment = null;
+                }
+
+                if (trimmed.startsWith("/*")) {
+                    int end = trimmed.indexOf("*/", 2);
+                    comment = new ArrayList<String>();
+                    commentLine = lineNumber;
+                    comment.add(stripDecoration(trimmed.substring(2, end == -1 ? trimmed.length() : end).replaceFirst("^\\*+", "")));
+                    if (end == -1) {
+                        inBlockComment = true;
+                    } else {
+                        pendingTopic = addTopics(docFile, parseComment(comment, commentLine), documentedNames);
+                        comment = null;
+                    }
+                    continue;
+                } else if (trimmed.isEmpty()) {
+                    continue;
+                }
+
+                if (prototype != null) {
+                    if (prototypeLines++ < MAX_PROTOTYPE_LINES && !endsDeclaration(prototype)) {
+                        prototype.append('\n').append(line);
+                        prototypeTopic.setPrototype(prototype.toString());
+                        continue;
+                    }
+                    prototype = null;
+                }
+
+                Matcher declaration = DECLARATION.matcher(line);
+                if (declaration.matches()) {
+                    String keyword = capitalize(declaration.group(6).replaceAll("\\s+", " "));
+                    String name = declaration.group(7).replace("\"", "");
+                    DocTopic topic = pendingTopic;
+
+                    if (topic == null || !matchesName(topic.getTitle(), name)) {
+                        topic = null;
+                        if (!documentedOnly && documentedNames.add(keyword.toLowerCase() + " " + name.toLowerCase())) {
+                            topic = new DocTopic(keyword, name, lineNumber);
+                            docFile.getTopics().add(topic);
+                        }
+                    }
+                    if (topic != null && topic.getPrototype() == null) {
+                        prototype = new StringBuilder(line.replaceFirst("(?i)^\\s*create\\s+(or\\s+replace\\s+)?((editionable|noneditionable)\\s+)?(force\\s+)?", ""));
+                        prototypeLines = 0;
+                        prototypeTopic = topic;
+                        topic.setPrototype(prototype.toString());
+                        if (endsDeclaration(prototype)) {
+                            prototype = null;
+                        }
+                    }
+                }
+                pendingTopic = null;
+            }
+            if (comment != null) {
+                addTopics(docFile, parseComment(comment, commentLine), documentedNames);
+            }
+        } finally {
+            reader.close();
+        }
+
+        docFile.setTitle(getTitle(docFile, file));
+
+        return docFile;
+    }
+
+    /**
+     * Split a comment in topics.
+     *
+     * @param comment the comment lines without comment markers.
+     * @param firstLine the line number of the first comment line.
+     * @return the topics; empty if the comment contains no topic line.
+     */
+    private static List<DocTopic> parseComment(List<String> comment, int firstLine) {
+        List<DocTopic> topics = new ArrayList<DocTopic>();
+        DocTopic topic = null;
+
+        for (int i = 0; i < comment.size(); i++) {
+            Matcher matcher = TOPIC.matcher(comment.get(i));
+            if (matcher.matches()) {
+                topic = new DocTopic(capitalize(matcher.group(1)), matcher.group(2), firstLine + i);
+                topics.add(topic);
+            } else if (topic != null) {
+                topic.getBody().add(comment.get(i));
+            }
+        }
+        for (DocTopic parsedTopic : topics) {
+            trimBody(parsedTopic.getBody());
+        }
+
+        return topics;
+    }
+
+    /**
+     * Add the topics of a comment to the file.
+     *
+     * @return the last topic, which documents the declaration that follows
+     * the comment, or null.
+     */
+    private static DocTopic addTopics(DocFile docFile, List<DocTopic> topics, Set<String> documentedNames) {
+        for (DocTopic topic : topics) {
+            docFile.getTopics().add(topic);
+            documentedNames.add(topic.getKeyword().toLowerCase() + " " + topic.getTitle().toLowerCase());
+        }
+        return topics.isEmpty() ? null : topics.get(topics.size() - 1);
+    }
+
+    private String getTitle(DocFile docFile, File file) {
+        if (!onlyFileTitles) {
+            for (DocTopic topic : docFile.getTopics()) {
+                if (topic.getKeyword().equals("File") || topic.getKeyword().startsWith("Package")) {
+                    return topic.getTitle();
+                }
+            }
+        }
+        return file.getName();
+    }
+
+    private static boolean matchesName(String title, String name) {
+        String shortName = name.substring(name.lastIndexOf('.') + 1);
+
+        return title.equalsIgnoreCase(name) || title.equalsIgnoreCase(shortName);
+    }
+
+    private static boolean endsDeclaration(CharSequence prototype) {
+        String lower = prototype.toString().toLowerCase().trim();
+
+        return lower.endsWith(";") || lower.matches("(?s).*\\s(is|as)") || lower.matches("(?s).*\\s(is|as)\\s.*") || lower.endsWith("begin");
+    }
+
+    private static String stripDecoration(String line) {
+        return line.replaceFirst("^\\s*\\*+ ?", "").replaceFirst("\\s*\\*+\\s*$", "");
+    }
+
+    private static void trimBody(List<String> body) {
+        while (!body.isEmpty() && body.get(0).trim().isEmpty()) {
+            body.remove(0);
+        }
+        while (!body.isEmpty() && body.get(body.size() - 1).trim().isEmpty()) {
+            body.remove(body.size() - 1);
+        }
+    }
+
+    private static String capitalize(String keyword) {
+        StringBuilder capitalized = new StringBuilder();
+
+        for (String word : keyword.toLowerCase().split(" ")) {
+            if (capitalized.length() > 0) {
+                capitalized.append(' ');
+            }
+            capitalized.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+        }
+
+        return capitalized.toString();
+    }
+}
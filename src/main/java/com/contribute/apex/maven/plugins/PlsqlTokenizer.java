@@ -0,0 +1,272 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits PL/SQL and DDL source code in tokens, reading one character at a
+ * time. Comments, whitespace and SQL*Plus prompt and remark lines are
+ * skipped; string literals, including q'[...]' quoting, are returned as a
+ * single token so their contents are never mistaken for code.
+ */
+public class PlsqlTokenizer {
+
+    /**
+     * The kind of a token.
+     */
+    public enum TokenType {
+
+        WORD, QUOTED_IDENTIFIER, LITERAL, SYMBOL
+    }
+    private static final List<String> SKIPPED_LINE_COMMANDS = Arrays.asList("prompt", "pro", "rem", "remark", "spool", "define", "undefine");
+    private static final List<String> TWO_CHARACTER_SYMBOLS = Arrays.asList(":=", "=>", "..", "||", "<=", ">=", "!=", "<>");
+    private final Reader reader;
+    private int next;
+    private int line = 1;
+    private boolean lineStart = true;
+    private Token pushedBack;
+
+    /**
+     * @param reader the source code.
+     * @throws IOException if the source can't be read.
+     */
+    public PlsqlTokenizer(Reader reader) throws IOException {
+        this.reader = reader.markSupported() ? reader : new BufferedReader(reader);
+        this.next = this.reader.read();
+    }
+
+    /**
+     * @return the next token, or null at the end of the source.
+     * @throws IOException if the source can't be read.
+     */
+    public Token next() throws IOException {
+        Token token;
+
+        if (pushedBack != null) {
+            token = pushedBack;
+            pushedBack = null;
+            return token;
+        }
+        while (true) {
+            skipWhitespace();
+            if (next == -1) {
+                return null;
+            }
+            boolean firstOnLine = lineStart;
+            int tokenLine = line;
+            lineStart = false;
+
+            if (next == '-' && peekIs('-')) {
+                skipLine();
+            } else if (next == '/' && peekIs('*')) {
+                skipBlockComment();
+            } else if (next == '@' && firstOnLine) {
+                // a SQL*Plus script call
+                skipLine();
+            } else if (next == '\'') {
+                return new Token(TokenType.LITERAL, readString('\''), tokenLine, firstOnLine);
+            } else if (next == '"') {
+                String quoted = readString('"');
+                return new Token(TokenType.QUOTED_IDENTIFIER, quoted.substring(1, Math.max(1, quoted.length() - 1)), tokenLine, firstOnLine);
+            } else if (Character.isLetter(next)) {
+                String word = readWord();
+                if ((word.equalsIgnoreCase("q") || word.equalsIgnoreCase("nq")) && next == '\'') {
+                    return new Token(TokenType.LITERAL, word + readAlternativeQuote(), tokenLine, firstOnLine);
+                } else if ((word.equalsIgnoreCase("n") || word.equalsIgnoreCase("u")) && next == '\'') {
+                    return new Token(TokenType.LITERAL, word + readString('\''), tokenLine, firstOnLine);
+                } else if (firstOnLine && SKIPPED_LINE_COMMANDS.contains(word.toLowerCase())) {
+                    // prompt texts may contain unbalanced quotes
+                    skipLine();
+                } else {
+                    return new Token(TokenType.WORD, word, tokenLine, firstOnLine);
+                }
+            } else if (Character.isDigit(next)) {
+                StringBuilder number = new StringBuilder();
+                while (next != -1 && (Character.isLetterOrDigit(next) || next == '.' && !peekIs('.'))) {
+                    number.append((char) next);
+                    read();
+                }
+                return new Token(TokenType.LITERAL, number.toString(), tokenLine, firstOnLine);
+            } else {
+                StringBuilder symbol = new StringBuilder().append((char) next);
+                read();
+                if (next != -1 && TWO_CHARACTER_SYMBOLS.contains(symbol.toString() + (char) next)) {
+                    symbol.append((char) next);
+                    read();
+                }
+                return new Token(TokenType.SYMBOL, symbol.toString(), tokenLine, firstOnLine);
+            }
+        }
+    }
+
+    /**
+     * Return a token from the next call to next().
+     *
+     * @param token the token.
+     */
+    public void pushBack(Token token) {
+        pushedBack = token;
+    }
+
+    private void read() throws IOException {
+        if (next == '\n') {
+            line++;
+            lineStart = true;
+        }
+        next = reader.read();
+    }
+
+    private boolean peekIs(char c) throws IOException {
+        boolean matches;
+
+        reader.mark(1);
+        matches = reader.read() == c;
+        reader.reset();
+
+        return matches;
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (next != -1 && Character.isWhitespace(next)) {
+            read();
+        }
+    }
+
+    private void skipLine() throws IOException {
+        while (next != -1 && next != '\n') {
+            read();
+        }
+    }
+
+    private void skipBlockComment() throws IOException {
+        int previous = 0;
+
+        read();
+        read();
+        while (next != -1 && !(previous == '*' && next == '/')) {
+            previous = next;
+            read();
+        }
+        read();
+    }
+
+    private String readWord() throws IOException {
+        StringBuilder word = new StringBuilder();
+
+        while (next != -1 && (Character.isLetterOrDigit(next) || next == '_' || next == '$' || next == '#')) {
+            word.append((char) next);
+            read();
+        }
+
+        return word.toString();
+    }
+
+    /**
+     * Read a quoted string; a doubled quote character is an escaped quote.
+     */
+    private String readString(char quote) throws IOException {
+        StringBuilder string = new StringBuilder().append(quote);
+
+        read();
+        while (next != -1) {
+            string.append((char) next);
+            if (next == quote) {
+                read();
+                if (next != quote) {
+                    break;
+                }
+                string.append((char) next);
+            }
+            read();
+        }
+
+        return string.toString();
+    }
+
+    /**
+     * Read a q'[...]' literal, starting at the opening quote.
+     */
+    private String readAlternativeQuote() throws IOException {
+        StringBuilder string = new StringBuilder("'");
+        char delimiter;
+        int previous = 0;
+
+        read();
+        if (next == -1) {
+            return string.toString();
+        }
+        delimiter = (char) next;
+        delimiter = delimiter == '[' ? ']' : delimiter == '{' ? '}' : delimiter == '(' ? ')' : delimiter == '<' ? '>' : delimiter;
+        string.append((char) next);
+        read();
+        while (next != -1 && !(previous == delimiter && next == '\'')) {
+            string.append((char) next);
+            previous = next;
+            read();
+        }
+        string.append('\'');
+        read();
+
+        return string.toString();
+    }
+
+    /**
+     * A token and the line it starts on.
+     */
+    public static class Token {
+
+        private final TokenType type;
+        private final String text;
+        private final int line;
+        private final boolean firstOnLine;
+
+        public Token(TokenType type, String text, int line, boolean firstOnLine) {
+            this.type = type;
+            this.text = text;
+            this.line = line;
+            this.firstOnLine = firstOnLine;
+        }
+
+        public TokenType getType() {
+            return type;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * @return true if the token is the first token on its line.
+         */
+        public boolean isFirstOnLine() {
+            return firstOnLine;
+        }
+
+        /**
+         * @param word a keyword in lower case.
+         * @return true if the token is the given unquoted word.
+         */
+        public boolean is(String word) {
+            return (type == TokenType.WORD || type == TokenType.SYMBOL) && text.equalsIgnoreCase(word);
+        }
+
+        /**
+         * @return the identifier as stored in the data dictionary: quoted
+         * identifiers as is, other words in upper case.
+         */
+        public String getIdentifier() {
+            return type == TokenType.QUOTED_IDENTIFIER ? text : text.toUpperCase();
+        }
+
+        public boolean isIdentifier() {
+            return type == TokenType.WORD || type == TokenType.QUOTED_IDENTIFIER;
+        }
+    }
+}
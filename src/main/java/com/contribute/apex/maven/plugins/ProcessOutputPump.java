@@ -0,0 +1,220 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.regex.Pattern;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Reads the (merged) output of a child process on a separate thread and logs
+ * every line as it arrives. Lines are classified as errors (lines starting with
+ * an ORA-, PLS- or SP2- message, preceded by an "ERROR at line" location) or
+ * warnings (objects created with compilation errors). Codes mentioned
+ * elsewhere in a line, e.g. in prompt or dbms_output text, are not errors. The pump
+ * can terminate the process on the first error and enforces an overall and an
+ * inactivity timeout.
+ */
+public class ProcessOutputPump extends Thread {
+
+    /**
+     * The classification of an output line.
+     */
+    public enum LineType {
+
+        INFO, WARNING, ERROR_LOCATION, ERROR
+    }
+    private static final Pattern ERROR_PATTERN = Pattern.compile("^(ORA|PLS|SP2)-\\d{4,5}:.*");
+    private static final Pattern ERROR_LOCATION_PATTERN = Pattern.compile("^ERROR at line \\d+:.*");
+    private static final Pattern WARNING_PATTERN = Pattern.compile("^Warning: .* created with compilation errors.*");
+    private static final long POLL_INTERVAL = 100;
+    private final Process process;
+    private final Log log;
+    private final String logPrefix;
+    private final boolean abortOnError;
+    private volatile long lastOutputTime = System.currentTimeMillis();
+    private volatile String firstError;
+    private volatile int errorCount;
+    private volatile int warningCount;
+    private volatile String abortReason;
+    private IOException exception;
+    private ImportTimings timings;
+    private String charset = "UTF-8";
+
+    /**
+     * @param process the process to read the output from.
+     * @param log the Maven log to forward the output to.
+     * @param logPrefix the prefix for every logged line.
+     * @param abortOnError terminate the process on the first error line.
+     */
+    public ProcessOutputPump(Process process, Log log, String logPrefix, boolean abortOnError) {
+        super("orclapex-output-pump");
+        setDaemon(true);
+        this.process = process;
+        this.log = log;
+        this.logPrefix = logPrefix;
+        this.abortOnError = abortOnError;
+    }
+
+    /**
+     * Classify an output line.
+     *
+     * @param line the output line.
+     * @return the line type.
+     */
+    public static LineType classify(String line) {
+        if (ERROR_PATTERN.matcher(line).matches()) {
+            return LineType.ERROR;
+        } else if (ERROR_LOCATION_PATTERN.matcher(line).matches()) {
+            return LineType.ERROR_LOCATION;
+        } else if (WARNING_PATTERN.matcher(line).matches()) {
+            return LineType.WARNING;
+        }
+        return LineType.INFO;
+    }
+
+    @Override
+    public void run() {
+        BufferedReader reader;
+        String line;
+
+        try {
+            reader = new BufferedReader(new InputStreamReader(process.getInputStream(), charset));
+            try {
+                while ((line = reader.readLine()) != null) {
+                    lastOutputTime = System.currentTimeMillis();
+                    handleLine(line);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException ex) {
+            // the stream is closed when the process gets destroyed
+            if (abortReason == null) {
+                exception = ex;
+            }
+        }
+    }
+
+    /**
+     * Log a single output line and abort the process if required.
+     *
+     * @param line the output line.
+     */
+    protected void handleLine(String line) {
+        if (timings != null && timings.handleLine(line)) {
+            log.debug(logPrefix + line);
+            return;
+        }
+        switch (classify(line)) {
+            case ERROR:
+                log.error(logPrefix + line);
+                errorCount++;
+                if (firstError == null) {
+                    firstError = line.trim();
+                    if (abortOnError) {
+                        abort("first error: " + firstError);
+                    }
+                }
+                break;
+            case ERROR_LOCATION:
+                // the error message follows on the next line
+                log.error(logPrefix + line);
+                break;
+            case WARNING:
+                log.warn(logPrefix + line);
+                warningCount++;
+                break;
+            default:
+                log.info(logPrefix + line);
+        }
+    }
+
+    /**
+     * Terminate the process.
+     *
+     * @param reason the reason, reported by getAbortReason().
+     */
+    public void abort(String reason) {
+        if (abortReason == null) {
+            abortReason = reason;
+            process.destroy();
+        }
+    }
+
+    /**
+     * Wait until the process has finished and all output has been read,
+     * terminating the process when a timeout expires.
+     *
+     * @param timeout the maximum run time of the process in milliseconds, or 0
+     * for no limit.
+     * @param inactivityTimeout the maximum time in milliseconds between two
+     * output lines, or 0 for no limit.
+     * @return the process exit value.
+     * @throws InterruptedException if the current thread was interrupted.
+     * @throws IOException if the output could not be read.
+     */
+    public int waitFor(long timeout, long inactivityTimeout) throws InterruptedException, IOException {
+        long startTime = System.currentTimeMillis();
+
+        while (isAlive()) {
+            if (abortReason != null) {
+                // grandchild processes may keep the output stream open after the process was destroyed
+                process.waitFor();
+                join(POLL_INTERVAL * 10);
+                break;
+            }
+            join(POLL_INTERVAL);
+            long now = System.currentTimeMillis();
+            if (timeout > 0 && now - startTime > timeout) {
+                abort("timeout of " + (timeout / 1000) + " s exceeded");
+            } else if (inactivityTimeout > 0 && now - lastOutputTime > inactivityTimeout) {
+                abort("no output for " + (inactivityTimeout / 1000) + " s");
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+
+        return process.waitFor();
+    }
+
+    /**
+     * @param timings collects the timing markers found in the output. The
+     * marker lines are only logged at debug level.
+     */
+    public void setTimings(ImportTimings timings) {
+        this.timings = timings;
+    }
+
+    /**
+     * @param charset the charset of the output. Defaults to UTF-8, the
+     * NLS_LANG charset SQL*Plus runs with.
+     */
+    public void setCharset(String charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * @return the first error line, or null if no errors occurred.
+     */
+    public String getFirstError() {
+        return firstError;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public int getWarningCount() {
+        return warningCount;
+    }
+
+    /**
+     * @return the reason the process was terminated, or null if it finished by
+     * itself.
+     */
+    public String getAbortReason() {
+        return abortReason;
+    }
+}
@@ -0,0 +1,48 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A group of input source directories documented by its own Natural Docs
+ * process in the sharded mode of the 'run-natural-docs' goal, e.g.:
+ *
+ * <pre>
+ * &lt;shards&gt;
+ *   &lt;shard&gt;
+ *     &lt;id&gt;core&lt;/id&gt;
+ *     &lt;inputSourceDirectories&gt;
+ *       &lt;inputSourceDirectory&gt;src/core&lt;/inputSourceDirectory&gt;
+ *     &lt;/inputSourceDirectories&gt;
+ *   &lt;/shard&gt;
+ * &lt;/shards&gt;
+ * </pre>
+ */
+public class Shard {
+
+    /**
+     * The name of the shard, used as the name of its output and project
+     * subdirectories.
+     */
+    private String id;
+    /**
+     * The directories documented by this shard.
+     */
+    private List<File> inputSourceDirectories;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public List<File> getInputSourceDirectories() {
+        return inputSourceDirectories;
+    }
+
+    public void setInputSourceDirectories(List<File> inputSourceDirectories) {
+        this.inputSourceDirectories = inputSourceDirectories;
+    }
+}
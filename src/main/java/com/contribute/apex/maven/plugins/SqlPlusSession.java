@@ -0,0 +1,226 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * An authenticated SQL*Plus process that runs multiple scripts one after the
+ * other. Every script is followed by a prompt command; the script is finished
+ * when the prompt text shows up in the output. A failing script terminates the
+ * process through "whenever sqlerror exit", after which the session can't be
+ * reused.
+ */
+public class SqlPlusSession {
+
+    private static final String DONE_MARKER = "ORCLAPEX-SESSION-DONE";
+    private static final long INACTIVITY_CHECK_INTERVAL = 1000;
+    private static final Timer TIMEOUT_TIMER = new Timer("orclapex-session-timeout", true);
+    private final String key;
+    private final Process process;
+    private final Writer stdin;
+    private final BufferedReader stdout;
+    private volatile String abortReason;
+    private volatile long lastOutputTime;
+    private long lastUsed = System.currentTimeMillis();
+    private int runCount;
+
+    /**
+     * Start SQL*Plus with /nolog and send the connect command.
+     *
+     * @param key the broker key of the session.
+     * @param processBuilder the process builder of the SQL*Plus /nolog command.
+     * @param loginArgument the username/password@connection login string.
+     * @throws IOException if SQL*Plus can't be started.
+     */
+    public SqlPlusSession(String key, ProcessBuilder processBuilder, String loginArgument) throws IOException {
+        this.key = key;
+        processBuilder.redirectErrorStream(true);
+        process = processBuilder.start();
+        // SQL*Plus runs with NLS_LANG set to UTF8
+        stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), "UTF-8"));
+        stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+
+        stdin.write("whenever sqlerror exit 1\n");
+        stdin.write("connect " + loginArgument + "\n");
+        stdin.flush();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * @return the reason the last script was terminated, or null.
+     */
+    public String getAbortReason() {
+        return abortReason;
+    }
+
+    /**
+     * @return the SQL*Plus process.
+     */
+    Process getProcess() {
+        return process;
+    }
+
+    /**
+     * @return true if the SQL*Plus process is still running.
+     */
+    public boolean isAlive() {
+        try {
+            process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException ex) {
+            return true;
+        }
+    }
+
+    /**
+     * Run a script in this session and log its output.
+     *
+     * @param lines the SQL*Plus commands to run.
+     * @param log the Maven log to forward the output to.
+     * @param logPrefix the prefix for every logged line.
+     * @param abortOnError terminate the session on the first error line.
+     * @param timings collects the timing markers in the output, or null.
+     * @param timeout the maximum run time in milliseconds, or 0 for no limit.
+     * @param inactivityTimeout the maximum time in milliseconds between two
+     * output lines, or 0 for no limit.
+     * @return 0 if the script finished, otherwise the SQL*Plus exit value.
+     * @throws IOException if the output can't be read.
+     * @throws InterruptedException if the current thread was interrupted.
+     */
+    public int run(final List<String> lines, Log log, String logPrefix, boolean abortOnError, ImportTimings timings, final long timeout,
+            final long inactivityTimeout) throws IOException, InterruptedException {
+        final String doneLine = DONE_MARKER + " " + (++runCount);
+        TimerTask timeoutTask = null;
+        TimerTask inactivityTask = null;
+        Thread writer;
+        String line;
+
+        abortReason = null;
+        // write on a separate thread so a full output pipe can't block the script submission
+        writer = new Thread("orclapex-session-writer") {
+            @Override
+            public void run() {
+                try {
+                    for (String scriptLine : lines) {
+                        stdin.write(scriptLine);
+                        stdin.write("\n");
+                    }
+                    stdin.write("prompt " + doneLine + "\n");
+                    stdin.flush();
+                } catch (IOException ex) {
+                    // SQL*Plus exited early; its exit value reports the error
+                }
+            }
+        };
+        writer.setDaemon(true);
+        writer.start();
+
+        if (timeout > 0) {
+            timeoutTask = new TimerTask() {
+                @Override
+                public void run() {
+                    abort("timeout of " + (timeout / 1000) + " s exceeded");
+                }
+            };
+            TIMEOUT_TIMER.schedule(timeoutTask, timeout);
+        }
+        lastOutputTime = System.currentTimeMillis();
+        if (inactivityTimeout > 0) {
+            inactivityTask = new TimerTask() {
+                @Override
+                public void run() {
+                    if (System.currentTimeMillis() - lastOutputTime > inactivityTimeout) {
+                        abort("no output for " + (inactivityTimeout / 1000) + " s");
+                    }
+                }
+            };
+            TIMEOUT_TIMER.schedule(inactivityTask, INACTIVITY_CHECK_INTERVAL, INACTIVITY_CHECK_INTERVAL);
+        }
+
+        try {
+            while ((line = stdout.readLine()) != null) {
+                lastOutputTime = System.currentTimeMillis();
+                if (line.equals(doneLine)) {
+                    lastUsed = System.currentTimeMillis();
+                    return 0;
+                } else if (timings != null && timings.handleLine(line)) {
+                    log.debug(logPrefix + line);
+                } else if (ProcessOutputPump.classify(line) == ProcessOutputPump.LineType.ERROR) {
+                    log.error(logPrefix + line);
+                    if (abortOnError) {
+                        abort("first error: " + line.trim());
+                    }
+                } else if (ProcessOutputPump.classify(line) == ProcessOutputPump.LineType.ERROR_LOCATION) {
+                    log.error(logPrefix + line);
+                } else if (ProcessOutputPump.classify(line) == ProcessOutputPump.LineType.WARNING) {
+                    log.warn(logPrefix + line);
+                } else {
+                    log.info(logPrefix + line);
+                }
+            }
+        } catch (IOException ex) {
+            if (abortReason == null) {
+                throw ex;
+            }
+        } finally {
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+            }
+            if (inactivityTask != null) {
+                inactivityTask.cancel();
+            }
+        }
+
+        writer.join();
+        return process.waitFor();
+    }
+
+    /**
+     * Terminate the SQL*Plus process.
+     *
+     * @param reason the reason, reported by getAbortReason().
+     */
+    public void abort(String reason) {
+        abortReason = reason;
+        process.destroy();
+    }
+
+    /**
+     * Exit SQL*Plus, terminating the process if it doesn't exit in time.
+     */
+    public void close() {
+        try {
+            stdin.write("exit\n");
+            stdin.close();
+        } catch (IOException ex) {
+            // already gone
+        }
+        for (int i = 0; i < 50 && isAlive(); i++) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ex) {
+                break;
+            }
+        }
+        process.destroy();
+    }
+}
@@ -0,0 +1,219 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+
+/**
+ * Keeps authenticated SQL*Plus sessions alive between goal executions in the
+ * same Maven JVM, keyed by SQL*Plus command, connection string, credentials
+ * and environment.
+ * The plugin classes are shared by all executions of a reactor build, so an
+ * idle session left by one module is picked up by the next one.
+ *
+ * Sessions are closed when they have been idle for longer than the idle
+ * timeout, when a script fails and when the JVM shuts down.
+ */
+public final class SqlPlusSessionBroker {
+
+    private static final Map<String, LinkedList<SqlPlusSession>> IDLE_SESSIONS = new HashMap<String, LinkedList<SqlPlusSession>>();
+    private static final List<SqlPlusSession> ACTIVE_SESSIONS = new ArrayList<SqlPlusSession>();
+    private static Timer idleReaper;
+    private static long idleTimeout;
+
+    private SqlPlusSessionBroker() {
+    }
+
+    /**
+     * Put together the key identifying compatible sessions. Sessions are only
+     * shared when they were started with the same credentials and the same
+     * process environment, e.g. NLS settings. The password and environment
+     * are only included as a digest.
+     *
+     * @param sqlplusCmd the SQL*Plus command.
+     * @param connectionString the database connection string.
+     * @param username the database username.
+     * @param password the database password.
+     * @param environment the environment variables of the SQL*Plus process.
+     * @return the session key.
+     */
+    public static String getKey(String sqlplusCmd, String connectionString, String username, String password, Map<String, String> environment) {
+        MessageDigest digest = ImportState.getSha256();
+
+        try {
+            digest.update((password + "\n").getBytes("UTF-8"));
+            for (Map.Entry<String, String> variable : new TreeMap<String, String>(environment).entrySet()) {
+                digest.update((variable.getKey() + "=" + variable.getValue() + "\n").getBytes("UTF-8"));
+            }
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        return sqlplusCmd + "|" + connectionString + "|" + username.toUpperCase() + "|" + ImportState.toHex(digest.digest()).substring(0, 16);
+    }
+
+    /**
+     * Hand out an idle session for the given key or start a new one.
+     *
+     * @param key the session key.
+     * @param processBuilder the process builder of the SQL*Plus /nolog
+     * command, used when a new session is needed.
+     * @param loginArgument the username/password@connection login string.
+     * @param idleTimeoutMillis the time in milliseconds after which an idle
+     * session is closed.
+     * @return a session that is reserved for the caller until release().
+     * @throws IOException if SQL*Plus can't be started.
+     */
+    public static synchronized SqlPlusSession acquire(String key, ProcessBuilder processBuilder, String loginArgument, long idleTimeoutMillis) throws IOException {
+        LinkedList<SqlPlusSession> sessions = IDLE_SESSIONS.get(key);
+        SqlPlusSession session = null;
+
+        idleTimeout = idleTimeoutMillis;
+        startIdleReaper();
+
+        while (sessions != null && !sessions.isEmpty() && session == null) {
+            session = sessions.removeFirst();
+            if (!session.isAlive()) {
+                session = null;
+            }
+        }
+        if (session == null) {
+            session = new SqlPlusSession(key, processBuilder, loginArgument);
+        }
+        ACTIVE_SESSIONS.add(session);
+
+        return session;
+    }
+
+    /**
+     * Return a session to the broker. Sessions that are no longer running are
+     * discarded.
+     *
+     * @param session the session acquired earlier.
+     */
+    public static synchronized void release(SqlPlusSession session) {
+        LinkedList<SqlPlusSession> sessions;
+
+        ACTIVE_SESSIONS.remove(session);
+        if (!session.isAlive()) {
+            return;
+        }
+        sessions = IDLE_SESSIONS.get(session.getKey());
+        if (sessions == null) {
+            sessions = new LinkedList<SqlPlusSession>();
+            IDLE_SESSIONS.put(session.getKey(), sessions);
+        }
+        sessions.addFirst(session);
+    }
+
+    /**
+     * Close a session that can't be reused, e.g. after a failure.
+     *
+     * @param session the session acquired earlier.
+     */
+    public static void discard(SqlPlusSession session) {
+        synchronized (SqlPlusSessionBroker.class) {
+            ACTIVE_SESSIONS.remove(session);
+        }
+        session.close();
+    }
+
+    /**
+     * Close a session if it's idle. Sessions that were handed out again in the
+     * meantime are left alone.
+     *
+     * @param session a session acquired and released earlier.
+     */
+    public static void closeIfIdle(SqlPlusSession session) {
+        boolean idle;
+
+        synchronized (SqlPlusSessionBroker.class) {
+            LinkedList<SqlPlusSession> sessions = IDLE_SESSIONS.get(session.getKey());
+            idle = sessions != null && sessions.remove(session);
+        }
+        if (idle) {
+            session.close();
+        }
+    }
+
+    /**
+     * Close all idle sessions and terminate the sessions in use.
+     */
+    public static void shutdown() {
+        List<SqlPlusSession> idle = new ArrayList<SqlPlusSession>();
+        List<SqlPlusSession> active;
+
+        synchronized (SqlPlusSessionBroker.class) {
+            for (LinkedList<SqlPlusSession> sessions : IDLE_SESSIONS.values()) {
+                idle.addAll(sessions);
+            }
+            IDLE_SESSIONS.clear();
+            active = new ArrayList<SqlPlusSession>(ACTIVE_SESSIONS);
+            ACTIVE_SESSIONS.clear();
+        }
+        for (SqlPlusSession session : idle) {
+            session.close();
+        }
+        for (SqlPlusSession session : active) {
+            session.abort("shutdown");
+        }
+    }
+
+    /**
+     * Start the timer that closes idle sessions and register the JVM shutdown
+     * hook, once.
+     */
+    private static void startIdleReaper() {
+        if (idleReaper != null) {
+            return;
+        }
+
+        idleReaper = new Timer("orclapex-session-reaper", true);
+        idleReaper.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                closeIdleSessions();
+            }
+        }, 1000, 1000);
+
+        Runtime.getRuntime().addShutdownHook(new Thread("orclapex-session-shutdown") {
+            @Override
+            public void run() {
+                shutdown();
+            }
+        });
+    }
+
+    /**
+     * Close the sessions that exceeded the idle timeout.
+     */
+    private static void closeIdleSessions() {
+        List<SqlPlusSession> expired = new ArrayList<SqlPlusSession>();
+        long now = System.currentTimeMillis();
+
+        synchronized (SqlPlusSessionBroker.class) {
+            for (LinkedList<SqlPlusSession> sessions : IDLE_SESSIONS.values()) {
+                Iterator<SqlPlusSession> iterator = sessions.iterator();
+                while (iterator.hasNext()) {
+                    SqlPlusSession session = iterator.next();
+                    if (!session.isAlive() || now - session.getLastUsed() > idleTimeout) {
+                        iterator.remove();
+                        expired.add(session);
+                    }
+                }
+            }
+        }
+        for (SqlPlusSession session : expired) {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a SQL*Plus script into SQL statements, PL/SQL blocks and SQL*Plus
+ * commands, one statement at a time so scripts of any size are processed with
+ * bounded memory. The rules follow SQL*Plus:
+ * <ul>
+ * <li>PL/SQL blocks and stored program units end with a line containing only a
+ * slash;</li>
+ * <li>SQL statements end with a semicolon at the end of a line or with a slash
+ * line;</li>
+ * <li>SQL*Plus commands take a single line, continued by a trailing
+ * hyphen.</li>
+ * </ul>
+ * Comment lines between statements are skipped. Substitution variables are not
+ * supported; APEX exports run with "set define off".
+ */
+public class SqlScriptParser {
+
+    private static final List<String> COMMANDS = Arrays.asList("set", "prompt", "pro", "whenever", "spool", "start",
+            "exit", "quit", "define", "def", "undefine", "column", "col", "ttitle", "btitle", "show", "timing", "host",
+            "connect", "conn", "execute", "exec", "variable", "var", "print", "pause", "clear", "break", "compute",
+            "accept");
+    private static final Pattern SQL_SET = Pattern.compile("(?is)set\\s+(transaction|role|constraints?)\\b.*");
+    private static final Pattern PLSQL_START = Pattern.compile("(?is)(begin|declare|<<.*|create\\s+(or\\s+replace\\s+)?"
+            + "((editionable|noneditionable)\\s+)?(package|procedure|function|trigger|type|library|java)\\b.*)(\\s.*)?");
+    private static final Pattern CREATE_PREFIX = Pattern.compile("(?is)create(\\s+or\\s+replace)?(\\s+(editionable|noneditionable))?\\s*");
+    private final BufferedReader reader;
+    private final File file;
+    private int lineNumber;
+    private String pendingLine;
+
+    /**
+     * @param reader the script contents.
+     * @param file the script file, used to report statement locations and to
+     * resolve nested scripts. May be null.
+     */
+    public SqlScriptParser(Reader reader, File file) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Read the next statement.
+     *
+     * @return the next statement, or null at the end of the script.
+     * @throws IOException if the script can't be read.
+     */
+    public SqlStatement next() throws IOException {
+        String line;
+        String nextLine;
+
+        while ((line = readLine()) != null) {
+            String trimmed = line.trim();
+            String lower = trimmed.toLowerCase();
+            int startLine = lineNumber;
+
+            if (trimmed.isEmpty() || trimmed.equals("/") || trimmed.equals(".") || trimmed.startsWith("--")
+                    || lower.equals("rem") || lower.startsWith("rem ") || lower.startsWith("remark")) {
+                continue;
+            } else if (trimmed.startsWith("/*")) {
+                // code after the end of the comment on the same line is read as the next line
+                pendingLine = skipBlockComment(trimmed.substring(2));
+                continue;
+            } else if (isCommand(lower)) {
+                StringBuilder command = new StringBuilder(trimmed);
+                // a trailing hyphen continues a SQL*Plus command on the next line
+                while (command.length() > 0 && command.charAt(command.length() - 1) == '-' && (line = readLine()) != null) {
+                    command.setLength(command.length() - 1);
+                    command.append(line.trim());
+                }
+                return new SqlStatement(SqlStatement.Type.COMMAND, command.toString(), file, startLine);
+            }
+            // the object type of a create statement may follow on the next lines
+            while (CREATE_PREFIX.matcher(trimmed).matches() && (nextLine = readLine()) != null) {
+                line = line + "\n" + nextLine;
+                trimmed = line.trim();
+            }
+            if (PLSQL_START.matcher(trimmed).matches()) {
+                return new SqlStatement(SqlStatement.Type.PLSQL, readBlock(line), file, startLine);
+            }
+            return new SqlStatement(SqlStatement.Type.SQL, readSql(line), file, startLine);
+        }
+
+        return null;
+    }
+
+    /**
+     * Close the underlying reader.
+     *
+     * @throws IOException if the reader can't be closed.
+     */
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String readLine() throws IOException {
+        String line = pendingLine;
+
+        if (line != null) {
+            pendingLine = null;
+            return line;
+        }
+        line = reader.readLine();
+        if (line != null) {
+            lineNumber++;
+        }
+
+        return line;
+    }
+
+    private boolean isCommand(String lower) {
+        if (lower.startsWith("@")) {
+            return true;
+        } else if (SQL_SET.matcher(lower).matches()) {
+            return false;
+        }
+        for (String command : COMMANDS) {
+            if (lower.equals(command) || lower.startsWith(command + " ") || lower.startsWith(command + "\t")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Skip a block comment.
+     *
+     * @param rest the text following the comment start on the first line.
+     * @return the text following the comment end on its line, or null if it's
+     * blank.
+     */
+    private String skipBlockComment(String rest) throws IOException {
+        String line = rest;
+
+        while (line != null && !line.contains("*/")) {
+            line = readLine();
+        }
+        if (line == null || line.substring(line.indexOf("*/") + 2).trim().isEmpty()) {
+            return null;
+        }
+
+        return line.substring(line.indexOf("*/") + 2);
+    }
+
+    /**
+     * Read a PL/SQL block up to the terminating slash line.
+     */
+    private String readBlock(String firstLine) throws IOException {
+        StringBuilder block = new StringBuilder(firstLine);
+        String line;
+
+        while ((line = readLine()) != null && !line.trim().equals("/")) {
+            block.append('\n').append(line);
+        }
+
+        return block.toString();
+    }
+
+    /**
+     * Read a SQL statement up to a semicolon at the end of a line, outside of
+     * string literals (including q'[...]' literals) and comments, or up to a
+     * slash line.
+     */
+    private String readSql(String firstLine) throws IOException {
+        StringBuilder sql = new StringBuilder();
+        boolean inString = false;
+        boolean inComment = false;
+        char quoteEnd = 0;
+        String line = firstLine;
+
+        while (line != null) {
+            char lastCodeChar = ' ';
+            if (sql.length() > 0 && !inString && !inComment && line.trim().equals("/")) {
+                break;
+            }
+            if (sql.length() > 0) {
+                sql.append('\n');
+            }
+            sql.append(line);
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                char next = i + 1 < line.length() ? line.charAt(i + 1) : ' ';
+                if (inComment) {
+                    if (c == '*' && next == '/') {
+                        inComment = false;
+                        i++;
+                    }
+                } else if (inString && quoteEnd != 0) {
+                    if (c == quoteEnd && next == '\'') {
+                        inString = false;
+                        quoteEnd = 0;
+                        i++;
+                    }
+                } else if (inString) {
+                    inString = c != '\'';
+                } else if (isQuoteStart(line, i)) {
+                    inString = true;
+                    quoteEnd = getQuoteEnd(line.charAt(i + 2));
+                    i += 2;
+                } else if (c == '\'') {
+                    inString = true;
+                } else if (c == '-' && next == '-') {
+                    break;
+                } else if (c == '/' && next == '*') {
+                    inComment = true;
+                    i++;
+                } else if (!Character.isWhitespace(c)) {
+                    lastCodeChar = c;
+                }
+            }
+            if (!inString && !inComment && lastCodeChar == ';') {
+                return stripSemicolon(sql.toString());
+            }
+            line = readLine();
+        }
+
+        return sql.toString().trim();
+    }
+
+    /**
+     * @return true if a q'...' or nq'...' literal starts at the given
+     * position.
+     */
+    private static boolean isQuoteStart(String line, int i) {
+        char c = line.charAt(i);
+        int start = i;
+
+        if ((c != 'q' && c != 'Q') || i + 2 >= line.length() || line.charAt(i + 1) != '\'') {
+            return false;
+        }
+        if (start > 0 && (line.charAt(start - 1) == 'n' || line.charAt(start - 1) == 'N')) {
+            start--;
+        }
+        return start == 0 || !isIdentifierChar(line.charAt(start - 1));
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+
+    private static char getQuoteEnd(char delimiter) {
+        switch (delimiter) {
+            case '[':
+                return ']';
+            case '{':
+                return '}';
+            case '(':
+                return ')';
+            case '<':
+                return '>';
+            default:
+                return delimiter;
+        }
+    }
+
+    private static String stripSemicolon(String statement) {
+        String trimmed = statement.trim();
+
+        if (trimmed.endsWith(";")) {
+            return trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+}
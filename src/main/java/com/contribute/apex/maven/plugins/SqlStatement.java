@@ -0,0 +1,81 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+
+/**
+ * A single unit of a SQL*Plus script: a SQL statement, a PL/SQL block or a
+ * SQL*Plus command.
+ */
+public class SqlStatement {
+
+    /**
+     * The kind of statement.
+     */
+    public enum Type {
+
+        SQL, PLSQL, COMMAND
+    }
+    private final Type type;
+    private final String text;
+    private final File file;
+    private final int line;
+
+    /**
+     * @param type the kind of statement.
+     * @param text the statement text, without terminating semicolon or slash.
+     * @param file the script the statement was read from, or null.
+     * @param line the line number of the first line of the statement.
+     */
+    public SqlStatement(Type type, String text, File file, int line) {
+        this.type = type;
+        this.text = text;
+        this.file = file;
+        this.line = line;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the lower case first word of the statement.
+     */
+    public String getKeyword() {
+        String trimmed = text.trim();
+        int end = 0;
+
+        while (end < trimmed.length() && !Character.isWhitespace(trimmed.charAt(end))) {
+            end++;
+        }
+
+        return trimmed.substring(0, end).toLowerCase();
+    }
+
+    /**
+     * @return the text after the first word of the statement.
+     */
+    public String getArguments() {
+        String trimmed = text.trim();
+
+        return trimmed.substring(Math.min(trimmed.length(), getKeyword().length())).trim();
+    }
+
+    /**
+     * @return the file name and line number of the statement.
+     */
+    public String getLocation() {
+        return (file == null ? "<script>" : file.getName()) + ":" + line;
+    }
+}
@@ -0,0 +1,441 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Synchronize a local folder with the static application files of an
+ * application, or with the static workspace files if no application ID is
+ * specified. The SHA-256 checksums of the local files are compared with the
+ * checksums of the stored files, computed in the database with DBMS_CRYPTO, so
+ * only new and changed files are uploaded. Files are named after their path
+ * relative to the folder, e.g. css/app.css.
+ */
+@Mojo(name = "sync-static-files")
+public class StaticFilesSyncMojo extends AbstractMojo {
+
+    /**
+     * The database connection string (e.g. localhost:1521/orcl.company.com).
+     */
+    @Parameter(property = "sync-static-files.connectionString")
+    private String connectionString;
+    /**
+     * The database username used to login: the parsing schema of the
+     * application or a schema assigned to the workspace. The user needs the
+     * execute privilege on DBMS_CRYPTO.
+     */
+    @Parameter(property = "sync-static-files.username",
+    required = true)
+    private String username;
+    /**
+     * The database user's password.
+     */
+    @Parameter(property = "sync-static-files.password",
+    required = true)
+    private String password;
+    /**
+     * The JDBC URL. Defaults to a thin driver URL derived from the
+     * connectionString.
+     */
+    @Parameter(property = "sync-static-files.jdbcUrl")
+    private String jdbcUrl;
+    /**
+     * The JDBC driver class. The driver has to be added as a plugin
+     * dependency.
+     */
+    @Parameter(property = "sync-static-files.jdbcDriver",
+    defaultValue = "oracle.jdbc.OracleDriver")
+    private String jdbcDriver;
+    /**
+     * The workspace of the static files.
+     */
+    @Parameter(property = "sync-static-files.workspaceName",
+    required = true)
+    private String workspaceName;
+    /**
+     * The ID of the application whose static application files are
+     * synchronized. The static workspace files are synchronized when it's not
+     * specified.
+     */
+    @Parameter(property = "sync-static-files.appId")
+    private String appId;
+    /**
+     * The folder containing the static files.
+     */
+    @Parameter(property = "sync-static-files.sourceDirectory",
+    defaultValue = "${project.basedir}/src/main/static")
+    private File sourceDirectory;
+    /**
+     * Remove the stored files that don't exist in the sourceDirectory. The
+     * goal fails instead of removing all stored files when the sourceDirectory
+     * is empty.
+     */
+    @Parameter(property = "sync-static-files.removeDeletedFiles",
+    defaultValue = "false")
+    private boolean removeDeletedFiles;
+    /**
+     * The maximum number of files sent to the database in one batch.
+     */
+    @Parameter(property = "sync-static-files.batchSize",
+    defaultValue = "20")
+    private int batchSize;
+    /**
+     * Additional or overriding MIME types by file extension, e.g.
+     * &lt;mjs&gt;text/javascript&lt;/mjs&gt;.
+     */
+    @Parameter
+    private Map<String, String> mimeTypes;
+    /**
+     * Only log the files that would be uploaded and removed.
+     */
+    @Parameter(property = "sync-static-files.dryRun",
+    defaultValue = "false")
+    private boolean dryRun;
+    private static final String SET_WORKSPACE = "begin apex_util.set_security_group_id(apex_util.find_security_group_id(p_workspace => ?)); end;";
+    private static final String APP_FILES_QUERY = "select application_file_id, file_name, mime_type,"
+            + " lower(rawtohex(dbms_crypto.hash(file_content, 4 /* dbms_crypto.hash_sh256 */)))"
+            + " from apex_application_static_files where application_id = ?";
+    private static final String WORKSPACE_FILES_QUERY = "select workspace_file_id, file_name, mime_type,"
+            + " lower(rawtohex(dbms_crypto.hash(file_content, 4 /* dbms_crypto.hash_sh256 */)))"
+            + " from apex_workspace_static_files where workspace = upper(?)";
+    private static final String APP_FILE_REMOVE = "begin wwv_flow_api.remove_app_static_file(p_id => ?, p_flow_id => ?); end;";
+    private static final String APP_FILE_CREATE = "begin wwv_flow_api.create_app_static_file(p_flow_id => ?, p_file_name => ?, p_mime_type => ?,"
+            + " p_file_charset => ?, p_file_content => ?); end;";
+    private static final String WORKSPACE_FILE_REMOVE = "begin wwv_flow_api.remove_workspace_static_file(p_id => ?); end;";
+    private static final String WORKSPACE_FILE_CREATE = "begin wwv_flow_api.create_workspace_static_file(p_file_name => ?, p_mime_type => ?,"
+            + " p_file_charset => ?, p_file_content => ?); end;";
+    private static final Map<String, String> DEFAULT_MIME_TYPES = new HashMap<String, String>();
+
+    static {
+        DEFAULT_MIME_TYPES.put("js", "application/javascript");
+        DEFAULT_MIME_TYPES.put("mjs", "application/javascript");
+        DEFAULT_MIME_TYPES.put("css", "text/css");
+        DEFAULT_MIME_TYPES.put("html", "text/html");
+        DEFAULT_MIME_TYPES.put("htm", "text/html");
+        DEFAULT_MIME_TYPES.put("json", "application/json");
+        DEFAULT_MIME_TYPES.put("map", "application/json");
+        DEFAULT_MIME_TYPES.put("xml", "text/xml");
+        DEFAULT_MIME_TYPES.put("txt", "text/plain");
+        DEFAULT_MIME_TYPES.put("svg", "image/svg+xml");
+        DEFAULT_MIME_TYPES.put("png", "image/png");
+        DEFAULT_MIME_TYPES.put("gif", "image/gif");
+        DEFAULT_MIME_TYPES.put("jpg", "image/jpeg");
+        DEFAULT_MIME_TYPES.put("jpeg", "image/jpeg");
+        DEFAULT_MIME_TYPES.put("ico", "image/x-icon");
+        DEFAULT_MIME_TYPES.put("webp", "image/webp");
+        DEFAULT_MIME_TYPES.put("woff", "font/woff");
+        DEFAULT_MIME_TYPES.put("woff2", "font/woff2");
+        DEFAULT_MIME_TYPES.put("ttf", "font/ttf");
+        DEFAULT_MIME_TYPES.put("otf", "font/otf");
+        DEFAULT_MIME_TYPES.put("eot", "application/vnd.ms-fontobject");
+    }
+
+    /**
+     * The method called by Maven when the 'sync-static-files' goal gets
+     * executed.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        String url = jdbcUrl != null ? jdbcUrl : connectionString != null ? JdbcScriptRunner.getThinUrl(connectionString) : null;
+        String owner = appId != null ? "application " + appId : "workspace " + workspaceName.toUpperCase();
+        Map<String, File> localFiles = new TreeMap<String, File>();
+        Map<String, String> localDigests = new HashMap<String, String>();
+        Map<String, StoredFile> storedFiles;
+        List<String> uploads = new ArrayList<String>();
+        List<StoredFile> removals = new ArrayList<StoredFile>();
+        Connection connection;
+        boolean committed = false;
+        long uploadSize = 0;
+        long startTime = System.currentTimeMillis();
+
+        if (url == null) {
+            throw new MojoExecutionException("The connectionString or jdbcUrl parameter is required");
+        } else if (appId != null && !appId.trim().matches("\\d+")) {
+            throw new MojoExecutionException("Invalid application ID: " + appId);
+        } else if (!sourceDirectory.isDirectory()) {
+            throw new MojoExecutionException("The sourceDirectory folder doesn't exist: " + sourceDirectory.getAbsolutePath());
+        }
+        addLocalFiles(sourceDirectory, "", localFiles);
+        if (removeDeletedFiles && localFiles.isEmpty()) {
+            throw new MojoExecutionException("The sourceDirectory folder is empty; refusing to remove all static files of " + owner);
+        }
+        try {
+            for (Map.Entry<String, File> localFile : localFiles.entrySet()) {
+                localDigests.put(localFile.getKey(), getDigest(localFile.getValue()));
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to read the static files: " + ex.getMessage(), ex);
+        }
+
+        connection = JdbcScriptRunner.connect(jdbcDriver, url, username, password);
+        try {
+            try {
+                setWorkspace(connection);
+                storedFiles = getStoredFiles(connection);
+
+                for (Map.Entry<String, File> localFile : localFiles.entrySet()) {
+                    StoredFile storedFile = storedFiles.get(localFile.getKey());
+                    if (storedFile != null && localDigests.get(localFile.getKey()).equals(storedFile.digest)
+                            && getMimeType(localFile.getKey()).equals(storedFile.mimeType)) {
+                        continue;
+                    }
+                    // APEX keeps a file per name, so a changed file is removed before it's uploaded again
+                    if (storedFile != null) {
+                        removals.add(storedFile);
+                    }
+                    uploads.add(localFile.getKey());
+                    uploadSize += localFile.getValue().length();
+                    getLog().info((storedFile == null ? "New: " : "Changed: ") + localFile.getKey());
+                }
+                if (removeDeletedFiles) {
+                    for (StoredFile storedFile : storedFiles.values()) {
+                        if (!localFiles.containsKey(storedFile.name)) {
+                            removals.add(storedFile);
+                            getLog().info("Removed: " + storedFile.name);
+                        }
+                    }
+                }
+
+                if (dryRun) {
+                    getLog().info("Dry run: " + uploads.size() + " file(s) of " + owner + " to upload (" + uploadSize + " bytes), "
+                            + countRemoved(removals, localFiles) + " to remove");
+                    return;
+                }
+                remove(connection, removals);
+                upload(connection, uploads, localFiles);
+                connection.commit();
+                committed = true;
+            } finally {
+                if (!committed) {
+                    connection.rollback();
+                }
+                connection.close();
+            }
+        } catch (SQLException ex) {
+            throw new MojoExecutionException("Unable to synchronize the static files of " + owner + ": " + ex.getMessage().trim(), ex);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to upload the static files of " + owner + ": " + ex.getMessage(), ex);
+        }
+
+        getLog().info("Synchronized " + localFiles.size() + " static file(s) of " + owner + ": " + uploads.size() + " uploaded (" + uploadSize + " bytes), "
+                + countRemoved(removals, localFiles) + " removed, " + (localFiles.size() - uploads.size()) + " unchanged, in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * @return the number of removed files that are not uploaded again.
+     */
+    private static int countRemoved(List<StoredFile> removals, Map<String, File> localFiles) {
+        int count = 0;
+
+        for (StoredFile removal : removals) {
+            if (!localFiles.containsKey(removal.name)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static void addLocalFiles(File folder, String path, Map<String, File> localFiles) {
+        File[] files = folder.listFiles();
+
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().startsWith(".")) {
+                continue;
+            } else if (file.isDirectory()) {
+                addLocalFiles(file, path + file.getName() + "/", localFiles);
+            } else {
+                localFiles.put(path + file.getName(), file);
+            }
+        }
+    }
+
+    private static String getDigest(File file) throws IOException {
+        MessageDigest digest = ImportState.getSha256();
+        InputStream input = new FileInputStream(file);
+        byte[] buffer = new byte[65536];
+        int length;
+
+        try {
+            while ((length = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, length);
+            }
+        } finally {
+            input.close();
+        }
+
+        return ImportState.toHex(digest.digest());
+    }
+
+    private void setWorkspace(Connection connection) throws SQLException {
+        CallableStatement call = connection.prepareCall(SET_WORKSPACE);
+
+        try {
+            call.setString(1, workspaceName);
+            call.execute();
+        } finally {
+            call.close();
+        }
+    }
+
+    /**
+     * @return the stored files with their SHA-256 checksum, by name.
+     */
+    private Map<String, StoredFile> getStoredFiles(Connection connection) throws SQLException {
+        Map<String, StoredFile> storedFiles = new HashMap<String, StoredFile>();
+        PreparedStatement statement = connection.prepareStatement(appId != null ? APP_FILES_QUERY : WORKSPACE_FILES_QUERY);
+
+        try {
+            statement.setString(1, appId != null ? appId.trim() : workspaceName);
+            ResultSet resultSet = statement.executeQuery();
+            try {
+                while (resultSet.next()) {
+                    StoredFile storedFile = new StoredFile(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3), resultSet.getString(4));
+                    storedFiles.put(storedFile.name, storedFile);
+                }
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+
+        return storedFiles;
+    }
+
+    private void remove(Connection connection, List<StoredFile> removals) throws SQLException {
+        CallableStatement call;
+        int batchCount = 0;
+
+        if (removals.isEmpty()) {
+            return;
+        }
+        call = connection.prepareCall(appId != null ? APP_FILE_REMOVE : WORKSPACE_FILE_REMOVE);
+        try {
+            for (StoredFile removal : removals) {
+                call.setString(1, removal.id);
+                if (appId != null) {
+                    call.setString(2, appId.trim());
+                }
+                call.addBatch();
+                if (++batchCount == Math.max(1, batchSize)) {
+                    call.executeBatch();
+                    batchCount = 0;
+                }
+            }
+            if (batchCount > 0) {
+                call.executeBatch();
+            }
+        } finally {
+            call.close();
+        }
+    }
+
+    /**
+     * Upload files in batches. The file contents are streamed; only the files
+     * of the current batch are open.
+     */
+    private void upload(Connection connection, List<String> uploads, Map<String, File> localFiles) throws SQLException, IOException {
+        List<InputStream> inputs = new ArrayList<InputStream>();
+        CallableStatement call;
+        int parameter;
+
+        if (uploads.isEmpty()) {
+            return;
+        }
+        call = connection.prepareCall(appId != null ? APP_FILE_CREATE : WORKSPACE_FILE_CREATE);
+        try {
+            for (String fileName : uploads) {
+                File file = localFiles.get(fileName);
+                InputStream input = new FileInputStream(file);
+                String mimeType = getMimeType(fileName);
+                inputs.add(input);
+                parameter = 1;
+                if (appId != null) {
+                    call.setString(parameter++, appId.trim());
+                }
+                call.setString(parameter++, fileName);
+                call.setString(parameter++, mimeType);
+                call.setString(parameter++, mimeType.startsWith("text/") || mimeType.endsWith("javascript") || mimeType.endsWith("json")
+                        || mimeType.endsWith("xml") ? "utf-8" : null);
+                call.setBinaryStream(parameter, input, file.length());
+                call.addBatch();
+                if (inputs.size() == Math.max(1, batchSize)) {
+                    call.executeBatch();
+                    close(inputs);
+                }
+            }
+            if (!inputs.isEmpty()) {
+                call.executeBatch();
+            }
+        } finally {
+            close(inputs);
+            call.close();
+        }
+    }
+
+    private static void close(List<InputStream> inputs) throws IOException {
+        for (InputStream input : inputs) {
+            input.close();
+        }
+        inputs.clear();
+    }
+
+    /**
+     * @param fileName the file name.
+     * @return the configured or default MIME type of the file extension.
+     */
+    private String getMimeType(String fileName) {
+        String extension = fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase() : "";
+        String mimeType = URLConnection.guessContentTypeFromName(fileName);
+
+        if (mimeTypes != null && mimeTypes.containsKey(extension)) {
+            return mimeTypes.get(extension);
+        } else if (DEFAULT_MIME_TYPES.containsKey(extension)) {
+            return DEFAULT_MIME_TYPES.get(extension);
+        }
+
+        return mimeType != null ? mimeType : "application/octet-stream";
+    }
+
+    /**
+     * A static file stored in the database.
+     */
+    private static class StoredFile {
+
+        private final String id;
+        private final String name;
+        private final String mimeType;
+        private final String digest;
+
+        StoredFile(String id, String name, String mimeType, String digest) {
+            this.id = id;
+            this.name = name;
+            this.mimeType = mimeType == null ? "" : mimeType;
+            this.digest = digest;
+        }
+    }
+}
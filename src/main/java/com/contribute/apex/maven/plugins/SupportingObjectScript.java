@@ -0,0 +1,210 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An install script of the supporting objects of an application, with the
+ * database objects it creates and the names it references. A script of SQL
+ * statements, whether they create objects or load data, depends on the
+ * earlier scripts that use an object it uses; a script that runs PL/SQL
+ * blocks runs on its own, after all earlier scripts.
+ */
+public class SupportingObjectScript {
+
+    private static final List<String> CREATE_MODIFIERS = Arrays.asList("or", "replace", "force", "noforce", "editionable", "noneditionable",
+            "global", "private", "temporary", "unique", "bitmap", "public", "materialized", "shared");
+    private static final List<String> OBJECT_TYPES = Arrays.asList("table", "view", "sequence", "package", "procedure", "function", "type",
+            "trigger", "synonym", "index", "context");
+    private static final List<String> SEQUENTIAL_COMMANDS = Arrays.asList("exec", "execute", "start", "connect", "conn");
+    private final String name;
+    private final int sequence;
+    private final String text;
+    private final Set<String> createdObjects = new LinkedHashSet<String>();
+    private final Set<String> referencedNames = new LinkedHashSet<String>();
+    private final List<SupportingObjectScript> dependencies = new ArrayList<SupportingObjectScript>();
+    private boolean sequential;
+
+    /**
+     * @param name the script name.
+     * @param sequence the install sequence.
+     * @param text the SQL*Plus script.
+     */
+    public SupportingObjectScript(String name, int sequence, String text) {
+        this.name = name;
+        this.sequence = sequence;
+        this.text = text;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the names of the objects created by the script, as stored in
+     * the data dictionary.
+     */
+    public Set<String> getCreatedObjects() {
+        return createdObjects;
+    }
+
+    /**
+     * @return the identifiers used in the script, as stored in the data
+     * dictionary.
+     */
+    public Set<String> getReferencedNames() {
+        return referencedNames;
+    }
+
+    /**
+     * @return true if the script runs PL/SQL blocks, calls other scripts or
+     * connects, so the objects it uses can't be told from its text.
+     */
+    public boolean isSequential() {
+        return sequential;
+    }
+
+    /**
+     * @return the scripts that have to finish before this script can run.
+     */
+    public List<SupportingObjectScript> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Collect the created objects and referenced names from the script text,
+     * and find out whether the script has to run on its own. Only the CREATE
+     * statements of the script are recognized; objects created with dynamic
+     * SQL are not.
+     *
+     * @throws IOException if the script can't be tokenized.
+     */
+    public void analyze() throws IOException {
+        PlsqlTokenizer tokenizer = new PlsqlTokenizer(new StringReader(text));
+        SqlScriptParser parser = new SqlScriptParser(new StringReader(text), null);
+        PlsqlTokenizer.Token token;
+        SqlStatement statement;
+
+        try {
+            while (!sequential && (statement = parser.next()) != null) {
+                if (statement.getType() == SqlStatement.Type.COMMAND) {
+                    sequential = statement.getKeyword().startsWith("@") || SEQUENTIAL_COMMANDS.contains(statement.getKeyword());
+                } else if (statement.getType() == SqlStatement.Type.PLSQL) {
+                    // stored program units are created like any other object, anonymous blocks can do anything
+                    sequential = !statement.getKeyword().equals("create");
+                }
+            }
+        } finally {
+            parser.close();
+        }
+
+        while ((token = tokenizer.next()) != null) {
+            if (token.isIdentifier()) {
+                referencedNames.add(token.getIdentifier());
+            }
+            if (token.is("create")) {
+                PlsqlTokenizer.Token objectName = getCreatedObject(tokenizer);
+                if (objectName != null) {
+                    createdObjects.add(objectName.getIdentifier());
+                    referencedNames.add(objectName.getIdentifier());
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the type and name of a CREATE statement.
+     *
+     * @return the last part of the object name, or null if the statement
+     * doesn't create a recognized object.
+     */
+    private static PlsqlTokenizer.Token getCreatedObject(PlsqlTokenizer tokenizer) throws IOException {
+        PlsqlTokenizer.Token token = tokenizer.next();
+        PlsqlTokenizer.Token objectName;
+
+        while (token != null && CREATE_MODIFIERS.contains(token.getText().toLowerCase())) {
+            token = tokenizer.next();
+        }
+        if (token == null || !OBJECT_TYPES.contains(token.getText().toLowerCase())) {
+            if (token != null) {
+                tokenizer.pushBack(token);
+            }
+            return null;
+        }
+        objectName = tokenizer.next();
+        if (objectName != null && objectName.is("body")) {
+            objectName = tokenizer.next();
+        }
+        if (objectName == null || !objectName.isIdentifier()) {
+            return null;
+        }
+        token = tokenizer.next();
+        if (token != null && token.is(".")) {
+            token = tokenizer.next();
+            return token != null && token.isIdentifier() ? token : null;
+        } else if (token != null) {
+            tokenizer.pushBack(token);
+        }
+
+        return objectName;
+    }
+
+    /**
+     * Analyze the scripts and link them so that the install order of the
+     * export is kept wherever it may matter. A script of SQL statements, e.g.
+     * DDL or seed data, depends on the earlier scripts that use one of the
+     * objects it uses, whether it creates the object, refers to it in a
+     * foreign key or inserts rows in it. A script that runs PL/SQL blocks,
+     * exec commands, nested scripts or connect depends on all earlier scripts
+     * and all later scripts depend on it. Only objects created by the scripts
+     * are considered, so scripts that use existing tables can still run
+     * concurrently.
+     *
+     * @param scripts the scripts in install order.
+     * @throws IOException if a script can't be tokenized.
+     */
+    public static void resolveDependencies(List<SupportingObjectScript> scripts) throws IOException {
+        Set<String> createdObjects = new HashSet<String>();
+        List<SupportingObjectScript> sinceBarrier = new ArrayList<SupportingObjectScript>();
+        SupportingObjectScript barrier = null;
+
+        for (SupportingObjectScript script : scripts) {
+            script.analyze();
+            createdObjects.addAll(script.getCreatedObjects());
+        }
+        for (SupportingObjectScript script : scripts) {
+            if (barrier != null) {
+                script.dependencies.add(barrier);
+            }
+            if (script.isSequential()) {
+                script.dependencies.addAll(sinceBarrier);
+                barrier = script;
+                sinceBarrier.clear();
+                continue;
+            }
+            for (SupportingObjectScript earlierScript : sinceBarrier) {
+                for (String referencedName : script.getReferencedNames()) {
+                    if (createdObjects.contains(referencedName) && earlierScript.getReferencedNames().contains(referencedName)) {
+                        script.dependencies.add(earlierScript);
+                        break;
+                    }
+                }
+            }
+            sinceBarrier.add(script);
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Installs the supporting objects of an application outside APEX: the install
+ * scripts are extracted from the export files and run over concurrent JDBC
+ * sessions as soon as the scripts they depend on have finished. Consecutive
+ * statements, like the inserts of seed data, are sent in batches. Like in
+ * APEX, the scripts run in the parsing schema of the application; a session
+ * is reset before it runs the next script.
+ */
+public class SupportingObjectsInstaller {
+
+    /**
+     * The outcome of an install script.
+     */
+    public enum Status {
+
+        SUCCESS, FAILED, SKIPPED
+    }
+    private static final Pattern INSTALL_SCRIPT_CALL = Pattern.compile("create_install_script\\s*\\(");
+    private static final Pattern SCRIPT_CLOB = Pattern.compile("p_script_clob\\s*=>\\s*");
+    private static final Pattern JOINED_LINES = Pattern.compile("\\G(wwv_flow_string|wwv_flow_utilities)\\.join\\s*\\(\\s*wwv_flow_t_varchar2\\s*\\(");
+    private static final Pattern NAME = Pattern.compile("p_name\\s*=>\\s*'((?:[^']|'')*)'");
+    private static final Pattern SEQUENCE = Pattern.compile("p_sequence\\s*=>\\s*(\\d+)");
+    private static final Pattern SCRIPT_TYPE = Pattern.compile("p_script_type\\s*=>\\s*'(\\w+)'");
+    private static final Pattern CONDITION = Pattern.compile("p_condition_type\\s*=>\\s*'");
+    private final String jdbcDriver;
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final String schema;
+    private final int sessions;
+    private final int batchSize;
+    private final Log log;
+    private final String logPrefix;
+
+    /**
+     * @param jdbcDriver the JDBC driver class.
+     * @param jdbcUrl the JDBC URL.
+     * @param username the database username.
+     * @param password the database password.
+     * @param schema the parsing schema of the application, set as the current
+     * schema of every session.
+     * @param sessions the maximum number of concurrent sessions.
+     * @param batchSize the maximum number of statements sent in one batch.
+     * @param log the Maven log.
+     * @param logPrefix the prefix for every logged line.
+     */
+    public SupportingObjectsInstaller(String jdbcDriver, String jdbcUrl, String username, String password, String schema, int sessions, int batchSize,
+            Log log, String logPrefix) {
+        this.jdbcDriver = jdbcDriver;
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.schema = schema;
+        this.sessions = Math.max(1, sessions);
+        this.batchSize = batchSize;
+        this.log = log;
+        this.logPrefix = logPrefix;
+    }
+
+    /**
+     * Extract the install scripts of the supporting objects from the export
+     * files in a folder and its subfolders.
+     *
+     * @param exportFolder the export folder.
+     * @return the install scripts in install order.
+     * @throws IOException if an export file can't be read.
+     * @throws IllegalArgumentException if an install script can't be run
+     * outside APEX, e.g. because it has a condition.
+     */
+    public static List<SupportingObjectScript> extract(File exportFolder) throws IOException {
+        List<SupportingObjectScript> scripts = new ArrayList<SupportingObjectScript>();
+        List<File> exportFiles = new ArrayList<File>();
+
+        addExportFiles(exportFolder, exportFiles);
+        Collections.sort(exportFiles);
+        for (File exportFile : exportFiles) {
+            extract(exportFile, scripts);
+        }
+        Collections.sort(scripts, new Comparator<SupportingObjectScript>() {
+            @Override
+            public int compare(SupportingObjectScript script1, SupportingObjectScript script2) {
+                return script1.getSequence() < script2.getSequence() ? -1 : script1.getSequence() == script2.getSequence() ? 0 : 1;
+            }
+        });
+
+        return scripts;
+    }
+
+    private static void addExportFiles(File folder, List<File> exportFiles) {
+        File[] files = folder.listFiles();
+
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                addExportFiles(file, exportFiles);
+            } else if (file.getName().toLowerCase().endsWith(".sql")) {
+                exportFiles.add(file);
+            }
+        }
+    }
+
+    /**
+     * Collect the create_install_script calls of an export file. A call ends
+     * with a line containing only ");".
+     */
+    private static void extract(File exportFile, List<SupportingObjectScript> scripts) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(exportFile), "UTF-8"));
+        StringBuilder call = null;
+        String line;
+
+        try {
+            while ((line = reader.readLine()) != null) {
+                if (call == null) {
+                    Matcher matcher = INSTALL_SCRIPT_CALL.matcher(line);
+                    if (matcher.find()) {
+                        call = new StringBuilder(line.substring(matcher.end()));
+                    }
+                } else if (line.trim().equals(");")) {
+                    SupportingObjectScript script = parseCall(call.toString(), exportFile);
+                    if (script != null) {
+                        scripts.add(script);
+                    }
+                    call = null;
+                } else {
+                    call.append('\n').append(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @param call the parameters of a create_install_script call.
+     * @return the install script, or null for other script types.
+     */
+    private static SupportingObjectScript parseCall(String call, File exportFile) {
+        Matcher clob = SCRIPT_CLOB.matcher(call);
+        StringBuilder text = new StringBuilder();
+        String parameters;
+        Matcher matcher;
+        String name;
+        int end;
+
+        if (!clob.find()) {
+            throw new IllegalArgumentException("install script without p_script_clob in " + exportFile.getName());
+        }
+        // upgrade and deinstall scripts are not needed, whatever their format
+        matcher = SCRIPT_TYPE.matcher(call.substring(0, clob.start()));
+        if (matcher.find() && !matcher.group(1).equalsIgnoreCase("INSTALL")) {
+            return null;
+        }
+        end = parseClob(call, clob.end(), text);
+        if (end < 0) {
+            throw new IllegalArgumentException("unsupported p_script_clob format in " + exportFile.getName());
+        }
+        parameters = call.substring(0, clob.start()) + call.substring(end);
+
+        matcher = NAME.matcher(parameters);
+        name = matcher.find() ? matcher.group(1).replace("''", "'") : exportFile.getName();
+        if (CONDITION.matcher(parameters).find()) {
+            throw new IllegalArgumentException("install script " + name + " has a condition");
+        }
+        matcher = SEQUENCE.matcher(parameters);
+
+        return new SupportingObjectScript(name, matcher.find() ? Integer.parseInt(matcher.group(1)) : 0, text.toString());
+    }
+
+    /**
+     * Parse the value of the p_script_clob parameter: a literal, literals
+     * concatenated with ||, or a join of a wwv_flow_t_varchar2 list of such
+     * values, one per line.
+     *
+     * @param call the parameters of the call.
+     * @param start the start of the value.
+     * @param text the builder the script text is appended to.
+     * @return the end of the value, or -1 if the value can't be parsed.
+     */
+    private static int parseClob(String call, int start, StringBuilder text) {
+        Matcher joinedLines = JOINED_LINES.matcher(call);
+        boolean joined = joinedLines.find(start);
+        int position = joined ? joinedLines.end() : start;
+
+        while (true) {
+            position = skipWhitespace(call, position);
+            if (position >= call.length() || call.charAt(position) != '\'') {
+                return -1;
+            }
+            position++;
+            while (position < call.length()) {
+                if (call.charAt(position) == '\'') {
+                    if (position + 1 < call.length() && call.charAt(position + 1) == '\'') {
+                        text.append('\'');
+                        position += 2;
+                        continue;
+                    }
+                    break;
+                }
+                text.append(call.charAt(position++));
+            }
+            position = skipWhitespace(call, position + 1);
+            if (call.startsWith("||", position)) {
+                position += 2;
+            } else if (joined && call.startsWith(",", position)) {
+                text.append('\n');
+                position++;
+            } else if (joined && call.startsWith("))", position)) {
+                return position + 2;
+            } else if (!joined && (position >= call.length() || call.charAt(position) == ',')) {
+                return position;
+            } else {
+                return -1;
+            }
+        }
+    }
+
+    private static int skipWhitespace(String text, int position) {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Run the install scripts. A script starts as soon as the scripts it
+     * depends on have succeeded; the scripts that depend on a failed script
+     * are skipped. Every session stops at the first error of a script and
+     * rolls back its uncommitted changes.
+     *
+     * @param scripts the install scripts with resolved dependencies, in
+     * install order.
+     * @return the result per script, in install order.
+     * @throws MojoExecutionException if the installation is interrupted.
+     */
+    public List<Result> install(List<SupportingObjectScript> scripts) throws MojoExecutionException {
+        final Queue<Connection> connections = new ConcurrentLinkedQueue<Connection>();
+        Map<SupportingObjectScript, Result> results = new HashMap<SupportingObjectScript, Result>();
+        Map<SupportingObjectScript, Integer> pendingDependencies = new HashMap<SupportingObjectScript, Integer>();
+        Map<SupportingObjectScript, List<SupportingObjectScript>> dependents = new HashMap<SupportingObjectScript, List<SupportingObjectScript>>();
+        List<Result> orderedResults = new ArrayList<Result>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(sessions, Math.max(1, scripts.size())));
+        CompletionService<Result> completionService = new ExecutorCompletionService<Result>(executor);
+        int running = 0;
+
+        for (SupportingObjectScript script : scripts) {
+            pendingDependencies.put(script, script.getDependencies().size());
+            dependents.put(script, new ArrayList<SupportingObjectScript>());
+        }
+        for (SupportingObjectScript script : scripts) {
+            for (SupportingObjectScript dependency : script.getDependencies()) {
+                dependents.get(dependency).add(script);
+            }
+        }
+
+        try {
+            for (SupportingObjectScript script : scripts) {
+                if (script.getDependencies().isEmpty()) {
+                    completionService.submit(getInstallTask(script, connections));
+                    running++;
+                }
+            }
+            while (running > 0) {
+                Result result = completionService.take().get();
+                running--;
+                results.put(result.getScript(), result);
+                for (SupportingObjectScript dependent : dependents.get(result.getScript())) {
+                    if (result.getStatus() != Status.SUCCESS) {
+                        skip(dependent, result.getScript(), results, dependents);
+                    } else if (!results.containsKey(dependent)) {
+                        pendingDependencies.put(dependent, pendingDependencies.get(dependent) - 1);
+                        if (pendingDependencies.get(dependent) == 0) {
+                            completionService.submit(getInstallTask(dependent, connections));
+                            running++;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            throw new MojoExecutionException("Interrupted while installing the supporting objects", ex);
+        } catch (ExecutionException ex) {
+            throw new MojoExecutionException("An unexpected error occurred while installing the supporting objects", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException ex) {
+                    log.debug(logPrefix + "Unable to close a supporting objects session: " + ex.getMessage());
+                }
+            }
+        }
+
+        for (SupportingObjectScript script : scripts) {
+            orderedResults.add(results.get(script));
+        }
+
+        return orderedResults;
+    }
+
+    private void skip(SupportingObjectScript script, SupportingObjectScript failedDependency, Map<SupportingObjectScript, Result> results,
+            Map<SupportingObjectScript, List<SupportingObjectScript>> dependents) {
+        if (results.containsKey(script)) {
+            return;
+        }
+        results.put(script, new Result(script, Status.SKIPPED, 0, "depends on " + failedDependency.getName()));
+        for (SupportingObjectScript dependent : dependents.get(script)) {
+            skip(dependent, script, results, dependents);
+        }
+    }
+
+    /**
+     * @return the task that runs a script in an idle session, or in a new
+     * session if none is idle.
+     */
+    private Callable<Result> getInstallTask(final SupportingObjectScript script, final Queue<Connection> connections) {
+        return new Callable<Result>() {
+            @Override
+            public Result call() {
+                Connection connection = connections.poll();
+                boolean reused = connection != null;
+                JdbcScriptRunner runner;
+                long startTime = System.currentTimeMillis();
+
+                if (connection == null) {
+                    try {
+                        connection = JdbcScriptRunner.connect(jdbcDriver, jdbcUrl, username, password);
+                    } catch (MojoExecutionException ex) {
+                        return new Result(script, Status.FAILED, System.currentTimeMillis() - startTime, ex.getMessage());
+                    }
+                }
+                try {
+                    prepareSession(connection, reused);
+                    log.debug(logPrefix + "Installing supporting objects script " + script.getName() + " (sequence " + script.getSequence() + ")");
+                    runner = new JdbcScriptRunner(connection, log, logPrefix + "[" + script.getName() + "] ", batchSize);
+                    runner.run(new StringReader("whenever sqlerror exit 1\n" + script.getText() + "\n"), null);
+                    runner.close();
+                    if (runner.getErrorCount() > 0) {
+                        // the script switched to "whenever sqlerror continue"
+                        return new Result(script, Status.FAILED, System.currentTimeMillis() - startTime,
+                                runner.getErrorCount() + " statement(s) failed");
+                    }
+                    return new Result(script, Status.SUCCESS, System.currentTimeMillis() - startTime, null);
+                } catch (IOException ex) {
+                    return new Result(script, Status.FAILED, System.currentTimeMillis() - startTime, ex.getMessage());
+                } catch (SQLException ex) {
+                    return new Result(script, Status.FAILED, System.currentTimeMillis() - startTime, ex.getMessage().trim());
+                } finally {
+                    connections.add(connection);
+                }
+            }
+        };
+    }
+
+    /**
+     * Prepare a session for a script. A reused session is reset first, so the
+     * uncommitted changes, package state and current schema left behind by
+     * the previous script don't affect the next one.
+     *
+     * @param connection the session.
+     * @param reused true if the session ran a script before.
+     */
+    private void prepareSession(Connection connection, boolean reused) throws SQLException {
+        Statement statement = connection.createStatement();
+
+        try {
+            if (reused) {
+                connection.rollback();
+                statement.execute("begin dbms_session.reset_package; end;");
+            }
+            statement.execute("alter session set current_schema = \"" + schema.replace("\"", "") + "\"");
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Write the JSON and CSV report of the install scripts.
+     *
+     * @param jsonFile the JSON report file.
+     * @param csvFile the CSV report file.
+     * @param label the application label.
+     * @param results the result per script.
+     * @throws IOException if a report can't be written.
+     */
+    public static void writeReport(File jsonFile, File csvFile, String label, List<Result> results) throws IOException {
+        Writer writer;
+
+        jsonFile.getAbsoluteFile().getParentFile().mkdirs();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(jsonFile), "UTF-8"));
+        try {
+            writer.write("{\n  \"application\": " + ImportTimings.toJsonString(label) + ",\n  \"scripts\": [");
+            for (int i = 0; i < results.size(); i++) {
+                Result result = results.get(i);
+                writer.write((i == 0 ? "\n" : ",\n") + "    {\"name\": " + ImportTimings.toJsonString(result.getScript().getName())
+                        + ", \"sequence\": " + result.getScript().getSequence()
+                        + ", \"status\": " + ImportTimings.toJsonString(result.getStatus().name())
+                        + ", \"durationMs\": " + result.getDuration() + ", \"dependsOn\": [");
+                for (int j = 0; j < result.getScript().getDependencies().size(); j++) {
+                    writer.write((j == 0 ? "" : ", ") + ImportTimings.toJsonString(result.getScript().getDependencies().get(j).getName()));
+                }
+                writer.write("], \"message\": " + (result.getMessage() == null ? "null" : ImportTimings.toJsonString(result.getMessage())) + "}");
+            }
+            writer.write(results.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        } finally {
+            writer.close();
+        }
+
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csvFile), "UTF-8"));
+        try {
+            writer.write("name,sequence,status,duration_ms,depends_on,message\n");
+            for (Result result : results) {
+                StringBuilder dependencies = new StringBuilder();
+                for (SupportingObjectScript dependency : result.getScript().getDependencies()) {
+                    dependencies.append(dependencies.length() == 0 ? "" : ";").append(dependency.getName());
+                }
+                writer.write(ImportTimings.toCsvString(result.getScript().getName()) + "," + result.getScript().getSequence() + "," + result.getStatus() + ","
+                        + result.getDuration() + "," + ImportTimings.toCsvString(dependencies.toString()) + "," + ImportTimings.toCsvString(result.getMessage() == null ? "" : result.getMessage()) + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * The result of an install script.
+     */
+    public static class Result {
+
+        private final SupportingObjectScript script;
+        private final Status status;
+        private final long duration;
+        private final String message;
+
+        public Result(SupportingObjectScript script, Status status, long duration, String message) {
+            this.script = script;
+            this.status = status;
+            this.duration = duration;
+            this.message = message;
+        }
+
+        public SupportingObjectScript getScript() {
+            return script;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return the error message or skip reason, or null.
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Extract the table and column comments of a schema in Natural Docs format:
+ * one source file per table or view, which can be added to the
+ * inputSourceDirectories of the 'run-natural-docs' or 'generate-plsql-docs'
+ * goal. Files are only rewritten when their contents changed.
+ */
+@Mojo(name = "extract-table-comments",
+defaultPhase = LifecyclePhase.GENERATE_SOURCES)
+public class TableCommentsMojo extends AbstractMojo {
+
+    /**
+     * The database connection string (e.g. localhost:1521/orcl.company.com).
+     */
+    @Parameter(property = "extract-table-comments.connectionString")
+    private String connectionString;
+    /**
+     * The database username used to login.
+     */
+    @Parameter(property = "extract-table-comments.username",
+    required = true)
+    private String username;
+    /**
+     * The database user's password.
+     */
+    @Parameter(property = "extract-table-comments.password",
+    required = true)
+    private String password;
+    /**
+     * The JDBC URL. Defaults to a thin driver URL derived from the
+     * connectionString.
+     */
+    @Parameter(property = "extract-table-comments.jdbcUrl")
+    private String jdbcUrl;
+    /**
+     * The JDBC driver class. The driver has to be added as a plugin
+     * dependency.
+     */
+    @Parameter(property = "extract-table-comments.jdbcDriver",
+    defaultValue = "oracle.jdbc.OracleDriver")
+    private String jdbcDriver;
+    /**
+     * The schema whose comments are extracted. Defaults to the schema of the
+     * database user.
+     */
+    @Parameter(property = "extract-table-comments.schema")
+    private String schema;
+    /**
+     * The number of comment rows fetched per database round trip. Only the
+     * comments of one table are kept in memory at a time.
+     */
+    @Parameter(property = "extract-table-comments.fetchSize",
+    defaultValue = "500")
+    private int fetchSize;
+    /**
+     * The folder in which the documentation files are written. Files with
+     * the fileExtension of tables that no longer exist are removed, so the
+     * folder should only contain extracted files.
+     */
+    @Parameter(property = "extract-table-comments.outputDirectory",
+    defaultValue = "${project.build.directory}/orclapex-table-comments")
+    private File outputDirectory;
+    /**
+     * The extension of the documentation files. Natural Docs has to recognize
+     * it as a language with -- and block comments.
+     */
+    @Parameter(property = "extract-table-comments.fileExtension",
+    defaultValue = "sql")
+    private String fileExtension;
+    /**
+     * Skip tables and views without a table comment or column comments.
+     */
+    @Parameter(property = "extract-table-comments.commentedOnly",
+    defaultValue = "false")
+    private boolean commentedOnly;
+    private static final String QUERY = "select t.table_name, t.table_type, t.comments, c.column_name, c.comments"
+            + " from all_tab_comments t"
+            + " left join all_col_comments c on c.owner = t.owner and c.table_name = t.table_name and c.comments is not null"
+            + " left join all_tab_columns tc on tc.owner = c.owner and tc.table_name = c.table_name and tc.column_name = c.column_name"
+            + " where t.owner = ? and t.table_name not like 'BIN$%'"
+            + " order by t.table_name, tc.column_id";
+
+    /**
+     * The method called by Maven when the 'extract-table-comments' goal gets
+     * executed.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        String url = jdbcUrl != null ? jdbcUrl : connectionString != null ? JdbcScriptRunner.getThinUrl(connectionString) : null;
+        String owner = schema != null ? schema.toUpperCase() : username.replaceFirst("^.*\\[(.+)\\].*$", "$1").toUpperCase();
+        Set<String> fileNames = new HashSet<String>();
+        Connection connection;
+        int[] counts;
+        long startTime = System.currentTimeMillis();
+
+        if (url == null) {
+            throw new MojoExecutionException("The connectionString or jdbcUrl parameter is required");
+        }
+        outputDirectory.mkdirs();
+        connection = JdbcScriptRunner.connect(jdbcDriver, url, username, password);
+        try {
+            try {
+                counts = extractComments(connection, owner, fileNames);
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException ex) {
+            throw new MojoExecutionException("Unable to extract the table comments: " + ex.getMessage().trim(), ex);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to write the table comments: " + ex.getMessage(), ex);
+        }
+        removeDroppedTables(fileNames);
+
+        getLog().info("Extracted the comments of " + counts[0] + " table(s) and view(s) of " + owner + ", " + counts[1] + " file(s) changed, in "
+                + (System.currentTimeMillis() - startTime) + " ms: " + outputDirectory.getAbsolutePath());
+    }
+
+    /**
+     * Stream the comments, writing the file of a table as soon as all its
+     * rows are read.
+     *
+     * @param connection the connection.
+     * @param owner the schema.
+     * @param fileNames the set the names of all documentation files are added
+     * to.
+     * @return the number of documented tables and the number of changed
+     * files.
+     */
+    private int[] extractComments(Connection connection, String owner, Set<String> fileNames) throws SQLException, IOException {
+        PreparedStatement statement = connection.prepareStatement(QUERY);
+        String tableName = null;
+        String tableType = null;
+        String tableComment = null;
+        List<String[]> columnComments = new ArrayList<String[]>();
+        int[] counts = new int[2];
+
+        try {
+            statement.setString(1, owner);
+            statement.setFetchSize(fetchSize);
+            ResultSet resultSet = statement.executeQuery();
+            try {
+                while (resultSet.next()) {
+                    if (!resultSet.getString(1).equals(tableName)) {
+                        writeTable(tableName, tableType, tableComment, columnComments, fileNames, counts);
+                        tableName = resultSet.getString(1);
+                        tableType = resultSet.getString(2);
+                        tableComment = resultSet.getString(3);
+                        columnComments.clear();
+                    }
+                    if (resultSet.getString(4) != null) {
+                        columnComments.add(new String[]{resultSet.getString(4), resultSet.getString(5)});
+                    }
+                }
+                writeTable(tableName, tableType, tableComment, columnComments, fileNames, counts);
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+
+        return counts;
+    }
+
+    /**
+     * Write the documentation file of a table if its contents changed.
+     */
+    private void writeTable(String tableName, String tableType, String tableComment, List<String[]> columnComments, Set<String> fileNames,
+            int[] counts) throws IOException {
+        String baseName;
+        File file;
+        byte[] contents;
+
+        if (tableName == null || commentedOnly && tableComment == null && columnComments.isEmpty()) {
+            return;
+        }
+        baseName = tableName.toLowerCase().replaceAll("[^a-z0-9_$#.-]", "_");
+        file = new File(outputDirectory, baseName + "." + fileExtension);
+        // quoted names such as "Orders" and ORDERS map to the same file name, the tables come in name order
+        for (int i = 2; !fileNames.add(file.getName()); i++) {
+            file = new File(outputDirectory, baseName + "_" + i + "." + fileExtension);
+        }
+        contents = getDocumentation(tableName, tableType, tableComment, columnComments).getBytes("UTF-8");
+        counts[0]++;
+
+        if (file.isFile() && file.length() == contents.length && Arrays.equals(readFile(file), contents)) {
+            return;
+        }
+        OutputStream output = new FileOutputStream(file);
+        try {
+            output.write(contents);
+        } finally {
+            output.close();
+        }
+        counts[1]++;
+        getLog().debug("Wrote the comments of " + tableName + " to " + file.getName());
+    }
+
+    /**
+     * Put together the Natural Docs comment of a table: a Table or View topic
+     * with the table comment, followed by a Columns section with a definition
+     * per commented column.
+     *
+     * @return the contents of the documentation file.
+     */
+    private static String getDocumentation(String tableName, String tableType, String tableComment, List<String[]> columnComments) {
+        StringBuilder documentation = new StringBuilder("/*\n");
+
+        documentation.append("  ").append("VIEW".equals(tableType) ? "View" : "Table").append(": ").append(getDisplayName(tableName)).append('\n');
+        if (tableComment != null) {
+            documentation.append('\n');
+            for (String line : tableComment.split("\r?\n")) {
+                documentation.append("  ").append(escapeComment(line).trim()).append('\n');
+            }
+        }
+        if (!columnComments.isEmpty()) {
+            documentation.append("\n  Columns:\n\n");
+            for (String[] columnComment : columnComments) {
+                documentation.append("    ").append(getDisplayName(columnComment[0])).append(" - ")
+                        .append(escapeComment(columnComment[1]).replaceAll("\\s*\r?\n\\s*", " ").trim()).append('\n');
+            }
+        }
+        documentation.append("*/\n");
+
+        return documentation.toString();
+    }
+
+    /**
+     * @return the name in lower case, unless it's a quoted name with lower
+     * case characters, which keeps its case.
+     */
+    private static String getDisplayName(String name) {
+        return name.equals(name.toUpperCase()) ? name.toLowerCase() : name;
+    }
+
+    private static String escapeComment(String comment) {
+        return comment.replace("*/", "* /");
+    }
+
+    /**
+     * Delete the documentation files of tables that no longer exist.
+     *
+     * @param fileNames the names of the files of the existing tables.
+     */
+    private void removeDroppedTables(Set<String> fileNames) {
+        File[] files = outputDirectory.listFiles();
+
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isFile() && file.getName().endsWith("." + fileExtension) && !fileNames.contains(file.getName())) {
+                getLog().info("Removing the comments of dropped table file " + file.getName());
+                file.delete();
+            }
+        }
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] contents = new byte[(int) file.length()];
+        InputStream input = new FileInputStream(file);
+        int offset = 0;
+        int length;
+
+        try {
+            while (offset < contents.length && (length = input.read(contents, offset, contents.length - offset)) != -1) {
+                offset += length;
+            }
+        } finally {
+            input.close();
+        }
+
+        return contents;
+    }
+}
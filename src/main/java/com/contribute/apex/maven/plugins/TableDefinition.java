@@ -0,0 +1,142 @@
+package com.contribute.apex.maven.plugins;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The columns of a table in a data dictionary snapshot, used by the
+ * 'generate-tapi' goal.
+ */
+public class TableDefinition {
+
+    private final String name;
+    private final List<Column> columns = new ArrayList<Column>();
+
+    /**
+     * @param name the table name.
+     */
+    public TableDefinition(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the columns, ordered by column ID.
+     */
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the primary key columns, in key order; empty if the table has
+     * no primary key.
+     */
+    public List<Column> getPrimaryKeyColumns() {
+        List<Column> primaryKeyColumns = new ArrayList<Column>();
+
+        for (Column column : columns) {
+            if (column.getPrimaryKeyPosition() > 0) {
+                primaryKeyColumns.add(column);
+            }
+        }
+        Collections.sort(primaryKeyColumns, new Comparator<Column>() {
+            @Override
+            public int compare(Column column1, Column column2) {
+                return column1.getPrimaryKeyPosition() - column2.getPrimaryKeyPosition();
+            }
+        });
+
+        return primaryKeyColumns;
+    }
+
+    /**
+     * @return a canonical description of the table definition; equal
+     * definitions have equal descriptions.
+     */
+    public String getDescription() {
+        StringBuilder description = new StringBuilder(name).append('\n');
+
+        for (Column column : columns) {
+            description.append(column.getName()).append(',').append(column.getDataType()).append(',').append(column.getDataLength()).append(',')
+                    .append(column.getDataPrecision()).append(',').append(column.getDataScale()).append(',').append(column.isNullable()).append(',')
+                    .append(column.getPrimaryKeyPosition()).append('\n');
+        }
+
+        return description.toString();
+    }
+
+    /**
+     * A table column.
+     */
+    public static class Column {
+
+        private final String name;
+        private final String dataType;
+        private final String dataLength;
+        private final String dataPrecision;
+        private final String dataScale;
+        private final boolean nullable;
+        private final int columnId;
+        private final int primaryKeyPosition;
+
+        /**
+         * @param name the column name.
+         * @param dataType the data type, e.g. VARCHAR2.
+         * @param dataLength the length in bytes, or an empty string.
+         * @param dataPrecision the precision of numbers, or an empty string.
+         * @param dataScale the scale of numbers, or an empty string.
+         * @param nullable false for NOT NULL columns.
+         * @param columnId the position of the column in the table.
+         * @param primaryKeyPosition the position of the column in the
+         * primary key, or 0.
+         */
+        public Column(String name, String dataType, String dataLength, String dataPrecision, String dataScale, boolean nullable, int columnId,
+                int primaryKeyPosition) {
+            this.name = name;
+            this.dataType = dataType;
+            this.dataLength = dataLength;
+            this.dataPrecision = dataPrecision;
+            this.dataScale = dataScale;
+            this.nullable = nullable;
+            this.columnId = columnId;
+            this.primaryKeyPosition = primaryKeyPosition;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDataType() {
+            return dataType;
+        }
+
+        public String getDataLength() {
+            return dataLength;
+        }
+
+        public String getDataPrecision() {
+            return dataPrecision;
+        }
+
+        public String getDataScale() {
+            return dataScale;
+        }
+
+        public boolean isNullable() {
+            return nullable;
+        }
+
+        public int getColumnId() {
+            return columnId;
+        }
+
+        public int getPrimaryKeyPosition() {
+            return primaryKeyPosition;
+        }
+    }
+}
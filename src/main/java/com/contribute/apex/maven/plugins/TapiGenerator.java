@@ -0,0 +1,161 @@
+package com.contribute.apex.maven.plugins;
+
+import java.util.List;
+
+/**
+ * Renders the table API (TAPI) package of a table: a specification and a body
+ * with ins, get, exists_row, upd and del routines. The routines that need a
+ * primary key are only generated for tables that have one; upd is only
+ * generated when the table has columns outside the primary key.
+ */
+public class TapiGenerator {
+
+    /**
+     * Identifies the generated code; changing it regenerates all packages.
+     */
+    public static final String VERSION = "1";
+    private final String packagePrefix;
+    private final String packageSuffix;
+
+    /**
+     * @param packagePrefix the prefix of the package names.
+     * @param packageSuffix the suffix of the package names.
+     */
+    public TapiGenerator(String packagePrefix, String packageSuffix) {
+        this.packagePrefix = packagePrefix == null ? "" : packagePrefix;
+        this.packageSuffix = packageSuffix == null ? "" : packageSuffix;
+    }
+
+    /**
+     * @return the generator settings, included in the digest of every table.
+     */
+    public String getSignature() {
+        return VERSION + "|" + packagePrefix + "|" + packageSuffix;
+    }
+
+    /**
+     * @param table the table.
+     * @return the name of the TAPI package of the table, in lower case.
+     */
+    public String getPackageName(TableDefinition table) {
+        return (packagePrefix + table.getName() + packageSuffix).toLowerCase().replaceAll("[^a-z0-9_$#]", "_");
+    }
+
+    /**
+     * @param table the table.
+     * @return the package specification script.
+     */
+    public String renderSpecification(TableDefinition table) {
+        StringBuilder script = new StringBuilder();
+        String packageName = getPackageName(table);
+        String tableName = getIdentifier(table.getName());
+        List<TableDefinition.Column> primaryKeyColumns = table.getPrimaryKeyColumns();
+
+        script.append("create or replace package ").append(packageName).append("\nas\n");
+        script.append("  /*\n    Package: ").append(packageName).append("\n    Table API of ").append(tableName)
+                .append(". Generated by the orclapex-maven-plugin; manual changes are overwritten.\n  */\n\n");
+        script.append("  procedure ins(p_row in out nocopy ").append(tableName).append("%rowtype);\n");
+        if (!primaryKeyColumns.isEmpty()) {
+            script.append("\n  function get(").append(getKeyParameters(table)).append(") return ").append(tableName).append("%rowtype;\n");
+            script.append("\n  function exists_row(").append(getKeyParameters(table)).append(") return boolean;\n");
+            if (primaryKeyColumns.size() < table.getColumns().size()) {
+                script.append("\n  procedure upd(p_row in ").append(tableName).append("%rowtype);\n");
+            }
+            script.append("\n  procedure del(").append(getKeyParameters(table)).append(");\n");
+        }
+        script.append("end ").append(packageName).append(";\n/\n");
+
+        return script.toString();
+    }
+
+    /**
+     * @param table the table.
+     * @return the package body script.
+     */
+    public String renderBody(TableDefinition table) {
+        StringBuilder script = new StringBuilder();
+        String packageName = getPackageName(table);
+        String tableName = getIdentifier(table.getName());
+        List<TableDefinition.Column> primaryKeyColumns = table.getPrimaryKeyColumns();
+
+        script.append("create or replace package body ").append(packageName).append("\nas\n\n");
+        script.append("  procedure ins(p_row in out nocopy ").append(tableName).append("%rowtype)\n  is\n  begin\n");
+        script.append("    insert into ").append(tableName).append(" values p_row;\n  end ins;\n");
+        if (!primaryKeyColumns.isEmpty()) {
+            script.append("\n  function get(").append(getKeyParameters(table)).append(") return ").append(tableName).append("%rowtype\n  is\n");
+            script.append("    l_row ").append(tableName).append("%rowtype;\n  begin\n");
+            script.append("    select *\n      into l_row\n      from ").append(tableName).append("\n     where ").append(getKeyCondition(table, "p_", "       and "))
+                    .append(";\n    return l_row;\n  end get;\n");
+
+            script.append("\n  function exists_row(").append(getKeyParameters(table)).append(") return boolean\n  is\n");
+            script.append("    l_count pls_integer;\n  begin\n");
+            script.append("    select count(*)\n      into l_count\n      from ").append(tableName).append("\n     where ")
+                    .append(getKeyCondition(table, "p_", "       and ")).append("\n       and rownum = 1;\n    return l_count > 0;\n  end exists_row;\n");
+
+            if (primaryKeyColumns.size() < table.getColumns().size()) {
+                String separator = "       set ";
+                script.append("\n  procedure upd(p_row in ").append(tableName).append("%rowtype)\n  is\n  begin\n");
+                script.append("    update ").append(tableName).append('\n');
+                for (TableDefinition.Column column : table.getColumns()) {
+                    if (column.getPrimaryKeyPosition() == 0) {
+                        script.append(separator).append(getIdentifier(column.getName())).append(" = p_row.").append(getIdentifier(column.getName()));
+                        separator = ",\n           ";
+                    }
+                }
+                script.append("\n     where ").append(getKeyCondition(table, "p_row.", "       and ")).append(";\n");
+                script.append("    if sql%rowcount = 0 then\n      raise no_data_found;\n    end if;\n  end upd;\n");
+            }
+
+            script.append("\n  procedure del(").append(getKeyParameters(table)).append(")\n  is\n  begin\n");
+            script.append("    delete from ").append(tableName).append("\n     where ").append(getKeyCondition(table, "p_", "       and ")).append(";\n");
+            script.append("  end del;\n");
+        }
+        script.append("\nend ").append(packageName).append(";\n/\n");
+
+        return script.toString();
+    }
+
+    private String getKeyParameters(TableDefinition table) {
+        StringBuilder parameters = new StringBuilder();
+
+        for (TableDefinition.Column column : table.getPrimaryKeyColumns()) {
+            if (parameters.length() > 0) {
+                parameters.append(", ");
+            }
+            parameters.append(getParameterName(column)).append(" in ").append(getIdentifier(table.getName())).append('.')
+                    .append(getIdentifier(column.getName())).append("%type");
+        }
+
+        return parameters.toString();
+    }
+
+    /**
+     * @param prefix p_ to compare with the key parameters, p_row. to compare
+     * with the row parameter.
+     */
+    private String getKeyCondition(TableDefinition table, String prefix, String separator) {
+        StringBuilder condition = new StringBuilder();
+
+        for (TableDefinition.Column column : table.getPrimaryKeyColumns()) {
+            if (condition.length() > 0) {
+                condition.append('\n').append(separator);
+            }
+            condition.append(getIdentifier(column.getName())).append(" = ")
+                    .append(prefix.equals("p_") ? getParameterName(column) : prefix + getIdentifier(column.getName()));
+        }
+
+        return condition.toString();
+    }
+
+    private static String getParameterName(TableDefinition.Column column) {
+        return "p_" + column.getName().toLowerCase().replaceAll("[^a-z0-9_$#]", "_");
+    }
+
+    /**
+     * @return the name in lower case if it's a regular identifier, otherwise
+     * the quoted name.
+     */
+    private static String getIdentifier(String name) {
+        return name.matches("[A-Z][A-Z0-9_$#]*") ? name.toLowerCase() : "\"" + name + "\"";
+    }
+}
@@ -0,0 +1,326 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Generate table API (TAPI) packages from a data dictionary snapshot. Only
+ * the packages of tables whose definition changed since the last run are
+ * generated again.
+ */
+@Mojo(name = "generate-tapi",
+defaultPhase = LifecyclePhase.GENERATE_SOURCES)
+public class TapiMojo extends AbstractMojo {
+
+    /**
+     * The data dictionary snapshot the packages are generated from: a .json
+     * file or a CSV file with the table_name, column_name, data_type,
+     * data_length, data_precision, data_scale, nullable, column_id and
+     * pk_position fields. When the connection parameters are specified, the
+     * snapshot is fetched from the database and written to this file if the
+     * file doesn't exist or refreshDictionary is set.
+     */
+    @Parameter(property = "generate-tapi.dictionaryFile",
+    defaultValue = "${project.build.directory}/orclapex-tapi/dictionary.csv")
+    private File dictionaryFile;
+    /**
+     * Fetch the data dictionary snapshot from the database, even if the
+     * dictionaryFile exists.
+     */
+    @Parameter(property = "generate-tapi.refreshDictionary",
+    defaultValue = "false")
+    private boolean refreshDictionary;
+    /**
+     * The database connection string (e.g. localhost:1521/orcl.company.com)
+     * used to fetch the data dictionary snapshot.
+     */
+    @Parameter(property = "generate-tapi.connectionString")
+    private String connectionString;
+    /**
+     * The database username used to login.
+     */
+    @Parameter(property = "generate-tapi.username")
+    private String username;
+    /**
+     * The database user's password.
+     */
+    @Parameter(property = "generate-tapi.password")
+    private String password;
+    /**
+     * The JDBC URL used to fetch the snapshot. Defaults to a thin driver URL
+     * derived from the connectionString.
+     */
+    @Parameter(property = "generate-tapi.jdbcUrl")
+    private String jdbcUrl;
+    /**
+     * The JDBC driver class. The driver has to be added as a plugin
+     * dependency.
+     */
+    @Parameter(property = "generate-tapi.jdbcDriver",
+    defaultValue = "oracle.jdbc.OracleDriver")
+    private String jdbcDriver;
+    /**
+     * The schema whose tables are fetched. Defaults to the schema of the
+     * database user.
+     */
+    @Parameter(property = "generate-tapi.schema")
+    private String schema;
+    /**
+     * The number of dictionary rows fetched per database round trip.
+     */
+    @Parameter(property = "generate-tapi.fetchSize",
+    defaultValue = "1000")
+    private int fetchSize;
+    /**
+     * The tables to generate a package for. Defaults to all tables in the
+     * snapshot.
+     */
+    @Parameter(property = "generate-tapi.tables")
+    private List<String> tables;
+    /**
+     * The folder in which the package specifications (.pks) and bodies (.pkb)
+     * are generated.
+     */
+    @Parameter(property = "generate-tapi.outputDirectory",
+    defaultValue = "${project.build.directory}/generated-sources/tapi")
+    private File outputDirectory;
+    /**
+     * The prefix of the package names.
+     */
+    @Parameter(property = "generate-tapi.packagePrefix",
+    defaultValue = "")
+    private String packagePrefix;
+    /**
+     * The suffix of the package names.
+     */
+    @Parameter(property = "generate-tapi.packageSuffix",
+    defaultValue = "_tapi")
+    private String packageSuffix;
+    /**
+     * The number of packages generated concurrently. Use 0 for the number of
+     * available processors.
+     */
+    @Parameter(property = "generate-tapi.threads",
+    defaultValue = "0")
+    private int threads;
+    /**
+     * Generate all packages, even if their table definitions didn't change.
+     */
+    @Parameter(property = "generate-tapi.force",
+    defaultValue = "false")
+    private boolean force;
+    private final String stateFileName = ".orclapex-tapi";
+
+    /**
+     * The method called by Maven when the 'generate-tapi' goal gets executed.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final TapiGenerator generator = new TapiGenerator(packagePrefix, packageSuffix);
+        final Properties state = new Properties();
+        final Map<String, String> digests = new ConcurrentHashMap<String, String>();
+        List<TableDefinition> tableDefinitions = getTableDefinitions();
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+        File stateFile = new File(outputDirectory, stateFileName);
+        ExecutorService executor;
+        long startTime = System.currentTimeMillis();
+        int generatedPackages = 0;
+
+        outputDirectory.mkdirs();
+        try {
+            if (stateFile.isFile() && !force) {
+                InputStream input = new FileInputStream(stateFile);
+                try {
+                    state.load(input);
+                } finally {
+                    input.close();
+                }
+            }
+        } catch (IOException ex) {
+            getLog().debug("Unable to read the TAPI state, generating all packages: " + ex.getMessage());
+            state.clear();
+        }
+
+        executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                tableDefinitions.size())));
+        try {
+            for (final TableDefinition table : tableDefinitions) {
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws IOException {
+                        String digest = ImportState.toHex(ImportState.getSha256().digest((generator.getSignature() + "\n" + table.getDescription())
+                                .getBytes("UTF-8")));
+                        String packageName = generator.getPackageName(table);
+                        File specificationFile = new File(outputDirectory, packageName + ".pks");
+                        File bodyFile = new File(outputDirectory, packageName + ".pkb");
+
+                        digests.put(table.getName(), digest);
+                        if (digest.equals(state.getProperty(table.getName())) && specificationFile.isFile() && bodyFile.isFile()) {
+                            return false;
+                        }
+                        write(specificationFile, generator.renderSpecification(table));
+                        write(bodyFile, generator.renderBody(table));
+                        getLog().debug("Generated " + packageName + " for table " + table.getName());
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                if (future.get()) {
+                    generatedPackages++;
+                }
+            }
+        } catch (InterruptedException ex) {
+            throw new MojoExecutionException("Interrupted while generating the TAPI packages", ex);
+        } catch (ExecutionException ex) {
+            throw new MojoExecutionException("Unable to generate the TAPI packages: " + ex.getCause().getMessage(), ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        removeDroppedTables(state, digests, generator);
+        writeState(stateFile, digests);
+        getLog().info("Generated " + generatedPackages + " of " + tableDefinitions.size() + " TAPI package(s) in "
+                + (System.currentTimeMillis() - startTime) + " ms: " + outputDirectory.getAbsolutePath());
+    }
+
+    /**
+     * Read the data dictionary snapshot, fetching it from the database first
+     * if required, and select the configured tables.
+     *
+     * @return the table definitions.
+     */
+    private List<TableDefinition> getTableDefinitions() throws MojoExecutionException {
+        List<TableDefinition> tableDefinitions;
+        List<TableDefinition> selectedTables = new ArrayList<TableDefinition>();
+        Set<String> tableNames = new HashSet<String>();
+
+        try {
+            if (connectionString != null || jdbcUrl != null) {
+                if (refreshDictionary || !dictionaryFile.isFile()) {
+                    fetchDictionary();
+                } else {
+                    getLog().info("Using the cached data dictionary snapshot " + dictionaryFile.getAbsolutePath());
+                }
+            } else if (!dictionaryFile.isFile()) {
+                throw new MojoExecutionException("The data dictionary snapshot " + dictionaryFile.getAbsolutePath()
+                        + " doesn't exist. Specify the connection parameters to fetch it from the database.");
+            }
+            tableDefinitions = DictionarySnapshot.read(dictionaryFile);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to read the data dictionary snapshot: " + ex.getMessage(), ex);
+        }
+
+        if (tables == null || tables.isEmpty()) {
+            return tableDefinitions;
+        }
+        for (String table : tables) {
+            tableNames.add(table.trim().toUpperCase());
+        }
+        for (TableDefinition tableDefinition : tableDefinitions) {
+            if (tableNames.contains(tableDefinition.getName().toUpperCase())) {
+                selectedTables.add(tableDefinition);
+            }
+        }
+
+        return selectedTables;
+    }
+
+    /**
+     * Fetch the data dictionary snapshot from the database and write it to
+     * the dictionaryFile.
+     */
+    private void fetchDictionary() throws MojoExecutionException, IOException {
+        String url = jdbcUrl != null ? jdbcUrl : JdbcScriptRunner.getThinUrl(connectionString);
+        String owner;
+        Connection connection;
+        List<TableDefinition> tableDefinitions;
+        long startTime = System.currentTimeMillis();
+
+        if (username == null || password == null) {
+            throw new MojoExecutionException("The username and password parameters are required to fetch the data dictionary snapshot");
+        }
+        // a proxy user connects as user[schema]
+        owner = schema != null ? schema.toUpperCase() : username.replaceFirst("^.*\\[(.+)\\].*$", "$1").toUpperCase();
+        connection = JdbcScriptRunner.connect(jdbcDriver, url, username, password);
+        try {
+            try {
+                tableDefinitions = DictionarySnapshot.fetch(connection, owner, fetchSize);
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException ex) {
+            throw new MojoExecutionException("Unable to fetch the data dictionary snapshot: " + ex.getMessage().trim(), ex);
+        }
+        DictionarySnapshot.write(dictionaryFile, tableDefinitions);
+        getLog().info("Fetched the definitions of " + tableDefinitions.size() + " table(s) of " + owner + " in "
+                + (System.currentTimeMillis() - startTime) + " ms: " + dictionaryFile.getAbsolutePath());
+    }
+
+    /**
+     * Delete the packages of tables that were generated in the last run but
+     * are no longer selected.
+     */
+    private void removeDroppedTables(Properties state, Map<String, String> digests, TapiGenerator generator) {
+        for (String tableName : state.stringPropertyNames()) {
+            if (!digests.containsKey(tableName)) {
+                String packageName = generator.getPackageName(new TableDefinition(tableName));
+                getLog().info("Removing the TAPI package of dropped table " + tableName);
+                new File(outputDirectory, packageName + ".pks").delete();
+                new File(outputDirectory, packageName + ".pkb").delete();
+            }
+        }
+    }
+
+    private static void writeState(File stateFile, Map<String, String> digests) throws MojoExecutionException {
+        Properties state = new Properties();
+
+        state.putAll(digests);
+        try {
+            OutputStream output = new FileOutputStream(stateFile);
+            try {
+                state.store(output, "Digests of the table definitions of the generated TAPI packages");
+            } finally {
+                output.close();
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to write the TAPI state to " + stateFile.getAbsolutePath(), ex);
+        }
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.contribute.apex.maven.plugins;
+
+/**
+ * A database in which the 'import' goal imports the applications. Used to
+ * import the same export into multiple databases or workspaces, e.g.:
+ *
+ * <pre>
+ * &lt;targets&gt;
+ *   &lt;target&gt;
+ *     &lt;connectionString&gt;db1:1521/tenant1&lt;/connectionString&gt;
+ *     &lt;username&gt;apex_deploy&lt;/username&gt;
+ *     &lt;password&gt;secret&lt;/password&gt;
+ *     &lt;workspaceName&gt;TENANT1&lt;/workspaceName&gt;
+ *   &lt;/target&gt;
+ * &lt;/targets&gt;
+ * </pre>
+ *
+ * Omitted username and password values are taken from the goal parameters.
+ */
+public class Target {
+
+    /**
+     * A short name for this target used in log messages. Defaults to the
+     * connection string, followed by the workspace name if specified.
+     */
+    private String id;
+    /**
+     * The database connection string used in the SQL*Plus login argument.
+     */
+    private String connectionString;
+    /**
+     * The database username used to login.
+     */
+    private String username;
+    /**
+     * The database user's password.
+     */
+    private String password;
+    /**
+     * The APEX workspace in which the applications are imported. Overrides
+     * the workspaceName of the applications.
+     */
+    private String workspaceName;
+    /**
+     * The JDBC URL used by the jdbc engine. Defaults to a thin driver URL
+     * derived from the connectionString.
+     */
+    private String jdbcUrl;
+    /**
+     * The APEX release installed in the target database, e.g. 5.0. The
+     * pre-flight scan fails for exports of a newer release.
+     */
+    private String apexVersion;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getConnectionString() {
+        return connectionString;
+    }
+
+    public void setConnectionString(String connectionString) {
+        this.connectionString = connectionString;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getWorkspaceName() {
+        return workspaceName;
+    }
+
+    public void setWorkspaceName(String workspaceName) {
+        this.workspaceName = workspaceName;
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public void setJdbcUrl(String jdbcUrl) {
+        this.jdbcUrl = jdbcUrl;
+    }
+
+    public String getApexVersion() {
+        return apexVersion;
+    }
+
+    public void setApexVersion(String apexVersion) {
+        this.apexVersion = apexVersion;
+    }
+
+    /**
+     * @return the SQL*Plus login argument of this target.
+     */
+    public String getSqlPlusLoginArgument() {
+        return username + "/" + password + "@" + "\"" + connectionString + "\"";
+    }
+
+    /**
+     * @return the configured JDBC URL, or the thin driver URL derived from
+     * the connection string.
+     */
+    public String getConnectUrl() {
+        return jdbcUrl != null ? jdbcUrl : JdbcScriptRunner.getThinUrl(connectionString);
+    }
+
+    /**
+     * A short, human readable name for this target used in log messages.
+     *
+     * @return the ID, or the connection string and workspace name.
+     */
+    public String getLabel() {
+        if (id != null) {
+            return id;
+        } else if (workspaceName != null) {
+            return connectionString + "/" + workspaceName;
+        }
+        return connectionString;
+    }
+}
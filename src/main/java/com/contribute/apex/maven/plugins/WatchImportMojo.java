@@ -0,0 +1,279 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Watch the appExportLocation folders of the 'import' goal and import the
+ * changed export files as soon as they are saved, until Maven is stopped. All
+ * parameters of the 'import' goal apply. The imports run in a single
+ * authenticated session that is kept open between changes: a SQL*Plus session
+ * that is closed after import.sessionIdleTimeout seconds without changes, or a
+ * JDBC connection when the jdbc engine is used.
+ *
+ * The export files present when the goal starts are assumed to be imported,
+ * unless initialImport is set. Changes are imported with the rules of the
+ * deltaImport parameter: the changed pages and shared components of a split
+ * export are imported in the order of install.sql, between the
+ * set_environment.sql and end_environment.sql scripts of the export; other
+ * changes trigger a full import of the application.
+ */
+@Mojo(name = "import-watch")
+public class WatchImportMojo extends ImportAppMojo {
+
+    /**
+     * The number of milliseconds without further changes after which the
+     * changed files are imported, so saving a burst of files results in a
+     * single import.
+     */
+    @Parameter(property = "import-watch.debounce",
+    defaultValue = "500")
+    private int debounce;
+    /**
+     * Import the applications once before watching for changes.
+     */
+    @Parameter(property = "import-watch.initialImport",
+    defaultValue = "false")
+    private boolean initialImport;
+    private final Map<WatchKey, WatchedApplication> watchKeys = new HashMap<WatchKey, WatchedApplication>();
+    private Connection connection;
+
+    /**
+     * The method called by Maven when the 'import-watch' goal gets executed.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        List<Target> targets = getTargets();
+        List<WatchedApplication> watchedApplications = new ArrayList<WatchedApplication>();
+        WatchService watchService;
+
+        if (targets.size() > 1) {
+            throw new MojoExecutionException("The import-watch goal imports in a single target, " + targets.size() + " targets are configured");
+        }
+        for (Application application : getApplications()) {
+            if (ExportArchive.isArchive(application.getAppExportLocation())) {
+                throw new MojoExecutionException("Export archives can't be watched: " + application.getAppExportLocation());
+            }
+            // validates the folder
+            getAppExportFiles(application.getAppExportLocation());
+            watchedApplications.add(new WatchedApplication(application, targets.get(0)));
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to watch the appExportLocation folders", ex);
+        }
+        try {
+            for (WatchedApplication watchedApplication : watchedApplications) {
+                register(watchService, watchedApplication.folder, watchedApplication);
+                watchedApplication.deployedDigests = ImportState.computeFileDigests(watchedApplication.folder);
+                if (initialImport) {
+                    redeploy(watchedApplication, Collections.<String>emptySet(), System.currentTimeMillis());
+                }
+                getLog().info("Watching " + watchedApplication.folder.getAbsolutePath() + " for changes to " + watchedApplication.application.getLabel());
+            }
+            flushOutputLog();
+            getLog().info("Press Ctrl+C to stop");
+            watch(watchService);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Unable to watch the appExportLocation folders: " + ex.getMessage(), ex);
+        } catch (InterruptedException ex) {
+            getLog().info("Stopped watching the appExportLocation folders");
+        } finally {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                getLog().debug("Unable to close the watch service: " + ex.getMessage());
+            }
+            closeConnection();
+            closeOutputLog();
+        }
+    }
+
+    /**
+     * Wait for changes and redeploy the changed applications once no further
+     * changes arrive within the debounce time.
+     */
+    private void watch(WatchService watchService) throws IOException, InterruptedException {
+        while (true) {
+            WatchKey key = watchService.take();
+            Map<WatchedApplication, Set<String>> changes = new HashMap<WatchedApplication, Set<String>>();
+            long firstChangeTime = System.currentTimeMillis();
+
+            while (key != null) {
+                handleEvents(watchService, key, changes);
+                key = watchService.poll(debounce, TimeUnit.MILLISECONDS);
+            }
+            for (Map.Entry<WatchedApplication, Set<String>> change : changes.entrySet()) {
+                redeploy(change.getKey(), change.getValue(), firstChangeTime);
+            }
+            flushOutputLog();
+        }
+    }
+
+    /**
+     * Collect the names of the changed .sql files of a watch key and watch new
+     * subfolders.
+     */
+    private void handleEvents(WatchService watchService, WatchKey key, Map<WatchedApplication, Set<String>> changes) throws IOException {
+        WatchedApplication watchedApplication = watchKeys.get(key);
+        Path directory = (Path) key.watchable();
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            File file;
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || watchedApplication == null) {
+                continue;
+            }
+            file = directory.resolve((Path) event.context()).toFile();
+            if (file.isDirectory() && event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                register(watchService, file, watchedApplication);
+            } else if (file.getName().toLowerCase().endsWith(".sql")) {
+                if (!changes.containsKey(watchedApplication)) {
+                    changes.put(watchedApplication, new LinkedHashSet<String>());
+                }
+                changes.get(watchedApplication).add(file.getName());
+            }
+        }
+        if (!key.reset()) {
+            watchKeys.remove(key);
+        }
+    }
+
+    /**
+     * Import the export files of an application that changed since the last
+     * successful import, or the whole application.
+     *
+     * @param watchedApplication the application.
+     * @param changedFileNames the names of the files reported by the watch
+     * service; empty for a full import.
+     * @param firstChangeTime the time of the first change of the burst.
+     */
+    private void redeploy(WatchedApplication watchedApplication, Set<String> changedFileNames, long firstChangeTime) {
+        Application application = watchedApplication.application;
+        Map<String, String> digests = null;
+        File[] exportFiles = null;
+        ImportResult result;
+        long startTime = System.currentTimeMillis();
+
+        try {
+            digests = ImportState.computeFileDigests(watchedApplication.folder);
+            if (changedFileNames.isEmpty()) {
+                getLog().info("Full import of " + application.getLabel() + ": initial import");
+            } else {
+                // the same rules as the deltaImport parameter of the import goal
+                exportFiles = getDeltaExportFiles(application, digests, watchedApplication.deployedDigests, "");
+                if (exportFiles != null && exportFiles.length == 0) {
+                    return;
+                }
+            }
+            if (exportFiles == null) {
+                exportFiles = ExportPreflight.order(getAppExportFiles(application.getAppExportLocation()));
+            }
+            result = importFiles(watchedApplication, exportFiles, startTime);
+        } catch (IOException ex) {
+            // e.g. a file deleted or half written while the editor saves it, the next change retries
+            result = new ImportResult(application.getLabel(), -1, System.currentTimeMillis() - startTime,
+                    new MojoExecutionException("Unable to read the export files: " + ex.getMessage(), ex));
+        } catch (MojoExecutionException ex) {
+            result = new ImportResult(application.getLabel(), -1, System.currentTimeMillis() - startTime, ex);
+        } catch (MojoFailureException ex) {
+            result = new ImportResult(application.getLabel(), -1, System.currentTimeMillis() - startTime, ex);
+        }
+
+        if (result.isSuccess()) {
+            watchedApplication.deployedDigests = digests;
+            getLog().info("Imported " + application.getLabel() + " in " + result.getDuration() + " ms, "
+                    + (System.currentTimeMillis() - firstChangeTime) + " ms after the change");
+        } else {
+            // the deployed digests are kept, so the files are imported again on the next change
+            getLog().error("Import of " + application.getLabel() + " failed"
+                    + (result.getException() != null ? ": " + result.getException().getMessage() : " (" + result.getExitValue() + ")"));
+        }
+    }
+
+    /**
+     * Run export files in the session that is kept open.
+     */
+    private ImportResult importFiles(WatchedApplication watchedApplication, File[] exportFiles, long startTime) throws IOException, MojoExecutionException {
+        ImportResult result;
+
+        if (!isJdbcEngine()) {
+            return importApplicationInSession(watchedApplication.application, exportFiles, null, "", watchedApplication.target, null, null, null, startTime);
+        }
+        if (connection == null) {
+            connection = connect(watchedApplication.target);
+        }
+        result = importApplicationWithJdbc(watchedApplication.application, exportFiles, null, "", watchedApplication.target, null, null, null, startTime,
+                connection);
+        if (!result.isSuccess()) {
+            // reconnect on the next change in case the connection was lost
+            closeConnection();
+        }
+
+        return result;
+    }
+
+    private void register(WatchService watchService, File folder, WatchedApplication watchedApplication) throws IOException {
+        File[] files = folder.listFiles();
+
+        watchKeys.put(folder.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE), watchedApplication);
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    register(watchService, file, watchedApplication);
+                }
+            }
+        }
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ex) {
+                getLog().debug("Unable to close the JDBC connection: " + ex.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    /**
+     * A watched application and the digests of its last imported export
+     * files.
+     */
+    private static class WatchedApplication {
+
+        private final Application application;
+        private final Target target;
+        private final File folder;
+        private Map<String, String> deployedDigests;
+
+        WatchedApplication(Application application, Target target) {
+            this.application = application;
+            this.target = target;
+            this.folder = new File(application.getAppExportLocation());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * Reads data dictionary snapshots and generates TAPI packages from them,
+ * without a database.
+ */
+public class DictionarySnapshotTest extends TestCase {
+
+    private static final String CSV = "table_name,column_name,data_type,data_length,data_precision,data_scale,nullable,column_id,pk_position\n"
+            + "DEPT,DEPTNO,NUMBER,22,2,0,N,1,1\n"
+            + "DEPT,DNAME,VARCHAR2,14,,,Y,2,\n"
+            + "\"Log\",\"LINE, TEXT\",VARCHAR2,4000,,,Y,1,\n";
+    private static final String JSON = "[\n"
+            + "  {\"table_name\": \"DEPT\", \"column_name\": \"DEPTNO\", \"data_type\": \"NUMBER\", \"data_length\": \"22\", \"data_precision\": \"2\","
+            + " \"data_scale\": \"0\", \"nullable\": \"N\", \"column_id\": \"1\", \"pk_position\": \"1\"},\n"
+            + "  {\"table_name\": \"DEPT\", \"column_name\": \"DNAME\", \"data_type\": \"VARCHAR2\", \"data_length\": \"14\", \"data_precision\": null,"
+            + " \"data_scale\": null, \"nullable\": \"Y\", \"column_id\": \"2\", \"pk_position\": \"\"}\n"
+            + "]\n";
+    private File tempDir;
+
+    @Override
+    protected void setUp() throws IOException {
+        tempDir = File.createTempFile("dictionary-snapshot", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() {
+        for (File file : tempDir.listFiles()) {
+            file.delete();
+        }
+        tempDir.delete();
+    }
+
+    public void testReadCsv() throws IOException {
+        List<TableDefinition> tables = DictionarySnapshot.read(write("snapshot.csv", CSV));
+
+        assertEquals(2, tables.size());
+        assertDept(tables.get(0));
+        assertEquals("Log", tables.get(1).getName());
+        assertEquals("LINE, TEXT", tables.get(1).getColumns().get(0).getName());
+        assertTrue(tables.get(1).getPrimaryKeyColumns().isEmpty());
+    }
+
+    public void testReadJson() throws IOException {
+        List<TableDefinition> tables = DictionarySnapshot.read(write("snapshot.json", JSON));
+
+        assertEquals(1, tables.size());
+        assertDept(tables.get(0));
+        assertEquals("", tables.get(0).getColumns().get(1).getDataPrecision());
+    }
+
+    public void testWriteAndReadBack() throws IOException {
+        List<TableDefinition> tables = DictionarySnapshot.read(write("snapshot.csv", CSV));
+        File json = new File(tempDir, "copy.json");
+
+        DictionarySnapshot.write(json, tables);
+        tables = DictionarySnapshot.read(json);
+
+        assertEquals(2, tables.size());
+        assertDept(tables.get(0));
+        assertEquals("LINE, TEXT", tables.get(1).getColumns().get(0).getName());
+    }
+
+    public void testRejectsRowsWithoutColumnName() throws IOException {
+        File snapshot = write("snapshot.csv", "table_name,column_name\nDEPT,\n");
+
+        try {
+            DictionarySnapshot.read(snapshot);
+            fail("expected an IOException");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().contains("column_name"));
+        }
+    }
+
+    public void testGeneratePackages() throws IOException {
+        List<TableDefinition> tables = DictionarySnapshot.read(write("snapshot.csv", CSV));
+        TapiGenerator generator = new TapiGenerator("", "_api");
+        String specification = generator.renderSpecification(tables.get(0));
+        String body = generator.renderBody(tables.get(0));
+
+        assertEquals("dept_api", generator.getPackageName(tables.get(0)));
+        assertTrue(specification.startsWith("create or replace package dept_api\nas\n"));
+        assertTrue(specification.contains("function get(p_deptno in dept.deptno%type) return dept%rowtype;"));
+        assertTrue(specification.contains("procedure upd(p_row in dept%rowtype);"));
+        assertTrue(body.contains("       set dname = p_row.dname\n     where deptno = p_row.deptno;"));
+        assertTrue(body.endsWith("end dept_api;\n/\n"));
+
+        // no primary key: only the insert procedure, quoted identifiers
+        specification = generator.renderSpecification(tables.get(1));
+        assertEquals("log_api", generator.getPackageName(tables.get(1)));
+        assertTrue(specification.contains("procedure ins(p_row in out nocopy \"Log\"%rowtype);"));
+        assertFalse(specification.contains("function get"));
+    }
+
+    private static void assertDept(TableDefinition dept) {
+        assertEquals("DEPT", dept.getName());
+        assertEquals(2, dept.getColumns().size());
+        assertEquals(1, dept.getPrimaryKeyColumns().size());
+        assertEquals("DEPTNO", dept.getPrimaryKeyColumns().get(0).getName());
+        assertFalse(dept.getColumns().get(0).isNullable());
+        assertTrue(dept.getColumns().get(1).isNullable());
+        assertEquals("VARCHAR2", dept.getColumns().get(1).getDataType());
+    }
+
+    private File write(String name, String contents) throws IOException {
+        File file = new File(tempDir, name);
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,72 @@
+package com.contribute.apex.maven.plugins;
+
+import junit.framework.TestCase;
+
+/**
+ * Minifies documentation pages, style sheets and scripts with
+ * DocPostProcessor.
+ */
+public class DocPostProcessorTest extends TestCase {
+
+    public void testJsComments() {
+        assertEquals("a();\nb();\nc();\n", DocPostProcessor.minifyJs("  // a comment\n"
+                + "  a(); // after code\n"
+                + "\n"
+                + "/* x */ b(); /* y */\n"
+                + "/**\n"
+                + " * a block\n"
+                + " */\n"
+                + "c();"));
+        assertEquals("var a = b / c;\nd();\n", DocPostProcessor.minifyJs("var a = b /* divided */ / c; /* spans\nlines */ d();\n"));
+        assertEquals("x = a b;\n", DocPostProcessor.minifyJs("x = a/**/b;\n"));
+    }
+
+    public void testJsStrings() {
+        String js = "var s = '// not a comment', t = \"/* nor this */\";\n"
+                + "var u = 'it\\'s // still a string';\n";
+
+        assertEquals(js, DocPostProcessor.minifyJs(js));
+    }
+
+    public void testJsTemplateLiterals() {
+        String js = "var html = `\n"
+                + "  // kept\n"
+                + "  /* kept */\n"
+                + "\n"
+                + "  ${ items.map(function (item) { return `<li>${item}</li>`; }).join('') } // text\n"
+                + "`;\n";
+
+        assertEquals(js, DocPostProcessor.minifyJs(js));
+        assertEquals("var t = `${a}`;\nb();\n", DocPostProcessor.minifyJs("var t = `${a}`; // comment\n    b();\n"));
+    }
+
+    public void testJsRegexLiterals() {
+        assertEquals("var r = /\\/\\/ not a comment/g;\nvar s = /[/*]+/;\nreturn /a'b/.test(x);\n",
+                DocPostProcessor.minifyJs("var r = /\\/\\/ not a comment/g;\nvar s = /[/*]+/;\nreturn /a'b/.test(x);\n"));
+        assertEquals("var half = total / 2 / count;\n", DocPostProcessor.minifyJs("var half = total / 2 / count; // ratio\n"));
+        assertEquals("var r = (a) / b;\nvar s = x[0] / y;\n", DocPostProcessor.minifyJs("var r = (a) / b;\nvar s = x[0] / y;\n"));
+    }
+
+    public void testCss() {
+        assertEquals("div :first-child{color:red}a,b>c{margin:0 auto}", DocPostProcessor.minifyCss("/* header */\n"
+                + "div :first-child {\n"
+                + "  color: red;\n"
+                + "}\n"
+                + "a, b > c { margin: 0 auto; }\n"));
+    }
+
+    public void testHtml() {
+        assertEquals("<html>\n<body>\n<p> text </p>\n<pre>  keep\n    this  </pre>\n<script>\n  // kept\n</script>\n"
+                + "<style>p{color:red}</style>\n<!--[if IE]>ie<![endif]-->\n</body>\n</html>",
+                DocPostProcessor.minifyHtml("<html>\n"
+                + "  <body>\n"
+                + "    <!-- a comment -->\n"
+                + "    <p>   text   </p>\n"
+                + "<pre>  keep\n    this  </pre>\n"
+                + "<script>\n  // kept\n</script>\n"
+                + "<style> p { color: red; } </style>\n"
+                + "<!--[if IE]>ie<![endif]-->\n"
+                + "  </body>\n"
+                + "</html>"));
+    }
+}
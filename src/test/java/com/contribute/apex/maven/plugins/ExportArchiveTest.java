@@ -0,0 +1,120 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import junit.framework.TestCase;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Reads split exports from zip files with ExportArchive.
+ */
+public class ExportArchiveTest extends TestCase {
+
+    private File tempDir;
+
+    @Override
+    protected void setUp() throws IOException {
+        tempDir = File.createTempFile("export-archive", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() {
+        for (File file : tempDir.listFiles()) {
+            file.delete();
+        }
+        tempDir.delete();
+    }
+
+    public void testResolvesNestedCalls() throws Exception {
+        File zip = new File(tempDir, "f100.zip");
+        ExportArchive archive;
+
+        writeZip(zip, "f100/install.sql", "prompt --install\n@@application/set_environment.sql\n@@application/pages/page_00001\n",
+                "f100/application/set_environment.sql", "prompt --application/set_environment\n",
+                "f100/application/pages/page_00001.sql", "prompt --application/pages/page_00001\n@@../shared_components/lov.sql\n",
+                "f100/application/shared_components/lov.sql", "prompt --application/shared_components/lov\n");
+
+        archive = ExportArchive.open(zip.getPath(), null);
+        try {
+            assertEquals(Arrays.asList("f100/install.sql"), archive.getEntryNames());
+            assertEquals(Arrays.asList("prompt --install", "prompt --application/set_environment", "prompt --application/pages/page_00001",
+                    "prompt --application/shared_components/lov"), readLines(archive, "f100/install.sql"));
+        } finally {
+            archive.close();
+        }
+    }
+
+    public void testReportsMissingCalledScript() throws Exception {
+        File zip = new File(tempDir, "f100.zip");
+        ExportArchive archive;
+
+        writeZip(zip, "install.sql", "@@application/missing.sql\n");
+        archive = ExportArchive.open(zip.getPath(), null);
+        try {
+            readLines(archive, "install.sql");
+            fail("expected an IOException");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().contains("application/missing.sql"));
+        } finally {
+            archive.close();
+        }
+    }
+
+    public void testResolveCall() {
+        assertEquals("f100/application/pages/page_00001.sql", ExportArchive.resolveCall("f100/install.sql", "application/pages/page_00001"));
+        assertEquals("f100/application/lov.sql", ExportArchive.resolveCall("f100/application/pages/page.sql", "..\\lov.sql"));
+        assertEquals("create_application.sql", ExportArchive.resolveCall("install.sql", "./create_application.sql"));
+    }
+
+    public void testRejectsTarArchives() throws Exception {
+        for (String name : Arrays.asList("f100.tar.gz", "f100.tgz", "f100.tar")) {
+            File tar = new File(tempDir, name);
+            new FileOutputStream(tar).close();
+            assertTrue(ExportArchive.isArchive(tar.getPath()));
+            try {
+                ExportArchive.open(tar.getPath(), null);
+                fail("expected a MojoFailureException for " + name);
+            } catch (MojoFailureException ex) {
+                assertTrue(ex.getMessage().startsWith("Tar archives are not supported"));
+            }
+        }
+    }
+
+    private static List<String> readLines(ExportArchive archive, String entryName) throws IOException {
+        BufferedReader reader = new BufferedReader(archive.openScript(entryName));
+        List<String> lines = new ArrayList<String>();
+        String line;
+
+        try {
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+    private static void writeZip(File zip, String... namesAndContents) throws IOException {
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(zip));
+
+        try {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                output.putNextEntry(new ZipEntry(namesAndContents[i]));
+                output.write(namesAndContents[i + 1].getBytes("UTF-8"));
+                output.closeEntry();
+            }
+        } finally {
+            output.close();
+        }
+    }
+}
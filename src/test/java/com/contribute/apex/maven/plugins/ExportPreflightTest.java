@@ -0,0 +1,108 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * Scans export files with ExportPreflight and checks them against the
+ * application settings.
+ */
+public class ExportPreflightTest extends TestCase {
+
+    private static final String EXPORT = "prompt APPLICATION 100 - Demo\n"
+            + "begin\n"
+            + "wwv_flow_api.import_begin (\n"
+            + " p_version_yyyy_mm_dd=>'2016.08.24'\n"
+            + ",p_release=>'5.1.0.00.45'\n"
+            + ",p_default_workspace_id=>%s\n"
+            + ",p_default_application_id=>100\n"
+            + ",p_default_owner=>'DEMO'\n"
+            + ");\n"
+            + "end;\n"
+            + "/\n"
+            + "begin\n"
+            + "wwv_flow_api.import_end(p_auto_install_sup_obj => false);\n"
+            + "end;\n"
+            + "/\n";
+    private File tempDir;
+
+    @Override
+    protected void setUp() throws IOException {
+        tempDir = File.createTempFile("export-preflight", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() {
+        for (File file : tempDir.listFiles()) {
+            file.delete();
+        }
+        tempDir.delete();
+    }
+
+    public void testScanFile() throws IOException {
+        ExportMetadata metadata = ExportPreflight.scanFile(write("f100.sql", String.format(EXPORT, "1234")));
+
+        assertEquals("100", metadata.getAppId());
+        assertEquals("1234", metadata.getWorkspaceId());
+        assertEquals("5.1.0.00.45", metadata.getRelease());
+        assertEquals("DEMO", metadata.getOwner());
+        assertTrue(metadata.isImportBegin());
+        assertTrue(metadata.isImportEnd());
+        assertEquals("f100.sql: application 100, workspace ID 1234, owner DEMO, APEX 5.1.0.00.45", metadata.getDescription());
+    }
+
+    public void testRejectsMultipleWorkspaces() throws IOException {
+        List<ExportMetadata> metadata = Arrays.asList(ExportPreflight.scanFile(write("f100.sql", String.format(EXPORT, "1234"))),
+                ExportPreflight.scanFile(write("f101.sql", String.format(EXPORT, "5678"))));
+        Application application = new Application();
+
+        List<String> problems = ExportPreflight.validate(metadata, application, new Target());
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).contains("multiple workspaces [1234, 5678]"));
+
+        // a workspaceName imports both exports in the same workspace
+        application.setWorkspaceName("DEMO");
+        assertTrue(ExportPreflight.validate(metadata, application, new Target()).isEmpty());
+    }
+
+    public void testRequiresWorkspace() throws IOException {
+        List<ExportMetadata> metadata = Arrays.asList(ExportPreflight.scanFile(write("f100.sql",
+                String.format(EXPORT, "null").replace(",p_default_workspace_id=>null\n", ""))));
+        Application application = new Application();
+
+        List<String> problems = ExportPreflight.validate(metadata, application, new Target());
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).contains("doesn't contain a workspace ID"));
+
+        application.setWorkspaceName("DEMO");
+        assertTrue(ExportPreflight.validate(metadata, application, new Target()).isEmpty());
+    }
+
+    public void testReportsTruncatedFile() throws IOException {
+        String export = String.format(EXPORT, "1234");
+        List<ExportMetadata> metadata = Arrays.asList(ExportPreflight.scanFile(write("f100.sql", export.substring(0, export.indexOf("begin\nwwv_flow_api.import_end")))));
+
+        List<String> problems = ExportPreflight.validate(metadata, new Application(), new Target());
+        assertEquals(Arrays.asList("f100.sql is truncated: the application import is never ended"), problems);
+    }
+
+    private File write(String name, String contents) throws IOException {
+        File file = new File(tempDir, name);
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+}
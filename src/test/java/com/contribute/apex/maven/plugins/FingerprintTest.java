@@ -0,0 +1,122 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import junit.framework.TestCase;
+
+/**
+ * Fingerprints settings and directory trees with Fingerprint.
+ */
+public class FingerprintTest extends TestCase {
+
+    private File tempDir;
+
+    @Override
+    protected void setUp() throws IOException {
+        tempDir = File.createTempFile("fingerprint", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() {
+        delete(tempDir);
+    }
+
+    public void testSettings() {
+        assertEquals(getSettingsFingerprint("a", "b"), getSettingsFingerprint("a", "b"));
+        assertFalse(getSettingsFingerprint("a", "b").equals(getSettingsFingerprint("a", "c")));
+        assertFalse(getSettingsFingerprint("a", "b").equals(getSettingsFingerprint("a", null)));
+    }
+
+    public void testDirectory() throws IOException {
+        File source = new File(tempDir, "src");
+        File output = new File(source, "output");
+        String fingerprint;
+
+        write(new File(source, "a.sql"), "select 1 from dual;");
+        write(new File(source, "sub/b.sql"), "select 2 from dual;");
+        write(new File(output, "index.html"), "<html></html>");
+        fingerprint = getDirectoryFingerprint(source, output);
+        assertEquals(fingerprint, getDirectoryFingerprint(source, output));
+
+        // changes in excluded directories are ignored
+        write(new File(output, "index.html"), "<html>changed</html>");
+        assertEquals(fingerprint, getDirectoryFingerprint(source, output));
+
+        // a changed size in a subdirectory is detected
+        write(new File(source, "sub/b.sql"), "select 20 from dual;");
+        assertFalse(fingerprint.equals(getDirectoryFingerprint(source, output)));
+
+        // so is a changed modification time
+        fingerprint = getDirectoryFingerprint(source, output);
+        assertTrue(new File(source, "a.sql").setLastModified(new File(source, "a.sql").lastModified() - 10000));
+        assertFalse(fingerprint.equals(getDirectoryFingerprint(source, output)));
+    }
+
+    public void testFiles() throws IOException {
+        Fingerprint fingerprint = new Fingerprint();
+        String value;
+
+        write(new File(tempDir, "a.sql"), "a");
+        write(new File(tempDir, "sub/b.sql"), "b");
+        fingerprint.addFiles(tempDir, ".fingerprint");
+        value = fingerprint.getValue();
+
+        // neither subdirectories nor the excluded file are included
+        write(new File(tempDir, "sub/b.sql"), "changed");
+        write(new File(tempDir, ".fingerprint"), value);
+        fingerprint = new Fingerprint();
+        fingerprint.addFiles(tempDir, ".fingerprint");
+        assertEquals(value, fingerprint.getValue());
+    }
+
+    public void testReadAndWrite() throws IOException {
+        File file = new File(tempDir, ".fingerprint");
+
+        assertNull(Fingerprint.read(file));
+        Fingerprint.write(file, "0123abcd");
+        assertEquals("0123abcd", Fingerprint.read(file));
+    }
+
+    private static String getSettingsFingerprint(String name, String value) {
+        Fingerprint fingerprint = new Fingerprint();
+
+        fingerprint.add(name, value);
+        return fingerprint.getValue();
+    }
+
+    private static String getDirectoryFingerprint(File directory, File excludedDirectory) {
+        Fingerprint fingerprint = new Fingerprint();
+
+        fingerprint.addDirectory(directory, Arrays.asList(excludedDirectory));
+        return fingerprint.getValue();
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        Writer writer;
+
+        file.getParentFile().mkdirs();
+        writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
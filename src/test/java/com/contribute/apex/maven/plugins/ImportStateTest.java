@@ -0,0 +1,151 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import junit.framework.TestCase;
+
+/**
+ * Records, reloads and compares import digests and snapshots with
+ * ImportState.
+ */
+public class ImportStateTest extends TestCase {
+
+    private File tempDir;
+
+    @Override
+    protected void setUp() throws IOException {
+        tempDir = File.createTempFile("import-state", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() {
+        delete(tempDir);
+    }
+
+    public void testTargetKey() {
+        assertEquals("db:1521/xe|DEMO|100", ImportState.getTarget("db:1521/xe", "demo", "100"));
+        assertEquals("db:1521/xe||100", ImportState.getTarget("db:1521/xe", null, "100"));
+        assertFalse(ImportState.getTarget("db:1521/xe", null, "100").equals(ImportState.getTarget("db:1521/xe", null, "101")));
+    }
+
+    public void testStoreAndReload() throws IOException {
+        File stateFile = new File(tempDir, "state/import-state.properties");
+        String target = ImportState.getTarget("db:1521/xe", "demo", "100");
+        Map<String, String> fileDigests = new LinkedHashMap<String, String>();
+        ImportState state = new ImportState(stateFile);
+
+        assertNull(state.getDigest(target));
+        assertTrue(state.getFileDigests(target).isEmpty());
+
+        fileDigests.put("f100/install.sql", "a");
+        fileDigests.put("f100/application/pages/page_00001.sql", "b");
+        state.putDigest(target, "digest");
+        state.putFileDigests(target, fileDigests);
+
+        state = new ImportState(stateFile);
+        assertEquals("digest", state.getDigest(target));
+        assertEquals(fileDigests, state.getFileDigests(target));
+
+        // a new snapshot replaces the old one
+        fileDigests.remove("f100/install.sql");
+        state.putFileDigests(target, fileDigests);
+        assertEquals(fileDigests, new ImportState(stateFile).getFileDigests(target));
+    }
+
+    public void testRemove() throws IOException {
+        File stateFile = new File(tempDir, "import-state.properties");
+        String target = ImportState.getTarget("db", null, "100");
+        String other = ImportState.getTarget("db", null, "1001");
+        ImportState state = new ImportState(stateFile);
+
+        state.putDigest(target, "1");
+        state.putFileDigests(target, Collections.singletonMap("f100.sql", "a"));
+        state.putDigest(other, "2");
+        state.putFileDigests(other, Collections.singletonMap("f1001.sql", "b"));
+        state.remove(target);
+
+        state = new ImportState(stateFile);
+        assertNull(state.getDigest(target));
+        assertTrue(state.getFileDigests(target).isEmpty());
+        // the target 100 is a prefix of the target 1001, which is kept
+        assertEquals("2", state.getDigest(other));
+        assertEquals("b", state.getFileDigests(other).get("f1001.sql"));
+    }
+
+    public void testFileDigests() throws IOException {
+        File folder = new File(tempDir, "f100");
+        Map<String, String> fileDigests;
+
+        write(new File(folder, "install.sql"), "@@application/init.sql\n");
+        write(new File(folder, "application/init.sql"), "begin null; end;\n/\n");
+        write(new File(folder, "readme.txt"), "not an export file");
+        fileDigests = ImportState.computeFileDigests(folder);
+
+        assertEquals(2, fileDigests.size());
+        assertEquals(ImportState.computeFileDigest(new File(folder, "application/init.sql")), fileDigests.get("application/init.sql"));
+        assertEquals(64, fileDigests.get("install.sql").length());
+    }
+
+    public void testDelta() throws IOException {
+        File folder = new File(tempDir, "f100");
+        Map<String, String> attributes = new LinkedHashMap<String, String>();
+        Map<String, String> before;
+        Map<String, String> after;
+        Map<String, String> reversed;
+        String digest;
+
+        attributes.put("appId", "100");
+        write(new File(folder, "install.sql"), "@@application/pages/page_00001.sql\n");
+        write(new File(folder, "application/pages/page_00001.sql"), "-- page 1\n");
+        write(new File(folder, "application/pages/page_00002.sql"), "-- page 2\n");
+        before = ImportState.computeFileDigests(folder);
+
+        write(new File(folder, "application/pages/page_00002.sql"), "-- page 2, changed\n");
+        after = ImportState.computeFileDigests(folder);
+
+        assertEquals(before.get("install.sql"), after.get("install.sql"));
+        assertEquals(before.get("application/pages/page_00001.sql"), after.get("application/pages/page_00001.sql"));
+        assertFalse(before.get("application/pages/page_00002.sql").equals(after.get("application/pages/page_00002.sql")));
+        assertFalse(ImportState.computeDigest(before, attributes).equals(ImportState.computeDigest(after, attributes)));
+
+        // the snapshot digest depends on the attributes, not on the map order
+        reversed = new TreeMap<String, String>(Collections.<String>reverseOrder());
+        reversed.putAll(after);
+        digest = ImportState.computeDigest(after, attributes);
+        assertEquals(digest, ImportState.computeDigest(reversed, attributes));
+        attributes.put("appId", "200");
+        assertFalse(digest.equals(ImportState.computeDigest(after, attributes)));
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        Writer writer;
+
+        file.getParentFile().mkdirs();
+        writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
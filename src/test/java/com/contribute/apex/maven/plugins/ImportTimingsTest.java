@@ -0,0 +1,49 @@
+package com.contribute.apex.maven.plugins;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import junit.framework.TestCase;
+
+/**
+ * Feeds SQL*Plus output lines to ImportTimings.
+ */
+public class ImportTimingsTest extends TestCase {
+
+    public void testTimesComponentsFromPrompts() {
+        ImportTimings timings = new ImportTimings("f100");
+        Map<String, Long> components;
+
+        assertTrue(timings.handleLine(ImportTimings.MARKER + " begin install.sql"));
+        assertFalse(timings.handleLine("--application/set_environment"));
+        assertFalse(timings.handleLine("PL/SQL procedure successfully completed."));
+        assertFalse(timings.handleLine("--application/pages/page_00001"));
+        assertFalse(timings.handleLine("--application/pages/page_00002"));
+        assertTrue(timings.handleLine(ImportTimings.MARKER + " end install.sql"));
+        assertFalse(timings.handleLine("--application/end_environment"));
+        timings.endComponent();
+
+        components = timings.getComponents();
+        assertEquals(Arrays.asList("application/set_environment", "application/pages/page_00001", "application/pages/page_00002",
+                "application/end_environment"), new ArrayList<String>(components.keySet()));
+        assertEquals(Arrays.asList("install.sql"), new ArrayList<String>(timings.getScripts().keySet()));
+    }
+
+    public void testSumsRepeatedComponents() throws InterruptedException {
+        ImportTimings timings = new ImportTimings("f100");
+
+        timings.handleLine("--application/pages/page_00001");
+        Thread.sleep(5);
+        timings.handleLine("--application/pages/page_00001");
+        Thread.sleep(5);
+        timings.endComponent();
+
+        assertEquals(1, timings.getComponents().size());
+        assertTrue(timings.getComponents().get("application/pages/page_00001") >= 10);
+    }
+
+    public void testEncodesReportValues() {
+        assertEquals("\"say \\\"hi\\\"\\n\"", ImportTimings.toJsonString("say \"hi\"\n"));
+        assertEquals("\"say \"\"hi\"\", then leave\"", ImportTimings.toCsvString("say \"hi\", then leave"));
+    }
+}
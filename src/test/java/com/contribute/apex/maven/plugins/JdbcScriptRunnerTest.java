@@ -0,0 +1,340 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Runs scripts through JdbcScriptRunner against the StubDriver.
+ */
+public class JdbcScriptRunnerTest extends TestCase {
+
+    private RecordingLog log;
+    private File tempDir;
+
+    @Override
+    protected void setUp() throws IOException {
+        StubDriver.reset();
+        log = new RecordingLog();
+        tempDir = File.createTempFile("jdbc-runner", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() {
+        delete(tempDir);
+    }
+
+    public void testConnectThroughDriver() throws Exception {
+        Connection connection = JdbcScriptRunner.connect(StubDriver.class.getName(), "jdbc:stub:test", "scott", "tiger");
+
+        assertNotNull(connection);
+        assertFalse(StubDriver.autoCommit);
+    }
+
+    public void testConnectRejectsUnknownUrl() {
+        try {
+            JdbcScriptRunner.connect(StubDriver.class.getName(), "jdbc:other:test", "scott", "tiger");
+            fail("expected a MojoExecutionException");
+        } catch (MojoExecutionException ex) {
+            assertTrue(ex.getMessage().contains("jdbc:other:test"));
+        }
+    }
+
+    public void testBatchesStatements() throws Exception {
+        JdbcScriptRunner runner = run(3, "insert into t values (1);\n"
+                + "insert into t values (2);\n"
+                + "insert into t values (3);\n"
+                + "insert into t values (4);\n"
+                + "insert into t values (5);\n");
+
+        assertEquals(2, StubDriver.batches.size());
+        assertEquals(Arrays.asList("insert into t values (1)", "insert into t values (2)", "insert into t values (3)"), StubDriver.batches.get(0));
+        assertEquals(Arrays.asList("insert into t values (4)", "insert into t values (5)"), StubDriver.batches.get(1));
+        assertTrue(StubDriver.executed.isEmpty());
+        assertEquals(0, runner.getErrorCount());
+        assertEquals(1, StubDriver.commits);
+    }
+
+    public void testProgramUnitsRunOnTheirOwn() throws Exception {
+        StubDriver.warning.add("procedure p");
+        JdbcScriptRunner runner = run(10, "insert into t values (1);\n"
+                + "create or replace procedure p is\n"
+                + "begin\n"
+                + "  null;\n"
+                + "end;\n"
+                + "/\n"
+                + "insert into t values (2);\n");
+
+        assertEquals(Arrays.asList("insert into t values (1)", "create or replace procedure p is\nbegin\n  null;\nend;", "insert into t values (2)"),
+                StubDriver.executed);
+        assertEquals(1, runner.getWarningCount());
+        assertTrue(log.contains("WARN", "created with compilation errors"));
+    }
+
+    public void testContinuesAfterFailedBatchStatement() throws Exception {
+        StubDriver.failing.add("values (2)");
+        JdbcScriptRunner runner = run(10, "insert into t values (1);\n"
+                + "insert into t values (2);\n"
+                + "insert into t values (3);\n"
+                + "insert into t values (4);\n");
+
+        assertEquals(1, runner.getErrorCount());
+        assertTrue(log.contains("ERROR", "script.sql:2: ORA-00942"));
+        assertEquals(Arrays.asList("insert into t values (3)", "insert into t values (4)"), StubDriver.batches.get(1));
+    }
+
+    public void testReportsFailedStatementsOfContinuedBatch() throws Exception {
+        StubDriver.batchMode = StubDriver.BatchMode.CONTINUE;
+        StubDriver.failing.add("values (2)");
+        StubDriver.failing.add("values (3)");
+        JdbcScriptRunner runner = run(10, "insert into t values (1);\n"
+                + "insert into t values (2);\n"
+                + "insert into t values (3);\n");
+
+        assertEquals(2, runner.getErrorCount());
+        assertTrue(log.contains("ERROR", "script.sql:2:"));
+        assertTrue(log.contains("ERROR", "script.sql:3:"));
+    }
+
+    public void testRerunsBatchWithoutUpdateCounts() throws Exception {
+        StubDriver.batchMode = StubDriver.BatchMode.NO_COUNTS;
+        StubDriver.failing.add("values (2)");
+        JdbcScriptRunner runner = run(10, "insert into t values (1);\n"
+                + "insert into t values (2);\n"
+                + "insert into t values (3);\n");
+
+        assertEquals(1, runner.getErrorCount());
+        assertTrue(log.contains("ERROR", "script.sql:2:"));
+        assertEquals(Arrays.asList("insert into t values (1)", "insert into t values (2)", "insert into t values (3)"), StubDriver.executed);
+    }
+
+    public void testReportsErrorsWithoutMessage() throws Exception {
+        StubDriver.errorMessage = null;
+        StubDriver.failing.add("drop table");
+        JdbcScriptRunner runner = run(10, "drop table t;\n");
+
+        assertEquals(1, runner.getErrorCount());
+        assertTrue(log.contains("ERROR", "script.sql:1: java.sql.SQLException"));
+    }
+
+    public void testWheneverSqlerrorExit() throws Exception {
+        StubDriver.failing.add("values (2)");
+        JdbcScriptRunner runner = new JdbcScriptRunner(StubDriver.newConnection(), log, "", 10);
+
+        try {
+            runner.run(new StringReader("whenever sqlerror exit sql.sqlcode rollback\n"
+                    + "insert into t values (1);\n"
+                    + "insert into t values (2);\n"
+                    + "insert into t values (3);\n"), new File(tempDir, "script.sql"));
+            fail("expected an SQLException");
+        } catch (SQLException ex) {
+            assertTrue(ex.getMessage().startsWith("ORA-00942"));
+        }
+        assertTrue(runner.isExited());
+        assertEquals(1, StubDriver.rollbacks);
+        // the statement after the failing one isn't resubmitted
+        assertEquals(1, StubDriver.batches.size());
+        assertTrue(StubDriver.executed.isEmpty());
+    }
+
+    public void testWheneverSqlerrorContinue() throws Exception {
+        StubDriver.failing.add("values (1)");
+        JdbcScriptRunner runner = run(1, "whenever sqlerror exit\n"
+                + "whenever sqlerror continue\n"
+                + "insert into t values (1);\n"
+                + "insert into t values (2);\n");
+
+        assertFalse(runner.isExited());
+        assertEquals(1, runner.getErrorCount());
+        assertTrue(StubDriver.executed.contains("insert into t values (2)"));
+    }
+
+    public void testExitStopsTheScript() throws Exception {
+        JdbcScriptRunner runner = run(10, "insert into t values (1);\n"
+                + "exit\n"
+                + "insert into t values (2);\n");
+
+        assertTrue(runner.isExited());
+        assertEquals(Arrays.asList("insert into t values (1)"), StubDriver.getAllStatements());
+    }
+
+    public void testNestedScripts() throws Exception {
+        File main = new File(tempDir, "install.sql");
+        File pages = new File(tempDir, "application/pages");
+
+        pages.mkdirs();
+        write(main, "prompt installing\n@@application/pages/page_00001.sql\ninsert into t values (3);\n");
+        write(new File(pages, "page_00001.sql"), "insert into t values (1);\n@@page_00002\n");
+        write(new File(pages, "page_00002.sql"), "insert into t values (2);\n");
+
+        JdbcScriptRunner runner = new JdbcScriptRunner(StubDriver.newConnection(), log, "", 1);
+        runner.runFile(main);
+        runner.close();
+
+        assertEquals(Arrays.asList("insert into t values (1)", "insert into t values (2)", "insert into t values (3)"), StubDriver.executed);
+        assertTrue(log.contains("INFO", "installing"));
+    }
+
+    public void testServerOutput() throws Exception {
+        StubDriver.serverOutput.add("first line");
+        StubDriver.serverOutput.add("second line");
+        run(10, "set serveroutput on size unlimited\n"
+                + "begin\n"
+                + "  dbms_output.put_line('first line');\n"
+                + "end;\n"
+                + "/\n");
+
+        assertTrue(StubDriver.executed.contains("begin dbms_output.enable(null); end;"));
+        assertTrue(log.contains("INFO", "first line"));
+        assertTrue(log.contains("INFO", "second line"));
+    }
+
+    public void testExecuteCommand() throws Exception {
+        run(10, "exec wwv_flow_api.set_security_group_id(p_security_group_id => 10);\n");
+
+        assertEquals(Arrays.asList("begin wwv_flow_api.set_security_group_id(p_security_group_id => 10); end;"), StubDriver.executed);
+    }
+
+    private JdbcScriptRunner run(int batchSize, String script) throws IOException, SQLException {
+        JdbcScriptRunner runner = new JdbcScriptRunner(StubDriver.newConnection(), log, "", batchSize);
+
+        runner.run(new StringReader(script), new File(tempDir, "script.sql"));
+        runner.close();
+        return runner;
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * A Maven log that keeps the logged lines.
+     */
+    private static class RecordingLog implements Log {
+
+        private final List<String> lines = new ArrayList<String>();
+
+        boolean contains(String level, String text) {
+            for (String line : lines) {
+                if (line.startsWith(level + " ") && line.contains(text)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void add(String level, CharSequence content) {
+            lines.add(level + " " + content);
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return true;
+        }
+
+        @Override
+        public void debug(CharSequence content) {
+            add("DEBUG", content);
+        }
+
+        @Override
+        public void debug(CharSequence content, Throwable error) {
+            add("DEBUG", content);
+        }
+
+        @Override
+        public void debug(Throwable error) {
+            add("DEBUG", error.toString());
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return true;
+        }
+
+        @Override
+        public void info(CharSequence content) {
+            add("INFO", content);
+        }
+
+        @Override
+        public void info(CharSequence content, Throwable error) {
+            add("INFO", content);
+        }
+
+        @Override
+        public void info(Throwable error) {
+            add("INFO", error.toString());
+        }
+
+        @Override
+        public boolean isWarnEnabled() {
+            return true;
+        }
+
+        @Override
+        public void warn(CharSequence content) {
+            add("WARN", content);
+        }
+
+        @Override
+        public void warn(CharSequence content, Throwable error) {
+            add("WARN", content);
+        }
+
+        @Override
+        public void warn(Throwable error) {
+            add("WARN", error.toString());
+        }
+
+        @Override
+        public boolean isErrorEnabled() {
+            return true;
+        }
+
+        @Override
+        public void error(CharSequence content) {
+            add("ERROR", content);
+        }
+
+        @Override
+        public void error(CharSequence content, Throwable error) {
+            add("ERROR", content);
+        }
+
+        @Override
+        public void error(Throwable error) {
+            add("ERROR", error.toString());
+        }
+    }
+}
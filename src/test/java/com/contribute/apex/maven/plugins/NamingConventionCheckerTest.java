@@ -0,0 +1,153 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import junit.framework.TestCase;
+
+/**
+ * Checks declarations against naming conventions with
+ * NamingConventionChecker, in particular the tracking of nested blocks.
+ */
+public class NamingConventionCheckerTest extends TestCase {
+
+    public void testPackageBody() throws IOException {
+        List<String> violations = check(null, "create or replace package body demo_pkg\n"
+                + "as\n"
+                + "  g_count number;\n"
+                + "  bad_global number;\n"
+                + "  procedure do_it(p_id in number, wrong in varchar2 default 'a, b')\n"
+                + "  is\n"
+                + "    l_ok number;\n"
+                + "    bad_local number;\n"
+                + "    gc_max constant number := 1;\n"
+                + "    e_oops exception;\n"
+                + "    oops exception;\n"
+                + "  begin\n"
+                + "    not_a_declaration := 1;\n"
+                + "  end do_it;\n"
+                + "  after_procedure number;\n"
+                + "end demo_pkg;\n"
+                + "/\n");
+
+        assertEquals(list("4 globalVariable bad_global", "5 parameter wrong", "8 localVariable bad_local", "11 exception oops",
+                "15 globalVariable after_procedure"), violations);
+    }
+
+    public void testPackageSpecification() throws IOException {
+        Map<String, String> conventions = new HashMap<String, String>();
+
+        conventions.put("package", ".+_pkg");
+        conventions.put("function", "get_.+");
+        assertEquals(list("1 package demo", "3 globalVariable counter", "4 function name", "4 parameter id", "5 type rec"),
+                check(conventions, "create package demo as\n"
+                + "  gc_version constant varchar2(10) := '1.0';\n"
+                + "  counter number;\n"
+                + "  function name(id in number) return varchar2;\n"
+                + "  type t_rec is record (a number); type rec is table of t_rec;\n"
+                + "end;\n"
+                + "/\n"));
+    }
+
+    public void testNestedDeclareBlocks() throws IOException {
+        assertEquals(list("4 localVariable inner_bad", "9 localVariable outer_bad"), check(null, "declare\n"
+                + "  l_outer number;\n"
+                + "begin\n"
+                + "  declare l_inner number; inner_bad number;\n"
+                + "  begin\n"
+                + "    null;\n"
+                + "  end;\n"
+                + "  declare\n"
+                + "    outer_bad number;\n"
+                + "  begin\n"
+                + "    null;\n"
+                + "  end;\n"
+                + "end;\n"
+                + "/\n"));
+    }
+
+    public void testCaseAndEnd() throws IOException {
+        // end case, end if, end loop and the end of a case expression must
+        // not close the enclosing subprogram
+        assertEquals(list("13 localVariable late"), check(null, "create or replace procedure p_case(p_x in number)\n"
+                + "is\n"
+                + "  l_y number;\n"
+                + "  procedure nested is\n"
+                + "  begin\n"
+                + "    case p_x when 1 then null; else null; end case;\n"
+                + "    if p_x = 1 then null; end if;\n"
+                + "    loop exit; end loop;\n"
+                + "    select case when p_x = 1 then 1 end into l_y from dual;\n"
+                + "    l_y := case p_x when 1 then 2 end;\n"
+                + "  end nested;\n"
+                + "  -- still in the declaration section of p_case\n"
+                + "  late number;\n"
+                + "begin\n"
+                + "  nested;\n"
+                + "end;\n"
+                + "/\n"));
+    }
+
+    public void testTrigger() throws IOException {
+        Map<String, String> conventions = new HashMap<String, String>();
+
+        conventions.put("trigger", "trg_.+");
+        assertEquals(list("1 trigger emp_biu", "4 localVariable v_x"), check(conventions, "create or replace trigger emp_biu\n"
+                + "before insert or update on emp for each row\n"
+                + "declare\n"
+                + "  v_x number;\n"
+                + "begin\n"
+                + "  :new.ename := upper(:new.ename);\n"
+                + "end;\n"
+                + "/\n"
+                + "create or replace trigger trg_dept before insert on dept for each row\n"
+                + "begin\n"
+                + "  null;\n"
+                + "end;\n"
+                + "/\n"));
+    }
+
+    public void testCreatedObjects() throws IOException {
+        Map<String, String> conventions = new HashMap<String, String>();
+
+        conventions.put("table", "t_.+");
+        conventions.put("materializedView", "mv_.+");
+        conventions.put("localVariable", "");
+        assertEquals(list("1 table emp", "2 materializedView emp_summary"), check(conventions, "create table scott.emp (id number);\n"
+                + "create materialized view emp_summary as select count(*) n from emp;\n"
+                + "create table if not exists t_dept (id number);\n"
+                + "declare\n"
+                + "  anything number;\n"
+                + "begin\n"
+                + "  null;\n"
+                + "end;\n"
+                + "/\n"));
+    }
+
+    public void testRejectsUnknownKind() {
+        try {
+            new NamingConventionChecker(Collections.singletonMap("column", "c_.+"));
+            fail("expected an IllegalArgumentException");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().contains("column"));
+        }
+    }
+
+    private static List<String> check(Map<String, String> conventions, String source) throws IOException {
+        List<String> violations = new ArrayList<String>();
+
+        for (NamingViolation violation : new NamingConventionChecker(conventions).check(new StringReader(source))) {
+            violations.add(violation.getLine() + " " + violation.getKind() + " " + violation.getName());
+        }
+        return violations;
+    }
+
+    private static List<String> list(String... elements) {
+        return Arrays.asList(elements);
+    }
+}
@@ -0,0 +1,145 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import junit.framework.TestCase;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+/**
+ * Writes process output to rolling gzip files with OutputLogSink.
+ */
+public class OutputLogSinkTest extends TestCase {
+
+    private File tempDir;
+    private RecordingLog log;
+
+    @Override
+    protected void setUp() throws IOException {
+        tempDir = File.createTempFile("output-log-sink", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+        log = new RecordingLog();
+    }
+
+    @Override
+    protected void tearDown() {
+        for (File file : tempDir.listFiles()) {
+            file.delete();
+        }
+        tempDir.delete();
+    }
+
+    public void testRollsFiles() throws IOException {
+        OutputLogSink sink = new OutputLogSink(tempDir, "import", 20, 0, 0, null, null, log);
+        File firstFile;
+
+        sink.info("the first line of output");
+        firstFile = sink.getFile();
+        sink.info("the second line of output");
+        sink.error("the third line of output");
+        sink.close();
+
+        assertEquals(3, getOutputFiles("import").size());
+        assertTrue(firstFile.getName().matches("import-\\d{8}-\\d{6}\\.1\\.log\\.gz"));
+        assertEquals(Arrays.asList("[INFO] the first line of output"), read(firstFile));
+        assertEquals(Arrays.asList("[ERROR] the third line of output"), read(sink.getFile()));
+        assertEquals(3, sink.getLineCount());
+        // only errors, warnings and the summary are forwarded
+        assertEquals(Arrays.asList("ERROR the third line of output"), log.lines.subList(0, 1));
+        assertTrue(log.lines.get(1).startsWith("INFO Wrote 3 line(s) of output"));
+    }
+
+    public void testRemovesOldestFiles() throws IOException {
+        OutputLogSink sink = new OutputLogSink(tempDir, "import", 1, 2, 0, null, null, log);
+
+        assertTrue(new File(tempDir, "import-20000101-000000.1.log.gz").createNewFile());
+        assertTrue(new File(tempDir, "import-20000101-000000.2.log.gz").createNewFile());
+        assertTrue(new File(tempDir, "export-20000101-000000.1.log.gz").createNewFile());
+        assertTrue(new File(tempDir, "import.txt").createNewFile());
+
+        sink.info("a");
+        assertEquals(2, getOutputFiles("import").size());
+        assertFalse(new File(tempDir, "import-20000101-000000.1.log.gz").exists());
+        assertTrue(new File(tempDir, "import-20000101-000000.2.log.gz").exists());
+
+        sink.info("b");
+        sink.info("c");
+        sink.close();
+        assertEquals(2, getOutputFiles("import").size());
+        assertFalse(new File(tempDir, "import-20000101-000000.2.log.gz").exists());
+        assertEquals(Arrays.asList("[INFO] c"), read(sink.getFile()));
+        // files with another prefix are kept
+        assertTrue(new File(tempDir, "export-20000101-000000.1.log.gz").exists());
+        assertTrue(new File(tempDir, "import.txt").exists());
+    }
+
+    public void testConcurrentBuilds() throws IOException {
+        OutputLogSink sink1 = new OutputLogSink(tempDir, "import", 1024, 0, 0, null, null, log);
+        OutputLogSink sink2 = new OutputLogSink(tempDir, "import", 1024, 0, 0, null, null, log);
+
+        sink1.info("first build");
+        sink2.info("second build");
+        sink1.close();
+        sink2.close();
+
+        assertFalse(sink1.getFile().equals(sink2.getFile()));
+        assertEquals(Arrays.asList("[INFO] first build"), read(sink1.getFile()));
+        assertEquals(Arrays.asList("[INFO] second build"), read(sink2.getFile()));
+    }
+
+    private List<File> getOutputFiles(String name) {
+        List<File> files = new ArrayList<File>();
+
+        for (File file : tempDir.listFiles()) {
+            if (file.getName().matches(name + "-\\d{8}-\\d{6}\\.\\d+\\.log\\.gz")) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static List<String> read(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), "UTF-8"));
+        List<String> lines = new ArrayList<String>();
+        String line;
+
+        try {
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+    /**
+     * A Maven log that keeps the info, warning and error messages.
+     */
+    private static class RecordingLog extends SystemStreamLog {
+
+        private final List<String> lines = new ArrayList<String>();
+
+        @Override
+        public void info(CharSequence content) {
+            lines.add("INFO " + content);
+        }
+
+        @Override
+        public void warn(CharSequence content) {
+            lines.add("WARN " + content);
+        }
+
+        @Override
+        public void error(CharSequence content) {
+            lines.add("ERROR " + content);
+        }
+    }
+}
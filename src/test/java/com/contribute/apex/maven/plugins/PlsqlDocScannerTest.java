@@ -0,0 +1,112 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * Reads Natural Docs style comments and undocumented declarations from
+ * PL/SQL source files with PlsqlDocScanner.
+ */
+public class PlsqlDocScannerTest extends TestCase {
+
+    private static final String PACKAGE = "/*\n"
+            + " * Package: emp_api\n"
+            + " * Access to the employees.\n"
+            + " */\n"
+            + "create or replace package emp_api\n"
+            + "as\n"
+            + "  -- Function: get_name\n"
+            + "  -- Returns the name of an employee.\n"
+            + "  --\n"
+            + "  -- Parameters:\n"
+            + "  --   p_empno - the employee number\n"
+            + "  function get_name(\n"
+            + "    p_empno in number)\n"
+            + "    return varchar2;\n"
+            + "\n"
+            + "  procedure undocumented(p_x in number);\n"
+            + "end emp_api;\n"
+            + "/\n";
+    private File tempDir;
+
+    @Override
+    protected void setUp() throws IOException {
+        tempDir = File.createTempFile("plsql-doc-scanner", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() {
+        for (File file : tempDir.listFiles()) {
+            file.delete();
+        }
+        tempDir.delete();
+    }
+
+    public void testScan() throws IOException {
+        DocFile docFile = new PlsqlDocScanner(false, false).scan(write("emp_api.pks", PACKAGE), "src/emp_api.pks");
+        List<DocTopic> topics = docFile.getTopics();
+
+        assertEquals("emp_api", docFile.getTitle());
+        assertEquals(3, topics.size());
+
+        assertEquals("Package", topics.get(0).getKeyword());
+        assertEquals("emp_api", topics.get(0).getTitle());
+        assertEquals(2, topics.get(0).getLine());
+        assertEquals(Arrays.asList("Access to the employees."), topics.get(0).getBody());
+        assertEquals("package emp_api\nas", topics.get(0).getPrototype());
+
+        assertEquals("Function", topics.get(1).getKeyword());
+        assertEquals("get_name", topics.get(1).getTitle());
+        assertEquals(7, topics.get(1).getLine());
+        assertEquals(Arrays.asList(" Returns the name of an employee.", "", " Parameters:", "   p_empno - the employee number"),
+                topics.get(1).getBody());
+        assertEquals("  function get_name(\n    p_empno in number)\n    return varchar2;", topics.get(1).getPrototype());
+
+        assertEquals("Procedure", topics.get(2).getKeyword());
+        assertEquals("undocumented", topics.get(2).getTitle());
+        assertEquals(16, topics.get(2).getLine());
+        assertFalse(topics.get(2).isDocumented());
+        assertEquals("  procedure undocumented(p_x in number);", topics.get(2).getPrototype());
+    }
+
+    public void testDocumentedOnly() throws IOException {
+        DocFile docFile = new PlsqlDocScanner(true, true).scan(write("emp_api.pks", PACKAGE), "emp_api.pks");
+
+        assertEquals("emp_api.pks", docFile.getTitle());
+        assertEquals(2, docFile.getTopics().size());
+        assertTrue(docFile.getTopics().get(0).isDocumented());
+        assertTrue(docFile.getTopics().get(1).isDocumented());
+    }
+
+    public void testCommentWithoutTopic() throws IOException {
+        DocFile docFile = new PlsqlDocScanner(false, false).scan(write("view.sql", "-- just a remark\n"
+                + "create or replace force view \"EMP_V\" as\n"
+                + "select * from emp;\n"), "view.sql");
+
+        assertEquals("view.sql", docFile.getTitle());
+        assertEquals(1, docFile.getTopics().size());
+        assertEquals("View", docFile.getTopics().get(0).getKeyword());
+        assertEquals("EMP_V", docFile.getTopics().get(0).getTitle());
+        assertFalse(docFile.getTopics().get(0).isDocumented());
+    }
+
+    private File write(String name, String contents) throws IOException {
+        File file = new File(tempDir, name);
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+}
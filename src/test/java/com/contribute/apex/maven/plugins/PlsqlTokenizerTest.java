@@ -0,0 +1,97 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * Splits PL/SQL source code in tokens with PlsqlTokenizer.
+ */
+public class PlsqlTokenizerTest extends TestCase {
+
+    public void testSkipsComments() throws IOException {
+        assertEquals(Arrays.asList("a", ":=", "b", ";", "c"), getTexts("a := -- a comment ; d\n"
+                + "  /* a block\n"
+                + "     comment; */ b; c"));
+        assertEquals(Arrays.asList("a", "/", "b"), getTexts("a / b /* unterminated"));
+    }
+
+    public void testStringLiterals() throws IOException {
+        List<PlsqlTokenizer.Token> tokens = tokenize("x := 'it''s -- not a comment' || n'a;b' || q'[it's ]' || Q'!a'; b!';");
+
+        assertEquals(Arrays.asList("x", ":=", "'it''s -- not a comment'", "||", "n'a;b'", "||", "q'[it's ]'", "||", "Q'!a'; b!'", ";"),
+                getTexts(tokens));
+        assertEquals(PlsqlTokenizer.TokenType.LITERAL, tokens.get(2).getType());
+        assertEquals(PlsqlTokenizer.TokenType.LITERAL, tokens.get(8).getType());
+    }
+
+    public void testQuotedIdentifiers() throws IOException {
+        List<PlsqlTokenizer.Token> tokens = tokenize("select \"Mixed Case\", lower_case from dual");
+
+        assertEquals(PlsqlTokenizer.TokenType.QUOTED_IDENTIFIER, tokens.get(1).getType());
+        assertEquals("Mixed Case", tokens.get(1).getIdentifier());
+        assertEquals("LOWER_CASE", tokens.get(3).getIdentifier());
+        assertTrue(tokens.get(3).isIdentifier());
+        assertTrue(tokens.get(4).is("FROM"));
+    }
+
+    public void testSkipsSqlPlusCommands() throws IOException {
+        List<PlsqlTokenizer.Token> tokens = tokenize("prompt don't stop here\n"
+                + "@@other.sql\n"
+                + "begin\n"
+                + "  x := 1.5;\n"
+                + "end;\n"
+                + "/\n");
+
+        assertEquals(Arrays.asList("begin", "x", ":=", "1.5", ";", "end", ";", "/"), getTexts(tokens));
+        assertEquals(3, tokens.get(0).getLine());
+        assertTrue(tokens.get(0).isFirstOnLine());
+        assertFalse(tokens.get(2).isFirstOnLine());
+        assertEquals(6, tokens.get(7).getLine());
+        assertTrue(tokens.get(7).isFirstOnLine());
+    }
+
+    public void testLineNumbersAfterLiterals() throws IOException {
+        List<PlsqlTokenizer.Token> tokens = tokenize("a := 'two\nlines';\nb;");
+
+        assertEquals(1, tokens.get(2).getLine());
+        assertEquals(3, tokens.get(4).getLine());
+    }
+
+    public void testPushBack() throws IOException {
+        PlsqlTokenizer tokenizer = new PlsqlTokenizer(new StringReader("a b"));
+        PlsqlTokenizer.Token token = tokenizer.next();
+
+        tokenizer.pushBack(token);
+        assertSame(token, tokenizer.next());
+        assertEquals("b", tokenizer.next().getText());
+        assertNull(tokenizer.next());
+    }
+
+    private static List<PlsqlTokenizer.Token> tokenize(String source) throws IOException {
+        PlsqlTokenizer tokenizer = new PlsqlTokenizer(new StringReader(source));
+        List<PlsqlTokenizer.Token> tokens = new ArrayList<PlsqlTokenizer.Token>();
+        PlsqlTokenizer.Token token;
+
+        while ((token = tokenizer.next()) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static List<String> getTexts(String source) throws IOException {
+        return getTexts(tokenize(source));
+    }
+
+    private static List<String> getTexts(List<PlsqlTokenizer.Token> tokens) {
+        List<String> texts = new ArrayList<String>();
+
+        for (PlsqlTokenizer.Token token : tokens) {
+            texts.add(token.getText());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,121 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * Splits scripts with SqlScriptParser and checks the statements it returns.
+ */
+public class SqlScriptParserTest extends TestCase {
+
+    public void testSlashTerminators() throws IOException {
+        List<SqlStatement> statements = parse("select 1 from dual\n"
+                + "/\n"
+                + "begin\n"
+                + "  wwv_flow_api.create_page(p_id => 1);\n"
+                + "end;\n"
+                + "/\n"
+                + "update t set c = 1\n"
+                + "where id = 2;\n");
+
+        assertEquals(3, statements.size());
+        assertStatement(statements.get(0), SqlStatement.Type.SQL, "select 1 from dual", 1);
+        assertStatement(statements.get(1), SqlStatement.Type.PLSQL, "begin\n  wwv_flow_api.create_page(p_id => 1);\nend;", 3);
+        assertStatement(statements.get(2), SqlStatement.Type.SQL, "update t set c = 1\nwhere id = 2", 7);
+    }
+
+    public void testCreateOrReplaceAcrossLines() throws IOException {
+        List<SqlStatement> statements = parse("create or replace\n"
+                + "package body p as\n"
+                + "  procedure x is begin null; end;\n"
+                + "end p;\n"
+                + "/\n"
+                + "create\n"
+                + "  table t (id number);\n");
+
+        assertEquals(2, statements.size());
+        assertStatement(statements.get(0), SqlStatement.Type.PLSQL,
+                "create or replace\npackage body p as\n  procedure x is begin null; end;\nend p;", 1);
+        assertStatement(statements.get(1), SqlStatement.Type.SQL, "create\n  table t (id number)", 6);
+    }
+
+    public void testEditionableProgramUnit() throws IOException {
+        List<SqlStatement> statements = parse("create or replace editionable trigger t_bi\n"
+                + "before insert on t for each row\n"
+                + "begin\n"
+                + "  :new.id := 1;\n"
+                + "end;\n"
+                + "/\n");
+
+        assertEquals(1, statements.size());
+        assertEquals(SqlStatement.Type.PLSQL, statements.get(0).getType());
+    }
+
+    public void testStringLiterals() throws IOException {
+        List<SqlStatement> statements = parse("insert into t values ('a;\n"
+                + "b''s;');\n"
+                + "insert into t values (q'[it's; done]');\n"
+                + "insert into t values (nq'{multi;\n"
+                + "line's}');\n"
+                + "insert into t values (Q'!a;!');\n");
+
+        assertEquals(4, statements.size());
+        assertEquals("insert into t values ('a;\nb''s;')", statements.get(0).getText());
+        assertEquals("insert into t values (q'[it's; done]')", statements.get(1).getText());
+        assertEquals("insert into t values (nq'{multi;\nline's}')", statements.get(2).getText());
+        assertEquals("insert into t values (Q'!a;!')", statements.get(3).getText());
+    }
+
+    public void testComments() throws IOException {
+        List<SqlStatement> statements = parse("-- a comment; with a semicolon\n"
+                + "rem another one\n"
+                + "/* a block;\n"
+                + "comment */ select 1 from dual; \n"
+                + "select 2 -- not the end;\n"
+                + "from dual /* nor this; */;\n");
+
+        assertEquals(2, statements.size());
+        assertEquals("select 1 from dual", statements.get(0).getText().trim());
+        assertEquals("select 2 -- not the end;\nfrom dual /* nor this; */", statements.get(1).getText());
+    }
+
+    public void testCommands() throws IOException {
+        List<SqlStatement> statements = parse("set define off\n"
+                + "prompt --application/pages/page_00001\n"
+                + "@@application/pages/page_00001.sql\n"
+                + "exec wwv_flow_api.import_begin( -\n"
+                + "p_version_yyyy_mm_dd => '2013.01.01')\n"
+                + "set transaction read only;\n");
+
+        assertEquals(5, statements.size());
+        assertStatement(statements.get(0), SqlStatement.Type.COMMAND, "set define off", 1);
+        assertEquals("prompt", statements.get(1).getKeyword());
+        assertEquals("--application/pages/page_00001", statements.get(1).getArguments());
+        assertStatement(statements.get(2), SqlStatement.Type.COMMAND, "@@application/pages/page_00001.sql", 3);
+        assertStatement(statements.get(3), SqlStatement.Type.COMMAND,
+                "exec wwv_flow_api.import_begin( p_version_yyyy_mm_dd => '2013.01.01')", 4);
+        assertStatement(statements.get(4), SqlStatement.Type.SQL, "set transaction read only", 6);
+    }
+
+    private static List<SqlStatement> parse(String script) throws IOException {
+        SqlScriptParser parser = new SqlScriptParser(new StringReader(script), new File("script.sql"));
+        List<SqlStatement> statements = new ArrayList<SqlStatement>();
+        SqlStatement statement;
+
+        while ((statement = parser.next()) != null) {
+            statements.add(statement);
+        }
+        parser.close();
+        return statements;
+    }
+
+    private static void assertStatement(SqlStatement statement, SqlStatement.Type type, String text, int line) {
+        assertEquals(type, statement.getType());
+        assertEquals(text, statement.getText());
+        assertEquals(line, statement.getLine());
+    }
+}
@@ -0,0 +1,288 @@
+package com.contribute.apex.maven.plugins;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver for the jdbc:stub: URL that records the statements it
+ * receives instead of talking to a database. The behavior is configured
+ * through static fields, since the runner instantiates the driver by class
+ * name. Call reset() before every test.
+ */
+public class StubDriver implements Driver {
+
+    /**
+     * How a failing statement in a batch is reported.
+     */
+    public enum BatchMode {
+
+        /**
+         * The update counts stop before the failing statement.
+         */
+        STOP,
+        /**
+         * The batch goes on and the failing statement is marked as
+         * EXECUTE_FAILED.
+         */
+        CONTINUE,
+        /**
+         * The exception has no update counts.
+         */
+        NO_COUNTS
+    }
+    /**
+     * The statements executed on their own, in order.
+     */
+    public static final List<String> executed = new ArrayList<String>();
+    /**
+     * The batches executed, in order.
+     */
+    public static final List<List<String>> batches = new ArrayList<List<String>>();
+    /**
+     * Statements containing one of these texts fail.
+     */
+    public static final Set<String> failing = new HashSet<String>();
+    /**
+     * Statements containing one of these texts raise a warning, like a program
+     * unit created with compilation errors.
+     */
+    public static final Set<String> warning = new HashSet<String>();
+    /**
+     * The dbms_output lines returned by the next get_line calls.
+     */
+    public static final LinkedList<String> serverOutput = new LinkedList<String>();
+    public static BatchMode batchMode;
+    public static String errorMessage;
+    public static boolean autoCommit;
+    public static int commits;
+    public static int rollbacks;
+
+    public static void reset() {
+        executed.clear();
+        batches.clear();
+        failing.clear();
+        warning.clear();
+        serverOutput.clear();
+        batchMode = BatchMode.STOP;
+        errorMessage = "ORA-00942: table or view does not exist";
+        autoCommit = true;
+        commits = 0;
+        rollbacks = 0;
+    }
+
+    /**
+     * @return every statement sent to the database, batched or not, in order.
+     */
+    public static List<String> getAllStatements() {
+        List<String> all = new ArrayList<String>();
+
+        for (List<String> batch : batches) {
+            all.addAll(batch);
+        }
+        all.addAll(executed);
+        return all;
+    }
+
+    public static Connection newConnection() {
+        return proxy(Connection.class, new ConnectionHandler());
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        return newConnection();
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url.startsWith("jdbc:stub:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    private static boolean matches(Set<String> texts, String sql) {
+        for (String text : texts) {
+            if (sql.contains(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static SQLException newError() {
+        return new SQLException(errorMessage);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+
+            if (name.equals("createStatement")) {
+                return proxy(Statement.class, new StatementHandler());
+            } else if (name.equals("prepareCall")) {
+                return proxy(CallableStatement.class, new CallHandler((String) args[0]));
+            } else if (name.equals("setAutoCommit")) {
+                autoCommit = (Boolean) args[0];
+            } else if (name.equals("commit")) {
+                commits++;
+            } else if (name.equals("rollback")) {
+                rollbacks++;
+            }
+            return defaultValue(method.getReturnType());
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final List<String> batch = new ArrayList<String>();
+        private SQLWarning lastWarning;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+            String name = method.getName();
+
+            if (name.equals("execute")) {
+                String sql = (String) args[0];
+                executed.add(sql);
+                if (matches(failing, sql)) {
+                    throw newError();
+                }
+                lastWarning = matches(warning, sql) ? new SQLWarning("Warning: execution completed with warning") : null;
+                return false;
+            } else if (name.equals("addBatch")) {
+                batch.add((String) args[0]);
+            } else if (name.equals("clearBatch")) {
+                batch.clear();
+            } else if (name.equals("executeBatch")) {
+                return executeBatch();
+            } else if (name.equals("getWarnings")) {
+                return lastWarning;
+            } else if (name.equals("clearWarnings")) {
+                lastWarning = null;
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+        private int[] executeBatch() throws BatchUpdateException {
+            List<String> statements = new ArrayList<String>(batch);
+            List<Integer> counts = new ArrayList<Integer>();
+            boolean failed = false;
+
+            batch.clear();
+            batches.add(statements);
+            for (String sql : statements) {
+                if (!matches(failing, sql)) {
+                    counts.add(1);
+                } else if (batchMode == BatchMode.CONTINUE) {
+                    counts.add(Statement.EXECUTE_FAILED);
+                    failed = true;
+                } else {
+                    failed = true;
+                    break;
+                }
+            }
+
+            int[] updateCounts = new int[counts.size()];
+            for (int i = 0; i < updateCounts.length; i++) {
+                updateCounts[i] = counts.get(i);
+            }
+            if (failed) {
+                throw new BatchUpdateException(errorMessage, batchMode == BatchMode.NO_COUNTS ? null : updateCounts);
+            }
+            return updateCounts;
+        }
+    }
+
+    /**
+     * Emulates dbms_output.enable, disable and get_line.
+     */
+    private static class CallHandler implements InvocationHandler {
+
+        private final String sql;
+        private String line;
+        private int status;
+
+        CallHandler(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+
+            if (name.equals("execute")) {
+                executed.add(sql);
+                if (sql.contains("get_line")) {
+                    line = serverOutput.poll();
+                    status = line == null ? 1 : 0;
+                }
+                return false;
+            } else if (name.equals("getString")) {
+                return line;
+            } else if (name.equals("getInt")) {
+                return status;
+            }
+            return defaultValue(method.getReturnType());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.contribute.apex.maven.plugins;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * Resolves the dependencies between supporting objects scripts.
+ */
+public class SupportingObjectScriptTest extends TestCase {
+
+    public void testSeedDataRunsConcurrently() throws IOException {
+        SupportingObjectScript tables = new SupportingObjectScript("tables", 10, "create table dept (id number primary key);\n"
+                + "create table emp (id number, dept_id number references dept);\n");
+        SupportingObjectScript lookups = new SupportingObjectScript("lookups", 20, "create table status (code varchar2(10));\n");
+        SupportingObjectScript deptData = new SupportingObjectScript("dept data", 30, "insert into dept values (1);\n"
+                + "insert into emp values (1, 1);\n");
+        SupportingObjectScript statusData = new SupportingObjectScript("status data", 40, "insert into status values ('NEW');\n");
+
+        SupportingObjectScript.resolveDependencies(Arrays.asList(tables, lookups, deptData, statusData));
+
+        assertFalse(deptData.isSequential());
+        assertEquals(Collections.singletonList(tables), deptData.getDependencies());
+        assertEquals(Collections.singletonList(lookups), statusData.getDependencies());
+        assertTrue(lookups.getDependencies().isEmpty());
+    }
+
+    public void testPlsqlBlocksRunAlone() throws IOException {
+        SupportingObjectScript tables = new SupportingObjectScript("tables", 10, "create table dept (id number);\n");
+        SupportingObjectScript packageScript = new SupportingObjectScript("package", 20, "create or replace package dept_api as\n"
+                + "  procedure load;\n"
+                + "end dept_api;\n"
+                + "/\n");
+        SupportingObjectScript load = new SupportingObjectScript("load", 30, "begin\n"
+                + "  dept_api.load;\n"
+                + "end;\n"
+                + "/\n");
+        SupportingObjectScript other = new SupportingObjectScript("other", 40, "create table other (id number);\n");
+        List<SupportingObjectScript> scripts = Arrays.asList(tables, packageScript, load, other);
+
+        SupportingObjectScript.resolveDependencies(scripts);
+
+        assertFalse(packageScript.isSequential());
+        assertTrue(packageScript.getDependencies().isEmpty());
+        assertTrue(load.isSequential());
+        assertEquals(Arrays.asList(tables, packageScript), load.getDependencies());
+        assertEquals(Collections.singletonList(load), other.getDependencies());
+    }
+
+    public void testExecAndConnectRunAlone() throws IOException {
+        SupportingObjectScript exec = new SupportingObjectScript("exec", 10, "exec dbms_stats.gather_schema_stats(user);\n");
+        SupportingObjectScript connect = new SupportingObjectScript("connect", 20, "connect scott/tiger\n");
+
+        SupportingObjectScript.resolveDependencies(Arrays.asList(exec, connect));
+
+        assertTrue(exec.isSequential());
+        assertTrue(connect.isSequential());
+        assertEquals(Collections.singletonList(exec), connect.getDependencies());
+    }
+}